@@ -37,6 +37,8 @@ import org.projectnessie.model.DiffResponse;
 import org.projectnessie.model.EntriesResponse;
 import org.projectnessie.model.GetMultipleContentsRequest;
 import org.projectnessie.model.GetMultipleContentsResponse;
+import org.projectnessie.model.GetMultipleReferencesContentsRequest;
+import org.projectnessie.model.GetMultipleReferencesContentsResponse;
 import org.projectnessie.model.LogResponse;
 import org.projectnessie.model.MergeResponse;
 import org.projectnessie.model.Operations;
@@ -342,4 +344,23 @@ public interface TreeApi {
           GetMultipleContentsRequest request,
       boolean withDocumentation)
       throws NessieNotFoundException;
+
+  /**
+   * Similar to {@link #getMultipleContents(String, GetMultipleContentsRequest, boolean)}, but
+   * retrieves the contents for the requested {@link ContentKey}s on multiple references at once.
+   *
+   * <p>Contents that are visible on more than one of the requested references are retrieved only
+   * once.
+   *
+   * @param request the references and the {@link ContentKey}s to retrieve on each reference
+   * @param withDocumentation whether to return the documentation, if it exists.
+   * @return one {@link GetMultipleContentsResponse} per requested reference, in the order of the
+   *     request
+   * @throws NessieNotFoundException if any of the requested references does not exist
+   */
+  GetMultipleReferencesContentsResponse getMultipleReferencesContents(
+      @Valid @jakarta.validation.Valid @NotNull @jakarta.validation.constraints.NotNull
+          GetMultipleReferencesContentsRequest request,
+      boolean withDocumentation)
+      throws NessieNotFoundException;
 }
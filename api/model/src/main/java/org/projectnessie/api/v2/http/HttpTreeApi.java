@@ -65,6 +65,8 @@ import org.projectnessie.model.DiffResponse;
 import org.projectnessie.model.EntriesResponse;
 import org.projectnessie.model.GetMultipleContentsRequest;
 import org.projectnessie.model.GetMultipleContentsResponse;
+import org.projectnessie.model.GetMultipleReferencesContentsRequest;
+import org.projectnessie.model.GetMultipleReferencesContentsResponse;
 import org.projectnessie.model.LogResponse;
 import org.projectnessie.model.MergeResponse;
 import org.projectnessie.model.Operations;
@@ -710,6 +712,57 @@ public interface HttpTreeApi extends TreeApi {
           boolean withDocumentation)
       throws NessieNotFoundException;
 
+  @Override
+  @POST
+  @jakarta.ws.rs.POST
+  @Produces(MediaType.APPLICATION_JSON)
+  @jakarta.ws.rs.Produces(jakarta.ws.rs.core.MediaType.APPLICATION_JSON)
+  @Consumes(MediaType.APPLICATION_JSON)
+  @jakarta.ws.rs.Consumes(jakarta.ws.rs.core.MediaType.APPLICATION_JSON)
+  @Path("contents")
+  @jakarta.ws.rs.Path("contents")
+  @Operation(
+      summary = "Get multiple content objects on multiple references.",
+      description =
+          "Similar to 'POST /trees/{ref}/contents', but takes a list of references, each with "
+              + "the 'ContentKey's to retrieve on that reference (in the JSON payload), and "
+              + "returns the content objects per reference in the order of the request.\n"
+              + "\n"
+              + "The references use the same syntax as the 'ref' path parameter of the other "
+              + "operations. Content objects that are visible on more than one of the requested "
+              + "references are only retrieved once.\n"
+              + "\n"
+              + "Note that if some keys from the request do not have an associated content object "
+              + "on a reference, the response will be successful, but no data will be returned "
+              + "for the missing keys.",
+      operationId = "getMultipleReferencesContentsV2")
+  @APIResponses({
+    @APIResponse(
+        responseCode = "200",
+        description = "Retrieved successfully.",
+        content =
+            @Content(
+                mediaType = MediaType.APPLICATION_JSON,
+                schema = @Schema(implementation = GetMultipleReferencesContentsResponse.class))),
+    @APIResponse(responseCode = "400", description = "Invalid input, ref name not valid"),
+    @APIResponse(responseCode = "401", description = "Invalid credentials provided"),
+    @APIResponse(
+        responseCode = "403",
+        description = "Not allowed to view a given reference or read object content for a key"),
+    @APIResponse(responseCode = "404", description = "A provided ref doesn't exists")
+  })
+  @JsonView(Views.V2.class)
+  GetMultipleReferencesContentsResponse getMultipleReferencesContents(
+      @RequestBody(
+              description = "References and the keys to retrieve on each reference.",
+              content = @Content(examples = @ExampleObject(ref = "multiRefGetRequest")))
+          GetMultipleReferencesContentsRequest request,
+      @Parameter(description = WITH_DOC_PARAMETER_DESCRIPTION)
+          @QueryParam("with-doc")
+          @jakarta.ws.rs.QueryParam("with-doc")
+          boolean withDocumentation)
+      throws NessieNotFoundException;
+
   @Override
   @POST
   @jakarta.ws.rs.POST
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.immutables.value.Value;
+
+/** Requests the contents for a list of keys on each of multiple references. */
+@Schema(type = SchemaType.OBJECT, title = "GetMultipleReferencesContentsRequest")
+@Value.Immutable
+@JsonSerialize(as = ImmutableGetMultipleReferencesContentsRequest.class)
+@JsonDeserialize(as = ImmutableGetMultipleReferencesContentsRequest.class)
+public interface GetMultipleReferencesContentsRequest {
+
+  @NotNull
+  @jakarta.validation.constraints.NotNull
+  @Size
+  @jakarta.validation.constraints.Size(min = 1)
+  @Valid
+  @jakarta.validation.Valid
+  List<ReferenceContentsRequest> getReferences();
+
+  static ImmutableGetMultipleReferencesContentsRequest.Builder builder() {
+    return ImmutableGetMultipleReferencesContentsRequest.builder();
+  }
+
+  /** The keys to retrieve on one reference. */
+  @Value.Immutable
+  @JsonSerialize(as = ImmutableReferenceContentsRequest.class)
+  @JsonDeserialize(as = ImmutableReferenceContentsRequest.class)
+  interface ReferenceContentsRequest {
+
+    /**
+     * The reference, using the same syntax as the {@code ref} path parameter, for example {@code
+     * main}, {@code main@1234abcd} or {@code @1234abcd}.
+     */
+    @NotNull
+    @jakarta.validation.constraints.NotNull
+    @Pattern(regexp = Validation.REF_NAME_PATH_REGEX, message = Validation.REF_NAME_PATH_MESSAGE)
+    @jakarta.validation.constraints.Pattern(
+        regexp = Validation.REF_NAME_PATH_REGEX,
+        message = Validation.REF_NAME_PATH_MESSAGE)
+    @Value.Parameter(order = 1)
+    String getRef();
+
+    @NotNull
+    @jakarta.validation.constraints.NotNull
+    @Size
+    @jakarta.validation.constraints.Size(min = 1)
+    @Value.Parameter(order = 2)
+    List<ContentKey> getRequestedKeys();
+
+    static ReferenceContentsRequest of(String ref, List<ContentKey> keys) {
+      return ImmutableReferenceContentsRequest.of(ref, keys);
+    }
+  }
+}
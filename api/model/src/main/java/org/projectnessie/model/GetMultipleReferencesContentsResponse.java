@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.List;
+import javax.validation.constraints.NotNull;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.immutables.value.Value;
+
+@Schema(type = SchemaType.OBJECT, title = "GetMultipleReferencesContentsResponse")
+@Value.Immutable
+@JsonSerialize(as = ImmutableGetMultipleReferencesContentsResponse.class)
+@JsonDeserialize(as = ImmutableGetMultipleReferencesContentsResponse.class)
+public interface GetMultipleReferencesContentsResponse {
+
+  /**
+   * The contents per requested reference, in the order of {@link
+   * GetMultipleReferencesContentsRequest#getReferences()}, each including the effective reference.
+   */
+  @NotNull
+  @jakarta.validation.constraints.NotNull
+  @Value.Parameter(order = 1)
+  List<GetMultipleContentsResponse> getReferences();
+
+  static GetMultipleReferencesContentsResponse of(List<GetMultipleContentsResponse> references) {
+    return ImmutableGetMultipleReferencesContentsResponse.of(references);
+  }
+}
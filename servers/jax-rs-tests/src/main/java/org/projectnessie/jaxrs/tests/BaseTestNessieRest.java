@@ -16,6 +16,7 @@
 package org.projectnessie.jaxrs.tests;
 
 import static io.restassured.RestAssured.given;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
 import static org.assertj.core.api.InstanceOfAssertFactories.list;
@@ -26,6 +27,8 @@ import static org.projectnessie.model.Validation.REF_NAME_MESSAGE;
 import io.restassured.RestAssured;
 import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
 import io.restassured.response.ValidatableResponse;
 import io.restassured.specification.RequestSpecification;
 import java.io.IOException;
@@ -59,6 +62,7 @@ import org.projectnessie.model.DiffResponse;
 import org.projectnessie.model.EntriesResponse;
 import org.projectnessie.model.GetMultipleContentsRequest;
 import org.projectnessie.model.GetMultipleContentsResponse;
+import org.projectnessie.model.GetMultipleReferencesContentsResponse;
 import org.projectnessie.model.IcebergTable;
 import org.projectnessie.model.ImmutableBranch;
 import org.projectnessie.model.ImmutableOperations;
@@ -524,6 +528,55 @@ public abstract class BaseTestNessieRest extends BaseTestNessieApi {
     assertThat(contents).containsExactlyInAnyOrder(entry(key1, "loc1"), entry(key2, "loc2"));
   }
 
+  @NessieApiVersions(versions = {NessieApiVersion.V2})
+  @Test
+  void testGetMultipleReferencesContents() {
+    Branch empty = createBranchV2("multiRefEmpty");
+    Branch branch = createBranchV2("multiRef");
+    ContentKey key1 = ContentKey.of("key1");
+    ContentKey key2 = ContentKey.of("key2");
+    Branch first = commitV2(branch, key1, IcebergTable.of("loc1", 1, 2, 3, 4));
+    branch = commitV2(first, key2, IcebergTable.of("loc2", 1, 2, 3, 4));
+
+    // "key2" is requested twice on the first reference, but returned only once
+    String request =
+        "{\"references\": ["
+            + "{\"ref\": \"multiRef\", \"requestedKeys\": ["
+            + "{\"elements\": [\"key2\"]}, "
+            + "{\"elements\": [\"key1\"]}, "
+            + "{\"elements\": [\"key2\"]}]}, "
+            + "{\"ref\": \"multiRefEmpty\", \"requestedKeys\": [{\"elements\": [\"key1\"]}]}, "
+            + "{\"ref\": \"multiRef@"
+            + first.getHash()
+            + "\", \"requestedKeys\": [{\"elements\": [\"key1\"]}, {\"elements\": [\"key2\"]}]}"
+            + "]}";
+
+    Response response =
+        rest().body(request).post("trees/contents").then().statusCode(200).extract().response();
+
+    // one element per requested reference, in request order
+    JsonPath json = response.jsonPath();
+    assertThat(json.getList("references.effectiveReference.type", String.class))
+        .containsExactly("BRANCH", "BRANCH", "BRANCH");
+    assertThat(json.getList("references.effectiveReference.name", String.class))
+        .containsExactly("multiRef", "multiRefEmpty", "multiRef");
+    assertThat(json.getList("references.effectiveReference.hash", String.class))
+        .containsExactly(branch.getHash(), empty.getHash(), first.getHash());
+    assertThat(json.getList("references[0].contents.key.elements"))
+        .containsExactly(singletonList("key2"), singletonList("key1"));
+    assertThat(json.getList("references[0].contents.content.metadataLocation", String.class))
+        .containsExactly("loc2", "loc1");
+    assertThat(json.getList("references[0].contents.content.type", String.class))
+        .containsExactly("ICEBERG_TABLE", "ICEBERG_TABLE");
+    assertThat(json.getList("references[1].contents")).isEmpty();
+    assertThat(json.getList("references[2].contents.content.metadataLocation", String.class))
+        .containsExactly("loc1");
+
+    assertThat(response.as(GetMultipleReferencesContentsResponse.class).getReferences())
+        .extracting(GetMultipleContentsResponse::getEffectiveReference)
+        .containsExactly(branch, empty, first);
+  }
+
   /** Dedicated test for human-readable references in URL paths. */
   @NessieApiVersions(versions = {NessieApiVersion.V2})
   @Test
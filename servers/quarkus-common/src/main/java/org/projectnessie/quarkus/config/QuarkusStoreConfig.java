@@ -21,6 +21,9 @@ import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithConverter;
 import io.smallrye.config.WithDefault;
 import io.smallrye.config.WithName;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
 import org.projectnessie.versioned.storage.common.config.StoreConfig;
 
 @StaticInitSafe
@@ -76,6 +79,11 @@ public interface QuarkusStoreConfig extends StoreConfig {
   @Override
   int maxIncrementalIndexSize();
 
+  @WithName(CONFIG_MAX_DEFERRED_INCREMENTAL_INDEX_SIZE)
+  @WithDefault("" + DEFAULT_MAX_DEFERRED_INCREMENTAL_INDEX_SIZE)
+  @Override
+  int maxDeferredIncrementalIndexSize();
+
   @WithName(CONFIG_MAX_REFERENCE_STRIPES_PER_COMMIT)
   @WithDefault("" + DEFAULT_MAX_REFERENCE_STRIPES_PER_COMMIT)
   @Override
@@ -91,10 +99,167 @@ public interface QuarkusStoreConfig extends StoreConfig {
   @Override
   boolean validateNamespaces();
 
+  @WithName(CONFIG_COMPLETE_INDEX_CACHE_CAPACITY_MB)
+  @WithDefault("" + DEFAULT_COMPLETE_INDEX_CACHE_CAPACITY_MB)
+  @Override
+  int completeIndexCacheCapacityMb();
+
+  @WithName(CONFIG_COMMON_ANCESTOR_CACHE_SIZE)
+  @WithDefault("" + DEFAULT_COMMON_ANCESTOR_CACHE_SIZE)
+  @Override
+  int commonAncestorCacheSize();
+
+  @WithName(CONFIG_COMMIT_LOG_READ_AHEAD)
+  @WithDefault("" + DEFAULT_COMMIT_LOG_READ_AHEAD)
+  @Override
+  int commitLogReadAhead();
+
+  @WithName(CONFIG_SKIP_POINTER_CACHE_SIZE)
+  @WithDefault("" + DEFAULT_SKIP_POINTER_CACHE_SIZE)
+  @Override
+  int skipPointerCacheSize();
+
+  @WithName(CONFIG_GROUP_COMMIT_WINDOW_MILLIS)
+  @WithDefault("" + DEFAULT_GROUP_COMMIT_WINDOW_MILLIS)
+  @Override
+  long groupCommitWindowMillis();
+
+  @WithName(CONFIG_CONTENT_FETCH_WINDOW_SIZE)
+  @WithDefault("" + DEFAULT_CONTENT_FETCH_WINDOW_SIZE)
+  @Override
+  int contentFetchWindowSize();
+
+  @WithName(CONFIG_INDEX_READ_AHEAD_STRIPES)
+  @WithDefault("" + DEFAULT_INDEX_READ_AHEAD_STRIPES)
+  @Override
+  int indexReadAheadStripes();
+
+  @WithName(CONFIG_BACKGROUND_THREADS)
+  @WithDefault("" + DEFAULT_BACKGROUND_THREADS)
+  @Override
+  int backgroundThreads();
+
+  @WithName(CONFIG_BACKGROUND_QUEUE_SIZE)
+  @WithDefault("" + DEFAULT_BACKGROUND_QUEUE_SIZE)
+  @Override
+  int backgroundQueueSize();
+
   String CONFIG_CACHE_CAPACITY_MB = "cache-capacity-mb";
   int DEFAULT_CACHE_CAPACITY_MB = 0;
 
   @WithName(CONFIG_CACHE_CAPACITY_MB)
   @WithDefault("" + DEFAULT_CACHE_CAPACITY_MB)
   int cacheCapacityMB();
+
+  String CONFIG_CACHE_DESERIALIZED_CAPACITY_MB = "cache-deserialized-capacity-mb";
+  int DEFAULT_CACHE_DESERIALIZED_CAPACITY_MB = 0;
+
+  /**
+   * Amount of heap, out of {@link #cacheCapacityMB()}, used to hold deserialized objects, which
+   * saves the deserialization for cache hits.
+   */
+  @WithName(CONFIG_CACHE_DESERIALIZED_CAPACITY_MB)
+  @WithDefault("" + DEFAULT_CACHE_DESERIALIZED_CAPACITY_MB)
+  int cacheDeserializedCapacityMB();
+
+  String CONFIG_CACHE_REPOSITORY_MIN_CAPACITY_MB = "cache-repository-min-capacity-mb";
+  int DEFAULT_CACHE_REPOSITORY_MIN_CAPACITY_MB = 0;
+
+  /**
+   * Amount of heap, out of {@link #cacheCapacityMB()}, guaranteed to each repository, {@code 0}
+   * means no guaranteed capacity.
+   */
+  @WithName(CONFIG_CACHE_REPOSITORY_MIN_CAPACITY_MB)
+  @WithDefault("" + DEFAULT_CACHE_REPOSITORY_MIN_CAPACITY_MB)
+  int cacheRepositoryMinCapacityMB();
+
+  String CONFIG_CACHE_REPOSITORY_MAX_CAPACITY_MB = "cache-repository-max-capacity-mb";
+  int DEFAULT_CACHE_REPOSITORY_MAX_CAPACITY_MB = 0;
+
+  /**
+   * Maximum amount of heap, out of {@link #cacheCapacityMB()}, that a single repository can use,
+   * {@code 0} means no limit.
+   */
+  @WithName(CONFIG_CACHE_REPOSITORY_MAX_CAPACITY_MB)
+  @WithDefault("" + DEFAULT_CACHE_REPOSITORY_MAX_CAPACITY_MB)
+  int cacheRepositoryMaxCapacityMB();
+
+  String CONFIG_CACHE_OFF_HEAP = "cache-off-heap";
+  boolean DEFAULT_CACHE_OFF_HEAP = false;
+
+  /**
+   * Whether serialized objects are cached in direct memory instead of the Java heap, which avoids
+   * long GC pauses for caches of multiple gigabytes. Requires an appropriate {@code
+   * -XX:MaxDirectMemorySize} setting, {@link #cacheDeserializedCapacityMB()} is ignored.
+   */
+  @WithName(CONFIG_CACHE_OFF_HEAP)
+  @WithDefault("" + DEFAULT_CACHE_OFF_HEAP)
+  boolean cacheOffHeap();
+
+  String CONFIG_CACHE_DISK_PATH = "cache-disk-path";
+
+  /**
+   * Local directory for a persistent second-level objects cache, which survives restarts and sits
+   * between the heap cache and the backend. Not set by default, which disables the disk cache.
+   */
+  @WithName(CONFIG_CACHE_DISK_PATH)
+  Optional<Path> cacheDiskPath();
+
+  String CONFIG_CACHE_DISK_CAPACITY_MB = "cache-disk-capacity-mb";
+  int DEFAULT_CACHE_DISK_CAPACITY_MB = 1024;
+
+  /** Disk space used by the persistent objects cache, see {@link #cacheDiskPath()}. */
+  @WithName(CONFIG_CACHE_DISK_CAPACITY_MB)
+  @WithDefault("" + DEFAULT_CACHE_DISK_CAPACITY_MB)
+  int cacheDiskCapacityMB();
+
+  String CONFIG_CACHE_WARMUP_REFERENCES = "cache-warmup-references";
+  int DEFAULT_CACHE_WARMUP_REFERENCES = 0;
+
+  /**
+   * Number of most recently updated references to load into the objects cache after startup,
+   * {@code 0} disables the warm-up, unless {@link #cacheWarmupReferenceNames()} is set.
+   */
+  @WithName(CONFIG_CACHE_WARMUP_REFERENCES)
+  @WithDefault("" + DEFAULT_CACHE_WARMUP_REFERENCES)
+  int cacheWarmupReferences();
+
+  String CONFIG_CACHE_WARMUP_REFERENCE_NAMES = "cache-warmup-reference-names";
+
+  /**
+   * Full names of the references to load into the objects cache after startup, for example {@code
+   * refs/heads/main}, takes precedence over {@link #cacheWarmupReferences()}.
+   */
+  @WithName(CONFIG_CACHE_WARMUP_REFERENCE_NAMES)
+  Optional<List<String>> cacheWarmupReferenceNames();
+
+  String CONFIG_CACHE_WARMUP_COMMIT_LOG_DEPTH = "cache-warmup-commit-log-depth";
+  int DEFAULT_CACHE_WARMUP_COMMIT_LOG_DEPTH = 20;
+
+  /** Number of commits per reference loaded into the objects cache during warm-up. */
+  @WithName(CONFIG_CACHE_WARMUP_COMMIT_LOG_DEPTH)
+  @WithDefault("" + DEFAULT_CACHE_WARMUP_COMMIT_LOG_DEPTH)
+  int cacheWarmupCommitLogDepth();
+
+  String CONFIG_CACHE_WARMUP_TIMEOUT_MILLIS = "cache-warmup-timeout-millis";
+  long DEFAULT_CACHE_WARMUP_TIMEOUT_MILLIS = 30_000L;
+
+  /**
+   * Time budget of the objects cache warm-up in milliseconds, the readiness check reports "up"
+   * when the warm-up has finished or this time budget is exhausted.
+   */
+  @WithName(CONFIG_CACHE_WARMUP_TIMEOUT_MILLIS)
+  @WithDefault("" + DEFAULT_CACHE_WARMUP_TIMEOUT_MILLIS)
+  long cacheWarmupTimeoutMillis();
+
+  String CONFIG_REFERENCE_CACHE_TTL_MILLIS = "reference-cache-ttl-millis";
+  long DEFAULT_REFERENCE_CACHE_TTL_MILLIS = 0L;
+
+  /**
+   * Duration in milliseconds for which references are cached, which is the maximum staleness of
+   * references updated by other Nessie instances. {@code 0} disables the reference cache.
+   */
+  @WithName(CONFIG_REFERENCE_CACHE_TTL_MILLIS)
+  @WithDefault("" + DEFAULT_REFERENCE_CACHE_TTL_MILLIS)
+  long referenceCacheTtlMillis();
 }
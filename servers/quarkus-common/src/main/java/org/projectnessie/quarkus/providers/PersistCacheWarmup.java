@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.quarkus.providers;
+
+import io.quarkus.runtime.StartupEvent;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import org.projectnessie.quarkus.config.QuarkusStoreConfig;
+import org.projectnessie.quarkus.config.VersionStoreConfig;
+import org.projectnessie.versioned.storage.cache.CacheWarmup;
+import org.projectnessie.versioned.storage.cache.CacheWarmupConfig;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the {@link CacheWarmup} in the background after startup, if enabled via {@link
+ * QuarkusStoreConfig#cacheWarmupReferences()} or {@link
+ * QuarkusStoreConfig#cacheWarmupReferenceNames()}.
+ */
+@ApplicationScoped
+public class PersistCacheWarmup {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PersistCacheWarmup.class);
+
+  private final VersionStoreConfig versionStoreConfig;
+  private final QuarkusStoreConfig storeConfig;
+  private final Instance<Persist> persist;
+
+  private volatile boolean finished;
+  private volatile long deadline;
+
+  @Inject
+  public PersistCacheWarmup(
+      VersionStoreConfig versionStoreConfig,
+      QuarkusStoreConfig storeConfig,
+      @Any Instance<Persist> persist) {
+    this.versionStoreConfig = versionStoreConfig;
+    this.storeConfig = storeConfig;
+    this.persist = persist;
+  }
+
+  /** Whether the warm-up has finished, exceeded its time budget or is disabled. */
+  public boolean isFinished() {
+    long d = deadline;
+    return finished || (d != 0L && System.nanoTime() - d > 0L);
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    CacheWarmupConfig config = warmupConfig();
+    if (config == null) {
+      finished = true;
+      return;
+    }
+    deadline = System.nanoTime() + config.timeBudget().toNanos();
+
+    Thread thread = new Thread(() -> runWarmup(config), "nessie-cache-warmup");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private CacheWarmupConfig warmupConfig() {
+    if (!versionStoreConfig.getVersionStoreType().isNewStorage()
+        || storeConfig.cacheCapacityMB() <= 0) {
+      return null;
+    }
+    CacheWarmupConfig.Builder builder =
+        CacheWarmupConfig.builder()
+            .maxReferences(storeConfig.cacheWarmupReferences())
+            .commitLogDepth(storeConfig.cacheWarmupCommitLogDepth())
+            .timeBudget(Duration.ofMillis(storeConfig.cacheWarmupTimeoutMillis()));
+    storeConfig.cacheWarmupReferenceNames().ifPresent(builder::addAllReferences);
+    CacheWarmupConfig config = builder.build();
+    if (config.references().isEmpty() && config.maxReferences() == 0) {
+      return null;
+    }
+    return config;
+  }
+
+  private void runWarmup(CacheWarmupConfig config) {
+    long start = System.nanoTime();
+    try {
+      LOGGER.info("Warming up objects cache ...");
+      Persist p = persist.select(WIthInitializedRepository.Literal.INSTANCE).get();
+      long fetched = CacheWarmup.warmup(p, config);
+      LOGGER.info(
+          "Objects cache warm-up fetched {} objects in {} ms",
+          fetched,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } catch (Exception e) {
+      LOGGER.warn("Objects cache warm-up failed", e);
+    } finally {
+      finished = true;
+    }
+  }
+}
@@ -16,10 +16,12 @@
 package org.projectnessie.quarkus.providers;
 
 import static org.projectnessie.versioned.storage.common.logic.Logics.repositoryLogic;
+import static org.projectnessie.versioned.storage.common.persist.BackgroundExecutor.newBackgroundExecutor;
 
 import io.opentelemetry.api.trace.Tracer;
 import io.quarkus.runtime.Startup;
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.time.Duration;
 import java.util.function.BiFunction;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Any;
@@ -35,8 +37,13 @@ import org.projectnessie.quarkus.config.VersionStoreConfig.VersionStoreType;
 import org.projectnessie.quarkus.providers.StoreType.Literal;
 import org.projectnessie.services.config.ServerConfig;
 import org.projectnessie.versioned.storage.cache.CacheBackend;
+import org.projectnessie.versioned.storage.cache.CacheConfig;
+import org.projectnessie.versioned.storage.cache.DiskCacheConfig;
 import org.projectnessie.versioned.storage.cache.PersistCaches;
+import org.projectnessie.versioned.storage.cache.PersistentCacheBackend;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
 import org.projectnessie.versioned.storage.common.persist.Backend;
+import org.projectnessie.versioned.storage.common.persist.BackgroundExecutor;
 import org.projectnessie.versioned.storage.common.persist.Persist;
 import org.projectnessie.versioned.storage.common.persist.PersistFactory;
 import org.projectnessie.versioned.storage.telemetry.TelemetryPersistFactory;
@@ -47,7 +54,10 @@ import org.slf4j.LoggerFactory;
 @RegisterForReflection(
     classNames = {
       "com.github.benmanes.caffeine.cache.SSSMW",
-      "com.github.benmanes.caffeine.cache.PSMW"
+      "com.github.benmanes.caffeine.cache.PSMW",
+      "com.github.benmanes.caffeine.cache.SSSMSW",
+      "com.github.benmanes.caffeine.cache.PSWMS",
+      "com.github.benmanes.caffeine.cache.SSMW"
     })
 public class PersistProvider {
   private static final Logger LOGGER = LoggerFactory.getLogger(PersistProvider.class);
@@ -58,12 +68,14 @@ public class PersistProvider {
   private final ServerConfig serverConfig;
   private final QuarkusStoreConfig storeConfig;
   private final Instance<Tracer> opentelemetryTracer;
+  private final Instance<PersistentCacheBackend> diskCacheBackend;
 
   @Inject
   public PersistProvider(
       @Any Instance<Tracer> opentelemetryTracer,
       @Any Instance<BackendBuilder> backendBuilder,
       @Any Instance<Backend> backend,
+      @Any Instance<PersistentCacheBackend> diskCacheBackend,
       VersionStoreConfig versionStoreConfig,
       QuarkusStoreConfig storeConfig,
       ServerConfig serverConfig) {
@@ -73,6 +85,7 @@ public class PersistProvider {
     this.storeConfig = storeConfig;
     this.serverConfig = serverConfig;
     this.opentelemetryTracer = opentelemetryTracer;
+    this.diskCacheBackend = diskCacheBackend;
   }
 
   @Produces
@@ -102,6 +115,38 @@ public class PersistProvider {
     }
   }
 
+  @Produces
+  @Singleton
+  public PersistentCacheBackend produceDiskCacheBackend() {
+    VersionStoreType versionStoreType = versionStoreConfig.getVersionStoreType();
+    if (!versionStoreType.isNewStorage() || !storeConfig.cacheDiskPath().isPresent()) {
+      return null;
+    }
+
+    return PersistCaches.newDiskBackend(
+        DiskCacheConfig.builder()
+            .path(storeConfig.cacheDiskPath().get())
+            .capacity(1024L * 1024L * storeConfig.cacheDiskCapacityMB())
+            .build());
+  }
+
+  public void closeDiskCacheBackend(@Disposes PersistentCacheBackend diskCacheBackend) {
+    if (diskCacheBackend != null) {
+      LOGGER.info("Closing disk cache {}", diskCacheBackend);
+      diskCacheBackend.close();
+    }
+  }
+
+  @Produces
+  @Singleton
+  public BackgroundExecutor produceBackgroundExecutor() {
+    return newBackgroundExecutor(storeConfig);
+  }
+
+  public void closeBackgroundExecutor(@Disposes BackgroundExecutor backgroundExecutor) {
+    backgroundExecutor.close();
+  }
+
   @Produces
   @Singleton
   @WIthInitializedRepository
@@ -118,7 +163,7 @@ public class PersistProvider {
   @Singleton
   @Startup
   @Default
-  public Persist producePersist() {
+  public Persist producePersist(BackgroundExecutor backgroundExecutor) {
     VersionStoreType versionStoreType = versionStoreConfig.getVersionStoreType();
     if (!versionStoreType.isNewStorage()) {
       return null;
@@ -148,7 +193,11 @@ public class PersistProvider {
     }
 
     PersistFactory persistFactory = b.createFactory();
-    Persist persist = persistFactory.newPersist(storeConfig);
+    Persist persist =
+        persistFactory.newPersist(
+            StoreConfig.Adjustable.empty()
+                .from(storeConfig)
+                .withBackgroundExecutor(backgroundExecutor));
     persist = wrapPersistTracing.apply(persist, persist.name());
 
     String info = b.configInfo();
@@ -157,15 +206,63 @@ public class PersistProvider {
     }
 
     String cacheInfo;
+    PersistentCacheBackend diskCache =
+        diskCacheBackend.isUnsatisfied() ? null : diskCacheBackend.get();
+    String diskCacheInfo;
+    if (diskCache != null) {
+      persist = diskCache.wrap(persist);
+      persist = wrapPersistTracing.apply(persist, "DiskCache");
+      diskCacheInfo =
+          ", "
+              + storeConfig.cacheDiskCapacityMB()
+              + " MB disk cache in "
+              + storeConfig.cacheDiskPath().orElse(null);
+    } else {
+      diskCacheInfo = "";
+    }
+
     int cacheCapacityMB = storeConfig.cacheCapacityMB();
     if (cacheCapacityMB > 0) {
-      CacheBackend cacheBackend = PersistCaches.newBackend(1024L * 1024L * cacheCapacityMB);
+      boolean cacheOffHeap = storeConfig.cacheOffHeap();
+      int cacheDeserializedCapacityMB =
+          cacheOffHeap ? 0 : Math.min(storeConfig.cacheDeserializedCapacityMB(), cacheCapacityMB);
+      int cacheRepositoryMaxCapacityMB =
+          Math.min(storeConfig.cacheRepositoryMaxCapacityMB(), cacheCapacityMB);
+      int cacheRepositoryMinCapacityMB = storeConfig.cacheRepositoryMinCapacityMB();
+      if (cacheRepositoryMaxCapacityMB > 0) {
+        cacheRepositoryMinCapacityMB =
+            Math.min(cacheRepositoryMinCapacityMB, cacheRepositoryMaxCapacityMB);
+      }
+      CacheBackend cacheBackend =
+          PersistCaches.newBackend(
+              CacheConfig.builder()
+                  .capacity(1024L * 1024L * cacheCapacityMB)
+                  .deserializedCapacity(1024L * 1024L * cacheDeserializedCapacityMB)
+                  .referenceTtl(Duration.ofMillis(storeConfig.referenceCacheTtlMillis()))
+                  .repositoryMinCapacity(1024L * 1024L * cacheRepositoryMinCapacityMB)
+                  .repositoryMaxCapacity(1024L * 1024L * cacheRepositoryMaxCapacityMB)
+                  .offHeap(cacheOffHeap)
+                  .build());
       persist = cacheBackend.wrap(persist);
       persist = wrapPersistTracing.apply(persist, "Cache");
-      cacheInfo = "with " + cacheCapacityMB + " MB objects cache";
+      cacheInfo =
+          "with " + cacheCapacityMB + " MB " + (cacheOffHeap ? "off-heap " : "") + "objects cache";
+      if (cacheDeserializedCapacityMB > 0) {
+        cacheInfo += " (" + cacheDeserializedCapacityMB + " MB for deserialized objects)";
+      }
+      if (!cacheOffHeap
+          && (cacheRepositoryMinCapacityMB > 0 || cacheRepositoryMaxCapacityMB > 0)) {
+        int maxMB =
+            cacheRepositoryMaxCapacityMB > 0 ? cacheRepositoryMaxCapacityMB : cacheCapacityMB;
+        cacheInfo += ", " + cacheRepositoryMinCapacityMB + " MB to " + maxMB + " MB per repository";
+      }
+      if (storeConfig.referenceCacheTtlMillis() > 0L) {
+        cacheInfo += ", references cached for " + storeConfig.referenceCacheTtlMillis() + " ms";
+      }
     } else {
       cacheInfo = "without objects cache";
     }
+    cacheInfo += diskCacheInfo;
 
     LOGGER.info("Using {} version store{}, {}, {}", versionStoreType, info, cacheInfo, tracingInfo);
 
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.server.health;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+import org.projectnessie.quarkus.providers.PersistCacheWarmup;
+
+/** Reports "not ready" until the objects cache warm-up has finished or its time budget is over. */
+@Readiness
+@ApplicationScoped
+public class CacheWarmupReadinessCheck implements HealthCheck {
+
+  @Inject PersistCacheWarmup cacheWarmup;
+
+  @Override
+  public HealthCheckResponse call() {
+    return HealthCheckResponse.named("Objects cache warm-up")
+        .status(cacheWarmup.isFinished())
+        .build();
+  }
+}
@@ -17,10 +17,12 @@ package org.projectnessie.services.rest;
 
 import static org.projectnessie.api.v2.params.ReferenceResolver.resolveReferencePathElement;
 import static org.projectnessie.services.impl.RefUtil.toReference;
+import static org.projectnessie.services.spi.ContentService.ReferenceKeys.referenceKeys;
 import static org.projectnessie.services.spi.TreeService.MAX_COMMIT_LOG_ENTRIES;
 
 import com.fasterxml.jackson.annotation.JsonView;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import org.projectnessie.api.v2.http.HttpTreeApi;
@@ -43,6 +45,8 @@ import org.projectnessie.model.DiffResponse.DiffEntry;
 import org.projectnessie.model.EntriesResponse;
 import org.projectnessie.model.GetMultipleContentsRequest;
 import org.projectnessie.model.GetMultipleContentsResponse;
+import org.projectnessie.model.GetMultipleReferencesContentsRequest;
+import org.projectnessie.model.GetMultipleReferencesContentsResponse;
 import org.projectnessie.model.ImmutableCommitMeta;
 import org.projectnessie.model.ImmutableDiffResponse;
 import org.projectnessie.model.ImmutableEntriesResponse;
@@ -59,6 +63,7 @@ import org.projectnessie.model.SingleReferenceResponse;
 import org.projectnessie.model.ser.Views;
 import org.projectnessie.services.spi.ConfigService;
 import org.projectnessie.services.spi.ContentService;
+import org.projectnessie.services.spi.ContentService.ReferenceKeys;
 import org.projectnessie.services.spi.DiffService;
 import org.projectnessie.services.spi.PagedCountingResponseHandler;
 import org.projectnessie.services.spi.TreeService;
@@ -340,6 +345,24 @@ public class RestV2TreeResource implements HttpTreeApi {
             withDocumentation);
   }
 
+  @JsonView(Views.V2.class)
+  @Override
+  public GetMultipleReferencesContentsResponse getMultipleReferencesContents(
+      GetMultipleReferencesContentsRequest request, boolean withDocumentation)
+      throws NessieNotFoundException {
+    List<ReferenceKeys> references =
+        request.getReferences().stream()
+            .map(
+                r -> {
+                  ParsedReference reference = parseRefPathString(r.getRef());
+                  return referenceKeys(
+                      reference.name(), reference.hashWithRelativeSpec(), r.getRequestedKeys());
+                })
+            .collect(Collectors.toList());
+    return GetMultipleReferencesContentsResponse.of(
+        content().getMultipleReferencesContents(references, withDocumentation));
+  }
+
   @JsonView(Views.V2.class)
   @Override
   public MergeResponse transplantCommitsIntoBranch(String branch, Transplant transplant)
@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.services.cel;
+
+import static org.projectnessie.services.cel.CELUtil.SCRIPT_CACHE_SIZE;
+import static org.projectnessie.services.cel.CELUtil.VAR_COMMIT;
+import static org.projectnessie.services.cel.CELUtil.VAR_ENTRY;
+
+import com.google.api.expr.v1alpha1.Constant;
+import com.google.api.expr.v1alpha1.Expr;
+import com.google.api.expr.v1alpha1.Expr.Call;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import org.projectnessie.cel.Env;
+import org.projectnessie.cel.Env.AstIssuesTuple;
+import org.projectnessie.model.CommitMeta;
+import org.projectnessie.model.Content;
+import org.projectnessie.model.ContentKey;
+import org.projectnessie.model.Namespace;
+import org.projectnessie.versioned.ImmutableKeyRestrictions;
+import org.projectnessie.versioned.VersionStore.KeyRestrictions;
+
+/**
+ * Extracts conditions from CEL filter expressions, which can be evaluated on the raw data of the
+ * version store, before an entry or a log entry is built and before the CEL script is evaluated.
+ *
+ * <p>Only the top-level conjuncts of an expression are considered, simple comparisons of a field
+ * of the {@code entry} or {@code commit} variable against a literal, everything else is left to the
+ * CEL script. The extracted conditions are implied by the expression, so the CEL script must still
+ * be evaluated for the elements that match the extracted conditions.
+ *
+ * <p>Like the compiled scripts in {@link CELUtil#compiledScript}, the extracted conditions are
+ * cached per filter expression. The conditions only capture immutable literals and can be used
+ * concurrently.
+ */
+public final class CELFilterPlanner {
+
+  private static final String AND = "_&&_";
+  private static final String EQUALS = "_==_";
+  private static final String LESS = "_<_";
+  private static final String LESS_EQUALS = "_<=_";
+  private static final String GREATER = "_>_";
+  private static final String GREATER_EQUALS = "_>=_";
+  private static final String IN = "@in";
+  private static final String STARTS_WITH = "startsWith";
+  private static final String TIMESTAMP = "timestamp";
+
+  private static final Env ENV = Env.newEnv();
+
+  private static final Cache<String, EntriesPushdown> ENTRIES_PLANS =
+      CacheBuilder.newBuilder().maximumSize(SCRIPT_CACHE_SIZE).build();
+  private static final Cache<String, Optional<Predicate<CommitMeta>>> COMMIT_LOG_PLANS =
+      CacheBuilder.newBuilder().maximumSize(SCRIPT_CACHE_SIZE).build();
+
+  private CELFilterPlanner() {}
+
+  /** Conditions extracted from a filter expression for entries. */
+  public static final class EntriesPushdown {
+    static final EntriesPushdown NONE = new EntriesPushdown(null, null, null);
+
+    private final ContentKey prefixKey;
+    private final Predicate<ContentKey> contentKeyPredicate;
+    private final Predicate<Content.Type> contentTypePredicate;
+
+    private EntriesPushdown(
+        ContentKey prefixKey,
+        Predicate<ContentKey> contentKeyPredicate,
+        Predicate<Content.Type> contentTypePredicate) {
+      this.prefixKey = prefixKey;
+      this.contentKeyPredicate = contentKeyPredicate;
+      this.contentTypePredicate = contentTypePredicate;
+    }
+
+    /** Key prefix of all matching entries, if the expression restricts the namespace. */
+    @Nullable
+    @jakarta.annotation.Nullable
+    public ContentKey prefixKey() {
+      return prefixKey;
+    }
+
+    @Nullable
+    @jakarta.annotation.Nullable
+    public Predicate<ContentKey> contentKeyPredicate() {
+      return contentKeyPredicate;
+    }
+
+    @Nullable
+    @jakarta.annotation.Nullable
+    public Predicate<Content.Type> contentTypePredicate() {
+      return contentTypePredicate;
+    }
+
+    /**
+     * Adds the extracted conditions to the given key restrictions. The prefix key is only used, if
+     * it does not conflict with the given restrictions.
+     */
+    public KeyRestrictions applyTo(KeyRestrictions keyRestrictions) {
+      ImmutableKeyRestrictions.Builder builder = KeyRestrictions.builder().from(keyRestrictions);
+      if (prefixKey != null
+          && keyRestrictions.minKey() == null
+          && keyRestrictions.maxKey() == null
+          && (keyRestrictions.prefixKey() == null
+              || startsWith(prefixKey, keyRestrictions.prefixKey()))) {
+        builder.prefixKey(prefixKey);
+      }
+      if (contentKeyPredicate != null) {
+        builder.contentKeyPredicate(
+            and(keyRestrictions.contentKeyPredicate(), contentKeyPredicate));
+      }
+      if (contentTypePredicate != null) {
+        builder.contentTypePredicate(
+            and(keyRestrictions.contentTypePredicate(), contentTypePredicate));
+      }
+      return builder.build();
+    }
+  }
+
+  /** Extracts the conditions on keys and content types from a filter expression for entries. */
+  public static EntriesPushdown planEntries(String filter) {
+    if (Strings.isNullOrEmpty(filter)) {
+      return EntriesPushdown.NONE;
+    }
+    EntriesPushdown plan = ENTRIES_PLANS.getIfPresent(filter);
+    if (plan == null) {
+      plan = doPlanEntries(filter);
+      ENTRIES_PLANS.put(filter, plan);
+    }
+    return plan;
+  }
+
+  private static EntriesPushdown doPlanEntries(String filter) {
+    EntriesPlanner planner = new EntriesPlanner();
+    for (Expr conjunct : conjuncts(filter)) {
+      Call call = conjunct.getCallExpr();
+      switch (call.getFunction()) {
+        case EQUALS:
+          if (call.getArgsCount() == 2) {
+            planner.equalsCondition(
+                fieldOf(call.getArgs(0), call.getArgs(1), VAR_ENTRY),
+                stringLiteral(call.getArgs(0), call.getArgs(1)));
+          }
+          break;
+        case IN:
+          if (call.getArgsCount() == 2) {
+            planner.inCondition(
+                fieldOf(call.getArgs(0), VAR_ENTRY), stringLiterals(call.getArgs(1)));
+          }
+          break;
+        case STARTS_WITH:
+          if (call.hasTarget() && call.getArgsCount() == 1) {
+            planner.startsWithCondition(
+                fieldOf(call.getTarget(), VAR_ENTRY), stringLiteral(call.getArgs(0)));
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return planner.build();
+  }
+
+  private static final class EntriesPlanner {
+    private ContentKey prefixKey;
+    private Predicate<ContentKey> keyPredicate;
+    private Predicate<Content.Type> typePredicate;
+
+    void equalsCondition(String field, String literal) {
+      if (field == null || literal == null) {
+        return;
+      }
+      if ("contentType".equals(field)) {
+        typePredicate = and(typePredicate, t -> t.name().equals(literal));
+        return;
+      }
+      Function<ContentKey, String> attribute = keyAttribute(field);
+      if (attribute != null) {
+        keyPredicate = and(keyPredicate, k -> literal.equals(attribute.apply(k)));
+        if ("namespace".equals(field) && prefixKey == null) {
+          prefixKey = namespacePrefix(literal);
+        }
+      }
+    }
+
+    void inCondition(String field, Set<String> literals) {
+      if ("contentType".equals(field) && literals != null) {
+        typePredicate = and(typePredicate, t -> literals.contains(t.name()));
+      }
+    }
+
+    void startsWithCondition(String field, String literal) {
+      Function<ContentKey, String> attribute = field != null ? keyAttribute(field) : null;
+      if (attribute != null && literal != null) {
+        keyPredicate = and(keyPredicate, k -> attribute.apply(k).startsWith(literal));
+      }
+    }
+
+    EntriesPushdown build() {
+      return prefixKey != null || keyPredicate != null || typePredicate != null
+          ? new EntriesPushdown(prefixKey, keyPredicate, typePredicate)
+          : EntriesPushdown.NONE;
+    }
+  }
+
+  /**
+   * Extracts the conditions on the author, committer and the commit and author timestamps from a
+   * filter expression for the commit log.
+   *
+   * @return predicate on the commit's metadata or {@code null}, if nothing could be extracted
+   */
+  @Nullable
+  @jakarta.annotation.Nullable
+  public static Predicate<CommitMeta> planCommitLog(String filter) {
+    if (Strings.isNullOrEmpty(filter)) {
+      return null;
+    }
+    Optional<Predicate<CommitMeta>> plan = COMMIT_LOG_PLANS.getIfPresent(filter);
+    if (plan == null) {
+      plan = Optional.ofNullable(doPlanCommitLog(filter));
+      COMMIT_LOG_PLANS.put(filter, plan);
+    }
+    return plan.orElse(null);
+  }
+
+  private static Predicate<CommitMeta> doPlanCommitLog(String filter) {
+    Predicate<CommitMeta> predicate = null;
+    for (Expr conjunct : conjuncts(filter)) {
+      Call call = conjunct.getCallExpr();
+      if (call.getArgsCount() != 2) {
+        continue;
+      }
+      Expr left = call.getArgs(0);
+      Expr right = call.getArgs(1);
+      String function = call.getFunction();
+      if (fieldOf(left, VAR_COMMIT) == null) {
+        // normalize 'literal OP commit.field' to 'commit.field OP literal'
+        Expr swap = left;
+        left = right;
+        right = swap;
+        function = reverse(function);
+      }
+      String field = fieldOf(left, VAR_COMMIT);
+      if (field == null || function == null) {
+        continue;
+      }
+
+      Predicate<CommitMeta> condition = null;
+      if (EQUALS.equals(function)) {
+        String literal = stringLiteral(right);
+        if (literal != null) {
+          if ("author".equals(field)) {
+            condition = m -> m.getAuthor() == null || literal.equals(m.getAuthor());
+          } else if ("committer".equals(field)) {
+            condition = m -> m.getCommitter() == null || literal.equals(m.getCommitter());
+          }
+        }
+      } else {
+        Instant bound = timestampLiteral(right);
+        Function<CommitMeta, Instant> time = null;
+        if ("commitTime".equals(field)) {
+          time = CommitMeta::getCommitTime;
+        } else if ("authorTime".equals(field)) {
+          time = CommitMeta::getAuthorTime;
+        }
+        if (bound != null && time != null) {
+          condition = timeCondition(time, function, bound);
+        }
+      }
+      if (condition != null) {
+        predicate = and(predicate, condition);
+      }
+    }
+    return predicate;
+  }
+
+  private static Predicate<CommitMeta> timeCondition(
+      Function<CommitMeta, Instant> time, String function, Instant bound) {
+    Predicate<Instant> test;
+    switch (function) {
+      case LESS:
+        test = t -> t.isBefore(bound);
+        break;
+      case LESS_EQUALS:
+        test = t -> !t.isAfter(bound);
+        break;
+      case GREATER:
+        test = t -> t.isAfter(bound);
+        break;
+      case GREATER_EQUALS:
+        test = t -> !t.isBefore(bound);
+        break;
+      default:
+        return null;
+    }
+    return m -> {
+      Instant t = time.apply(m);
+      return t == null || test.test(t);
+    };
+  }
+
+  private static String reverse(String function) {
+    switch (function) {
+      case EQUALS:
+        return EQUALS;
+      case LESS:
+        return GREATER;
+      case LESS_EQUALS:
+        return GREATER_EQUALS;
+      case GREATER:
+        return LESS;
+      case GREATER_EQUALS:
+        return LESS_EQUALS;
+      default:
+        return null;
+    }
+  }
+
+  /** Returns the top-level conjuncts of the parsed expression that are function calls. */
+  private static List<Expr> conjuncts(String filter) {
+    List<Expr> conjuncts = new ArrayList<>();
+    if (Strings.isNullOrEmpty(filter)) {
+      return conjuncts;
+    }
+    AstIssuesTuple parsed = ENV.parse(filter);
+    if (parsed.hasIssues()) {
+      // compiling the script reports the issues
+      return conjuncts;
+    }
+    collectConjuncts(parsed.getAst().getExpr(), conjuncts);
+    return conjuncts;
+  }
+
+  private static void collectConjuncts(Expr expr, List<Expr> conjuncts) {
+    if (expr.getExprKindCase() != Expr.ExprKindCase.CALL_EXPR) {
+      return;
+    }
+    Call call = expr.getCallExpr();
+    if (AND.equals(call.getFunction())) {
+      call.getArgsList().forEach(arg -> collectConjuncts(arg, conjuncts));
+    } else {
+      conjuncts.add(expr);
+    }
+  }
+
+  /** Returns the field name, if one of the expressions selects a field of the given variable. */
+  private static String fieldOf(Expr a, Expr b, String variable) {
+    String field = fieldOf(a, variable);
+    return field != null ? field : fieldOf(b, variable);
+  }
+
+  private static String fieldOf(Expr expr, String variable) {
+    if (expr.getExprKindCase() != Expr.ExprKindCase.SELECT_EXPR) {
+      return null;
+    }
+    Expr.Select select = expr.getSelectExpr();
+    Expr operand = select.getOperand();
+    return !select.getTestOnly()
+            && operand.getExprKindCase() == Expr.ExprKindCase.IDENT_EXPR
+            && variable.equals(operand.getIdentExpr().getName())
+        ? select.getField()
+        : null;
+  }
+
+  private static String stringLiteral(Expr a, Expr b) {
+    String literal = stringLiteral(a);
+    return literal != null ? literal : stringLiteral(b);
+  }
+
+  private static String stringLiteral(Expr expr) {
+    if (expr.getExprKindCase() != Expr.ExprKindCase.CONST_EXPR) {
+      return null;
+    }
+    Constant constant = expr.getConstExpr();
+    return constant.getConstantKindCase() == Constant.ConstantKindCase.STRING_VALUE
+        ? constant.getStringValue()
+        : null;
+  }
+
+  private static Set<String> stringLiterals(Expr expr) {
+    if (expr.getExprKindCase() != Expr.ExprKindCase.LIST_EXPR) {
+      return null;
+    }
+    Set<String> literals = new HashSet<>();
+    for (Expr element : expr.getListExpr().getElementsList()) {
+      String literal = stringLiteral(element);
+      if (literal == null) {
+        return null;
+      }
+      literals.add(literal);
+    }
+    return literals;
+  }
+
+  private static Instant timestampLiteral(Expr expr) {
+    if (expr.getExprKindCase() != Expr.ExprKindCase.CALL_EXPR) {
+      return null;
+    }
+    Call call = expr.getCallExpr();
+    if (!TIMESTAMP.equals(call.getFunction()) || call.hasTarget() || call.getArgsCount() != 1) {
+      return null;
+    }
+    String literal = stringLiteral(call.getArgs(0));
+    if (literal == null) {
+      return null;
+    }
+    try {
+      return OffsetDateTime.parse(literal).toInstant();
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  /** The attribute of a content key as exposed by {@link CELUtil.KeyedEntityForCel}. */
+  private static Function<ContentKey, String> keyAttribute(String field) {
+    switch (field) {
+      case "key":
+        return ContentKey::toString;
+      case "encodedKey":
+        return ContentKey::toPathString;
+      case "name":
+        return ContentKey::getName;
+      case "namespace":
+        return k -> k.getNamespace().name();
+      default:
+        return null;
+    }
+  }
+
+  private static ContentKey namespacePrefix(String namespace) {
+    try {
+      Namespace ns = Namespace.parse(namespace);
+      return !ns.isEmpty() && ns.name().equals(namespace) ? ns.toContentKey() : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static boolean startsWith(ContentKey key, ContentKey prefix) {
+    return key.getElementCount() >= prefix.getElementCount()
+        && key.getElements().subList(0, prefix.getElementCount()).equals(prefix.getElements());
+  }
+
+  private static <T> Predicate<T> and(Predicate<T> first, Predicate<T> second) {
+    return first != null ? first.and(second) : second;
+  }
+}
@@ -16,9 +16,13 @@
 package org.projectnessie.services.cel;
 
 import com.google.api.expr.v1alpha1.Decl;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import java.util.List;
 import org.projectnessie.cel.checker.Decls;
+import org.projectnessie.cel.tools.Script;
+import org.projectnessie.cel.tools.ScriptException;
 import org.projectnessie.cel.tools.ScriptHost;
 import org.projectnessie.cel.types.jackson.JacksonRegistry;
 import org.projectnessie.model.CommitMeta;
@@ -106,8 +110,71 @@ public final class CELUtil {
           Decls.newVar(
               VAR_REFLOG, Decls.newObjectType(RefLogResponse.RefLogResponseEntry.class.getName())));
 
+  /** Maximum number of compiled filter scripts kept by {@link #compiledScript}. */
+  public static final int SCRIPT_CACHE_SIZE = 1000;
+
+  private static final Cache<ScriptKey, Script> SCRIPTS =
+      CacheBuilder.newBuilder().maximumSize(SCRIPT_CACHE_SIZE).build();
+
   private CELUtil() {}
 
+  /**
+   * Returns the compiled script for the given expression, compiling a script only once per
+   * expression string and declarations.
+   *
+   * <p>The returned script is shared by all callers and used concurrently. This is safe, because a
+   * {@link Script} does not change after it has been built: each {@link Script#execute} call
+   * evaluates the immutable, checked program with a new activation holding only the arguments of
+   * that call.
+   *
+   * @param expression the CEL expression
+   * @param declarations one of the {@code *_DECLARATIONS} constants, compared by identity
+   * @param types the types matching {@code declarations}
+   */
+  public static Script compiledScript(
+      String expression, List<Decl> declarations, List<Object> types) throws ScriptException {
+    ScriptKey key = new ScriptKey(expression, declarations);
+    Script script = SCRIPTS.getIfPresent(key);
+    if (script == null) {
+      script =
+          SCRIPT_HOST
+              .buildScript(expression)
+              .withContainer(CONTAINER)
+              .withDeclarations(declarations)
+              .withTypes(types)
+              .build();
+      SCRIPTS.put(key, script);
+    }
+    return script;
+  }
+
+  private static final class ScriptKey {
+    private final String expression;
+    private final List<Decl> declarations;
+
+    private ScriptKey(String expression, List<Decl> declarations) {
+      this.expression = expression;
+      this.declarations = declarations;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ScriptKey)) {
+        return false;
+      }
+      ScriptKey other = (ScriptKey) o;
+      return declarations == other.declarations && expression.equals(other.expression);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * expression.hashCode() + System.identityHashCode(declarations);
+    }
+  }
+
   /**
    * Base interface for 'mirrored' wrappers exposing data to CEL expression about entities that are
    * associated with keys.
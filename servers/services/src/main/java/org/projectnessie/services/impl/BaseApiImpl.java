@@ -19,11 +19,10 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Collections.singletonList;
 import static org.projectnessie.model.Validation.HASH_OR_RELATIVE_COMMIT_SPEC_MESSAGE;
 import static org.projectnessie.model.Validation.HASH_OR_RELATIVE_COMMIT_SPEC_PATTERN;
-import static org.projectnessie.services.cel.CELUtil.CONTAINER;
 import static org.projectnessie.services.cel.CELUtil.CONTENT_KEY_DECLARATIONS;
 import static org.projectnessie.services.cel.CELUtil.CONTENT_KEY_TYPES;
-import static org.projectnessie.services.cel.CELUtil.SCRIPT_HOST;
 import static org.projectnessie.services.cel.CELUtil.VAR_KEY;
+import static org.projectnessie.services.cel.CELUtil.compiledScript;
 import static org.projectnessie.services.cel.CELUtil.forCel;
 import static org.projectnessie.versioned.RelativeCommitSpec.parseRelativeSpecs;
 
@@ -94,13 +93,7 @@ public abstract class BaseApiImpl {
 
     final Script script;
     try {
-      script =
-          SCRIPT_HOST
-              .buildScript(filter)
-              .withContainer(CONTAINER)
-              .withDeclarations(CONTENT_KEY_DECLARATIONS)
-              .withTypes(CONTENT_KEY_TYPES)
-              .build();
+      script = compiledScript(filter, CONTENT_KEY_DECLARATIONS, CONTENT_KEY_TYPES);
     } catch (ScriptException e) {
       throw new IllegalArgumentException(e);
     }
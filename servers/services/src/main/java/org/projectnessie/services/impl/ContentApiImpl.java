@@ -16,6 +16,10 @@
 package org.projectnessie.services.impl;
 
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -38,7 +42,9 @@ import org.projectnessie.services.spi.ContentService;
 import org.projectnessie.versioned.BranchName;
 import org.projectnessie.versioned.ContentResult;
 import org.projectnessie.versioned.DetachedRef;
+import org.projectnessie.versioned.Hash;
 import org.projectnessie.versioned.NamedRef;
+import org.projectnessie.versioned.Ref;
 import org.projectnessie.versioned.ReferenceNotFoundException;
 import org.projectnessie.versioned.TagName;
 import org.projectnessie.versioned.VersionStore;
@@ -101,6 +107,53 @@ public class ContentApiImpl extends BaseApiImpl implements ContentService {
     }
   }
 
+  @Override
+  public List<GetMultipleContentsResponse> getMultipleReferencesContents(
+      List<ReferenceKeys> references, boolean withDocumentation) throws NessieNotFoundException {
+    try {
+      BatchAccessChecker check = startAccessCheck();
+
+      // Resolve all references first, then let the version store retrieve the contents for all
+      // references at once, requesting the keys for references that resolve to the same commit
+      // only once.
+      List<WithHash<NamedRef>> refs = new ArrayList<>(references.size());
+      Map<Hash, Collection<ContentKey>> keysPerHash = new LinkedHashMap<>();
+      for (ReferenceKeys reference : references) {
+        WithHash<NamedRef> ref =
+            namedRefWithHashOrThrow(reference.namedRef(), reference.hashOnRef());
+        check.canViewReference(ref.getValue());
+        refs.add(ref);
+        keysPerHash
+            .computeIfAbsent(ref.getHash(), h -> new LinkedHashSet<>())
+            .addAll(reference.keys());
+      }
+
+      Map<Ref, Map<ContentKey, ContentResult>> values = getStore().getValues(keysPerHash);
+
+      List<GetMultipleContentsResponse> responses = new ArrayList<>(references.size());
+      for (int i = 0; i < references.size(); i++) {
+        WithHash<NamedRef> ref = refs.get(i);
+        Map<ContentKey, ContentResult> refValues = values.get(ref.getHash());
+        List<ContentWithKey> output = new ArrayList<>();
+        // Return each requested key only once, even if it is requested multiple times.
+        for (ContentKey key : new LinkedHashSet<>(references.get(i).keys())) {
+          ContentResult value = refValues != null ? refValues.get(key) : null;
+          if (value != null) {
+            check.canReadEntityValue(ref.getValue(), value.identifiedKey());
+            output.add(ContentWithKey.of(key, value.content(), value.documentation()));
+          }
+        }
+        responses.add(GetMultipleContentsResponse.of(output, makeReference(ref)));
+      }
+
+      check.checkAndThrow();
+
+      return responses;
+    } catch (ReferenceNotFoundException ex) {
+      throw new NessieReferenceNotFoundException(ex.getMessage(), ex);
+    }
+  }
+
   private static Reference makeReference(WithHash<NamedRef> refWithHash) {
     NamedRef ref = refWithHash.getValue();
     if (ref instanceof TagName) {
@@ -64,6 +64,7 @@ import org.projectnessie.versioned.Operation;
 import org.projectnessie.versioned.ReferenceConflictException;
 import org.projectnessie.versioned.ReferenceNotFoundException;
 import org.projectnessie.versioned.VersionStore;
+import org.projectnessie.versioned.VersionStore.KeyRestrictions;
 import org.projectnessie.versioned.WithHash;
 import org.projectnessie.versioned.paging.PaginationIterator;
 
@@ -133,8 +134,9 @@ public class NamespaceApiImpl extends BaseApiImpl implements NamespaceService {
       Namespace namespace = getNamespace(namespaceToDelete, refWithHash.getHash());
       Delete delete = Delete.of(namespace.toContentKey());
 
+      KeyRestrictions keyRestrictions = namespaceKeyRestrictions(namespaceToDelete);
       try (PaginationIterator<KeyEntry> keys =
-          getStore().getKeys(refWithHash.getHash(), null, false, NO_KEY_RESTRICTIONS)) {
+          getStore().getKeys(refWithHash.getHash(), null, false, keyRestrictions)) {
         while (keys.hasNext()) {
           KeyEntry k = keys.next();
           if (Namespace.of(k.getKey().contentKey().getElements())
@@ -292,13 +294,26 @@ public class NamespaceApiImpl extends BaseApiImpl implements NamespaceService {
       Hash hash,
       Predicate<KeyEntry> earlyFilterPredicate)
       throws ReferenceNotFoundException {
-    PaginationIterator<KeyEntry> iter = getStore().getKeys(hash, null, false, NO_KEY_RESTRICTIONS);
+    PaginationIterator<KeyEntry> iter =
+        getStore().getKeys(hash, null, false, namespaceKeyRestrictions(namespace));
     return stream(spliteratorUnknownSize(iter, 0), false)
         .onClose(iter::close)
         .filter(earlyFilterPredicate)
         .filter(k -> null == namespace || namespaceFromType(k).isSameOrSubElementOf(namespace));
   }
 
+  /**
+   * Restricts a key scan to the keys of the given namespace and its child namespaces, so the
+   * version store only reads the range of the key index that starts with the namespace's elements.
+   */
+  private static KeyRestrictions namespaceKeyRestrictions(
+      @Nullable @jakarta.annotation.Nullable Namespace namespace) {
+    if (namespace == null || namespace.isEmpty()) {
+      return NO_KEY_RESTRICTIONS;
+    }
+    return KeyRestrictions.builder().prefixKey(namespace.toContentKey()).build();
+  }
+
   /**
    * If the {@link Content.Type} is an actual {@link Content.Type#NAMESPACE}, then we're returning
    * its name without modification as a {@link Namespace} instance. If the {@link Content.Type} is
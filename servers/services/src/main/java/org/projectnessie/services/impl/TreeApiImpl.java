@@ -29,18 +29,17 @@ import static org.projectnessie.services.authz.Check.canReadEntries;
 import static org.projectnessie.services.authz.Check.canViewReference;
 import static org.projectnessie.services.cel.CELUtil.COMMIT_LOG_DECLARATIONS;
 import static org.projectnessie.services.cel.CELUtil.COMMIT_LOG_TYPES;
-import static org.projectnessie.services.cel.CELUtil.CONTAINER;
 import static org.projectnessie.services.cel.CELUtil.ENTRIES_DECLARATIONS;
 import static org.projectnessie.services.cel.CELUtil.ENTRIES_TYPES;
 import static org.projectnessie.services.cel.CELUtil.REFERENCES_DECLARATIONS;
 import static org.projectnessie.services.cel.CELUtil.REFERENCES_TYPES;
-import static org.projectnessie.services.cel.CELUtil.SCRIPT_HOST;
 import static org.projectnessie.services.cel.CELUtil.VAR_COMMIT;
 import static org.projectnessie.services.cel.CELUtil.VAR_ENTRY;
 import static org.projectnessie.services.cel.CELUtil.VAR_OPERATIONS;
 import static org.projectnessie.services.cel.CELUtil.VAR_REF;
 import static org.projectnessie.services.cel.CELUtil.VAR_REF_META;
 import static org.projectnessie.services.cel.CELUtil.VAR_REF_TYPE;
+import static org.projectnessie.services.cel.CELUtil.compiledScript;
 import static org.projectnessie.services.impl.RefUtil.toNamedRef;
 
 import com.google.common.base.Strings;
@@ -102,6 +101,7 @@ import org.projectnessie.services.authz.Authorizer;
 import org.projectnessie.services.authz.AuthzPaginationIterator;
 import org.projectnessie.services.authz.BatchAccessChecker;
 import org.projectnessie.services.authz.Check;
+import org.projectnessie.services.cel.CELFilterPlanner;
 import org.projectnessie.services.cel.CELUtil;
 import org.projectnessie.services.config.ServerConfig;
 import org.projectnessie.services.spi.PagedResponseHandler;
@@ -201,13 +201,7 @@ public class TreeApiImpl extends BaseApiImpl implements TreeService {
 
     final Script script;
     try {
-      script =
-          SCRIPT_HOST
-              .buildScript(filter)
-              .withContainer(CONTAINER)
-              .withDeclarations(REFERENCES_DECLARATIONS)
-              .withTypes(REFERENCES_TYPES)
-              .build();
+      script = compiledScript(filter, REFERENCES_DECLARATIONS, REFERENCES_TYPES);
     } catch (ScriptException e) {
       throw new IllegalArgumentException(e);
     }
@@ -376,7 +370,11 @@ public class TreeApiImpl extends BaseApiImpl implements TreeService {
     boolean fetchAll = FetchOption.isFetchAll(fetchOption);
     Set<Check> successfulChecks = new HashSet<>();
     Set<Check> failedChecks = new HashSet<>();
-    try (PaginationIterator<Commit> commits = getStore().getCommits(endRef.getHash(), fetchAll)) {
+    // Restrictions on the commit metadata are evaluated by the version store, before it builds
+    // the commits including the operations.
+    Predicate<CommitMeta> commitMetaPredicate = CELFilterPlanner.planCommitLog(filter);
+    try (PaginationIterator<Commit> commits =
+        getStore().getCommits(endRef.getHash(), fetchAll, commitMetaPredicate)) {
 
       Predicate<LogEntry> predicate = filterCommitLog(filter);
       while (commits.hasNext()) {
@@ -530,13 +528,7 @@ public class TreeApiImpl extends BaseApiImpl implements TreeService {
 
     final Script script;
     try {
-      script =
-          SCRIPT_HOST
-              .buildScript(filter)
-              .withContainer(CONTAINER)
-              .withDeclarations(COMMIT_LOG_DECLARATIONS)
-              .withTypes(COMMIT_LOG_TYPES)
-              .build();
+      script = compiledScript(filter, COMMIT_LOG_DECLARATIONS, COMMIT_LOG_TYPES);
     } catch (ScriptException e) {
       throw new IllegalArgumentException(e);
     }
@@ -837,18 +829,20 @@ public class TreeApiImpl extends BaseApiImpl implements TreeService {
 
       Predicate<KeyEntry> filterPredicate = filterEntries(filter);
 
-      try (PaginationIterator<KeyEntry> entries =
-          getStore()
-              .getKeys(
-                  refWithHash.getHash(),
-                  pagingToken,
-                  withContent,
+      // Let the version store evaluate the simple conditions of the filter on its key index,
+      // before entries are built and contents are fetched.
+      VersionStore.KeyRestrictions keyRestrictions =
+          CELFilterPlanner.planEntries(filter)
+              .applyTo(
                   VersionStore.KeyRestrictions.builder()
                       .minKey(minKey)
                       .maxKey(maxKey)
                       .prefixKey(prefixKey)
                       .contentKeyPredicate(contentKeyPredicate)
-                      .build())) {
+                      .build());
+
+      try (PaginationIterator<KeyEntry> entries =
+          getStore().getKeys(refWithHash.getHash(), pagingToken, withContent, keyRestrictions)) {
 
         AuthzPaginationIterator<KeyEntry> authz =
             new AuthzPaginationIterator<KeyEntry>(
@@ -942,13 +936,7 @@ public class TreeApiImpl extends BaseApiImpl implements TreeService {
 
     final Script script;
     try {
-      script =
-          SCRIPT_HOST
-              .buildScript(filter)
-              .withContainer(CONTAINER)
-              .withDeclarations(ENTRIES_DECLARATIONS)
-              .withTypes(ENTRIES_TYPES)
-              .build();
+      script = compiledScript(filter, ENTRIES_DECLARATIONS, ENTRIES_TYPES);
     } catch (ScriptException e) {
       throw new IllegalArgumentException(e);
     }
@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 import javax.validation.Valid;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
+import org.immutables.value.Value;
 import org.projectnessie.error.NessieNotFoundException;
 import org.projectnessie.model.ContentKey;
 import org.projectnessie.model.ContentResponse;
@@ -88,4 +89,44 @@ public interface ContentService {
           List<ContentKey> keys,
       boolean withDocumentation)
       throws NessieNotFoundException;
+
+  /**
+   * Retrieves the contents for the keys of each given reference, resolves all references before
+   * the contents are retrieved and retrieves contents that are visible on multiple references only
+   * once.
+   *
+   * @return one response per element of {@code references}, in the same order
+   */
+  List<GetMultipleContentsResponse> getMultipleReferencesContents(
+      @Valid @jakarta.validation.Valid @Size @jakarta.validation.constraints.Size(min = 1)
+          List<ReferenceKeys> references,
+      boolean withDocumentation)
+      throws NessieNotFoundException;
+
+  /**
+   * The keys to retrieve on one reference, see {@link #getMultipleReferencesContents(List,
+   * boolean)}.
+   */
+  @Value.Immutable
+  interface ReferenceKeys {
+    @Nullable
+    @jakarta.annotation.Nullable
+    @Value.Parameter(order = 1)
+    String namedRef();
+
+    @Nullable
+    @jakarta.annotation.Nullable
+    @Value.Parameter(order = 2)
+    String hashOnRef();
+
+    @Value.Parameter(order = 3)
+    List<ContentKey> keys();
+
+    static ReferenceKeys referenceKeys(
+        @Nullable @jakarta.annotation.Nullable String namedRef,
+        @Nullable @jakarta.annotation.Nullable String hashOnRef,
+        List<ContentKey> keys) {
+      return ImmutableReferenceKeys.of(namedRef, hashOnRef, keys);
+    }
+  }
 }
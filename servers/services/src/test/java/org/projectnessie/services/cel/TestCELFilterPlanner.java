@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.services.cel;
+
+import static java.util.Collections.emptySet;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.projectnessie.versioned.VersionStore.KeyRestrictions.NO_KEY_RESTRICTIONS;
+
+import com.google.common.collect.ImmutableSet;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.projectnessie.model.CommitMeta;
+import org.projectnessie.model.Content;
+import org.projectnessie.model.ContentKey;
+import org.projectnessie.services.cel.CELFilterPlanner.EntriesPushdown;
+import org.projectnessie.versioned.VersionStore.KeyRestrictions;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestCELFilterPlanner {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  static Stream<Arguments> planEntries() {
+    ContentKey fooTable = ContentKey.of("foo", "table");
+    ContentKey fooBarView = ContentKey.of("foo", "bar", "view");
+    ContentKey barTable = ContentKey.of("bar", "table");
+    return Stream.of(
+        arguments(
+            "entry.namespace == 'foo'",
+            ContentKey.of("foo"),
+            ImmutableSet.of(fooTable),
+            ImmutableSet.of(fooBarView, barTable)),
+        arguments(
+            "'foo.bar' == entry.namespace && entry.name.startsWith('v')",
+            ContentKey.of("foo", "bar"),
+            ImmutableSet.of(fooBarView),
+            ImmutableSet.of(fooTable, barTable)),
+        arguments(
+            "entry.name == 'table'",
+            null,
+            ImmutableSet.of(fooTable, barTable),
+            ImmutableSet.of(fooBarView)),
+        arguments(
+            "entry.key.startsWith('foo.')",
+            null,
+            ImmutableSet.of(fooTable, fooBarView),
+            ImmutableSet.of(barTable)),
+        arguments(
+            "entry.encodedKey == 'bar.table'",
+            null,
+            ImmutableSet.of(barTable),
+            ImmutableSet.of(fooTable, fooBarView)),
+        // disjunctions and unknown functions are left to the CEL script
+        arguments(
+            "entry.namespace == 'foo' || entry.name == 'x'",
+            null,
+            ImmutableSet.of(fooTable, fooBarView, barTable),
+            emptySet()),
+        arguments(
+            "entry.namespace.matches('f.*')",
+            null,
+            ImmutableSet.of(fooTable, fooBarView, barTable),
+            emptySet()));
+  }
+
+  @ParameterizedTest
+  @MethodSource
+  void planEntries(
+      String filter,
+      ContentKey prefixKey,
+      Set<ContentKey> mustMatch,
+      Set<ContentKey> mustNotMatch) {
+    EntriesPushdown pushdown = CELFilterPlanner.planEntries(filter);
+    soft.assertThat(pushdown.prefixKey()).isEqualTo(prefixKey);
+    KeyRestrictions keyRestrictions = pushdown.applyTo(NO_KEY_RESTRICTIONS);
+    soft.assertThat(keyRestrictions.prefixKey()).isEqualTo(prefixKey);
+    if (keyRestrictions.contentKeyPredicate() != null) {
+      soft.assertThat(mustMatch).allMatch(keyRestrictions.contentKeyPredicate());
+      soft.assertThat(mustNotMatch).noneMatch(keyRestrictions.contentKeyPredicate());
+    } else {
+      soft.assertThat(mustNotMatch).isEmpty();
+    }
+  }
+
+  @Test
+  void planEntriesContentType() {
+    KeyRestrictions keyRestrictions =
+        CELFilterPlanner.planEntries("entry.contentType in ['ICEBERG_TABLE', 'ICEBERG_VIEW']")
+            .applyTo(NO_KEY_RESTRICTIONS);
+    soft.assertThat(keyRestrictions.contentKeyPredicate()).isNull();
+    soft.assertThat(keyRestrictions.contentTypePredicate())
+        .accepts(Content.Type.ICEBERG_TABLE, Content.Type.ICEBERG_VIEW)
+        .rejects(Content.Type.DELTA_LAKE_TABLE, Content.Type.NAMESPACE);
+
+    // A prefix that conflicts with the requested key range is not used
+    soft.assertThat(
+            CELFilterPlanner.planEntries("entry.namespace == 'foo'")
+                .applyTo(KeyRestrictions.builder().minKey(ContentKey.of("a")).build())
+                .prefixKey())
+        .isNull();
+    soft.assertThat(
+            CELFilterPlanner.planEntries("entry.namespace == 'foo.bar'")
+                .applyTo(KeyRestrictions.builder().prefixKey(ContentKey.of("foo")).build())
+                .prefixKey())
+        .isEqualTo(ContentKey.of("foo", "bar"));
+  }
+
+  @Test
+  void planCommitLog() {
+    Instant t = Instant.parse("2023-05-01T10:00:00Z");
+    CommitMeta alice = CommitMeta.builder().message("m").author("alice").commitTime(t).build();
+    CommitMeta bob = CommitMeta.builder().message("m").author("bob").commitTime(t).build();
+    CommitMeta older = alice.toBuilder().commitTime(t.minusSeconds(3600)).build();
+
+    soft.assertThat(
+            CELFilterPlanner.planCommitLog(
+                "commit.author == 'alice' "
+                    + "&& commit.commitTime >= timestamp('2023-05-01T10:00:00Z')"))
+        .accepts(alice)
+        .rejects(bob, older);
+    soft.assertThat(
+            CELFilterPlanner.planCommitLog(
+                "timestamp('2023-05-01T09:30:00+00:00') > commit.commitTime"))
+        .accepts(older)
+        .rejects(alice, bob);
+    soft.assertThat(CELFilterPlanner.planCommitLog("commit.message.contains('m')")).isNull();
+    soft.assertThat(CELFilterPlanner.planCommitLog("")).isNull();
+  }
+
+  @Test
+  void cachedPlans() {
+    String entriesFilter = "entry.namespace == 'cached'";
+    EntriesPushdown entries = CELFilterPlanner.planEntries(entriesFilter);
+    soft.assertThat(CELFilterPlanner.planEntries(entriesFilter)).isSameAs(entries);
+    soft.assertThat(CELFilterPlanner.planEntries(null)).isSameAs(EntriesPushdown.NONE);
+
+    String commitLogFilter = "commit.author == 'cached'";
+    soft.assertThat(CELFilterPlanner.planCommitLog(commitLogFilter))
+        .isNotNull()
+        .isSameAs(CELFilterPlanner.planCommitLog(commitLogFilter));
+    // filters without extracted conditions are cached as well
+    soft.assertThat(CELFilterPlanner.planCommitLog("commit.message == 'cached' || true")).isNull();
+    soft.assertThat(CELFilterPlanner.planCommitLog("commit.message == 'cached' || true")).isNull();
+  }
+}
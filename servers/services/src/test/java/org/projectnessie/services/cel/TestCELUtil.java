@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.services.cel;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.projectnessie.services.cel.CELUtil.COMMIT_LOG_DECLARATIONS;
+import static org.projectnessie.services.cel.CELUtil.COMMIT_LOG_TYPES;
+import static org.projectnessie.services.cel.CELUtil.VAR_COMMIT;
+import static org.projectnessie.services.cel.CELUtil.VAR_OPERATIONS;
+import static org.projectnessie.services.cel.CELUtil.compiledScript;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.cel.tools.Script;
+import org.projectnessie.model.CommitMeta;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestCELUtil {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @Test
+  void compiledScriptIsCached() throws Exception {
+    String filter = "commit.author == 'cached'";
+    Script script = compiledScript(filter, COMMIT_LOG_DECLARATIONS, COMMIT_LOG_TYPES);
+    soft.assertThat(compiledScript(filter, COMMIT_LOG_DECLARATIONS, COMMIT_LOG_TYPES))
+        .isSameAs(script);
+  }
+
+  /** A cached script is shared by concurrent requests, each with its own arguments. */
+  @Test
+  void concurrentExecutions() throws Exception {
+    Script script =
+        compiledScript(
+            "commit.author == commit.committer", COMMIT_LOG_DECLARATIONS, COMMIT_LOG_TYPES);
+
+    int threads = 8;
+    int iterations = 500;
+    CountDownLatch start = new CountDownLatch(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        String author = "author-" + t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.countDown();
+                  if (!start.await(30, SECONDS)) {
+                    throw new IllegalStateException("Threads not started");
+                  }
+                  int matches = 0;
+                  for (int i = 0; i < iterations; i++) {
+                    // every other commit matches, the expected result depends on the arguments
+                    String committer = (i & 1) == 0 ? author : "other-" + i;
+                    CommitMeta commit =
+                        CommitMeta.builder()
+                            .message("m")
+                            .author(author)
+                            .committer(committer)
+                            .build();
+                    boolean result =
+                        script.execute(
+                            Boolean.class,
+                            ImmutableMap.of(
+                                VAR_COMMIT, commit, VAR_OPERATIONS, Collections.emptyList()));
+                    if (result != ((i & 1) == 0)) {
+                      throw new IllegalStateException("Unexpected result for " + commit);
+                    }
+                    if (result) {
+                      matches++;
+                    }
+                  }
+                  return matches;
+                }));
+      }
+      for (Future<Integer> future : futures) {
+        soft.assertThat(future.get(30, SECONDS)).isEqualTo(iterations / 2);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
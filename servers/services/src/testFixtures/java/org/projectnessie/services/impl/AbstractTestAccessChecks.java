@@ -30,12 +30,14 @@ import static org.projectnessie.services.authz.Check.canCommitChangeAgainstRefer
 import static org.projectnessie.services.authz.Check.canDeleteEntity;
 import static org.projectnessie.services.authz.Check.canUpdateEntity;
 import static org.projectnessie.services.authz.Check.canViewReference;
+import static org.projectnessie.services.spi.ContentService.ReferenceKeys.referenceKeys;
 
 import com.google.common.collect.ImmutableMap;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
@@ -69,6 +71,7 @@ import org.projectnessie.services.authz.AccessCheckException;
 import org.projectnessie.services.authz.BatchAccessChecker;
 import org.projectnessie.services.authz.Check;
 import org.projectnessie.services.authz.Check.CheckType;
+import org.projectnessie.services.spi.ContentService.ReferenceKeys;
 import org.projectnessie.versioned.BranchName;
 import org.projectnessie.versioned.DetachedRef;
 
@@ -404,4 +407,53 @@ public abstract class AbstractTestAccessChecks extends BaseTestServiceImpl {
           .hasMessageContaining(VIEW_MSG);
     }
   }
+
+  @Test
+  public void multipleReferencesContentsAccessChecks() throws Exception {
+    ContentKey key = ContentKey.of("multiRefKey");
+    Branch allowed = createBranch("multiRefAllowed");
+    allowed =
+        commit(
+                allowed,
+                fromMessage("allowed"),
+                Put.of(key, IcebergTable.of("allowed", 42, 42, 42, 42)))
+            .getTargetBranch();
+    Branch forbidden = createBranch("multiRefForbidden", allowed);
+
+    List<ReferenceKeys> bothRefs =
+        Arrays.asList(
+            referenceKeys(allowed.getName(), null, singletonList(key)),
+            referenceKeys(forbidden.getName(), null, singletonList(key)));
+
+    // Each reference is checked, even if both references resolve to the same commit
+    Set<Check> checks = recordAccessChecks();
+    contentApi().getMultipleReferencesContents(bothRefs, false);
+    soft.assertThat(checks)
+        .contains(canViewReference(BranchName.of(allowed.getName())))
+        .contains(canViewReference(BranchName.of(forbidden.getName())));
+
+    setBatchAccessChecker(
+        x ->
+            new AbstractBatchAccessChecker() {
+              @Override
+              public Map<Check, String> check() {
+                return getChecks().stream()
+                    .filter(c -> c.type() == CheckType.VIEW_REFERENCE)
+                    .filter(c -> requireNonNull(c.ref()).getName().equals("multiRefForbidden"))
+                    .collect(Collectors.toMap(Function.identity(), c -> VIEW_MSG));
+              }
+            });
+
+    soft.assertThatThrownBy(() -> contentApi().getMultipleReferencesContents(bothRefs, false))
+        .isInstanceOf(AccessCheckException.class)
+        .hasMessageContaining(VIEW_MSG);
+    soft.assertThat(
+            contentApi()
+                .getMultipleReferencesContents(
+                    singletonList(referenceKeys(allowed.getName(), null, singletonList(key))),
+                    false))
+        .singleElement()
+        .extracting(r -> r.getContents().size())
+        .isEqualTo(1);
+  }
 }
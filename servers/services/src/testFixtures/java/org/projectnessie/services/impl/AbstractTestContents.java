@@ -15,11 +15,15 @@
  */
 package org.projectnessie.services.impl;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.InstanceOfAssertFactories.list;
 import static org.assertj.core.groups.Tuple.tuple;
 import static org.projectnessie.model.CommitMeta.fromMessage;
 import static org.projectnessie.model.FetchOption.ALL;
+import static org.projectnessie.services.spi.ContentService.ReferenceKeys.referenceKeys;
 
 import com.google.common.collect.Maps;
 import java.util.List;
@@ -27,6 +31,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.assertj.core.groups.Tuple;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -36,8 +41,11 @@ import org.projectnessie.model.Branch;
 import org.projectnessie.model.Content;
 import org.projectnessie.model.ContentKey;
 import org.projectnessie.model.ContentResponse;
+import org.projectnessie.model.Detached;
 import org.projectnessie.model.DiffResponse.DiffEntry;
 import org.projectnessie.model.EntriesResponse;
+import org.projectnessie.model.GetMultipleContentsResponse;
+import org.projectnessie.model.GetMultipleContentsResponse.ContentWithKey;
 import org.projectnessie.model.IcebergTable;
 import org.projectnessie.model.IcebergView;
 import org.projectnessie.model.ImmutableDeltaLakeTable;
@@ -47,6 +55,7 @@ import org.projectnessie.model.Operation;
 import org.projectnessie.model.Operation.Delete;
 import org.projectnessie.model.Operation.Put;
 import org.projectnessie.model.Operation.Unchanged;
+import org.projectnessie.model.Tag;
 import org.projectnessie.model.UDF;
 
 public abstract class AbstractTestContents extends BaseTestServiceImpl {
@@ -413,4 +422,65 @@ public abstract class AbstractTestContents extends BaseTestServiceImpl {
 
     assertThat(contents(committed, key).get(key)).isInstanceOf(IcebergTable.class);
   }
+
+  @Test
+  public void multipleReferencesContents() throws BaseNessieClientServerException {
+    // created before any commit, so it points to the "no ancestor" hash
+    Branch empty = createBranch("multiRefEmpty");
+    assertThat(empty.getHash()).isEqualTo(versionStore().noAncestorHash().asString());
+
+    Branch branch = createBranch("multiRef");
+    ContentKey keyA = ContentKey.of("a");
+    ContentKey keyB = ContentKey.of("b");
+    ContentKey noExist = ContentKey.of("noexist");
+    Branch first =
+        commit(branch, fromMessage("commit 1"), Put.of(keyA, IcebergTable.of("a1", 1, 2, 3, 4)))
+            .getTargetBranch();
+    Branch second =
+        commit(
+                first,
+                fromMessage("commit 2"),
+                Put.of(keyB, IcebergTable.of("b2", 1, 2, 3, 4)),
+                Put.of(keyA, IcebergTable.of("a2", 1, 2, 3, 4)))
+            .getTargetBranch();
+    Tag tag = createTag("multiRefTag", first);
+
+    List<GetMultipleContentsResponse> responses =
+        contentApi()
+            .getMultipleReferencesContents(
+                asList(
+                    // duplicate keys are returned only once
+                    referenceKeys(second.getName(), null, asList(keyB, keyA, keyB, noExist)),
+                    referenceKeys(tag.getName(), null, asList(keyA, keyB)),
+                    referenceKeys(empty.getName(), null, asList(keyA, keyB)),
+                    referenceKeys(Detached.REF_NAME, first.getHash(), singletonList(keyA)),
+                    referenceKeys(second.getName(), first.getHash(), asList(keyA, keyB))),
+                false);
+
+    // one response per requested reference, in request order
+    soft.assertThat(responses)
+        .extracting(GetMultipleContentsResponse::getEffectiveReference)
+        .containsExactly(
+            second,
+            tag,
+            empty,
+            Detached.of(first.getHash()),
+            Branch.of(second.getName(), first.getHash()));
+    soft.assertThat(responses)
+        .extracting(
+            r ->
+                r.getContents().stream()
+                    .map(AbstractTestContents::keyAndLocation)
+                    .collect(Collectors.toList()))
+        .containsExactly(
+            asList(tuple(keyB, "b2"), tuple(keyA, "a2")),
+            singletonList(tuple(keyA, "a1")),
+            emptyList(),
+            singletonList(tuple(keyA, "a1")),
+            singletonList(tuple(keyA, "a1")));
+  }
+
+  private static Tuple keyAndLocation(ContentWithKey content) {
+    return tuple(content.getKey(), ((IcebergTable) content.getContent()).getMetadataLocation());
+  }
 }
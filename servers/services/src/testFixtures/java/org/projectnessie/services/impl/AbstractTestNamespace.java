@@ -153,6 +153,60 @@ public abstract class AbstractTestNamespace extends BaseTestServiceImpl {
         .containsExactlyInAnyOrder(four, o);
   }
 
+  /**
+   * Namespace scans are restricted to the key prefix of the namespace, sibling namespaces with the
+   * same leading characters must not be considered.
+   */
+  @Test
+  public void testNamespacePrefixScans() throws BaseNessieClientServerException {
+    ContentKey abTable = ContentKey.of("a", "b", "table");
+    ContentKey abcTable = ContentKey.of("a", "b", "c", "table");
+    ContentKey abxTable = ContentKey.of("a", "bx", "table");
+    ContentKey aBTable = ContentKey.of("ab", "table");
+    Branch branch =
+        ensureNamespacesForKeysExist(
+            createBranch("namespacePrefixScans"), abTable, abcTable, abxTable, aBTable);
+    branch =
+        commit(
+                branch,
+                fromMessage("add tables"),
+                Put.of(abTable, IcebergTable.of("ab", 42, 42, 42, 42)),
+                Put.of(abcTable, IcebergTable.of("abc", 42, 42, 42, 42)),
+                Put.of(abxTable, IcebergTable.of("abx", 42, 42, 42, 42)),
+                Put.of(aBTable, IcebergTable.of("aB", 42, 42, 42, 42)))
+            .getTargetBranch();
+    String ref = branch.getName();
+
+    List<Namespace> all = namespaceApi().getNamespaces(ref, null, Namespace.EMPTY).getNamespaces();
+    soft.assertThat(all)
+        .extracting(Namespace::toPathString)
+        .containsExactlyInAnyOrder("a", "a.b", "a.b.c", "a.bx", "ab");
+    for (String name : Arrays.asList("a", "a.b", "a.b.c", "a.bx", "ab", "b")) {
+      Namespace namespace = Namespace.parse(name);
+      soft.assertThat(namespaceApi().getNamespaces(ref, null, namespace).getNamespaces())
+          .describedAs("namespace %s", name)
+          .containsExactlyInAnyOrderElementsOf(
+              all.stream()
+                  .filter(ns -> ns.isSameOrSubElementOf(namespace))
+                  .collect(Collectors.toList()));
+    }
+
+    for (String name : Arrays.asList("a.b", "a.b.c", "a.bx", "ab")) {
+      Namespace namespace = Namespace.parse(name);
+      soft.assertThatThrownBy(() -> namespaceApi().deleteNamespace(ref, namespace))
+          .describedAs("namespace %s", name)
+          .cause()
+          .isInstanceOf(NessieNamespaceNotEmptyException.class);
+    }
+
+    // 'a.b' and its children share the leading characters with 'a.bx', but are not children of it
+    commit(branch, fromMessage("delete table"), Operation.Delete.of(abxTable));
+    namespaceApi().deleteNamespace(ref, Namespace.parse("a.bx"));
+    soft.assertThat(namespaceApi().getNamespaces(ref, null, Namespace.EMPTY).getNamespaces())
+        .extracting(Namespace::toPathString)
+        .containsExactlyInAnyOrder("a", "a.b", "a.b.c", "ab");
+  }
+
   @Test
   public void testNamespaceDeletion() throws BaseNessieClientServerException {
     Branch init = createBranch("testNamespaceDeletion");
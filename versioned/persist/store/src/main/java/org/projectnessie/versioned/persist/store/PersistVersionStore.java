@@ -28,6 +28,7 @@ import com.google.errorprone.annotations.MustBeClosed;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -38,6 +39,7 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.projectnessie.error.BaseNessieClientServerException;
 import org.projectnessie.model.CommitMeta;
 import org.projectnessie.model.Content;
@@ -463,7 +465,10 @@ public class PersistVersionStore implements VersionStore {
   }
 
   @Override
-  public PaginationIterator<Commit> getCommits(Ref ref, boolean fetchAdditionalInfo)
+  public PaginationIterator<Commit> getCommits(
+      Ref ref,
+      boolean fetchAdditionalInfo,
+      @Nullable @jakarta.annotation.Nullable Predicate<CommitMeta> commitMetaPredicate)
       throws ReferenceNotFoundException {
     Hash hash = refToHash(ref);
 
@@ -483,7 +488,8 @@ public class PersistVersionStore implements VersionStore {
           }
           enhancer.accept(commit, e);
           return commit.build();
-        }) {
+        },
+        e -> commitMetaPredicate == null || commitMetaPredicate.test(commitMetaFromLogEntry(e))) {
       @Override
       protected String computeTokenForCurrent() {
         return current() != null ? current().getHash().asString() : null;
@@ -502,8 +508,8 @@ public class PersistVersionStore implements VersionStore {
   }
 
   /**
-   * Utility function for {@link #getCommits(Ref, boolean)} to optionally enhance the returned
-   * {@link Commit} instances with the parent hash and operations per commit.
+   * Utility function for {@link #getCommits(Ref, boolean, Predicate)} to optionally enhance the
+   * returned {@link Commit} instances with the parent hash and operations per commit.
    */
   private BiConsumer<ImmutableCommit.Builder, CommitLogEntry> enhancerForCommitLog(
       boolean fetchAdditionalInfo) {
@@ -544,14 +550,27 @@ public class PersistVersionStore implements VersionStore {
       throws ReferenceNotFoundException {
     checkArgument(pagingToken == null, "Paging not supported by the storage model in use");
     checkArgument(
-        keyRestrictions.minKey() == null
-            && keyRestrictions.maxKey() == null
-            && keyRestrictions.prefixKey() == null,
+        keyRestrictions.minKey() == null && keyRestrictions.maxKey() == null,
         "Key ranges not supported by the storage model in use");
     Hash hash = refToHash(ref);
 
+    // The storage model has no ordered key index, a key prefix can only be applied as a filter
+    ContentKey prefixKey = keyRestrictions.prefixKey();
+    Predicate<ContentKey> contentKeyPredicate = keyRestrictions.contentKeyPredicate();
+    Predicate<Content.Type> contentTypePredicate = keyRestrictions.contentTypePredicate();
+    KeyFilterPredicate keyFilter =
+        (k, c, t) ->
+            (prefixKey == null
+                    || (k.getElementCount() >= prefixKey.getElementCount()
+                        && k.getElements()
+                            .subList(0, prefixKey.getElementCount())
+                            .equals(prefixKey.getElements())))
+                && (contentKeyPredicate == null || contentKeyPredicate.test(k))
+                && (contentTypePredicate == null
+                    || contentTypePredicate.test(contentTypeForPayload(t)));
+
     @SuppressWarnings("MustBeClosedChecker")
-    Stream<KeyListEntry> source = databaseAdapter.keys(hash, KeyFilterPredicate.ALLOW_ALL);
+    Stream<KeyListEntry> source = databaseAdapter.keys(hash, keyFilter);
 
     return new FilteringPaginationIterator<KeyListEntry, KeyEntry>(
         source.iterator(),
@@ -622,6 +641,17 @@ public class PersistVersionStore implements VersionStore {
             Collectors.toMap(Map.Entry::getKey, e -> mapContentAndState(e.getKey(), e.getValue())));
   }
 
+  @Override
+  public Map<Ref, Map<ContentKey, ContentResult>> getValues(
+      Map<? extends Ref, ? extends Collection<ContentKey>> keysPerRef)
+      throws ReferenceNotFoundException {
+    Map<Ref, Map<ContentKey, ContentResult>> result = new LinkedHashMap<>();
+    for (Map.Entry<? extends Ref, ? extends Collection<ContentKey>> e : keysPerRef.entrySet()) {
+      result.put(e.getKey(), getValues(e.getKey(), e.getValue()));
+    }
+    return result;
+  }
+
   private ContentResult mapContentAndState(ContentKey key, ContentAndState cs) {
     Content content =
         STORE_WORKER.valueFromStore(cs.getPayload(), cs.getRefState(), cs::getGlobalState);
@@ -21,8 +21,10 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.projectnessie.model.CommitMeta;
 import org.projectnessie.model.ContentKey;
 import org.projectnessie.model.IdentifiedContentKey;
@@ -144,9 +146,12 @@ public class EventsVersionStore implements VersionStore {
   }
 
   @Override
-  public PaginationIterator<Commit> getCommits(Ref ref, boolean fetchAdditionalInfo)
+  public PaginationIterator<Commit> getCommits(
+      Ref ref,
+      boolean fetchAdditionalInfo,
+      @Nullable @jakarta.annotation.Nullable Predicate<CommitMeta> commitMetaPredicate)
       throws ReferenceNotFoundException {
-    return delegate.getCommits(ref, fetchAdditionalInfo);
+    return delegate.getCommits(ref, fetchAdditionalInfo, commitMetaPredicate);
   }
 
   @Override
@@ -173,6 +178,13 @@ public class EventsVersionStore implements VersionStore {
     return delegate.getValues(ref, keys);
   }
 
+  @Override
+  public Map<Ref, Map<ContentKey, ContentResult>> getValues(
+      Map<? extends Ref, ? extends Collection<ContentKey>> keysPerRef)
+      throws ReferenceNotFoundException {
+    return delegate.getValues(keysPerRef);
+  }
+
   @Override
   public PaginationIterator<Diff> getDiffs(
       Ref from, Ref to, String pagingToken, KeyRestrictions keyRestrictions)
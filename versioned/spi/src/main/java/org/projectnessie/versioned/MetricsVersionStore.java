@@ -24,9 +24,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.projectnessie.model.CommitMeta;
 import org.projectnessie.model.ContentKey;
 import org.projectnessie.model.IdentifiedContentKey;
@@ -148,10 +150,13 @@ public final class MetricsVersionStore implements VersionStore {
   }
 
   @Override
-  public PaginationIterator<Commit> getCommits(Ref ref, boolean fetchAdditionalInfo)
+  public PaginationIterator<Commit> getCommits(
+      Ref ref,
+      boolean fetchAdditionalInfo,
+      @Nullable @jakarta.annotation.Nullable Predicate<CommitMeta> commitMetaPredicate)
       throws ReferenceNotFoundException {
     return delegatePaginationIterator(
-        "getcommits", () -> delegate.getCommits(ref, fetchAdditionalInfo));
+        "getcommits", () -> delegate.getCommits(ref, fetchAdditionalInfo, commitMetaPredicate));
   }
 
   @Override
@@ -179,6 +184,13 @@ public final class MetricsVersionStore implements VersionStore {
     return delegate1Ex("getvalues", () -> delegate.getValues(ref, keys));
   }
 
+  @Override
+  public Map<Ref, Map<ContentKey, ContentResult>> getValues(
+      Map<? extends Ref, ? extends Collection<ContentKey>> keysPerRef)
+      throws ReferenceNotFoundException {
+    return delegate1Ex("getvaluesmultiref", () -> delegate.getValues(keysPerRef));
+  }
+
   @Override
   public PaginationIterator<Diff> getDiffs(
       Ref from, Ref to, String pagingToken, KeyRestrictions keyRestrictions)
@@ -32,9 +32,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.projectnessie.model.CommitMeta;
 import org.projectnessie.model.ContentKey;
 import org.projectnessie.model.IdentifiedContentKey;
@@ -48,6 +50,7 @@ public class TracingVersionStore implements VersionStore {
 
   private static final String TAG_OPERATION = "nessie.version-store.operation";
   private static final String TAG_REF = "nessie.version-store.ref";
+  private static final String TAG_REFS = "nessie.version-store.refs";
   private static final String TAG_BRANCH = "nessie.version-store.branch";
   private static final String TAG_HASH = "nessie.version-store.hash";
   private static final String TAG_NUM_OPS = "nessie.version-store.num-ops";
@@ -226,13 +229,16 @@ public class TracingVersionStore implements VersionStore {
   }
 
   @Override
-  public PaginationIterator<Commit> getCommits(Ref ref, boolean fetchAdditionalInfo)
+  public PaginationIterator<Commit> getCommits(
+      Ref ref,
+      boolean fetchAdditionalInfo,
+      @Nullable @jakarta.annotation.Nullable Predicate<CommitMeta> commitMetaPredicate)
       throws ReferenceNotFoundException {
     return callPaginationIterator(
         tracer,
         "GetCommits",
         b -> b.setAttribute(TAG_REF, safeToString(ref)),
-        () -> delegate.getCommits(ref, fetchAdditionalInfo));
+        () -> delegate.getCommits(ref, fetchAdditionalInfo, commitMetaPredicate));
   }
 
   @Override
@@ -275,6 +281,17 @@ public class TracingVersionStore implements VersionStore {
         () -> delegate.getValues(ref, keys));
   }
 
+  @Override
+  public Map<Ref, Map<ContentKey, ContentResult>> getValues(
+      Map<? extends Ref, ? extends Collection<ContentKey>> keysPerRef)
+      throws ReferenceNotFoundException {
+    return callWithOneException(
+        tracer,
+        "GetValuesMultiRef",
+        b -> b.setAttribute(TAG_REFS, safeToString(keysPerRef.keySet())),
+        () -> delegate.getValues(keysPerRef));
+  }
+
   @Override
   public PaginationIterator<Diff> getDiffs(
       Ref from, Ref to, String pagingToken, KeyRestrictions keyRestrictions)
@@ -30,6 +30,7 @@ import javax.annotation.Nullable;
 import org.immutables.value.Value;
 import org.projectnessie.error.BaseNessieClientServerException;
 import org.projectnessie.model.CommitMeta;
+import org.projectnessie.model.Content;
 import org.projectnessie.model.ContentKey;
 import org.projectnessie.model.IdentifiedContentKey;
 import org.projectnessie.model.MergeBehavior;
@@ -334,12 +335,24 @@ public interface VersionStore {
    *
    * @param ref the stream to get commits for.
    * @param fetchAdditionalInfo include additional information like operations and parent hash
+   * @param commitMetaPredicate optional, if not {@code null}: commits whose {@link CommitMeta} does
+   *     not match this predicate are skipped. The predicate is evaluated before the additional
+   *     information is fetched and before the {@link Commit} is built. The {@link CommitMeta}
+   *     passed to the predicate contains the commit's hash, parent hashes, message and headers.
    * @return A stream of commits.
    * @throws ReferenceNotFoundException if {@code ref} is not present in the store
    */
-  PaginationIterator<Commit> getCommits(Ref ref, boolean fetchAdditionalInfo)
+  PaginationIterator<Commit> getCommits(
+      Ref ref,
+      boolean fetchAdditionalInfo,
+      @Nullable @jakarta.annotation.Nullable Predicate<CommitMeta> commitMetaPredicate)
       throws ReferenceNotFoundException;
 
+  default PaginationIterator<Commit> getCommits(Ref ref, boolean fetchAdditionalInfo)
+      throws ReferenceNotFoundException {
+    return getCommits(ref, fetchAdditionalInfo, null);
+  }
+
   @Value.Immutable
   interface KeyRestrictions {
     KeyRestrictions NO_KEY_RESTRICTIONS = KeyRestrictions.builder().build();
@@ -364,6 +377,14 @@ public interface VersionStore {
     @jakarta.annotation.Nullable
     Predicate<ContentKey> contentKeyPredicate();
 
+    /**
+     * Filter predicate on the content type, can be {@code null}. Only used by {@link #getKeys(Ref,
+     * String, boolean, KeyRestrictions)}, evaluated before the content of a key is fetched.
+     */
+    @Nullable
+    @jakarta.annotation.Nullable
+    Predicate<Content.Type> contentTypePredicate();
+
     static ImmutableKeyRestrictions.Builder builder() {
       return ImmutableKeyRestrictions.builder();
     }
@@ -406,6 +427,19 @@ public interface VersionStore {
   Map<ContentKey, ContentResult> getValues(Ref ref, Collection<ContentKey> keys)
       throws ReferenceNotFoundException;
 
+  /**
+   * Get the values for a list of keys on multiple refs at once. Implementations resolve the refs
+   * together and fetch each content object only once, even if it is visible on multiple refs.
+   *
+   * @param keysPerRef The keys to retrieve per ref.
+   * @return The values per ref, like {@link #getValues(Ref, Collection)}, in the iteration order of
+   *     {@code keysPerRef}.
+   * @throws ReferenceNotFoundException if any of the refs is not present in the store
+   */
+  Map<Ref, Map<ContentKey, ContentResult>> getValues(
+      Map<? extends Ref, ? extends Collection<ContentKey>> keysPerRef)
+      throws ReferenceNotFoundException;
+
   /**
    * Get list of diffs between two refs.
    *
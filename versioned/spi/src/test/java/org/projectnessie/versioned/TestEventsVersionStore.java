@@ -16,6 +16,7 @@
 package org.projectnessie.versioned;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.eq;
@@ -35,6 +36,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -535,9 +537,12 @@ class TestEventsVersionStore {
   @Test
   void testGetCommits() throws Exception {
     boolean fetchAdditionalInfo = true;
-    when(delegate.getCommits(branch1, fetchAdditionalInfo)).thenReturn(iteratorCommits);
+    Predicate<CommitMeta> commitMetaPredicate = m -> true;
+    when(delegate.getCommits(branch1, fetchAdditionalInfo, commitMetaPredicate))
+        .thenReturn(iteratorCommits);
     EventsVersionStore versionStore = new EventsVersionStore(delegate, sink);
-    PaginationIterator<Commit> result = versionStore.getCommits(branch1, fetchAdditionalInfo);
+    PaginationIterator<Commit> result =
+        versionStore.getCommits(branch1, fetchAdditionalInfo, commitMetaPredicate);
     assertThat(result).isSameAs(iteratorCommits);
     verifyNoMoreInteractions(delegate);
     verifyNoInteractions(sink);
@@ -584,6 +589,22 @@ class TestEventsVersionStore {
     verifyNoInteractions(sink);
   }
 
+  @Test
+  void testGetValuesMultiRef() throws Exception {
+    ContentResult contentResult1 =
+        contentResult(identifiedContentKeyFromContent(key1, table1, x -> null), table1, null);
+    Map<Ref, List<ContentKey>> keysPerRef =
+        ImmutableMap.of(branch1, singletonList(key1), hash1, singletonList(key1));
+    Map<Ref, Map<ContentKey, ContentResult>> expected =
+        ImmutableMap.of(branch1, ImmutableMap.of(key1, contentResult1), hash1, ImmutableMap.of());
+    when(delegate.getValues(keysPerRef)).thenReturn(expected);
+    EventsVersionStore versionStore = new EventsVersionStore(delegate, sink);
+    Map<Ref, Map<ContentKey, ContentResult>> result = versionStore.getValues(keysPerRef);
+    assertThat(result).isEqualTo(expected);
+    verifyNoMoreInteractions(delegate);
+    verifyNoInteractions(sink);
+  }
+
   @Test
   void testGetDiffs() throws Exception {
     when(delegate.getDiffs(hash1, hash2, "token1", NO_KEY_RESTRICTIONS)).thenReturn(iteratorDiffs);
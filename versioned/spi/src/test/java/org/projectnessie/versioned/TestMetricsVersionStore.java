@@ -207,7 +207,7 @@ class TestMetricsVersionStore {
                 refNotFoundAndRefConflictThrows),
             new VersionStoreInvocation<>(
                 "getcommits",
-                vs -> vs.getCommits(BranchName.of("mock-branch"), false),
+                vs -> vs.getCommits(BranchName.of("mock-branch"), false, null),
                 () ->
                     PaginationIterator.of(
                         Commit.builder()
@@ -258,6 +258,15 @@ class TestMetricsVersionStore {
                         Collections.singletonList(ContentKey.of("some", "key"))),
                 Collections::emptyMap,
                 refNotFoundThrows),
+            new VersionStoreInvocation<>(
+                "getvaluesmultiref",
+                vs ->
+                    vs.getValues(
+                        Collections.singletonMap(
+                            BranchName.of("mock-branch"),
+                            Collections.singletonList(ContentKey.of("some", "key")))),
+                Collections::emptyMap,
+                refNotFoundThrows),
             new VersionStoreInvocation<>(
                 "getdiffs",
                 vs ->
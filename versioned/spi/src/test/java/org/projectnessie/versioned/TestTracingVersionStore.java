@@ -219,7 +219,7 @@ class TestTracingVersionStore {
             new TestedTracingStoreInvocation<VersionStore>("GetCommits.stream", refNotFoundThrows)
                 .tag("nessie.version-store.ref", "BranchName{name=mock-branch}")
                 .function(
-                    vs -> vs.getCommits(BranchName.of("mock-branch"), false),
+                    vs -> vs.getCommits(BranchName.of("mock-branch"), false, null),
                     () ->
                         PaginationIterator.of(
                             Commit.builder()
@@ -266,6 +266,15 @@ class TestTracingVersionStore {
                             BranchName.of("mock-branch"),
                             Collections.singletonList(ContentKey.of("some", "key"))),
                     Collections::emptyMap),
+            new TestedTracingStoreInvocation<VersionStore>("GetValuesMultiRef", refNotFoundThrows)
+                .tag("nessie.version-store.refs", "[BranchName{name=mock-branch}]")
+                .function(
+                    vs ->
+                        vs.getValues(
+                            Collections.singletonMap(
+                                BranchName.of("mock-branch"),
+                                Collections.singletonList(ContentKey.of("some", "key")))),
+                    Collections::emptyMap),
             new TestedTracingStoreInvocation<VersionStore>("GetDiffs.stream", refNotFoundThrows)
                 .tag("nessie.version-store.from", "BranchName{name=mock-branch}")
                 .tag("nessie.version-store.to", "BranchName{name=foo-branch}")
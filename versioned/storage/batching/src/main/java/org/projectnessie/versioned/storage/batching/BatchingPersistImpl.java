@@ -392,6 +392,13 @@ final class BatchingPersistImpl implements BatchingPersist, ValidatingPersist {
     return delegate().fetchReference(name);
   }
 
+  @Override
+  @Nullable
+  @javax.annotation.Nullable
+  public Reference fetchReferenceForUpdate(@Nonnull @javax.annotation.Nonnull String name) {
+    return delegate().fetchReferenceForUpdate(name);
+  }
+
   @Override
   @Nonnull
   @javax.annotation.Nonnull
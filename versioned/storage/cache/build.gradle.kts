@@ -26,6 +26,7 @@ description = "Provides caching functionality, bounded by heap pressure."
 dependencies {
   implementation(project(":nessie-versioned-storage-common"))
   implementation(project(":nessie-versioned-storage-common-serialize"))
+  implementation(project(path = ":nessie-protobuf-relocated", configuration = "shadow"))
 
   // javax/jakarta
   compileOnly(libs.jakarta.validation.api)
@@ -37,6 +38,8 @@ dependencies {
 
   implementation(libs.guava)
   implementation(libs.caffeine)
+  implementation(libs.micrometer.core)
+  implementation(libs.rocksdb.jni)
 
   compileOnly(libs.immutables.builder)
   compileOnly(libs.immutables.value.annotations)
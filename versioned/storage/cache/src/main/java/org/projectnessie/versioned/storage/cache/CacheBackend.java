@@ -20,6 +20,7 @@ import org.projectnessie.versioned.storage.common.persist.Backend;
 import org.projectnessie.versioned.storage.common.persist.Obj;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
 import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.common.persist.Reference;
 
 /**
  * Provides the cache primitives for a caching {@link Persist} facade, suitable for multiple
@@ -38,6 +39,23 @@ public interface CacheBackend {
       @Nonnull @jakarta.annotation.Nonnull String repositoryId,
       @Nonnull @jakarta.annotation.Nonnull ObjId id);
 
+  /**
+   * Returns the cached reference or {@code null}, if the reference is not cached or reference
+   * caching is disabled.
+   */
+  Reference getReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull String name);
+
+  void putReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull Reference reference);
+
+  void removeReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull String name);
+
+  /** Removes all cached objects and references for the given repository. */
   void clear(@Nonnull @jakarta.annotation.Nonnull String repositoryId);
 
   Persist wrap(@Nonnull @jakarta.annotation.Nonnull Persist perist);
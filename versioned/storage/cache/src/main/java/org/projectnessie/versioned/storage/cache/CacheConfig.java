@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.time.Duration;
+import org.immutables.value.Value;
+
+/** Configuration of a {@link CacheBackend}, see {@link PersistCaches#newBackend(CacheConfig)}. */
+@Value.Immutable
+public interface CacheConfig {
+
+  /** The total amount of heap in bytes that can be used by the cache. */
+  long capacity();
+
+  /**
+   * The amount of heap in bytes, out of {@link #capacity()}, that is used to hold deserialized
+   * {@link org.projectnessie.versioned.storage.common.persist.Obj} instances. Cache hits against
+   * this tier do not need to deserialize the object again.
+   *
+   * <p>Objects evicted from this tier are moved to the serialized tier, which uses the remaining
+   * capacity. The default value {@code 0} disables the deserialized tier, all objects are then held
+   * in their serialized form.
+   */
+  @Value.Default
+  default long deserializedCapacity() {
+    return 0L;
+  }
+
+  /**
+   * The maximum time a {@link org.projectnessie.versioned.storage.common.persist.Reference} is
+   * served from the cache, which is the staleness bound of references that have been updated by
+   * another Nessie instance. References updated via the caching {@link
+   * org.projectnessie.versioned.storage.common.persist.Persist} instance are updated in the cache
+   * immediately.
+   *
+   * <p>Up to 100,000 references are cached, split evenly across all repositories, but at least
+   * 1,000 references per repository.
+   *
+   * <p>The default value {@link Duration#ZERO} disables the reference cache.
+   */
+  @Value.Default
+  default Duration referenceTtl() {
+    return Duration.ZERO;
+  }
+
+  /**
+   * The amount of heap in bytes, out of {@link #capacity()}, guaranteed to each repository, as long
+   * as the number of repositories multiplied by this value does not exceed the total capacity.
+   * Prevents large repositories from evicting the working set of small repositories.
+   *
+   * <p>The default value {@code 0} does not guarantee any capacity.
+   */
+  @Value.Default
+  default long repositoryMinCapacity() {
+    return 0L;
+  }
+
+  /**
+   * The maximum amount of heap in bytes, out of {@link #capacity()}, that a single repository can
+   * use. The default value {@code 0} means that a single repository can use the whole capacity.
+   */
+  @Value.Default
+  default long repositoryMaxCapacity() {
+    return 0L;
+  }
+
+  /**
+   * Whether serialized objects are held in direct memory instead of the Java heap, which allows
+   * caches of multiple gigabytes without increasing GC pauses. The {@link #capacity()} is then
+   * allocated as direct memory, which must be allowed via {@code -XX:MaxDirectMemorySize}.
+   *
+   * <p>The off-heap cache does not support {@link #deserializedCapacity()} and the per-repository
+   * capacities.
+   */
+  @Value.Default
+  default boolean offHeap() {
+    return false;
+  }
+
+  @Value.Check
+  default void check() {
+    checkState(capacity() >= 0L, "Cache capacity must not be negative");
+    checkState(
+        deserializedCapacity() >= 0L && deserializedCapacity() <= capacity(),
+        "Capacity of the deserialized objects cache must be between 0 and the total capacity");
+    checkState(
+        repositoryMinCapacity() >= 0L && repositoryMaxCapacity() >= 0L,
+        "Repository capacities must not be negative");
+    checkState(
+        repositoryMaxCapacity() == 0L || repositoryMinCapacity() <= repositoryMaxCapacity(),
+        "Minimum repository capacity must not be greater than the maximum repository capacity");
+    checkState(!offHeap() || capacity() > 0L, "The off-heap cache requires a positive capacity");
+    checkState(
+        !offHeap() || deserializedCapacity() == 0L,
+        "The off-heap cache does not support a deserialized objects cache");
+    checkState(!referenceTtl().isNegative(), "Reference cache TTL must not be negative");
+  }
+
+  static ImmutableCacheConfig.Builder builder() {
+    return ImmutableCacheConfig.builder();
+  }
+}
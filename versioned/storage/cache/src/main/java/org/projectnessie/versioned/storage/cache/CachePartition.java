@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static org.projectnessie.versioned.storage.cache.CaffeineCacheBackend.JAVA_OBJ_HEADER;
+import static org.projectnessie.versioned.storage.serialize.ProtoSerialization.serializeObj;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import org.projectnessie.versioned.storage.common.exceptions.ObjTooLargeException;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.serialize.ProtoSerialization;
+
+/**
+ * The cached objects of a single repository in a {@link CaffeineCacheBackend}.
+ *
+ * <p>Each partition has its own Caffeine caches, the maximum weight of which is adjusted by {@link
+ * CaffeineCacheBackend} to implement the per-repository quotas. Clearing a repository drops the
+ * whole partition. References are cached by {@link CaffeineCacheBackend} for all repositories.
+ */
+final class CachePartition {
+
+  static final String METRIC_GETS = "nessie.storage.cache.gets";
+  static final String METRIC_EVICTIONS = "nessie.storage.cache.evictions";
+  static final String METRIC_WEIGHT = "nessie.storage.cache.weight";
+  static final String METRIC_LIMIT = "nessie.storage.cache.limit";
+  static final String TAG_REPOSITORY = "repository";
+  static final String TAG_TIER = "tier";
+
+  private final String repositoryId;
+  private final double deserializedFraction;
+  private final Cache<ObjId, byte[]> cache;
+  private final Cache<ObjId, Obj> objCache;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final List<Meter> meters = new ArrayList<>();
+  private volatile long limit;
+
+  CachePartition(String repositoryId, CacheConfig config, long limit) {
+    this.repositoryId = repositoryId;
+    this.deserializedFraction =
+        config.capacity() > 0L
+            ? (double) config.deserializedCapacity() / (double) config.capacity()
+            : 0d;
+    this.limit = limit;
+
+    // IMPORTANT!
+    // When changing the configuration of the Caffeine cache, make sure to run the
+    // _native_ Quarkus tests and adopt the `@ReflectionConfig` in
+    // org.projectnessie.quarkus.providers.PersistProvider.
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(serializedLimit(limit))
+            .recordStats()
+            .weigher(this::weigher)
+            .build();
+    this.objCache =
+        config.deserializedCapacity() > 0L
+            ? Caffeine.newBuilder()
+                .maximumWeight(deserializedLimit(limit))
+                .recordStats()
+                .weigher(this::objWeigher)
+                .evictionListener(this::objEvicted)
+                .build()
+            : null;
+  }
+
+  String repositoryId() {
+    return repositoryId;
+  }
+
+  long limit() {
+    return limit;
+  }
+
+  /** Updates the maximum weight of this partition. */
+  void limit(long limit) {
+    if (this.limit == limit) {
+      return;
+    }
+    this.limit = limit;
+    cache.policy().eviction().ifPresent(e -> e.setMaximum(serializedLimit(limit)));
+    if (objCache != null) {
+      objCache.policy().eviction().ifPresent(e -> e.setMaximum(deserializedLimit(limit)));
+    }
+  }
+
+  private long deserializedLimit(long limit) {
+    return (long) (limit * deserializedFraction);
+  }
+
+  private long serializedLimit(long limit) {
+    return limit - deserializedLimit(limit);
+  }
+
+  /** The current weight of all cached objects in this partition. */
+  long weightedSize() {
+    long size = cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
+    if (objCache != null) {
+      size += objCache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
+    }
+    return size;
+  }
+
+  long hitCount() {
+    return hits.sum();
+  }
+
+  long missCount() {
+    return misses.sum();
+  }
+
+  /** Number of objects evicted from the serialized tier, which removes them from the partition. */
+  long evictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  /**
+   * Number of objects evicted from the deserialized tier. Objects evicted due to the size limit are
+   * demoted to the serialized tier.
+   */
+  long deserializedEvictionCount() {
+    return objCache != null ? objCache.stats().evictionCount() : 0L;
+  }
+
+  /** Runs pending Caffeine maintenance work, for tests. */
+  void cleanUp() {
+    if (objCache != null) {
+      objCache.cleanUp();
+    }
+    cache.cleanUp();
+  }
+
+  private int weigher(ObjId id, byte[] data) {
+    return keyHeapSize(id) + JAVA_OBJ_HEADER + data.length;
+  }
+
+  private int objWeigher(ObjId id, Obj obj) {
+    return keyHeapSize(id) + ObjSizes.objHeapSize(obj);
+  }
+
+  private static int keyHeapSize(ObjId id) {
+    return JAVA_OBJ_HEADER + ObjSizes.objIdHeapSize(id);
+  }
+
+  private void objEvicted(ObjId id, Obj obj, RemovalCause cause) {
+    if (id != null && obj != null && cause == RemovalCause.SIZE) {
+      cache.put(id, serialize(obj));
+    }
+  }
+
+  Obj get(ObjId id) {
+    if (objCache != null) {
+      Obj obj = objCache.getIfPresent(id);
+      if (obj != null) {
+        hits.increment();
+        return obj;
+      }
+    }
+
+    byte[] bytes = cache.getIfPresent(id);
+    if (bytes == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    Obj obj = ProtoSerialization.deserializeObj(id, bytes);
+    if (objCache != null) {
+      // Promote the object to the deserialized tier
+      objCache.put(id, obj);
+      cache.invalidate(id);
+    }
+    return obj;
+  }
+
+  void put(Obj obj) {
+    ObjId id = obj.id();
+    if (objCache != null) {
+      objCache.put(id, obj);
+      cache.invalidate(id);
+    } else {
+      cache.put(id, serialize(obj));
+    }
+  }
+
+  void remove(ObjId id) {
+    if (objCache != null) {
+      objCache.invalidate(id);
+    }
+    cache.invalidate(id);
+  }
+
+  private static byte[] serialize(Obj obj) {
+    try {
+      return serializeObj(obj, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    } catch (ObjTooLargeException e) {
+      // this should never happen
+      throw new RuntimeException(e);
+    }
+  }
+
+  void registerMeters(MeterRegistry registry) {
+    meters.add(
+        FunctionCounter.builder(METRIC_GETS, this, CachePartition::hitCount)
+            .tag(TAG_REPOSITORY, repositoryId)
+            .tag("result", "hit")
+            .description("Number of cache hits")
+            .register(registry));
+    meters.add(
+        FunctionCounter.builder(METRIC_GETS, this, CachePartition::missCount)
+            .tag(TAG_REPOSITORY, repositoryId)
+            .tag("result", "miss")
+            .description("Number of cache misses")
+            .register(registry));
+    meters.add(
+        FunctionCounter.builder(METRIC_EVICTIONS, this, CachePartition::evictionCount)
+            .tag(TAG_REPOSITORY, repositoryId)
+            .tag(TAG_TIER, "serialized")
+            .description("Number of objects evicted from the cache")
+            .register(registry));
+    if (objCache != null) {
+      meters.add(
+          FunctionCounter.builder(
+                  METRIC_EVICTIONS, this, CachePartition::deserializedEvictionCount)
+              .tag(TAG_REPOSITORY, repositoryId)
+              .tag(TAG_TIER, "deserialized")
+              .description(
+                  "Number of objects evicted from the deserialized tier, "
+                      + "including objects demoted to the serialized tier")
+              .register(registry));
+    }
+    meters.add(
+        Gauge.builder(METRIC_WEIGHT, this, CachePartition::weightedSize)
+            .tag(TAG_REPOSITORY, repositoryId)
+            .description("Estimated heap usage of the cached objects")
+            .baseUnit("bytes")
+            .register(registry));
+    meters.add(
+        Gauge.builder(METRIC_LIMIT, this, CachePartition::limit)
+            .tag(TAG_REPOSITORY, repositoryId)
+            .description("Current capacity of the repository's cache partition")
+            .baseUnit("bytes")
+            .register(registry));
+  }
+
+  void removeMeters(MeterRegistry registry) {
+    meters.forEach(registry::remove);
+    meters.clear();
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static org.projectnessie.versioned.storage.common.logic.Logics.referenceLogic;
+import static org.projectnessie.versioned.storage.common.logic.ReferencesQuery.referencesQuery;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.logic.PagedResult;
+import org.projectnessie.versioned.storage.common.logic.ReferenceLogic;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.objtypes.IndexSegmentsObj;
+import org.projectnessie.versioned.storage.common.objtypes.IndexStripe;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.common.persist.Reference;
+
+/**
+ * Populates the cache of a caching {@link Persist} after startup, so that the first requests
+ * against the busiest references do not have to fetch the commit chain and the reference index
+ * one level at a time.
+ *
+ * <p>The warm-up either uses the {@link CacheWarmupConfig#references() configured references} or
+ * the {@link CacheWarmupConfig#maxReferences() most recently updated references}, determined by
+ * the creation timestamp of their HEAD commits. For each reference, the HEAD commit, the stripes of
+ * its reference index and the {@link CacheWarmupConfig#commitLogDepth() latest commits} are fetched
+ * using bulk fetches.
+ *
+ * <p>Warm-up is best effort, it stops when the {@link CacheWarmupConfig#timeBudget() time budget}
+ * is exhausted.
+ */
+public final class CacheWarmup {
+
+  /** Maximum number of objects fetched with a single bulk fetch. */
+  static final int FETCH_CHUNK_SIZE = 100;
+
+  private final Persist persist;
+  private final CacheWarmupConfig config;
+  private final long deadline;
+  private long fetched;
+
+  private CacheWarmup(Persist persist, CacheWarmupConfig config) {
+    this.persist = persist;
+    this.config = config;
+    this.deadline = System.nanoTime() + config.timeBudget().toNanos();
+  }
+
+  /**
+   * Runs the warm-up against the given {@link Persist} instance, which should be the caching
+   * {@link Persist}.
+   *
+   * @return the number of fetched objects
+   */
+  public static long warmup(Persist persist, CacheWarmupConfig config) {
+    CacheWarmup warmup = new CacheWarmup(persist, config);
+    warmup.run();
+    return warmup.fetched;
+  }
+
+  private boolean timedOut() {
+    return System.nanoTime() - deadline >= 0L;
+  }
+
+  private void run() {
+    ReferenceLogic referenceLogic = referenceLogic(persist);
+
+    List<Reference> references;
+    if (!config.references().isEmpty()) {
+      references = new ArrayList<>(referenceLogic.getReferences(config.references()));
+    } else {
+      references = new ArrayList<>();
+      PagedResult<Reference, String> result = referenceLogic.queryReferences(referencesQuery());
+      while (result.hasNext()) {
+        references.add(result.next());
+      }
+    }
+
+    ObjId[] headIds =
+        references.stream()
+            .filter(r -> r != null && !r.deleted() && !EMPTY_OBJ_ID.equals(r.pointer()))
+            .map(Reference::pointer)
+            .distinct()
+            .toArray(ObjId[]::new);
+    if (headIds.length == 0 || timedOut()) {
+      return;
+    }
+
+    List<CommitObj> heads = new ArrayList<>();
+    for (Obj obj : fetchObjs(headIds)) {
+      if (obj instanceof CommitObj) {
+        heads.add((CommitObj) obj);
+      }
+    }
+
+    if (config.references().isEmpty()) {
+      heads.sort(Comparator.comparingLong(CommitObj::created).reversed());
+      if (heads.size() > config.maxReferences()) {
+        heads = heads.subList(0, config.maxReferences());
+      }
+    }
+
+    for (CommitObj head : heads) {
+      if (timedOut()) {
+        return;
+      }
+      warmupIndex(head);
+      warmupCommitLog(head);
+    }
+  }
+
+  private void warmupIndex(CommitObj head) {
+    List<ObjId> ids = new ArrayList<>();
+    for (IndexStripe stripe : head.referenceIndexStripes()) {
+      ids.add(stripe.segment());
+    }
+    ObjId referenceIndex = head.referenceIndex();
+    if (referenceIndex != null) {
+      for (Obj obj : fetchObjs(new ObjId[] {referenceIndex})) {
+        if (obj instanceof IndexSegmentsObj) {
+          for (IndexStripe stripe : ((IndexSegmentsObj) obj).stripes()) {
+            ids.add(stripe.segment());
+          }
+        }
+      }
+    }
+    if (!ids.isEmpty() && !timedOut()) {
+      fetchObjs(ids.toArray(new ObjId[0]));
+    }
+  }
+
+  private void warmupCommitLog(CommitObj head) {
+    int remaining = config.commitLogDepth();
+    CommitObj current = head;
+    while (remaining > 0 && current != null && !timedOut()) {
+      List<ObjId> tail = current.tail();
+      int num = Math.min(remaining, tail.size());
+      ObjId[] ids = new ObjId[num];
+      for (int i = 0; i < num; i++) {
+        ObjId id = tail.get(i);
+        if (!EMPTY_OBJ_ID.equals(id)) {
+          ids[i] = id;
+        }
+      }
+      remaining -= num;
+
+      current = null;
+      for (Obj obj : fetchObjs(ids)) {
+        if (obj instanceof CommitObj) {
+          current = (CommitObj) obj;
+        }
+      }
+    }
+  }
+
+  /**
+   * Fetches the given objects in chunks of {@link #FETCH_CHUNK_SIZE}, the returned array has the
+   * same length as {@code ids}, objects that do not exist or could not be fetched within the time
+   * budget are {@code null}.
+   */
+  private Obj[] fetchObjs(ObjId[] ids) {
+    Obj[] objs = new Obj[ids.length];
+    for (int off = 0; off < ids.length && !timedOut(); off += FETCH_CHUNK_SIZE) {
+      ObjId[] chunk = Arrays.copyOfRange(ids, off, Math.min(ids.length, off + FETCH_CHUNK_SIZE));
+      Obj[] fetchedChunk = fetchChunk(chunk);
+      System.arraycopy(fetchedChunk, 0, objs, off, fetchedChunk.length);
+    }
+    for (Obj obj : objs) {
+      if (obj != null) {
+        fetched++;
+      }
+    }
+    return objs;
+  }
+
+  private Obj[] fetchChunk(ObjId[] ids) {
+    try {
+      return persist.fetchObjs(ids);
+    } catch (ObjNotFoundException e) {
+      // Best effort, the objects might have been purged concurrently, skip those
+      Set<ObjId> missing = new HashSet<>(e.objIds());
+      for (int i = 0; i < ids.length; i++) {
+        if (missing.contains(ids[i])) {
+          ids[i] = null;
+        }
+      }
+      try {
+        return persist.fetchObjs(ids);
+      } catch (ObjNotFoundException again) {
+        return new Obj[ids.length];
+      }
+    }
+  }
+}
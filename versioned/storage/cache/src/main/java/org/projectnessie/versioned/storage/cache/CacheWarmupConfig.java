@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.time.Duration;
+import java.util.List;
+import org.immutables.value.Value;
+
+/** Configuration for {@link CacheWarmup}. */
+@Value.Immutable
+public interface CacheWarmupConfig {
+
+  /**
+   * Names of the references to warm up, for example {@code refs/heads/main}. If empty, the {@link
+   * #maxReferences()} most recently updated references are used.
+   */
+  List<String> references();
+
+  /** Number of most recently updated references to warm up, if {@link #references()} is empty. */
+  @Value.Default
+  default int maxReferences() {
+    return 10;
+  }
+
+  /** Number of commits to fetch from the commit log of each reference, beyond the HEAD commit. */
+  @Value.Default
+  default int commitLogDepth() {
+    return 20;
+  }
+
+  /** Maximum duration of the warm-up. */
+  @Value.Default
+  default Duration timeBudget() {
+    return Duration.ofSeconds(30);
+  }
+
+  @Value.Check
+  default void check() {
+    checkState(maxReferences() >= 0, "maxReferences must not be negative");
+    checkState(commitLogDepth() >= 0, "commitLogDepth must not be negative");
+    checkState(!timeBudget().isNegative(), "timeBudget must not be negative");
+  }
+
+  static ImmutableCacheWarmupConfig.Builder builder() {
+    return ImmutableCacheWarmupConfig.builder();
+  }
+}
@@ -34,10 +34,12 @@ class CachingPersistImpl implements Persist {
 
   final Persist persist;
   final ObjCache cache;
+  final SingleFlightLoader loader;
 
   CachingPersistImpl(Persist persist, ObjCache cache) {
     this.persist = persist;
     this.cache = cache;
+    this.loader = new SingleFlightLoader(persist, cache);
   }
 
   @Override
@@ -48,14 +50,7 @@ class CachingPersistImpl implements Persist {
     if (o != null) {
       return o;
     }
-    try {
-      o = persist.fetchObj(id);
-      cache.put(o);
-      return o;
-    } catch (ObjNotFoundException e) {
-      cache.remove(id);
-      throw e;
-    }
+    return loader.load(id);
   }
 
   @Override
@@ -65,13 +60,12 @@ class CachingPersistImpl implements Persist {
       @Nonnull @jakarta.annotation.Nonnull ObjId id, ObjType type, Class<T> typeClass)
       throws ObjNotFoundException {
     Obj o = cache.get(id);
-    if (o != null) {
-      if (o.type() != type) {
-        throw new ObjNotFoundException(id);
-      }
-    } else {
-      o = persist.fetchTypedObj(id, type, typeClass);
-      cache.put(o);
+    if (o == null) {
+      // Objects of another type are not put into the cache
+      o = loader.load(id, type);
+    }
+    if (o.type() != type) {
+      throw new ObjNotFoundException(id);
     }
     @SuppressWarnings("unchecked")
     T r = (T) o;
@@ -120,14 +114,7 @@ class CachingPersistImpl implements Persist {
       return r;
     }
 
-    Obj[] backendResult = persist.fetchObjs(backendIds);
-    for (int i = 0; i < backendResult.length; i++) {
-      Obj o = backendResult[i];
-      if (o != null) {
-        r[i] = o;
-        cache.put(o);
-      }
-    }
+    loader.loadAll(backendIds, r);
     return r;
   }
 
@@ -254,7 +241,15 @@ class CachingPersistImpl implements Persist {
   @jakarta.annotation.Nonnull
   public Reference addReference(@Nonnull @jakarta.annotation.Nonnull Reference reference)
       throws RefAlreadyExistsException {
-    return persist.addReference(reference);
+    Reference r;
+    try {
+      r = persist.addReference(reference);
+    } catch (RefAlreadyExistsException e) {
+      cache.removeReference(reference.name());
+      throw e;
+    }
+    cache.putReference(r);
+    return r;
   }
 
   @Override
@@ -262,13 +257,31 @@ class CachingPersistImpl implements Persist {
   @jakarta.annotation.Nonnull
   public Reference markReferenceAsDeleted(@Nonnull @jakarta.annotation.Nonnull Reference reference)
       throws RefNotFoundException, RefConditionFailedException {
-    return persist.markReferenceAsDeleted(reference);
+    Reference r;
+    try {
+      r = persist.markReferenceAsDeleted(reference);
+    } catch (RefNotFoundException e) {
+      cache.removeReference(reference.name());
+      throw e;
+    } catch (RefConditionFailedException e) {
+      refreshReference(reference.name());
+      throw e;
+    }
+    cache.putReference(r);
+    return r;
   }
 
   @Override
   public void purgeReference(@Nonnull @jakarta.annotation.Nonnull Reference reference)
       throws RefNotFoundException, RefConditionFailedException {
-    persist.purgeReference(reference);
+    try {
+      persist.purgeReference(reference);
+    } catch (RefConditionFailedException e) {
+      refreshReference(reference.name());
+      throw e;
+    } finally {
+      cache.removeReference(reference.name());
+    }
   }
 
   @Override
@@ -278,18 +291,83 @@ class CachingPersistImpl implements Persist {
       @Nonnull @jakarta.annotation.Nonnull Reference reference,
       @Nonnull @jakarta.annotation.Nonnull ObjId newPointer)
       throws RefNotFoundException, RefConditionFailedException {
-    return persist.updateReferencePointer(reference, newPointer);
+    Reference r;
+    try {
+      r = persist.updateReferencePointer(reference, newPointer);
+    } catch (RefNotFoundException e) {
+      cache.removeReference(reference.name());
+      throw e;
+    } catch (RefConditionFailedException e) {
+      // The cached reference might be stale, the next attempt must see the current state.
+      refreshReference(reference.name());
+      throw e;
+    }
+    cache.putReference(r);
+    return r;
   }
 
   @Override
   public Reference fetchReference(@Nonnull @jakarta.annotation.Nonnull String name) {
-    return persist.fetchReference(name);
+    Reference r = cache.getReference(name);
+    if (r == null) {
+      r = persist.fetchReference(name);
+      if (r != null) {
+        cache.putReference(r);
+      }
+    }
+    return r;
+  }
+
+  @Override
+  public Reference fetchReferenceForUpdate(@Nonnull @jakarta.annotation.Nonnull String name) {
+    return refreshReference(name);
   }
 
   @Override
   @Nonnull
   @jakarta.annotation.Nonnull
   public Reference[] fetchReferences(@Nonnull @jakarta.annotation.Nonnull String[] names) {
-    return persist.fetchReferences(names);
+    String[] backendNames = null;
+    Reference[] r = new Reference[names.length];
+
+    for (int i = 0; i < names.length; i++) {
+      String name = names[i];
+      if (name == null) {
+        continue;
+      }
+      Reference ref = cache.getReference(name);
+      if (ref != null) {
+        r[i] = ref;
+      } else {
+        if (backendNames == null) {
+          backendNames = new String[names.length];
+        }
+        backendNames[i] = name;
+      }
+    }
+
+    if (backendNames == null) {
+      return r;
+    }
+
+    Reference[] backendResult = persist.fetchReferences(backendNames);
+    for (int i = 0; i < backendResult.length; i++) {
+      Reference ref = backendResult[i];
+      if (ref != null) {
+        r[i] = ref;
+        cache.putReference(ref);
+      }
+    }
+    return r;
+  }
+
+  private Reference refreshReference(String name) {
+    Reference r = persist.fetchReferenceForUpdate(name);
+    if (r != null) {
+      cache.putReference(r);
+    } else {
+      cache.removeReference(name);
+    }
+    return r;
   }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2022 Dremio
+ * Copyright (C) 2023 Dremio
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,40 +15,80 @@
  */
 package org.projectnessie.versioned.storage.cache;
 
-import static org.projectnessie.versioned.storage.serialize.ProtoSerialization.serializeObj;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nonnull;
-import org.immutables.value.Value;
-import org.projectnessie.versioned.storage.common.exceptions.ObjTooLargeException;
+import org.projectnessie.versioned.storage.common.indexes.KeyFilterMetrics;
 import org.projectnessie.versioned.storage.common.persist.Obj;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
 import org.projectnessie.versioned.storage.common.persist.Persist;
-import org.projectnessie.versioned.storage.serialize.ProtoSerialization;
+import org.projectnessie.versioned.storage.common.persist.Reference;
 
-@Value.Immutable
-abstract class CaffeineCacheBackend implements CacheBackend {
+/**
+ * {@link CacheBackend} using Caffeine caches, partitioned by repository.
+ *
+ * <p>Each repository gets its own {@link CachePartition}, so clearing a repository is a constant
+ * time operation that does not affect the other repositories. The capacity of each partition is
+ * periodically rebalanced: every partition is guaranteed {@link
+ * CacheConfig#repositoryMinCapacity()}, as long as the total capacity allows, and never gets more
+ * than {@link CacheConfig#repositoryMaxCapacity()}. The remaining capacity is shared, partitions
+ * keep what they use and get an equal part of the unused capacity to grow into. Partitions that
+ * use more than their fair share slowly release capacity, so that other partitions can grow.
+ */
+final class CaffeineCacheBackend implements CacheBackend {
 
   public static final int JAVA_OBJ_HEADER = 32;
 
-  static ImmutableCaffeineCacheBackend.Builder builder() {
-    return ImmutableCaffeineCacheBackend.builder();
+  static final long REBALANCE_INTERVAL_NANOS = SECONDS.toNanos(1);
+
+  /** Fraction of the capacity above the fair share that is released per rebalance. */
+  static final int RELEASE_DIVISOR = 16;
+
+  static final String METRIC_KEY_FILTER = "nessie.storage.index.key-filter";
+
+  private final CacheConfig config;
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentHashMap<String, CachePartition> partitions = new ConcurrentHashMap<>();
+  private final ReferenceCache refCache;
+  private final Lock rebalanceLock = new ReentrantLock();
+  private volatile long nextRebalance;
+
+  CaffeineCacheBackend(CacheConfig config) {
+    this(config, Metrics.globalRegistry);
+  }
+
+  CaffeineCacheBackend(CacheConfig config, MeterRegistry meterRegistry) {
+    this.config = config;
+    this.meterRegistry = meterRegistry;
+    this.refCache = new ReferenceCache(config.referenceTtl());
+    registerKeyFilterMeters(meterRegistry);
   }
 
-  abstract long capacity();
-
-  @Value.Derived
-  Cache<CacheKey, byte[]> cache() {
-    // IMPORTANT!
-    // When changing the configuration of the Caffeine cache, make sure to run the
-    // _native_ Quarkus tests and adopt the `@ReflectionConfig` in
-    // org.projectnessie.quarkus.providers.PersistProvider.
-    return Caffeine.newBuilder()
-        .maximumWeight(capacity())
-        .recordStats()
-        .weigher(this::weigher)
-        .build();
+  /**
+   * Exposes the process-wide {@link KeyFilterMetrics} counters. Registering them again for another
+   * cache backend returns the already registered meters.
+   */
+  private static void registerKeyFilterMeters(MeterRegistry registry) {
+    FunctionCounter.builder(
+            METRIC_KEY_FILTER, KeyFilterMetrics.class, c -> KeyFilterMetrics.avoidedLoads())
+        .tag("result", "avoided")
+        .description("Number of index stripe loads avoided by a key filter")
+        .register(registry);
+    FunctionCounter.builder(
+            METRIC_KEY_FILTER, KeyFilterMetrics.class, c -> KeyFilterMetrics.falsePositives())
+        .tag("result", "false-positive")
+        .description(
+            "Number of index stripes loaded for a key that passed the key filter, "
+                + "but is not contained in the stripe")
+        .register(registry);
   }
 
   @Override
@@ -57,84 +97,138 @@ abstract class CaffeineCacheBackend implements CacheBackend {
     return new CachingPersistImpl(persist, cache);
   }
 
-  private int weigher(CacheKey key, byte[] data) {
-    return key.heapSize() + JAVA_OBJ_HEADER + data.length;
+  CachePartition partition(String repositoryId) {
+    CachePartition partition = partitions.get(repositoryId);
+    if (partition == null) {
+      CachePartition created = new CachePartition(repositoryId, config, 0L);
+      partition = partitions.putIfAbsent(repositoryId, created);
+      if (partition == null) {
+        partition = created;
+        partition.registerMeters(meterRegistry);
+        rebalance();
+      }
+    } else if (System.nanoTime() - nextRebalance > 0L) {
+      maybeRebalance();
+    }
+    return partition;
+  }
+
+  private void maybeRebalance() {
+    if (rebalanceLock.tryLock()) {
+      try {
+        rebalanceLocked();
+      } finally {
+        rebalanceLock.unlock();
+      }
+    }
+  }
+
+  /** Recalculates the capacities of all partitions. */
+  void rebalance() {
+    rebalanceLock.lock();
+    try {
+      rebalanceLocked();
+    } finally {
+      rebalanceLock.unlock();
+    }
+  }
+
+  private void rebalanceLocked() {
+    nextRebalance = System.nanoTime() + REBALANCE_INTERVAL_NANOS;
+
+    List<CachePartition> current = new ArrayList<>(partitions.values());
+    int n = current.size();
+    if (n == 0) {
+      return;
+    }
+
+    long capacity = config.capacity();
+    long maxCapacity =
+        config.repositoryMaxCapacity() > 0L
+            ? Math.min(config.repositoryMaxCapacity(), capacity)
+            : capacity;
+    long fairShare = capacity / n;
+    long reserved = Math.min(config.repositoryMinCapacity(), fairShare);
+    long available = capacity - n * reserved;
+
+    long[] extra = new long[n];
+    long totalExtra = 0L;
+    for (int i = 0; i < n; i++) {
+      long used = current.get(i).weightedSize();
+      if (used > fairShare) {
+        used -= (used - fairShare) / RELEASE_DIVISOR;
+      }
+      extra[i] = Math.max(0L, Math.min(used, maxCapacity) - reserved);
+      totalExtra += extra[i];
+    }
+
+    if (totalExtra > available) {
+      // Happens when partitions have been added, shrink the used capacities proportionally
+      for (int i = 0; i < n; i++) {
+        extra[i] = (long) ((double) extra[i] * available / totalExtra);
+      }
+      totalExtra = available;
+    }
+
+    long headroom = (available - totalExtra) / n;
+    for (int i = 0; i < n; i++) {
+      current.get(i).limit(Math.min(maxCapacity, reserved + extra[i] + headroom));
+    }
   }
 
   @Override
   public Obj get(
       @Nonnull @jakarta.annotation.Nonnull String repositoryId,
       @Nonnull @jakarta.annotation.Nonnull ObjId id) {
-    CacheKey key = cacheKey(repositoryId, id);
-    byte[] bytes = cache().getIfPresent(key);
-    return bytes != null ? ProtoSerialization.deserializeObj(id, bytes) : null;
+    return partition(repositoryId).get(id);
   }
 
   @Override
   public void put(
       @Nonnull @jakarta.annotation.Nonnull String repositoryId,
       @Nonnull @jakarta.annotation.Nonnull Obj obj) {
-    CacheKey key = cacheKey(repositoryId, obj.id());
-    try {
-      cache().put(key, serializeObj(obj, Integer.MAX_VALUE, Integer.MAX_VALUE));
-    } catch (ObjTooLargeException e) {
-      // this should never happen
-      throw new RuntimeException(e);
-    }
+    partition(repositoryId).put(obj);
   }
 
   @Override
   public void remove(
       @Nonnull @jakarta.annotation.Nonnull String repositoryId,
       @Nonnull @jakarta.annotation.Nonnull ObjId id) {
-    CacheKey key = cacheKey(repositoryId, id);
-    cache().invalidate(key);
+    CachePartition partition = partitions.get(repositoryId);
+    if (partition != null) {
+      partition.remove(id);
+    }
   }
 
   @Override
-  public void clear(@Nonnull @jakarta.annotation.Nonnull String repositoryId) {
-    cache().asMap().keySet().removeIf(k -> k.repositoryId.equals(repositoryId));
+  public Reference getReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull String name) {
+    return refCache.get(repositoryId, name);
   }
 
-  private CacheKey cacheKey(String repositoryId, ObjId id) {
-    return new CacheKey(repositoryId, id);
+  @Override
+  public void putReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull Reference reference) {
+    refCache.put(repositoryId, reference);
   }
 
-  static final class CacheKey {
-
-    static final int HEAP_OVERHEAD = 3 * JAVA_OBJ_HEADER;
-    final String repositoryId;
-    final ObjId id;
-
-    CacheKey(String repositoryId, ObjId id) {
-      this.repositoryId = repositoryId;
-      this.id = id;
-    }
-
-    int heapSize() {
-      return HEAP_OVERHEAD + id.size() + repositoryId.length();
-    }
-
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) {
-        return true;
-      }
-      if (!(o instanceof CacheKey)) {
-        return false;
-      }
-      CacheKey cacheKey = (CacheKey) o;
-      return repositoryId.equals(cacheKey.repositoryId) && id.equals(cacheKey.id);
-    }
-
-    @Override
-    public int hashCode() {
-      return repositoryId.hashCode() * 31 + id.hashCode();
-    }
+  @Override
+  public void removeReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull String name) {
+    refCache.remove(repositoryId, name);
+  }
 
-    @Override
-    public String toString() {
-      return "CacheKey{" + repositoryId + ", " + id + '}';
+  @Override
+  public void clear(@Nonnull @jakarta.annotation.Nonnull String repositoryId) {
+    refCache.clear(repositoryId);
+    CachePartition partition = partitions.remove(repositoryId);
+    if (partition != null) {
+      partition.removeMeters(meterRegistry);
+      // Let the next access redistribute the released capacity
+      nextRebalance = System.nanoTime();
     }
   }
 }
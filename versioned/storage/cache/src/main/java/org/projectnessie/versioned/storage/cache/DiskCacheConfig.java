@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.nio.file.Path;
+import org.immutables.value.Value;
+
+/**
+ * Configuration of a persistent, local {@link CacheBackend}, see {@link
+ * PersistCaches#newDiskBackend(DiskCacheConfig)}.
+ */
+@Value.Immutable
+public interface DiskCacheConfig {
+
+  /** Local directory holding the cached objects, created if it does not exist. */
+  Path path();
+
+  /** The maximum amount of disk space in bytes used by the cached objects. */
+  long capacity();
+
+  @Value.Check
+  default void check() {
+    checkState(capacity() > 0L, "Disk cache capacity must be positive");
+  }
+
+  static ImmutableDiskCacheConfig.Builder builder() {
+    return ImmutableDiskCacheConfig.builder();
+  }
+}
@@ -19,6 +19,7 @@ import javax.annotation.Nonnull;
 import org.projectnessie.versioned.storage.common.persist.Obj;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
 import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.common.persist.Reference;
 
 /** Cache primitives for a specific repository ID, used for one {@link Persist} instance. */
 public interface ObjCache {
@@ -29,5 +30,11 @@ public interface ObjCache {
 
   void remove(@Nonnull @jakarta.annotation.Nonnull ObjId id);
 
+  Reference getReference(@Nonnull @jakarta.annotation.Nonnull String name);
+
+  void putReference(@Nonnull @jakarta.annotation.Nonnull Reference reference);
+
+  void removeReference(@Nonnull @jakarta.annotation.Nonnull String name);
+
   void clear();
 }
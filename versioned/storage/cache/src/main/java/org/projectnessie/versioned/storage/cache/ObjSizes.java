@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static org.projectnessie.versioned.storage.cache.CaffeineCacheBackend.JAVA_OBJ_HEADER;
+
+import java.util.List;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
+import org.projectnessie.versioned.storage.common.indexes.StoreKey;
+import org.projectnessie.versioned.storage.common.objtypes.CommitHeaders;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.objtypes.ContentValueObj;
+import org.projectnessie.versioned.storage.common.objtypes.IndexObj;
+import org.projectnessie.versioned.storage.common.objtypes.IndexSegmentsObj;
+import org.projectnessie.versioned.storage.common.objtypes.IndexStripe;
+import org.projectnessie.versioned.storage.common.objtypes.RefObj;
+import org.projectnessie.versioned.storage.common.objtypes.StringObj;
+import org.projectnessie.versioned.storage.common.objtypes.TagObj;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+
+/**
+ * Estimates the retained heap size of deserialized {@link Obj} instances.
+ *
+ * <p>The estimates are intentionally rough and rather too high than too low, they only need to be
+ * good enough to let the cache weigher keep the heap usage of the cache within its configured
+ * bounds.
+ */
+final class ObjSizes {
+  private ObjSizes() {}
+
+  static final int JAVA_REFERENCE = 8;
+  static final int JAVA_ARRAY_HEADER = 16;
+
+  /**
+   * Heap size assumed for object types that are not known to this class, deliberately much larger
+   * than the typical size of the known object types.
+   */
+  static final int UNKNOWN_OBJ_HEAP_SIZE = 16 * 1024;
+
+  static int objHeapSize(Obj obj) {
+    switch (obj.type()) {
+      case COMMIT:
+        return commitHeapSize((CommitObj) obj);
+      case INDEX:
+        return JAVA_OBJ_HEADER
+            + objIdHeapSize(obj.id())
+            + byteStringHeapSize(((IndexObj) obj).index());
+      case INDEX_SEGMENTS:
+        return JAVA_OBJ_HEADER
+            + objIdHeapSize(obj.id())
+            + stripesHeapSize(((IndexSegmentsObj) obj).stripes());
+      case VALUE:
+        ContentValueObj value = (ContentValueObj) obj;
+        return JAVA_OBJ_HEADER
+            + objIdHeapSize(obj.id())
+            + stringHeapSize(value.contentId())
+            + byteStringHeapSize(value.data());
+      case STRING:
+        StringObj string = (StringObj) obj;
+        return JAVA_OBJ_HEADER
+            + objIdHeapSize(obj.id())
+            + stringHeapSize(string.contentType())
+            + stringHeapSize(string.filename())
+            + objIdsHeapSize(string.predecessors())
+            + byteStringHeapSize(string.text());
+      case TAG:
+        TagObj tag = (TagObj) obj;
+        return JAVA_OBJ_HEADER
+            + objIdHeapSize(obj.id())
+            + objIdHeapSize(tag.commitId())
+            + stringHeapSize(tag.message())
+            + headersHeapSize(tag.headers())
+            + byteStringHeapSize(tag.signature());
+      case REF:
+        RefObj ref = (RefObj) obj;
+        return JAVA_OBJ_HEADER
+            + objIdHeapSize(obj.id())
+            + stringHeapSize(ref.name())
+            + objIdHeapSize(ref.initialPointer());
+      default:
+        return UNKNOWN_OBJ_HEAP_SIZE;
+    }
+  }
+
+  private static int commitHeapSize(CommitObj c) {
+    return JAVA_OBJ_HEADER
+        + objIdHeapSize(c.id())
+        + objIdsHeapSize(c.tail())
+        + objIdsHeapSize(c.secondaryParents())
+        + headersHeapSize(c.headers())
+        + stringHeapSize(c.message())
+        + objIdHeapSize(c.referenceIndex())
+        + stripesHeapSize(c.referenceIndexStripes())
+        + byteStringHeapSize(c.incrementalIndex());
+  }
+
+  static int objIdHeapSize(ObjId id) {
+    return id != null ? JAVA_OBJ_HEADER + JAVA_ARRAY_HEADER + id.size() : 0;
+  }
+
+  private static int objIdsHeapSize(List<ObjId> ids) {
+    int size = listHeapSize(ids);
+    for (ObjId id : ids) {
+      size += objIdHeapSize(id);
+    }
+    return size;
+  }
+
+  private static int stripesHeapSize(List<IndexStripe> stripes) {
+    int size = listHeapSize(stripes);
+    for (IndexStripe stripe : stripes) {
+      size +=
+          JAVA_OBJ_HEADER
+              + storeKeyHeapSize(stripe.firstKey())
+              + storeKeyHeapSize(stripe.lastKey())
+              + objIdHeapSize(stripe.segment())
+              + byteStringHeapSize(stripe.keyFilter());
+    }
+    return size;
+  }
+
+  private static int storeKeyHeapSize(StoreKey key) {
+    return JAVA_OBJ_HEADER + stringHeapSize(key.rawString());
+  }
+
+  private static int headersHeapSize(CommitHeaders headers) {
+    if (headers == null) {
+      return 0;
+    }
+    // HashMap + table + entries
+    int size = 3 * JAVA_OBJ_HEADER + JAVA_ARRAY_HEADER;
+    for (String name : headers.keySet()) {
+      List<String> values = headers.getAll(name);
+      size += JAVA_OBJ_HEADER + 2 * JAVA_REFERENCE + stringHeapSize(name) + listHeapSize(values);
+      for (String value : values) {
+        size += stringHeapSize(value);
+      }
+    }
+    return size;
+  }
+
+  private static int listHeapSize(List<?> list) {
+    return JAVA_OBJ_HEADER + JAVA_ARRAY_HEADER + list.size() * JAVA_REFERENCE;
+  }
+
+  private static int stringHeapSize(String s) {
+    // Assume non-LATIN1 strings, so 2 bytes per character
+    return s != null ? JAVA_OBJ_HEADER + JAVA_ARRAY_HEADER + 2 * s.length() : 0;
+  }
+
+  private static int byteStringHeapSize(ByteString bytes) {
+    return bytes != null ? JAVA_OBJ_HEADER + JAVA_ARRAY_HEADER + bytes.size() : 0;
+  }
+}
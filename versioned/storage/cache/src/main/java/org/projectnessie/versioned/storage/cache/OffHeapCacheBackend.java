@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static org.projectnessie.versioned.storage.serialize.ProtoSerialization.serializeObj;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nonnull;
+import org.projectnessie.versioned.storage.common.exceptions.ObjTooLargeException;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.common.persist.Reference;
+import org.projectnessie.versioned.storage.serialize.ProtoSerialization;
+
+/**
+ * {@link CacheBackend} that holds the serialized objects in direct memory, outside of the Java
+ * heap, to allow caches of multiple gigabytes without causing GC pressure.
+ *
+ * <p>The configured {@link CacheConfig#capacity()} is split into equally sized segments, which are
+ * direct {@link ByteBuffer}s, allocated on first use. Serialized objects are appended to the
+ * current segment, a compact on-heap index maps each {@link ObjId} to its slot in a segment.
+ *
+ * <p>When the current segment is full, the next segment is recycled using a CLOCK-like policy:
+ * objects in the recycled segment that have been read since the segment was last recycled get a
+ * second chance and are moved to the beginning of the segment, up to half of the segment size; all
+ * other objects in the segment are evicted. Objects larger than a segment are not cached.
+ *
+ * <p>Reads do not copy the serialized representation, objects are deserialized directly from the
+ * segment.
+ */
+final class OffHeapCacheBackend implements CacheBackend {
+
+  static final int MIN_SEGMENT_SIZE = 1024 * 1024;
+  static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+  static final int SEGMENTS = 16;
+
+  private static final int COPY_CHUNK_SIZE = 8192;
+
+  private final ConcurrentHashMap<CacheKey, Slot> index = new ConcurrentHashMap<>();
+  private final ReferenceCache refCache;
+  private final int segmentSize;
+  private final Segment[] segments;
+
+  /** Guards appending to {@link #segments} and {@link #head}. */
+  private final Lock appendLock = new ReentrantLock();
+
+  private final byte[] copyBuffer = new byte[COPY_CHUNK_SIZE];
+  private int head = -1;
+
+  OffHeapCacheBackend(CacheConfig config) {
+    long capacity = config.capacity();
+    long size = Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, capacity / SEGMENTS));
+    this.segmentSize = (int) Math.min(capacity, size);
+    int numSegments = segmentSize > 0 ? (int) Math.max(1L, capacity / segmentSize) : 0;
+    this.segments = new Segment[numSegments];
+    for (int i = 0; i < numSegments; i++) {
+      segments[i] = new Segment(i);
+    }
+    this.refCache = new ReferenceCache(config.referenceTtl());
+  }
+
+  @Override
+  public Persist wrap(@Nonnull @jakarta.annotation.Nonnull Persist persist) {
+    ObjCacheImpl cache = new ObjCacheImpl(this, persist.config().repositoryId());
+    return new CachingPersistImpl(persist, cache);
+  }
+
+  @Override
+  public Obj get(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull ObjId id) {
+    Slot slot = index.get(new CacheKey(repositoryId, id));
+    if (slot == null) {
+      return null;
+    }
+
+    Segment segment = segments[slot.segment];
+    Obj obj;
+    Lock lock = segment.lock.readLock();
+    lock.lock();
+    try {
+      if (segment.generation != slot.generation) {
+        // The segment has been recycled concurrently
+        return null;
+      }
+      ByteBuffer serialized = segment.buffer.duplicate();
+      serialized.limit(slot.offset + slot.length);
+      serialized.position(slot.offset);
+      obj = ProtoSerialization.deserializeObj(id, serialized);
+    } finally {
+      lock.unlock();
+    }
+
+    if (!slot.referenced) {
+      slot.referenced = true;
+    }
+    return obj;
+  }
+
+  @Override
+  public void put(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull Obj obj) {
+    CacheKey key = new CacheKey(repositoryId, obj.id());
+    byte[] serialized = serialize(obj);
+    int length = serialized.length;
+    if (length > segmentSize) {
+      index.remove(key);
+      return;
+    }
+
+    appendLock.lock();
+    try {
+      Segment segment = head >= 0 ? segments[head] : null;
+      if (segment == null || segment.position + length > segmentSize) {
+        segment = nextSegment(length);
+      }
+
+      int offset = segment.position;
+      ByteBuffer target = segment.buffer.duplicate();
+      target.position(offset);
+      target.put(serialized);
+      segment.position = offset + length;
+
+      Slot slot = new Slot(key, segment.index, offset, length, segment.generation);
+      segment.slots.add(slot);
+      index.put(key, slot);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * Advances {@link #head} to the next segment that has room for {@code length} bytes, recycling
+   * segments as necessary.
+   */
+  private Segment nextSegment(int length) {
+    while (true) {
+      head = (head + 1) % segments.length;
+      Segment segment = segments[head];
+      if (segment.buffer == null) {
+        segment.buffer = ByteBuffer.allocateDirect(segmentSize);
+        return segment;
+      }
+      recycle(segment);
+      if (segment.position + length <= segmentSize) {
+        return segment;
+      }
+    }
+  }
+
+  /**
+   * Evicts the objects in the given segment that have not been read since the segment was last
+   * recycled and moves the remaining objects to the beginning of the segment.
+   */
+  private void recycle(Segment segment) {
+    Lock lock = segment.lock.writeLock();
+    lock.lock();
+    try {
+      int retainLimit = segmentSize / 2;
+      int generation = segment.generation + 1;
+      List<Slot> retained = new ArrayList<>();
+      int position = 0;
+      for (Slot slot : segment.slots) {
+        if (index.get(slot.key) != slot) {
+          // removed or replaced
+          continue;
+        }
+        if (slot.referenced && position + slot.length <= retainLimit) {
+          // Slots are ordered by offset, so the target is never after the source
+          moveWithin(segment.buffer, slot.offset, position, slot.length);
+          Slot moved = new Slot(slot.key, segment.index, position, slot.length, generation);
+          if (index.replace(slot.key, slot, moved)) {
+            retained.add(moved);
+            position += slot.length;
+          }
+        } else {
+          index.remove(slot.key, slot);
+        }
+      }
+      segment.generation = generation;
+      segment.position = position;
+      segment.slots = retained;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void moveWithin(ByteBuffer buffer, int from, int to, int length) {
+    if (from == to) {
+      return;
+    }
+    byte[] chunk = copyBuffer;
+    for (int off = 0; off < length; off += chunk.length) {
+      int len = Math.min(chunk.length, length - off);
+      ByteBuffer source = buffer.duplicate();
+      source.position(from + off);
+      source.get(chunk, 0, len);
+      ByteBuffer target = buffer.duplicate();
+      target.position(to + off);
+      target.put(chunk, 0, len);
+    }
+  }
+
+  private static byte[] serialize(Obj obj) {
+    try {
+      return serializeObj(obj, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    } catch (ObjTooLargeException e) {
+      // this should never happen
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void remove(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull ObjId id) {
+    index.remove(new CacheKey(repositoryId, id));
+  }
+
+  @Override
+  public Reference getReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull String name) {
+    return refCache.get(repositoryId, name);
+  }
+
+  @Override
+  public void putReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull Reference reference) {
+    refCache.put(repositoryId, reference);
+  }
+
+  @Override
+  public void removeReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull String name) {
+    refCache.remove(repositoryId, name);
+  }
+
+  @Override
+  public void clear(@Nonnull @jakarta.annotation.Nonnull String repositoryId) {
+    // The space in the segments is reclaimed when the segments are recycled
+    index.keySet().removeIf(k -> k.repositoryId.equals(repositoryId));
+    refCache.clear(repositoryId);
+  }
+
+  private static final class Segment {
+    final int index;
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Allocated on first use, guarded by {@code appendLock}. */
+    ByteBuffer buffer;
+
+    /** Incremented when the segment is recycled, guarded by {@code lock}. */
+    int generation;
+
+    /** Next write position, guarded by {@code appendLock}. */
+    int position;
+
+    /** Slots written to this segment, ordered by offset, guarded by {@code appendLock}. */
+    List<Slot> slots = new ArrayList<>();
+
+    Segment(int index) {
+      this.index = index;
+    }
+  }
+
+  private static final class Slot {
+    final CacheKey key;
+    final int segment;
+    final int offset;
+    final int length;
+    final int generation;
+
+    /** The "clock" bit, set when the object is read. */
+    volatile boolean referenced;
+
+    Slot(CacheKey key, int segment, int offset, int length, int generation) {
+      this.key = key;
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+      this.generation = generation;
+    }
+  }
+
+  static final class CacheKey {
+    final String repositoryId;
+    final ObjId id;
+
+    CacheKey(String repositoryId, ObjId id) {
+      this.repositoryId = repositoryId;
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey cacheKey = (CacheKey) o;
+      return repositoryId.equals(cacheKey.repositoryId) && id.equals(cacheKey.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return repositoryId.hashCode() * 31 + id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "CacheKey{" + repositoryId + ", " + id + '}';
+    }
+  }
+}
@@ -20,6 +20,23 @@ public final class PersistCaches {
 
   /** Produces a {@link CacheBackend} with the given maximum capacity. */
   public static CacheBackend newBackend(long capacity) {
-    return CaffeineCacheBackend.builder().capacity(capacity).build();
+    return newBackend(CacheConfig.builder().capacity(capacity).build());
+  }
+
+  /** Produces a {@link CacheBackend} using the given configuration. */
+  public static CacheBackend newBackend(CacheConfig config) {
+    if (config.offHeap()) {
+      return new OffHeapCacheBackend(config);
+    }
+    return new CaffeineCacheBackend(config);
+  }
+
+  /**
+   * Produces a persistent {@link CacheBackend} that keeps the cached objects on local disk, meant
+   * to be placed between a heap cache and a remote backend, like {@code
+   * heapBackend.wrap(diskBackend.wrap(persist))}. References are not cached by this backend.
+   */
+  public static PersistentCacheBackend newDiskBackend(DiskCacheConfig config) {
+    return new RocksDBCacheBackend(config);
   }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.projectnessie.versioned.storage.common.persist.Reference;
+
+/**
+ * Holds the cached {@link Reference}s for all {@link CacheBackend} implementations, if {@link
+ * CacheConfig#referenceTtl()} is configured. Entries expire after the configured TTL, which bounds
+ * the staleness of the cached references.
+ *
+ * <p>The references of each repository are held in a separate Caffeine cache, so clearing a
+ * repository drops its partition without scanning the references of other repositories. The
+ * maximum size of {@link #REFERENCE_CACHE_MAX_ENTRIES} is split evenly across the partitions, but
+ * each partition can hold at least {@link #REFERENCE_CACHE_MIN_ENTRIES_PER_REPOSITORY} references.
+ */
+final class ReferenceCache {
+
+  /**
+   * Maximum number of cached references per {@link CacheBackend}, each backend uses one instance
+   * for all repositories.
+   */
+  static final int REFERENCE_CACHE_MAX_ENTRIES = 100_000;
+
+  /** Minimum number of cached references per repository. */
+  static final int REFERENCE_CACHE_MIN_ENTRIES_PER_REPOSITORY = 1_000;
+
+  private final long ttlNanos;
+  private final ConcurrentHashMap<String, Cache<String, Reference>> partitions =
+      new ConcurrentHashMap<>();
+
+  ReferenceCache(Duration ttl) {
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  private Cache<String, Reference> partition(String repositoryId) {
+    Cache<String, Reference> partition = partitions.get(repositoryId);
+    if (partition == null) {
+      // IMPORTANT!
+      // When changing the configuration of the Caffeine cache, make sure to run the
+      // _native_ Quarkus tests and adopt the `@ReflectionConfig` in
+      // org.projectnessie.quarkus.providers.PersistProvider.
+      Cache<String, Reference> created =
+          Caffeine.newBuilder()
+              .maximumSize(REFERENCE_CACHE_MIN_ENTRIES_PER_REPOSITORY)
+              .expireAfterWrite(ttlNanos, TimeUnit.NANOSECONDS)
+              .recordStats()
+              .build();
+      partition = partitions.putIfAbsent(repositoryId, created);
+      if (partition == null) {
+        partition = created;
+        resizePartitions();
+      }
+    }
+    return partition;
+  }
+
+  /** Splits {@link #REFERENCE_CACHE_MAX_ENTRIES} across the current partitions. */
+  private synchronized void resizePartitions() {
+    int count = partitions.size();
+    if (count == 0) {
+      return;
+    }
+    long maximum =
+        Math.max(REFERENCE_CACHE_MIN_ENTRIES_PER_REPOSITORY, REFERENCE_CACHE_MAX_ENTRIES / count);
+    partitions
+        .values()
+        .forEach(p -> p.policy().eviction().ifPresent(e -> e.setMaximum(maximum)));
+  }
+
+  Reference get(String repositoryId, String name) {
+    if (ttlNanos <= 0L) {
+      return null;
+    }
+    Cache<String, Reference> partition = partitions.get(repositoryId);
+    return partition != null ? partition.getIfPresent(name) : null;
+  }
+
+  void put(String repositoryId, Reference reference) {
+    if (ttlNanos > 0L) {
+      partition(repositoryId).put(reference.name(), reference);
+    }
+  }
+
+  void remove(String repositoryId, String name) {
+    Cache<String, Reference> partition = partitions.get(repositoryId);
+    if (partition != null) {
+      partition.invalidate(name);
+    }
+  }
+
+  void clear(String repositoryId) {
+    Cache<String, Reference> partition = partitions.remove(repositoryId);
+    if (partition != null) {
+      partition.invalidateAll();
+      resizePartitions();
+    }
+  }
+
+  /** The maximum number of references cached for the given repository, for tests. */
+  long maximumSize(String repositoryId) {
+    Cache<String, Reference> partition = partitions.get(repositoryId);
+    return partition != null
+        ? partition.policy().eviction().map(e -> e.getMaximum()).orElse(0L)
+        : 0L;
+  }
+}
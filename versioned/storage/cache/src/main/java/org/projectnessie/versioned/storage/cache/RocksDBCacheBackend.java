@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.projectnessie.versioned.storage.common.persist.ObjType.COMMIT;
+import static org.projectnessie.versioned.storage.serialize.ProtoSerialization.serializeObj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.annotation.Nonnull;
+import org.projectnessie.versioned.storage.common.exceptions.ObjTooLargeException;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.common.persist.Reference;
+import org.projectnessie.versioned.storage.serialize.ProtoSerialization;
+import org.rocksdb.CompactionOptionsFIFO;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+/**
+ * {@link PersistentCacheBackend} that holds serialized objects in a local RocksDB database.
+ *
+ * <p>The database uses FIFO compaction, which drops the oldest SST files once the configured
+ * {@link DiskCacheConfig#capacity()} is exceeded. To approximate LRU eviction, each cached value
+ * carries the RocksDB sequence number of its last write, objects read from the older half of the
+ * cache are written again, so frequently used objects move to newer files.
+ *
+ * <p>References are mutable and are therefore not cached by this backend. The same applies to
+ * commit objects, which can be updated in place, for example when the reference index of a commit
+ * is built in the background. Since the cached objects survive restarts, updates performed by other
+ * Nessie instances would otherwise never be visible.
+ *
+ * <p>Keys consist of the length of the UTF-8 representation of the repository ID, the repository
+ * ID and the object ID, so that the keys of different repositories can never collide.
+ */
+final class RocksDBCacheBackend implements PersistentCacheBackend {
+
+  static final int SEQUENCE_SIZE = Long.BYTES;
+  static final long MIN_WRITE_BUFFER_SIZE = 4L * 1024L * 1024L;
+  static final long MAX_WRITE_BUFFER_SIZE = 64L * 1024L * 1024L;
+  static final long REFRESH_DISTANCE_INTERVAL_NANOS = SECONDS.toNanos(10);
+  static final long MIN_REFRESH_DISTANCE = 1000L;
+
+  private final Path path;
+  private final Options options;
+  private final RocksDB db;
+
+  private volatile long refreshDistance = MIN_REFRESH_DISTANCE;
+  private volatile long nextRefreshDistanceUpdate;
+
+  RocksDBCacheBackend(DiskCacheConfig config) {
+    RocksDB.loadLibrary();
+    this.path = config.path();
+    long capacity = config.capacity();
+    long writeBufferSize =
+        Math.max(MIN_WRITE_BUFFER_SIZE, Math.min(MAX_WRITE_BUFFER_SIZE, capacity / 16));
+    this.options =
+        new Options()
+            .setCreateIfMissing(true)
+            .setWriteBufferSize(writeBufferSize)
+            .setCompactionStyle(CompactionStyle.FIFO)
+            .setCompactionOptionsFIFO(new CompactionOptionsFIFO().setMaxTableFilesSize(capacity));
+    try {
+      Files.createDirectories(path);
+      this.db = RocksDB.open(options, path.toString());
+    } catch (IOException | RocksDBException e) {
+      options.close();
+      throw new RuntimeException("Failed to open disk cache in " + path, e);
+    }
+  }
+
+  @Override
+  public Persist wrap(@Nonnull @jakarta.annotation.Nonnull Persist persist) {
+    ObjCacheImpl cache = new ObjCacheImpl(this, persist.config().repositoryId());
+    return new CachingPersistImpl(persist, cache);
+  }
+
+  @Override
+  public Obj get(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull ObjId id) {
+    byte[] key = dbKey(repositoryId, id);
+    try {
+      byte[] value = db.get(key);
+      if (value == null) {
+        return null;
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(value);
+      long sequence = buffer.getLong();
+      Obj obj = ProtoSerialization.deserializeObj(id, buffer);
+
+      if (db.getLatestSequenceNumber() - sequence > refreshDistance()) {
+        // Move the object to the newest SST files, to not lose it with the oldest ones
+        db.put(key, value(obj));
+      }
+      return obj;
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private long refreshDistance() throws RocksDBException {
+    long now = System.nanoTime();
+    if (now - nextRefreshDistanceUpdate > 0L) {
+      nextRefreshDistanceUpdate = now + REFRESH_DISTANCE_INTERVAL_NANOS;
+      long keys = db.getLongProperty("rocksdb.estimate-num-keys");
+      refreshDistance = Math.max(MIN_REFRESH_DISTANCE, keys / 2);
+    }
+    return refreshDistance;
+  }
+
+  @Override
+  public void put(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull Obj obj) {
+    if (!isCacheable(obj)) {
+      return;
+    }
+    try {
+      db.put(dbKey(repositoryId, obj.id()), value(obj));
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  static boolean isCacheable(Obj obj) {
+    return obj.type() != COMMIT;
+  }
+
+  private byte[] value(Obj obj) {
+    byte[] serialized;
+    try {
+      serialized = serializeObj(obj, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    } catch (ObjTooLargeException e) {
+      // this should never happen
+      throw new RuntimeException(e);
+    }
+    return ByteBuffer.allocate(SEQUENCE_SIZE + serialized.length)
+        .putLong(db.getLatestSequenceNumber())
+        .put(serialized)
+        .array();
+  }
+
+  @Override
+  public void remove(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull ObjId id) {
+    try {
+      db.delete(dbKey(repositoryId, id));
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public Reference getReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull String name) {
+    return null;
+  }
+
+  @Override
+  public void putReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull Reference reference) {}
+
+  @Override
+  public void removeReference(
+      @Nonnull @jakarta.annotation.Nonnull String repositoryId,
+      @Nonnull @jakarta.annotation.Nonnull String name) {}
+
+  @Override
+  public void clear(@Nonnull @jakarta.annotation.Nonnull String repositoryId) {
+    byte[] begin = keyPrefix(repositoryId);
+    byte[] end = keyPrefix(repositoryId);
+    // All keys of the repository are in the range [begin, end). The last byte is either the length
+    // (empty repository ID) or part of a UTF-8 sequence, so it is never 0xff.
+    end[end.length - 1]++;
+    try {
+      db.deleteRange(begin, end);
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try (FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true)) {
+      db.flush(flushOptions);
+    } catch (RocksDBException e) {
+      // ignore, losing the contents of the memtable is fine for a cache
+    } finally {
+      db.close();
+      options.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RocksDBCacheBackend{" + path + '}';
+  }
+
+  private static byte[] keyPrefix(String repositoryId) {
+    byte[] repo = repositoryId.getBytes(UTF_8);
+    return ByteBuffer.allocate(Integer.BYTES + repo.length).putInt(repo.length).put(repo).array();
+  }
+
+  private static byte[] dbKey(String repositoryId, ObjId id) {
+    byte[] prefix = keyPrefix(repositoryId);
+    return ByteBuffer.allocate(prefix.length + id.size())
+        .put(prefix)
+        .put(id.asByteBuffer())
+        .array();
+  }
+}
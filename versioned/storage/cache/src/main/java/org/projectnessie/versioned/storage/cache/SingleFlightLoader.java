@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.ObjType;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+
+/**
+ * Coalesces concurrent loads of the same objects that missed the cache, so that concurrent callers
+ * wait for a single read against the backend instead of issuing their own reads.
+ *
+ * <p>The first caller for an {@link ObjId} loads the object and puts it into the cache, all other
+ * callers for the same {@link ObjId} wait for the result of the first caller. Loads for multiple
+ * objects via {@link #loadAll(ObjId[], Obj[])} only fetch the objects that are not already being
+ * loaded by other callers, using a single bulk fetch.
+ */
+final class SingleFlightLoader {
+
+  private final Persist persist;
+  private final ObjCache cache;
+  private final ConcurrentHashMap<ObjId, CompletableFuture<Obj>> inflight =
+      new ConcurrentHashMap<>();
+
+  SingleFlightLoader(Persist persist, ObjCache cache) {
+    this.persist = persist;
+    this.cache = cache;
+  }
+
+  /** Loads a single object that was not found in the cache. */
+  Obj load(ObjId id) throws ObjNotFoundException {
+    return load(id, null);
+  }
+
+  /**
+   * Loads a single object that was not found in the cache, the loaded object is only put into the
+   * cache, if it is of the given {@code type}, or if {@code type} is {@code null}. Callers must
+   * check the type of the returned object.
+   */
+  Obj load(ObjId id, ObjType type) throws ObjNotFoundException {
+    CompletableFuture<Obj> future = new CompletableFuture<>();
+    CompletableFuture<Obj> existing = inflight.putIfAbsent(id, future);
+    if (existing != null) {
+      return await(id, existing);
+    }
+
+    try {
+      // Another caller might have finished loading the object in the meantime
+      Obj o = cache.get(id);
+      if (o == null) {
+        o = persist.fetchObj(id);
+        if (type == null || o.type() == type) {
+          cache.put(o);
+        }
+      }
+      future.complete(o);
+      return o;
+    } catch (ObjNotFoundException e) {
+      cache.remove(id);
+      future.completeExceptionally(e);
+      throw e;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inflight.remove(id, future);
+    }
+  }
+
+  /**
+   * Loads the objects for the non-{@code null} elements in {@code ids}, which were not found in the
+   * cache, into the corresponding elements of {@code result}.
+   */
+  void loadAll(ObjId[] ids, Obj[] result) throws ObjNotFoundException {
+    ObjId[] fetchIds = null;
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Obj>[] futures = new CompletableFuture[ids.length];
+    boolean[] own = new boolean[ids.length];
+
+    for (int i = 0; i < ids.length; i++) {
+      ObjId id = ids[i];
+      if (id == null) {
+        continue;
+      }
+      CompletableFuture<Obj> future = new CompletableFuture<>();
+      CompletableFuture<Obj> existing = inflight.putIfAbsent(id, future);
+      if (existing != null) {
+        futures[i] = existing;
+        continue;
+      }
+      futures[i] = future;
+      own[i] = true;
+      // Another caller might have finished loading the object in the meantime
+      Obj o = cache.get(id);
+      if (o != null) {
+        result[i] = o;
+        future.complete(o);
+        inflight.remove(id, future);
+        continue;
+      }
+      if (fetchIds == null) {
+        fetchIds = new ObjId[ids.length];
+      }
+      fetchIds[i] = id;
+    }
+
+    List<ObjId> notFound = null;
+
+    if (fetchIds != null) {
+      try {
+        Obj[] fetched = fetchExisting(fetchIds);
+        for (int i = 0; i < fetchIds.length; i++) {
+          ObjId id = fetchIds[i];
+          if (id == null) {
+            continue;
+          }
+          Obj o = fetched[i];
+          if (o != null) {
+            cache.put(o);
+            result[i] = o;
+            futures[i].complete(o);
+          } else {
+            cache.remove(id);
+            if (notFound == null) {
+              notFound = new ArrayList<>();
+            }
+            notFound.add(id);
+            futures[i].completeExceptionally(new ObjNotFoundException(id));
+          }
+        }
+      } catch (RuntimeException e) {
+        for (int i = 0; i < fetchIds.length; i++) {
+          if (fetchIds[i] != null) {
+            futures[i].completeExceptionally(e);
+          }
+        }
+        throw e;
+      } finally {
+        for (int i = 0; i < fetchIds.length; i++) {
+          if (fetchIds[i] != null) {
+            inflight.remove(fetchIds[i], futures[i]);
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < ids.length; i++) {
+      if (futures[i] == null || own[i]) {
+        continue;
+      }
+      try {
+        result[i] = await(ids[i], futures[i]);
+      } catch (ObjNotFoundException e) {
+        if (notFound == null) {
+          notFound = new ArrayList<>();
+        }
+        notFound.add(ids[i]);
+      }
+    }
+
+    if (notFound != null) {
+      throw new ObjNotFoundException(notFound, result);
+    }
+  }
+
+  /**
+   * Fetches the given objects from the backend, the elements of the returned array are {@code
+   * null} for objects that do not exist.
+   */
+  private Obj[] fetchExisting(ObjId[] ids) {
+    ObjId[] remaining = ids;
+    while (true) {
+      try {
+        return persist.fetchObjs(remaining);
+      } catch (ObjNotFoundException e) {
+        Obj[] fetched = e.fetchedObjs();
+        if (fetched != null) {
+          // The objects that do exist have been returned by the backend along with the exception.
+          return fetched;
+        }
+        // The backend did not provide the objects that do exist, fetch those again.
+        Set<ObjId> missing = new HashSet<>(e.objIds());
+        ObjId[] next = new ObjId[remaining.length];
+        boolean progress = false;
+        boolean any = false;
+        for (int i = 0; i < remaining.length; i++) {
+          ObjId id = remaining[i];
+          if (id != null) {
+            if (missing.contains(id)) {
+              progress = true;
+            } else {
+              next[i] = id;
+              any = true;
+            }
+          }
+        }
+        if (!progress) {
+          throw new IllegalStateException(
+              "Backend reported missing objects that were not requested", e);
+        }
+        if (!any) {
+          return new Obj[ids.length];
+        }
+        remaining = next;
+      }
+    }
+  }
+
+  private static Obj await(ObjId id, CompletableFuture<Obj> future) throws ObjNotFoundException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ObjNotFoundException) {
+        throw new ObjNotFoundException(id);
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+}
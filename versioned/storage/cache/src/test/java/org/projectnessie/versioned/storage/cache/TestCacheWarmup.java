@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static org.projectnessie.versioned.storage.common.logic.CreateCommit.newCommitBuilder;
+import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
+import static org.projectnessie.versioned.storage.common.logic.Logics.referenceLogic;
+import static org.projectnessie.versioned.storage.common.logic.Logics.repositoryLogic;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitHeaders.EMPTY_COMMIT_HEADERS;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
+
+import java.time.Duration;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.versioned.storage.common.logic.CommitLogic;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.testextension.NessiePersist;
+import org.projectnessie.versioned.storage.testextension.NessiePersistCache;
+import org.projectnessie.versioned.storage.testextension.PersistExtension;
+
+@ExtendWith({PersistExtension.class, SoftAssertionsExtension.class})
+@NessiePersistCache
+public class TestCacheWarmup {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @NessiePersist protected Persist persist;
+
+  @Test
+  public void warmup() throws Exception {
+    repositoryLogic(persist).initialize("main");
+
+    CommitLogic commitLogic = commitLogic(persist);
+    ObjId head = EMPTY_OBJ_ID;
+    for (int i = 0; i < 5; i++) {
+      head =
+          requireNonNull(
+                  commitLogic.doCommit(
+                      newCommitBuilder()
+                          .parentCommitId(head)
+                          .headers(EMPTY_COMMIT_HEADERS)
+                          .message("commit " + i)
+                          .build(),
+                      emptyList()))
+              .id();
+    }
+    referenceLogic(persist).createReference("refs/heads/foo", head);
+
+    // HEAD + 3 commits
+    soft.assertThat(
+            CacheWarmup.warmup(
+                persist,
+                CacheWarmupConfig.builder()
+                    .addReferences("refs/heads/foo")
+                    .commitLogDepth(3)
+                    .build()))
+        .isEqualTo(4L);
+
+    soft.assertThat(
+            CacheWarmup.warmup(
+                persist, CacheWarmupConfig.builder().maxReferences(1).commitLogDepth(10).build()))
+        .isEqualTo(5L);
+
+    soft.assertThat(
+            CacheWarmup.warmup(
+                persist,
+                CacheWarmupConfig.builder()
+                    .addReferences("refs/heads/foo")
+                    .timeBudget(Duration.ZERO)
+                    .build()))
+        .isEqualTo(0L);
+  }
+
+  @Test
+  public void missingHeadDoesNotAbortWarmup() throws Exception {
+    repositoryLogic(persist).initialize("main");
+
+    ObjId head =
+        requireNonNull(
+                commitLogic(persist)
+                    .doCommit(
+                        newCommitBuilder()
+                            .parentCommitId(EMPTY_OBJ_ID)
+                            .headers(EMPTY_COMMIT_HEADERS)
+                            .message("commit")
+                            .build(),
+                        emptyList()))
+            .id();
+    referenceLogic(persist).createReference("refs/heads/foo", head);
+    // HEAD commit does not exist, for example purged concurrently
+    referenceLogic(persist).createReference("refs/heads/gone", randomObjId());
+
+    soft.assertThat(
+            CacheWarmup.warmup(
+                persist, CacheWarmupConfig.builder().maxReferences(10).commitLogDepth(0).build()))
+        .isEqualTo(1L);
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static java.util.Collections.emptyList;
+import static org.projectnessie.versioned.storage.cache.CachePartition.METRIC_EVICTIONS;
+import static org.projectnessie.versioned.storage.cache.CachePartition.METRIC_GETS;
+import static org.projectnessie.versioned.storage.cache.CachePartition.METRIC_LIMIT;
+import static org.projectnessie.versioned.storage.cache.CachePartition.TAG_REPOSITORY;
+import static org.projectnessie.versioned.storage.cache.CachePartition.TAG_TIER;
+import static org.projectnessie.versioned.storage.common.objtypes.StringObj.stringData;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
+import org.projectnessie.versioned.storage.common.objtypes.Compression;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestCaffeineCacheBackend {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  static final int MB = 1024 * 1024;
+
+  @Test
+  public void clearIsolatesRepositories() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CaffeineCacheBackend backend =
+        new CaffeineCacheBackend(CacheConfig.builder().capacity(4 * MB).build(), registry);
+
+    Obj obj = obj(1000);
+    backend.put("a", obj);
+    backend.put("b", obj);
+    soft.assertThat(backend.get("a", obj.id())).isEqualTo(obj);
+    soft.assertThat(backend.get("b", obj.id())).isEqualTo(obj);
+    soft.assertThat(backend.get("b", obj(10).id())).isNull();
+
+    soft.assertThat(
+            registry
+                .get(METRIC_GETS)
+                .tag(TAG_REPOSITORY, "b")
+                .tag("result", "hit")
+                .functionCounter()
+                .count())
+        .isEqualTo(1d);
+    soft.assertThat(
+            registry
+                .get(METRIC_GETS)
+                .tag(TAG_REPOSITORY, "b")
+                .tag("result", "miss")
+                .functionCounter()
+                .count())
+        .isEqualTo(1d);
+
+    backend.clear("a");
+    soft.assertThat(registry.find(METRIC_GETS).tag(TAG_REPOSITORY, "a").meters()).isEmpty();
+    soft.assertThat(backend.get("a", obj.id())).isNull();
+    soft.assertThat(backend.get("b", obj.id())).isEqualTo(obj);
+  }
+
+  @Test
+  public void quotas() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CaffeineCacheBackend backend =
+        new CaffeineCacheBackend(
+            CacheConfig.builder()
+                .capacity(4 * MB)
+                .repositoryMinCapacity(MB)
+                .repositoryMaxCapacity(2 * MB)
+                .build(),
+            registry);
+
+    List<Obj> small = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      Obj obj = obj(20_000);
+      small.add(obj);
+      backend.put("small", obj);
+    }
+
+    for (int i = 0; i < 500; i++) {
+      backend.put("large", obj(20_000));
+      if ((i % 50) == 0) {
+        backend.rebalance();
+      }
+    }
+    backend.rebalance();
+    backend.partition("large").cleanUp();
+
+    soft.assertThat(backend.partition("large").weightedSize()).isLessThanOrEqualTo(2L * MB);
+    soft.assertThat(backend.partition("small").limit()).isGreaterThanOrEqualTo(MB);
+    soft.assertThat(registry.get(METRIC_LIMIT).tag(TAG_REPOSITORY, "large").gauge().value())
+        .isLessThanOrEqualTo(2d * MB);
+    for (Obj obj : small) {
+      soft.assertThat(backend.get("small", obj.id())).isEqualTo(obj);
+    }
+  }
+
+  @Test
+  public void evictionMetrics() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CaffeineCacheBackend backend =
+        new CaffeineCacheBackend(
+            CacheConfig.builder().capacity(2 * MB).deserializedCapacity(MB).build(), registry);
+
+    for (int i = 0; i < 200; i++) {
+      backend.put("repo", obj(20_000));
+    }
+    backend.partition("repo").cleanUp();
+
+    soft.assertThat(
+            registry
+                .get(METRIC_EVICTIONS)
+                .tag(TAG_REPOSITORY, "repo")
+                .tag(TAG_TIER, "deserialized")
+                .functionCounter()
+                .count())
+        .isGreaterThan(0d);
+    soft.assertThat(
+            registry
+                .get(METRIC_EVICTIONS)
+                .tag(TAG_REPOSITORY, "repo")
+                .tag(TAG_TIER, "serialized")
+                .functionCounter()
+                .count())
+        .isGreaterThan(0d);
+  }
+
+  static Obj obj(int size) {
+    byte[] text = new byte[size];
+    ThreadLocalRandom.current().nextBytes(text);
+    return stringData("text/plain", Compression.NONE, null, emptyList(), ByteString.copyFrom(text));
+  }
+}
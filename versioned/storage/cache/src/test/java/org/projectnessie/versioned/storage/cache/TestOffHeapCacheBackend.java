@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static java.util.Collections.emptyList;
+import static org.projectnessie.versioned.storage.common.objtypes.StringObj.stringData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
+import org.projectnessie.versioned.storage.common.objtypes.Compression;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestOffHeapCacheBackend {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  static final String REPO = "repo";
+
+  @Test
+  public void putGetRemoveClear() {
+    CacheBackend backend = backend(2 * 1024 * 1024);
+
+    Obj obj1 = obj(1000);
+    Obj obj2 = obj(1000);
+    backend.put(REPO, obj1);
+    backend.put(REPO, obj2);
+    backend.put("other", obj1);
+
+    soft.assertThat(backend.get(REPO, obj1.id())).isEqualTo(obj1);
+    soft.assertThat(backend.get(REPO, obj2.id())).isEqualTo(obj2);
+    soft.assertThat(backend.get("other", obj1.id())).isEqualTo(obj1);
+    soft.assertThat(backend.get("other", obj2.id())).isNull();
+
+    backend.remove(REPO, obj1.id());
+    soft.assertThat(backend.get(REPO, obj1.id())).isNull();
+    soft.assertThat(backend.get(REPO, obj2.id())).isEqualTo(obj2);
+
+    backend.clear(REPO);
+    soft.assertThat(backend.get(REPO, obj2.id())).isNull();
+    soft.assertThat(backend.get("other", obj1.id())).isEqualTo(obj1);
+  }
+
+  @Test
+  public void tooLarge() {
+    CacheBackend backend = backend(1024 * 1024);
+
+    Obj obj = obj(2 * 1024 * 1024);
+    backend.put(REPO, obj);
+    soft.assertThat(backend.get(REPO, obj.id())).isNull();
+  }
+
+  @Test
+  public void zeroCapacity() {
+    soft.assertThatIllegalStateException()
+        .isThrownBy(() -> backend(0L))
+        .withMessage("The off-heap cache requires a positive capacity");
+  }
+
+  @Test
+  public void secondChanceEviction() {
+    // 2 segments of 1 MB, 5 objects per segment
+    CacheBackend backend = backend(2 * 1024 * 1024);
+
+    List<Obj> first = new ArrayList<>();
+    List<Obj> second = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      first.add(obj(200_000));
+      backend.put(REPO, first.get(i));
+    }
+    for (int i = 0; i < 5; i++) {
+      second.add(obj(200_000));
+      backend.put(REPO, second.get(i));
+    }
+
+    // Only the first object of the first segment has been read, it gets a second chance
+    soft.assertThat(backend.get(REPO, first.get(0).id())).isEqualTo(first.get(0));
+
+    // Recycles the first segment
+    Obj another = obj(200_000);
+    backend.put(REPO, another);
+
+    soft.assertThat(backend.get(REPO, another.id())).isEqualTo(another);
+    soft.assertThat(backend.get(REPO, first.get(0).id())).isEqualTo(first.get(0));
+    for (int i = 1; i < 5; i++) {
+      soft.assertThat(backend.get(REPO, first.get(i).id())).isNull();
+    }
+    for (Obj obj : second) {
+      soft.assertThat(backend.get(REPO, obj.id())).isEqualTo(obj);
+    }
+  }
+
+  static CacheBackend backend(long capacity) {
+    return PersistCaches.newBackend(CacheConfig.builder().capacity(capacity).offHeap(true).build());
+  }
+
+  static Obj obj(int size) {
+    byte[] text = new byte[size];
+    ThreadLocalRandom.current().nextBytes(text);
+    return stringData("text/plain", Compression.NONE, null, emptyList(), ByteString.copyFrom(text));
+  }
+}
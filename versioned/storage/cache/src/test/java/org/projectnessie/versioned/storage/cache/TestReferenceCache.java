@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static org.projectnessie.versioned.storage.cache.ReferenceCache.REFERENCE_CACHE_MAX_ENTRIES;
+import static org.projectnessie.versioned.storage.cache.ReferenceCache.REFERENCE_CACHE_MIN_ENTRIES_PER_REPOSITORY;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
+import static org.projectnessie.versioned.storage.common.persist.Reference.reference;
+
+import java.time.Duration;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.versioned.storage.common.persist.Reference;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestReferenceCache {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @Test
+  public void partitionPerRepository() {
+    ReferenceCache cache = new ReferenceCache(Duration.ofMinutes(1));
+    Reference ref = reference("refs/heads/main", randomObjId(), false);
+
+    cache.put("a", ref);
+    cache.put("b", ref);
+    soft.assertThat(cache.get("a", ref.name())).isEqualTo(ref);
+    soft.assertThat(cache.get("b", ref.name())).isEqualTo(ref);
+    soft.assertThat(cache.maximumSize("a")).isEqualTo(REFERENCE_CACHE_MAX_ENTRIES / 2);
+
+    cache.clear("a");
+    soft.assertThat(cache.get("a", ref.name())).isNull();
+    soft.assertThat(cache.get("b", ref.name())).isEqualTo(ref);
+    soft.assertThat(cache.maximumSize("a")).isEqualTo(0L);
+    soft.assertThat(cache.maximumSize("b")).isEqualTo(REFERENCE_CACHE_MAX_ENTRIES);
+
+    for (int i = 0; i < 200; i++) {
+      cache.put("repo" + i, ref);
+    }
+    soft.assertThat(cache.maximumSize("b")).isEqualTo(REFERENCE_CACHE_MIN_ENTRIES_PER_REPOSITORY);
+  }
+
+  @Test
+  public void disabled() {
+    ReferenceCache cache = new ReferenceCache(Duration.ZERO);
+    Reference ref = reference("refs/heads/main", randomObjId(), false);
+    cache.put("a", ref);
+    soft.assertThat(cache.get("a", ref.name())).isNull();
+    soft.assertThat(cache.maximumSize("a")).isEqualTo(0L);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static org.projectnessie.versioned.storage.common.logic.CreateCommit.newCommitBuilder;
+import static org.projectnessie.versioned.storage.common.logic.InternalRef.REF_REFS;
+import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
+import static org.projectnessie.versioned.storage.common.logic.Logics.referenceLogic;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitHeaders.EMPTY_COMMIT_HEADERS;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+
+import java.time.Duration;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.versioned.storage.common.logic.ReferenceLogic;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.common.persist.Reference;
+import org.projectnessie.versioned.storage.testextension.NessiePersist;
+import org.projectnessie.versioned.storage.testextension.PersistExtension;
+
+/**
+ * Verifies that operations changing references do not act on stale cached references, simulated by
+ * changing references via a non-caching {@link Persist} instance, which acts like another Nessie
+ * instance.
+ */
+@ExtendWith({PersistExtension.class, SoftAssertionsExtension.class})
+public class TestReferenceCacheStaleness {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @NessiePersist protected Persist otherNode;
+
+  private Persist cached;
+  private ObjId commit1;
+  private ObjId commit2;
+
+  @BeforeEach
+  void setup() throws Exception {
+    cached =
+        PersistCaches.newBackend(
+                CacheConfig.builder()
+                    .capacity(32 * 1024 * 1024)
+                    .referenceTtl(Duration.ofMinutes(10))
+                    .build())
+            .wrap(otherNode);
+    commit1 = commit(EMPTY_OBJ_ID, "commit 1");
+    commit2 = commit(commit1, "commit 2");
+  }
+
+  private ObjId commit(ObjId parent, String message) throws Exception {
+    return requireNonNull(
+            commitLogic(otherNode)
+                .doCommit(
+                    newCommitBuilder()
+                        .parentCommitId(parent)
+                        .headers(EMPTY_COMMIT_HEADERS)
+                        .message(message)
+                        .build(),
+                    emptyList()))
+        .id();
+  }
+
+  @Test
+  public void getReferenceForUpdate() throws Exception {
+    ReferenceLogic cachedRefs = referenceLogic(cached);
+    Reference ref = referenceLogic(otherNode).createReference("refs/heads/b", commit1);
+    soft.assertThat(cachedRefs.getReference("refs/heads/b").pointer()).isEqualTo(commit1);
+
+    referenceLogic(otherNode).assignReference(ref, commit2);
+
+    // served from the cache
+    soft.assertThat(cachedRefs.getReference("refs/heads/b").pointer()).isEqualTo(commit1);
+    soft.assertThat(cachedRefs.getReferenceForUpdate("refs/heads/b").pointer())
+        .isEqualTo(commit2);
+  }
+
+  @Test
+  public void deleteReassignedReference() throws Exception {
+    ReferenceLogic cachedRefs = referenceLogic(cached);
+    Reference ref = referenceLogic(otherNode).createReference("refs/heads/b", commit1);
+    soft.assertThat(cachedRefs.getReference("refs/heads/b").pointer()).isEqualTo(commit1);
+
+    referenceLogic(otherNode).assignReference(ref, commit2);
+
+    soft.assertThatCode(() -> cachedRefs.deleteReference("refs/heads/b", commit2))
+        .doesNotThrowAnyException();
+    soft.assertThat(otherNode.fetchReference("refs/heads/b")).isNull();
+  }
+
+  @Test
+  public void recreateDeletedReference() throws Exception {
+    ReferenceLogic cachedRefs = referenceLogic(cached);
+    referenceLogic(otherNode).createReference("refs/heads/b", commit1);
+    soft.assertThat(cachedRefs.getReference("refs/heads/b").pointer()).isEqualTo(commit1);
+    // also cache the current state of the internal references-log reference
+    soft.assertThat(cached.fetchReference(REF_REFS.name())).isNotNull();
+
+    referenceLogic(otherNode).deleteReference("refs/heads/b", commit1);
+
+    soft.assertThatCode(() -> cachedRefs.createReference("refs/heads/b", commit2))
+        .doesNotThrowAnyException();
+    soft.assertThat(otherNode.fetchReference("refs/heads/b"))
+        .extracting(Reference::pointer)
+        .isEqualTo(commit2);
+  }
+}
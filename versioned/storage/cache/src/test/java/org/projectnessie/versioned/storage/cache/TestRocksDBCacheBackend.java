@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static org.projectnessie.versioned.storage.cache.TestOffHeapCacheBackend.obj;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitHeaders.EMPTY_COMMIT_HEADERS;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitObj.commitBuilder;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
+
+import java.nio.file.Path;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestRocksDBCacheBackend {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @TempDir Path dir;
+
+  @Test
+  public void putGetRemoveClear() {
+    try (PersistentCacheBackend backend = newBackend()) {
+      Obj obj1 = obj(1000);
+      Obj obj2 = obj(1000);
+      backend.put("repo", obj1);
+      backend.put("repo", obj2);
+      backend.put("repo2", obj1);
+
+      soft.assertThat(backend.get("repo", obj1.id())).isEqualTo(obj1);
+      soft.assertThat(backend.get("repo", obj2.id())).isEqualTo(obj2);
+      soft.assertThat(backend.get("repo2", obj1.id())).isEqualTo(obj1);
+      soft.assertThat(backend.get("repo2", obj2.id())).isNull();
+
+      backend.remove("repo", obj1.id());
+      soft.assertThat(backend.get("repo", obj1.id())).isNull();
+
+      backend.clear("repo");
+      soft.assertThat(backend.get("repo", obj2.id())).isNull();
+      soft.assertThat(backend.get("repo2", obj1.id())).isEqualTo(obj1);
+    }
+  }
+
+  @Test
+  public void survivesRestart() {
+    Obj obj = obj(1000);
+    try (PersistentCacheBackend backend = newBackend()) {
+      backend.put("repo", obj);
+    }
+    try (PersistentCacheBackend backend = newBackend()) {
+      soft.assertThat(backend.get("repo", obj.id())).isEqualTo(obj);
+    }
+  }
+
+  @Test
+  public void repositoryIdsDoNotCollide() {
+    try (PersistentCacheBackend backend = newBackend()) {
+      Obj obj = obj(1000);
+      backend.put("a", obj);
+      backend.put("a:b", obj);
+      backend.put("", obj);
+
+      backend.clear("a");
+      soft.assertThat(backend.get("a", obj.id())).isNull();
+      soft.assertThat(backend.get("a:b", obj.id())).isEqualTo(obj);
+      soft.assertThat(backend.get("", obj.id())).isEqualTo(obj);
+
+      backend.clear("");
+      soft.assertThat(backend.get("", obj.id())).isNull();
+      soft.assertThat(backend.get("a:b", obj.id())).isEqualTo(obj);
+    }
+  }
+
+  @Test
+  public void commitsAreNotCached() {
+    CommitObj commit =
+        commitBuilder()
+            .id(randomObjId())
+            .created(123L)
+            .seq(1L)
+            .headers(EMPTY_COMMIT_HEADERS)
+            .message("commit")
+            .incrementalIndex(ByteString.EMPTY)
+            .build();
+    try (PersistentCacheBackend backend = newBackend()) {
+      backend.put("repo", commit);
+      soft.assertThat(backend.get("repo", commit.id())).isNull();
+    }
+  }
+
+  private PersistentCacheBackend newBackend() {
+    return PersistCaches.newDiskBackend(
+        DiskCacheConfig.builder().path(dir).capacity(64L * 1024L * 1024L).build());
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.cache;
+
+import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.projectnessie.versioned.storage.cache.TestOffHeapCacheBackend.obj;
+import static org.projectnessie.versioned.storage.common.persist.ObjType.COMMIT;
+import static org.projectnessie.versioned.storage.common.persist.ObjType.STRING;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestSingleFlightLoader {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @Test
+  public void concurrentLoadsOfSameObject() throws Exception {
+    Obj obj = obj(100);
+    CountDownLatch fetching = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    Persist persist = mock(Persist.class);
+    when(persist.fetchObj(obj.id()))
+        .thenAnswer(
+            invocation -> {
+              fetching.countDown();
+              release.await();
+              return obj;
+            });
+
+    SingleFlightLoader loader = new SingleFlightLoader(persist, newObjCache());
+
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Obj>> futures = new ArrayList<>();
+      futures.add(executor.submit(() -> loader.load(obj.id())));
+      soft.assertThat(fetching.await(30, TimeUnit.SECONDS)).isTrue();
+      for (int i = 1; i < threads; i++) {
+        futures.add(executor.submit(() -> loader.load(obj.id())));
+      }
+      // Give the other tasks a chance to wait for the in-flight load
+      Thread.sleep(100L);
+      release.countDown();
+      for (Future<Obj> future : futures) {
+        soft.assertThat(future.get(30, TimeUnit.SECONDS)).isEqualTo(obj);
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    verify(persist, times(1)).fetchObj(obj.id());
+  }
+
+  @Test
+  public void loadAllNotFound() throws Exception {
+    Obj existing = obj(100);
+    ObjId missing = ObjId.randomObjId();
+
+    Persist persist = mock(Persist.class);
+    when(persist.fetchObjs(any()))
+        .thenThrow(new ObjNotFoundException(singletonList(missing)))
+        .thenReturn(new Obj[] {existing, null});
+
+    ObjCache cache = newObjCache();
+    SingleFlightLoader loader = new SingleFlightLoader(persist, cache);
+
+    Obj[] result = new Obj[2];
+    soft.assertThatThrownBy(() -> loader.loadAll(new ObjId[] {existing.id(), missing}, result))
+        .isInstanceOf(ObjNotFoundException.class)
+        .asInstanceOf(InstanceOfAssertFactories.type(ObjNotFoundException.class))
+        .extracting(ObjNotFoundException::objIds)
+        .isEqualTo(singletonList(missing));
+    soft.assertThat(result[0]).isEqualTo(existing);
+    soft.assertThat(cache.get(existing.id())).isEqualTo(existing);
+    verify(persist, times(2)).fetchObjs(any());
+  }
+
+  @Test
+  public void loadAllReusesFetchedObjects() throws Exception {
+    Obj existing = obj(100);
+    ObjId missing = ObjId.randomObjId();
+
+    Persist persist = mock(Persist.class);
+    when(persist.fetchObjs(any()))
+        .thenThrow(
+            new ObjNotFoundException(singletonList(missing), new Obj[] {existing, null}));
+
+    ObjCache cache = newObjCache();
+    SingleFlightLoader loader = new SingleFlightLoader(persist, cache);
+
+    Obj[] result = new Obj[2];
+    soft.assertThatThrownBy(() -> loader.loadAll(new ObjId[] {existing.id(), missing}, result))
+        .isInstanceOf(ObjNotFoundException.class)
+        .asInstanceOf(InstanceOfAssertFactories.type(ObjNotFoundException.class))
+        .extracting(ObjNotFoundException::objIds)
+        .isEqualTo(singletonList(missing));
+    soft.assertThat(result[0]).isEqualTo(existing);
+    soft.assertThat(cache.get(existing.id())).isEqualTo(existing);
+    verify(persist, times(1)).fetchObjs(any());
+  }
+
+  @Test
+  public void loadOtherTypeNotCached() throws Exception {
+    Obj obj = obj(100);
+
+    Persist persist = mock(Persist.class);
+    when(persist.fetchObj(obj.id())).thenReturn(obj);
+
+    ObjCache cache = newObjCache();
+    SingleFlightLoader loader = new SingleFlightLoader(persist, cache);
+
+    soft.assertThat(loader.load(obj.id(), COMMIT)).isEqualTo(obj);
+    soft.assertThat(cache.get(obj.id())).isNull();
+
+    soft.assertThat(loader.load(obj.id(), STRING)).isEqualTo(obj);
+    soft.assertThat(cache.get(obj.id())).isEqualTo(obj);
+  }
+
+  static ObjCache newObjCache() {
+    return new ObjCacheImpl(PersistCaches.newBackend(1024 * 1024), "repo");
+  }
+}
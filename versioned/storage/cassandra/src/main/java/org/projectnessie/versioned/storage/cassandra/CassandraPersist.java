@@ -354,7 +354,7 @@ public class CassandraPersist implements Persist {
       }
     }
     if (notFound != null) {
-      throw new ObjNotFoundException(notFound);
+      throw new ObjNotFoundException(notFound, r);
     }
 
     return r;
@@ -566,12 +566,7 @@ public class CassandraPersist implements Persist {
 
             Stripes.Builder b = Stripes.newBuilder();
             obj.referenceIndexStripes().stream()
-                .map(
-                    s ->
-                        Stripe.newBuilder()
-                            .setFirstKey(s.firstKey().rawString())
-                            .setLastKey(s.lastKey().rawString())
-                            .setSegment(s.segment().asBytes()))
+                .map(CassandraPersist::serializeStripe)
                 .forEach(b::addStripes);
             values.accept(b.build().toByteString().asReadOnlyByteBuffer());
 
@@ -620,12 +615,7 @@ public class CassandraPersist implements Persist {
               Stripes stripes =
                   Stripes.parseFrom(row.getByteBuffer(COL_COMMIT_REFERENCE_INDEX_STRIPES));
               stripes.getStripesList().stream()
-                  .map(
-                      s ->
-                          indexStripe(
-                              keyFromString(s.getFirstKey()),
-                              keyFromString(s.getLastKey()),
-                              objIdFromByteBuffer(s.getSegment().asReadOnlyByteBuffer())))
+                  .map(CassandraPersist::deserializeStripe)
                   .forEach(b::addReferenceIndexStripes);
             } catch (IOException e) {
               throw new RuntimeException(e);
@@ -692,12 +682,7 @@ public class CassandraPersist implements Persist {
               int maxSerializedIndexSize) {
             Stripes.Builder b = Stripes.newBuilder();
             obj.stripes().stream()
-                .map(
-                    s ->
-                        Stripe.newBuilder()
-                            .setFirstKey(s.firstKey().rawString())
-                            .setLastKey(s.lastKey().rawString())
-                            .setSegment(s.segment().asBytes()))
+                .map(CassandraPersist::serializeStripe)
                 .forEach(b::addStripes);
             values.accept(b.build().toByteString().asReadOnlyByteBuffer());
           }
@@ -708,12 +693,7 @@ public class CassandraPersist implements Persist {
               Stripes stripes = Stripes.parseFrom(row.getByteBuffer(COL_SEGMENTS_STRIPES));
               List<IndexStripe> stripeList =
                   stripes.getStripesList().stream()
-                      .map(
-                          s ->
-                              indexStripe(
-                                  keyFromString(s.getFirstKey()),
-                                  keyFromString(s.getLastKey()),
-                                  objIdFromByteBuffer(s.getSegment().asReadOnlyByteBuffer())))
+                      .map(CassandraPersist::deserializeStripe)
                       .collect(Collectors.toList());
               return indexSegments(id, stripeList);
             } catch (IOException e) {
@@ -858,6 +838,27 @@ public class CassandraPersist implements Persist {
     s.stream().map(ObjId::objIdFromString).forEach(consumer);
   }
 
+  private static Stripe.Builder serializeStripe(IndexStripe s) {
+    Stripe.Builder b =
+        Stripe.newBuilder()
+            .setFirstKey(s.firstKey().rawString())
+            .setLastKey(s.lastKey().rawString())
+            .setSegment(s.segment().asBytes());
+    ByteString keyFilter = s.keyFilter();
+    if (keyFilter != null) {
+      b.setKeyFilter(keyFilter);
+    }
+    return b;
+  }
+
+  private static IndexStripe deserializeStripe(Stripe s) {
+    return indexStripe(
+        keyFromString(s.getFirstKey()),
+        keyFromString(s.getLastKey()),
+        objIdFromByteBuffer(s.getSegment().asReadOnlyByteBuffer()),
+        s.hasKeyFilter() ? s.getKeyFilter() : null);
+  }
+
   private static List<String> serializeObjIds(List<ObjId> values) {
     return (values != null && !values.isEmpty())
         ? values.stream().map(ObjId::toString).collect(Collectors.toList())
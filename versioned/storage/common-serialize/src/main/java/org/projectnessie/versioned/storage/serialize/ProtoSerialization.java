@@ -25,6 +25,7 @@ import static org.projectnessie.versioned.storage.common.objtypes.RefObj.ref;
 import static org.projectnessie.versioned.storage.common.objtypes.StringObj.stringData;
 import static org.projectnessie.versioned.storage.common.objtypes.TagObj.tag;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
@@ -160,34 +161,52 @@ public final class ProtoSerialization {
       return null;
     }
     try {
-      ObjProto obj = ObjProto.parseFrom(serialized);
-      if (obj.hasCommit()) {
-        return deserializeCommit(id, obj.getCommit());
-      }
-      if (obj.hasContentValue()) {
-        return deserializeContentValue(id, obj.getContentValue());
-      }
-      if (obj.hasRef()) {
-        return deserializeRef(id, obj.getRef());
-      }
-      if (obj.hasIndexSegments()) {
-        return deserializeIndexSegments(id, obj.getIndexSegments());
-      }
-      if (obj.hasIndex()) {
-        return deserializeIndex(id, obj.getIndex());
-      }
-      if (obj.hasStringData()) {
-        return deserializeStringData(id, obj.getStringData());
-      }
-      if (obj.hasTag()) {
-        return deserializeTag(id, obj.getTag());
-      }
-      throw new UnsupportedOperationException("Cannot deserialize " + obj);
+      return deserializeObjProto(id, ObjProto.parseFrom(serialized));
+    } catch (InvalidProtocolBufferException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Deserializes an object from the remaining bytes of the given buffer, which can be a direct
+   * buffer, without copying the serialized representation to the heap first.
+   */
+  public static Obj deserializeObj(ObjId id, ByteBuffer serialized) {
+    if (serialized == null) {
+      return null;
+    }
+    try {
+      return deserializeObjProto(id, ObjProto.parseFrom(serialized));
     } catch (InvalidProtocolBufferException e) {
       throw new RuntimeException(e);
     }
   }
 
+  private static Obj deserializeObjProto(ObjId id, ObjProto obj) {
+    if (obj.hasCommit()) {
+      return deserializeCommit(id, obj.getCommit());
+    }
+    if (obj.hasContentValue()) {
+      return deserializeContentValue(id, obj.getContentValue());
+    }
+    if (obj.hasRef()) {
+      return deserializeRef(id, obj.getRef());
+    }
+    if (obj.hasIndexSegments()) {
+      return deserializeIndexSegments(id, obj.getIndexSegments());
+    }
+    if (obj.hasIndex()) {
+      return deserializeIndex(id, obj.getIndex());
+    }
+    if (obj.hasStringData()) {
+      return deserializeStringData(id, obj.getStringData());
+    }
+    if (obj.hasTag()) {
+      return deserializeTag(id, obj.getTag());
+    }
+    throw new UnsupportedOperationException("Cannot deserialize " + obj);
+  }
+
   private static CommitObj deserializeCommit(ObjId id, CommitProto commit) {
     CommitObj.Builder b =
         commitBuilder()
@@ -215,7 +234,8 @@ public final class ProtoSerialization {
           indexStripe(
               keyFromString(s.getFirstKey()),
               keyFromString(s.getLastKey()),
-              deserializeObjId(s.getSegment())));
+              deserializeObjId(s.getSegment()),
+              s.hasKeyFilter() ? s.getKeyFilter() : null));
     }
     return b.build();
   }
@@ -240,11 +260,7 @@ public final class ProtoSerialization {
       b.setReferenceIndex(serializeObjId(referenceIndexId));
     }
     for (IndexStripe indexStripe : obj.referenceIndexStripes()) {
-      b.addReferenceIndexStripes(
-          Stripe.newBuilder()
-              .setFirstKey(indexStripe.firstKey().rawString())
-              .setLastKey(indexStripe.lastKey().rawString())
-              .setSegment(serializeObjId(indexStripe.segment())));
+      b.addReferenceIndexStripes(serializeStripe(indexStripe));
     }
     return b;
   }
@@ -299,7 +315,8 @@ public final class ProtoSerialization {
           indexStripe(
               keyFromString(s.getFirstKey()),
               keyFromString(s.getLastKey()),
-              deserializeObjId(s.getSegment())));
+              deserializeObjId(s.getSegment()),
+              s.hasKeyFilter() ? s.getKeyFilter() : null));
     }
     return indexSegments(id, stripes);
   }
@@ -307,11 +324,20 @@ public final class ProtoSerialization {
   private static IndexSegmentsProto.Builder serializeIndexSegments(IndexSegmentsObj obj) {
     IndexSegmentsProto.Builder b = IndexSegmentsProto.newBuilder();
     for (IndexStripe indexStripe : obj.stripes()) {
-      b.addStripes(
-          Stripe.newBuilder()
-              .setFirstKey(indexStripe.firstKey().rawString())
-              .setLastKey(indexStripe.lastKey().rawString())
-              .setSegment(serializeObjId(indexStripe.segment())));
+      b.addStripes(serializeStripe(indexStripe));
+    }
+    return b;
+  }
+
+  private static Stripe.Builder serializeStripe(IndexStripe indexStripe) {
+    Stripe.Builder b =
+        Stripe.newBuilder()
+            .setFirstKey(indexStripe.firstKey().rawString())
+            .setLastKey(indexStripe.lastKey().rawString())
+            .setSegment(serializeObjId(indexStripe.segment()));
+    ByteString keyFilter = indexStripe.keyFilter();
+    if (keyFilter != null) {
+      b.setKeyFilter(keyFilter);
     }
     return b;
   }
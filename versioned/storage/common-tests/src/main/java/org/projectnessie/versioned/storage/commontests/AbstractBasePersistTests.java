@@ -34,6 +34,7 @@ import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONF
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexElement.indexElement;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.newStoreIndex;
 import static org.projectnessie.versioned.storage.common.indexes.StoreKey.key;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter.keyFilter;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitHeaders.EMPTY_COMMIT_HEADERS;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitHeaders.newCommitHeaders;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitObj.commitBuilder;
@@ -276,7 +277,11 @@ public class AbstractBasePersistTests {
             randomObjId(),
             asList(
                 indexStripe(key(nonAscii), key(nonAscii), randomObjId()),
-                indexStripe(key("moo", "woof"), key("zoo", "woof"), randomObjId()))),
+                indexStripe(
+                    key("moo", "woof"),
+                    key("zoo", "woof"),
+                    randomObjId(),
+                    keyFilter(asList(key("moo", "woof"), key("zoo", "woof"))).serialize()))),
         index(randomObjId(), emptyIndex.serialize()),
         index(randomObjId(), index.serialize()),
         // 10
@@ -305,7 +310,12 @@ public class AbstractBasePersistTests {
             .addSecondaryParents(objIdFromString("dcceadbeefcafeba"))
             .addSecondaryParents(objIdFromString("cc00000000000000"))
             .addReferenceIndexStripes(indexStripe(key("abc"), key("def"), randomObjId()))
-            .addReferenceIndexStripes(indexStripe(key("def"), key("ghi"), randomObjId()))
+            .addReferenceIndexStripes(
+                indexStripe(
+                    key("def"),
+                    key("ghi"),
+                    randomObjId(),
+                    keyFilter(asList(key("def"), key("ghi"))).serialize()))
             .addReferenceIndexStripes(indexStripe(key("ghi"), key("jkl"), randomObjId()))
             .incrementalIndex(index.serialize())
             .commitType(CommitType.INTERNAL)
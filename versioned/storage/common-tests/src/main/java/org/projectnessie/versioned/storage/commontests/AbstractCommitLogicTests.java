@@ -27,6 +27,8 @@ import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.core.api.InstanceOfAssertFactories.list;
 import static org.assertj.core.api.InstanceOfAssertFactories.type;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_COMMIT_LOG_READ_AHEAD;
+import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_PARENTS_PER_COMMIT;
 import static org.projectnessie.versioned.storage.common.indexes.StoreKey.key;
 import static org.projectnessie.versioned.storage.common.logic.CommitConflict.ConflictType.VALUE_DIFFERS;
 import static org.projectnessie.versioned.storage.common.logic.CommitLogQuery.commitLogQuery;
@@ -89,6 +91,7 @@ import org.projectnessie.versioned.storage.common.persist.ObjId;
 import org.projectnessie.versioned.storage.common.persist.Persist;
 import org.projectnessie.versioned.storage.common.persist.Reference;
 import org.projectnessie.versioned.storage.testextension.NessiePersist;
+import org.projectnessie.versioned.storage.testextension.NessieStoreConfig;
 import org.projectnessie.versioned.storage.testextension.PersistExtension;
 
 /** {@link CommitLogic} related tests to be run against every {@link Persist} implementation. */
@@ -132,6 +135,36 @@ public class AbstractCommitLogicTests {
         .containsExactly(commitId, STD_MESSAGE);
   }
 
+  @Test
+  public void fetchCommits() throws Exception {
+    CommitLogic commitLogic = commitLogic(persist);
+
+    ObjId commitId1 = requireNonNull(commitLogic.doCommit(stdCommit().build(), emptyList())).id();
+    ObjId commitId2 =
+        requireNonNull(commitLogic.doCommit(stdCommit().message("other").build(), emptyList()))
+            .id();
+    TagObj tag = TagObj.tag(randomObjId(), commitId2, null, null, ByteString.EMPTY);
+    soft.assertThat(persist.storeObj(tag)).isTrue();
+
+    CommitObj[] commits =
+        commitLogic.fetchCommits(
+            new ObjId[] {commitId1, EMPTY_OBJ_ID, null, requireNonNull(tag.id())});
+    soft.assertThat(commits).hasSize(4);
+    soft.assertThat(commits[0])
+        .isNotNull()
+        .extracting(Obj::id, CommitObj::message)
+        .containsExactly(commitId1, STD_MESSAGE);
+    soft.assertThat(commits[1]).isNull();
+    soft.assertThat(commits[2]).isNull();
+    soft.assertThat(commits[3])
+        .isNotNull()
+        .extracting(Obj::id, CommitObj::message)
+        .containsExactly(commitId2, "other");
+
+    soft.assertThatThrownBy(() -> commitLogic.fetchCommits(new ObjId[] {commitId1, randomObjId()}))
+        .isInstanceOf(ObjNotFoundException.class);
+  }
+
   @Test
   public void commonAncestor() throws Exception {
     CommitLogic commitLogic = commitLogic(persist);
@@ -179,6 +212,81 @@ public class AbstractCommitLogicTests {
     }
   }
 
+  @Test
+  public void commonAncestorLongHistory() throws Exception {
+    CommitLogic commitLogic = commitLogic(persist);
+
+    ObjId forkPoint = EMPTY_OBJ_ID;
+    for (int i = 0; i < 50; i++) {
+      forkPoint = commit(commitLogic, forkPoint, "main #" + i);
+    }
+    ObjId branch1 = forkPoint;
+    for (int i = 0; i < 47; i++) {
+      branch1 = commit(commitLogic, branch1, "branch1 #" + i);
+    }
+    ObjId branch2 = forkPoint;
+    for (int i = 0; i < 13; i++) {
+      branch2 = commit(commitLogic, branch2, "branch2 #" + i);
+    }
+
+    soft.assertThat(commitLogic.findCommonAncestor(branch1, branch2)).isEqualTo(forkPoint);
+    soft.assertThat(commitLogic.findCommonAncestor(branch2, branch1)).isEqualTo(forkPoint);
+    soft.assertThat(commitLogic.findCommonAncestor(branch1, forkPoint)).isEqualTo(forkPoint);
+    soft.assertThat(commitLogic.findCommonAncestor(forkPoint, branch2)).isEqualTo(forkPoint);
+    soft.assertThat(commitLogic.findMergeBase(branch1, branch2, false)).isEqualTo(forkPoint);
+    soft.assertThat(commitLogic.findMergeBase(branch1, branch2, true)).isEqualTo(forkPoint);
+
+    ObjId other = EMPTY_OBJ_ID;
+    for (int i = 0; i < 30; i++) {
+      other = commit(commitLogic, other, "other #" + i);
+    }
+    ObjId otherHead = other;
+    soft.assertThatThrownBy(() -> commitLogic.findCommonAncestor(branch1, otherHead))
+        .isInstanceOf(NoSuchElementException.class)
+        .hasMessageStartingWith(NO_COMMON_ANCESTOR_IN_PARENTS_OF);
+    soft.assertThatThrownBy(() -> commitLogic.findMergeBase(otherHead, branch2, true))
+        .isInstanceOf(NoSuchElementException.class)
+        .hasMessageStartingWith(NO_COMMON_ANCESTOR_IN_PARENTS_OF);
+  }
+
+  @Test
+  public void mergeBaseWithMergeParents() throws Exception {
+    CommitLogic commitLogic = commitLogic(persist);
+
+    ObjId main = commit(commitLogic, EMPTY_OBJ_ID, "main #1");
+    ObjId forkPoint = main = commit(commitLogic, main, "main #2");
+    ObjId branch = commit(commitLogic, forkPoint, "branch #1");
+    ObjId merged = branch = commit(commitLogic, branch, "branch #2");
+    main = commit(commitLogic, main, "merge", merged);
+    main = commit(commitLogic, main, "main #3");
+    branch = commit(commitLogic, branch, "branch #3");
+
+    soft.assertThat(commitLogic.findCommonAncestor(main, branch)).isEqualTo(forkPoint);
+    soft.assertThat(commitLogic.findMergeBase(main, branch, false)).isEqualTo(forkPoint);
+    soft.assertThat(commitLogic.findMergeBase(main, branch, true)).isEqualTo(merged);
+    soft.assertThat(commitLogic.findMergeBase(branch, main, true)).isEqualTo(merged);
+    soft.assertThat(commitLogic.findMergeBase(main, merged, true)).isEqualTo(merged);
+
+    // The previously merged commit is reachable from the newly merged one
+    ObjId mergedAgain = branch;
+    main = commit(commitLogic, main, "merge again", mergedAgain);
+    branch = commit(commitLogic, branch, "branch #4");
+
+    soft.assertThat(commitLogic.findMergeBase(main, branch, true)).isEqualTo(mergedAgain);
+    soft.assertThat(commitLogic.findMergeBase(branch, main, true)).isEqualTo(mergedAgain);
+    soft.assertThat(commitLogic.findMergeBase(main, branch, false)).isEqualTo(forkPoint);
+  }
+
+  private static ObjId commit(
+      CommitLogic commitLogic, ObjId parent, String message, ObjId... secondaryParents)
+      throws Exception {
+    CreateCommit.Builder createCommit = stdCommit().parentCommitId(parent).message(message);
+    for (ObjId secondaryParent : secondaryParents) {
+      createCommit.addSecondaryParents(secondaryParent);
+    }
+    return requireNonNull(commitLogic.doCommit(createCommit.build(), emptyList())).id();
+  }
+
   @Test
   public void noCommonAncestor() throws Exception {
     CommitLogic commitLogic = commitLogic(persist);
@@ -339,6 +447,49 @@ public class AbstractCommitLogicTests {
     }
   }
 
+  @Test
+  public void commitLogReadAhead(
+      @NessieStoreConfig(name = CONFIG_COMMIT_LOG_READ_AHEAD, value = "3")
+          @NessieStoreConfig(name = CONFIG_PARENTS_PER_COMMIT, value = "4")
+          @NessiePersist
+          Persist persist)
+      throws Exception {
+    CommitLogic commitLogic = commitLogic(persist);
+
+    soft.assertThatThrownBy(
+            () -> newArrayList(commitLogic.commitLog(commitLogQuery(randomObjId()))))
+        .isInstanceOf(NoSuchElementException.class);
+    soft.assertThat(newArrayList(commitLogic.commitLog(commitLogQuery(EMPTY_OBJ_ID)))).isEmpty();
+
+    List<ObjId> expected = new ArrayList<>();
+    ObjId tip = EMPTY_OBJ_ID;
+    for (int i = 0; i < 50; i++) {
+      tip =
+          requireNonNull(
+                  commitLogic.doCommit(
+                      stdCommit().parentCommitId(tip).message("commit #" + i).build(),
+                      emptyList()))
+              .id();
+      expected.add(0, tip);
+    }
+
+    soft.assertThat(newArrayList(commitLogic.commitLog(commitLogQuery(tip))))
+        .extracting(CommitObj::id)
+        .containsExactlyElementsOf(expected);
+
+    for (int i = 0; i < expected.size(); i += 7) {
+      ObjId end = expected.get(i);
+      soft.assertThat(newArrayList(commitLogic.commitLog(commitLogQuery(null, tip, end))))
+          .extracting(CommitObj::id)
+          .containsExactlyElementsOf(expected.subList(0, i + 1));
+    }
+
+    // Partially consumed commit log
+    PagedResult<CommitObj, ObjId> iter = commitLogic.commitLog(commitLogQuery(tip));
+    soft.assertThat(iter.next().id()).isEqualTo(expected.get(0));
+    soft.assertThat(iter.next().id()).isEqualTo(expected.get(1));
+  }
+
   @Test
   public void commitIdLog() throws Exception {
     CommitLogic commitLogic = commitLogic(persist);
@@ -102,4 +102,29 @@ public class RealisticKeyIndexImplBench {
   public void randomGetKey(BenchmarkParam param, Blackhole bh) {
     bh.consume(param.keyIndexTestSet.randomGetKey());
   }
+
+  /** Typical read path: deserialize a (not cached) index and look up a single key. */
+  @Benchmark
+  public void deserializeGetKey(BenchmarkParam param, Blackhole bh) {
+    StoreIndex<CommitOp> index = param.keyIndexTestSet.deserialize();
+    bh.consume(index.get(param.keyIndexTestSet.randomKey()));
+  }
+
+  /** Deserialize an index and access all elements. */
+  @Benchmark
+  public void deserializeIterate(BenchmarkParam param, Blackhole bh) {
+    StoreIndex<CommitOp> index = param.keyIndexTestSet.deserialize();
+    for (StoreIndexElement<CommitOp> el : index) {
+      bh.consume(el);
+    }
+  }
+
+  /** Typical write path: deserialize an index, add a key and serialize it. */
+  @Benchmark
+  public void deserializeAddSerialize(BenchmarkParam param, Blackhole bh) {
+    StoreIndex<CommitOp> index = param.keyIndexTestSet.deserialize();
+    StoreKey key = param.keyIndexTestSet.randomKey();
+    index.add(indexElement(key, commitOp(Action.ADD, 1, randomObjId())));
+    bh.consume(index.serialize());
+  }
 }
@@ -21,10 +21,12 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.function.Function;
+import javax.annotation.Nullable;
 import org.immutables.value.Value;
 import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
 import org.projectnessie.versioned.storage.common.objtypes.IndexObj;
 import org.projectnessie.versioned.storage.common.objtypes.IndexSegmentsObj;
+import org.projectnessie.versioned.storage.common.persist.BackgroundExecutor;
 import org.projectnessie.versioned.storage.common.persist.Persist;
 
 public interface StoreConfig {
@@ -56,6 +58,9 @@ public interface StoreConfig {
   String CONFIG_MAX_SERIALIZED_INDEX_SIZE = "max-serialized-index-size";
   int DEFAULT_MAX_SERIALIZED_INDEX_SIZE = 200 * 1024;
 
+  String CONFIG_MAX_DEFERRED_INCREMENTAL_INDEX_SIZE = "max-deferred-incremental-index-size";
+  int DEFAULT_MAX_DEFERRED_INCREMENTAL_INDEX_SIZE = 0;
+
   String CONFIG_MAX_REFERENCE_STRIPES_PER_COMMIT = "max-reference-stripes-per-commit";
   int DEFAULT_MAX_REFERENCE_STRIPES_PER_COMMIT = 50;
 
@@ -65,6 +70,33 @@ public interface StoreConfig {
   String CONFIG_NAMESPACE_VALIDATION = "namespace-validation";
   boolean DEFAULT_NAMESPACE_VALIDATION = true;
 
+  String CONFIG_COMPLETE_INDEX_CACHE_CAPACITY_MB = "complete-index-cache-capacity-mb";
+  int DEFAULT_COMPLETE_INDEX_CACHE_CAPACITY_MB = 0;
+
+  String CONFIG_COMMON_ANCESTOR_CACHE_SIZE = "common-ancestor-cache-size";
+  int DEFAULT_COMMON_ANCESTOR_CACHE_SIZE = 5000;
+
+  String CONFIG_COMMIT_LOG_READ_AHEAD = "commit-log-read-ahead";
+  int DEFAULT_COMMIT_LOG_READ_AHEAD = 0;
+
+  String CONFIG_SKIP_POINTER_CACHE_SIZE = "skip-pointer-cache-size";
+  int DEFAULT_SKIP_POINTER_CACHE_SIZE = 10_000;
+
+  String CONFIG_GROUP_COMMIT_WINDOW_MILLIS = "group-commit-window-millis";
+  int DEFAULT_GROUP_COMMIT_WINDOW_MILLIS = 0;
+
+  String CONFIG_CONTENT_FETCH_WINDOW_SIZE = "content-fetch-window-size";
+  int DEFAULT_CONTENT_FETCH_WINDOW_SIZE = 100;
+
+  String CONFIG_INDEX_READ_AHEAD_STRIPES = "index-read-ahead-stripes";
+  int DEFAULT_INDEX_READ_AHEAD_STRIPES = 0;
+
+  String CONFIG_BACKGROUND_THREADS = "background-threads";
+  int DEFAULT_BACKGROUND_THREADS = 4;
+
+  String CONFIG_BACKGROUND_QUEUE_SIZE = "background-queue-size";
+  int DEFAULT_BACKGROUND_QUEUE_SIZE = 1024;
+
   /**
    * Committing operations by default enforce that all (parent) namespaces exist.
    *
@@ -211,6 +243,26 @@ public interface StoreConfig {
     return DEFAULT_MAX_INCREMENTAL_INDEX_SIZE;
   }
 
+  /**
+   * The maximum allowed serialized size of a {@link CommitObj#incrementalIndex() commit's
+   * incremental index}, up to which pushing the elements kept from previous commits to the {@link
+   * CommitObj#referenceIndex() reference index} is deferred, defaults to {@value
+   * #DEFAULT_MAX_DEFERRED_INCREMENTAL_INDEX_SIZE}.
+   *
+   * <p>If this value is greater than {@link #maxIncrementalIndexSize()}, commits whose incremental
+   * index exceeds {@link #maxIncrementalIndexSize()}, but not this value, are persisted as is and
+   * the reference index is built and persisted in the background by the version store. Committing
+   * operations do not need to write reference index stripes in this case. Commits whose
+   * incremental index exceeds this value update the reference index synchronously.
+   *
+   * <p>Note: this value <em>must</em> be smaller than a database's {@link
+   * Persist#hardObjectSizeLimit() hard item/row size limit}.
+   */
+  @Value.Default
+  default int maxDeferredIncrementalIndexSize() {
+    return DEFAULT_MAX_DEFERRED_INCREMENTAL_INDEX_SIZE;
+  }
+
   /**
    * If the external reference index for this commit consists of up to this amount of stripes, the
    * references to the stripes will be stored {@link CommitObj#referenceIndexStripes() inside} the
@@ -231,6 +283,117 @@ public interface StoreConfig {
     return DEFAULT_ASSUMED_WALL_CLOCK_DRIFT_MICROS;
   }
 
+  /**
+   * Amount of heap in MB used to keep built complete indexes of commits in memory, so that index
+   * stripes loaded by one request are reused by following requests against the same commit,
+   * defaults to {@value #DEFAULT_COMPLETE_INDEX_CACHE_CAPACITY_MB}, which disables the cache. The
+   * heap usage of an index is estimated assuming that all its stripes are loaded and have the
+   * {@link #maxSerializedIndexSize() maximum size}.
+   */
+  @Value.Default
+  default int completeIndexCacheCapacityMb() {
+    return DEFAULT_COMPLETE_INDEX_CACHE_CAPACITY_MB;
+  }
+
+  /**
+   * The maximum number of common ancestors of two commits that are kept in memory, used when
+   * listing references with "ahead/behind" information, defaults to {@value
+   * #DEFAULT_COMMON_ANCESTOR_CACHE_SIZE}. A value of {@code 0} disables the cache.
+   */
+  @Value.Default
+  default int commonAncestorCacheSize() {
+    return DEFAULT_COMMON_ANCESTOR_CACHE_SIZE;
+  }
+
+  /**
+   * The number of batches of commits that are fetched in the background ahead of the consumer of a
+   * commit log, defaults to {@value #DEFAULT_COMMIT_LOG_READ_AHEAD}. Each batch contains the
+   * commits from the {@link CommitObj#tail()} of the last commit of the previous batch, so up to
+   * {@link #parentsPerCommit()} commits. A value of {@code 0} disables read-ahead, the next batch
+   * is then fetched when the consumer has consumed the current one. Read-ahead requires a {@link
+   * #backgroundExecutor()}.
+   */
+  @Value.Default
+  default int commitLogReadAhead() {
+    return DEFAULT_COMMIT_LOG_READ_AHEAD;
+  }
+
+  /**
+   * The maximum number of commits, for which skip pointers to older commits are kept in memory,
+   * defaults to {@value #DEFAULT_SKIP_POINTER_CACHE_SIZE}. Skip pointers are used to validate
+   * commits on references and to resolve relative commit lookups like {@code ~N} without walking
+   * the commit log. A value of {@code 0} disables skip pointers.
+   */
+  @Value.Default
+  default int skipPointerCacheSize() {
+    return DEFAULT_SKIP_POINTER_CACHE_SIZE;
+  }
+
+  /**
+   * Time in milliseconds, during which commits against the same branch, which arrive at the same
+   * Nessie instance, are collected and then applied as a chain of commits with a single update of
+   * the reference pointer, defaults to {@value #DEFAULT_GROUP_COMMIT_WINDOW_MILLIS}. Group commits
+   * avoid the retries of concurrent commits against the same branch, at the expense of latency. A
+   * value of {@code 0} disables group commits.
+   */
+  @Value.Default
+  default long groupCommitWindowMillis() {
+    return DEFAULT_GROUP_COMMIT_WINDOW_MILLIS;
+  }
+
+  /**
+   * The number of entries that are read ahead when listing keys with their contents or when
+   * listing the differences between two commits, the contents of these entries are fetched at
+   * once, defaults to {@value #DEFAULT_CONTENT_FETCH_WINDOW_SIZE}. A value of {@code 1} or less
+   * fetches the contents of each entry individually.
+   */
+  @Value.Default
+  default int contentFetchWindowSize() {
+    return DEFAULT_CONTENT_FETCH_WINDOW_SIZE;
+  }
+
+  /**
+   * The number of stripes of a reference index that are loaded in the background ahead of
+   * iterators over the index, like when listing the keys of a large reference, defaults to {@value
+   * #DEFAULT_INDEX_READ_AHEAD_STRIPES}. A value of {@code 0} disables read-ahead, stripes are then
+   * loaded when they are accessed. Read-ahead requires a {@link #backgroundExecutor()}.
+   */
+  @Value.Default
+  default int indexReadAheadStripes() {
+    return DEFAULT_INDEX_READ_AHEAD_STRIPES;
+  }
+
+  /**
+   * The number of threads of the {@link BackgroundExecutor} created by the Nessie server, defaults
+   * to {@value #DEFAULT_BACKGROUND_THREADS}.
+   */
+  @Value.Default
+  default int backgroundThreads() {
+    return DEFAULT_BACKGROUND_THREADS;
+  }
+
+  /**
+   * The maximum number of pending tasks of the {@link BackgroundExecutor} created by the Nessie
+   * server, defaults to {@value #DEFAULT_BACKGROUND_QUEUE_SIZE}.
+   */
+  @Value.Default
+  default int backgroundQueueSize() {
+    return DEFAULT_BACKGROUND_QUEUE_SIZE;
+  }
+
+  /**
+   * The executor for background tasks, like read-ahead and background index compactions, provided
+   * by the Nessie server. Without a background executor, read-ahead is disabled and index
+   * compactions run in the committing thread.
+   */
+  @Value.Default
+  @Value.Auxiliary
+  @Nullable
+  @jakarta.annotation.Nullable
+  default BackgroundExecutor backgroundExecutor() {
+    return null;
+  }
+
   /** The {@link Clock} to use, do not change for production. */
   @Value.Default
   default Clock clock() {
@@ -301,6 +464,10 @@ public interface StoreConfig {
       if (v != null) {
         a = a.withMaxSerializedIndexSize(Integer.parseInt(v.trim()));
       }
+      v = configFunction.apply(CONFIG_MAX_DEFERRED_INCREMENTAL_INDEX_SIZE);
+      if (v != null) {
+        a = a.withMaxDeferredIncrementalIndexSize(Integer.parseInt(v.trim()));
+      }
       v = configFunction.apply(CONFIG_MAX_REFERENCE_STRIPES_PER_COMMIT);
       if (v != null) {
         a = a.withMaxReferenceStripesPerCommit(Integer.parseInt(v.trim()));
@@ -313,6 +480,42 @@ public interface StoreConfig {
       if (v != null) {
         a = a.withValidateNamespaces(Boolean.parseBoolean(v.trim()));
       }
+      v = configFunction.apply(CONFIG_COMPLETE_INDEX_CACHE_CAPACITY_MB);
+      if (v != null) {
+        a = a.withCompleteIndexCacheCapacityMb(Integer.parseInt(v.trim()));
+      }
+      v = configFunction.apply(CONFIG_COMMON_ANCESTOR_CACHE_SIZE);
+      if (v != null) {
+        a = a.withCommonAncestorCacheSize(Integer.parseInt(v.trim()));
+      }
+      v = configFunction.apply(CONFIG_COMMIT_LOG_READ_AHEAD);
+      if (v != null) {
+        a = a.withCommitLogReadAhead(Integer.parseInt(v.trim()));
+      }
+      v = configFunction.apply(CONFIG_SKIP_POINTER_CACHE_SIZE);
+      if (v != null) {
+        a = a.withSkipPointerCacheSize(Integer.parseInt(v.trim()));
+      }
+      v = configFunction.apply(CONFIG_GROUP_COMMIT_WINDOW_MILLIS);
+      if (v != null) {
+        a = a.withGroupCommitWindowMillis(Long.parseLong(v.trim()));
+      }
+      v = configFunction.apply(CONFIG_CONTENT_FETCH_WINDOW_SIZE);
+      if (v != null) {
+        a = a.withContentFetchWindowSize(Integer.parseInt(v.trim()));
+      }
+      v = configFunction.apply(CONFIG_INDEX_READ_AHEAD_STRIPES);
+      if (v != null) {
+        a = a.withIndexReadAheadStripes(Integer.parseInt(v.trim()));
+      }
+      v = configFunction.apply(CONFIG_BACKGROUND_THREADS);
+      if (v != null) {
+        a = a.withBackgroundThreads(Integer.parseInt(v.trim()));
+      }
+      v = configFunction.apply(CONFIG_BACKGROUND_QUEUE_SIZE);
+      if (v != null) {
+        a = a.withBackgroundQueueSize(Integer.parseInt(v.trim()));
+      }
       return a;
     }
 
@@ -343,6 +546,9 @@ public interface StoreConfig {
     /** See {@link StoreConfig#maxSerializedIndexSize()}. */
     Adjustable withMaxSerializedIndexSize(int maxSerializedIndexSize);
 
+    /** See {@link StoreConfig#maxDeferredIncrementalIndexSize()}. */
+    Adjustable withMaxDeferredIncrementalIndexSize(int maxDeferredIncrementalIndexSize);
+
     /** See {@link StoreConfig#maxReferenceStripesPerCommit()}. */
     Adjustable withMaxReferenceStripesPerCommit(int maxReferenceStripesPerCommit);
 
@@ -352,6 +558,36 @@ public interface StoreConfig {
     /** See {@link StoreConfig#validateNamespaces ()} ()}. */
     Adjustable withValidateNamespaces(boolean validateNamespaces);
 
+    /** See {@link StoreConfig#completeIndexCacheCapacityMb()}. */
+    Adjustable withCompleteIndexCacheCapacityMb(int completeIndexCacheCapacityMb);
+
+    /** See {@link StoreConfig#commonAncestorCacheSize()}. */
+    Adjustable withCommonAncestorCacheSize(int commonAncestorCacheSize);
+
+    /** See {@link StoreConfig#commitLogReadAhead()}. */
+    Adjustable withCommitLogReadAhead(int commitLogReadAhead);
+
+    /** See {@link StoreConfig#skipPointerCacheSize()}. */
+    Adjustable withSkipPointerCacheSize(int skipPointerCacheSize);
+
+    /** See {@link StoreConfig#groupCommitWindowMillis()}. */
+    Adjustable withGroupCommitWindowMillis(long groupCommitWindowMillis);
+
+    /** See {@link StoreConfig#contentFetchWindowSize()}. */
+    Adjustable withContentFetchWindowSize(int contentFetchWindowSize);
+
+    /** See {@link StoreConfig#indexReadAheadStripes()}. */
+    Adjustable withIndexReadAheadStripes(int indexReadAheadStripes);
+
+    /** See {@link StoreConfig#backgroundThreads()}. */
+    Adjustable withBackgroundThreads(int backgroundThreads);
+
+    /** See {@link StoreConfig#backgroundQueueSize()}. */
+    Adjustable withBackgroundQueueSize(int backgroundQueueSize);
+
+    /** See {@link StoreConfig#backgroundExecutor()}. */
+    Adjustable withBackgroundExecutor(BackgroundExecutor backgroundExecutor);
+
     /** See {@link StoreConfig#clock()}. */
     Adjustable withClock(Clock clock);
   }
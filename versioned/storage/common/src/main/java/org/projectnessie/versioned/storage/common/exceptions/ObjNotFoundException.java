@@ -20,19 +20,32 @@ import static java.util.Arrays.asList;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.projectnessie.versioned.storage.common.persist.Obj;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
 
 /** A required {@link Obj} could not be found. */
 public class ObjNotFoundException extends Exception {
   private final ObjId[] objIds;
+  private final transient Obj[] fetchedObjs;
 
   public ObjNotFoundException(@Nonnull @jakarta.annotation.Nonnull ObjId objId) {
     super("Object with ID " + objId + " not found");
     this.objIds = new ObjId[] {objId};
+    this.fetchedObjs = null;
   }
 
   public ObjNotFoundException(@Nonnull @jakarta.annotation.Nonnull List<ObjId> objIds) {
+    this(objIds, null);
+  }
+
+  /**
+   * Constructor used by bulk fetches, {@code fetchedObjs} holds the objects that <em>have</em>
+   * been fetched, at the same indexes as the requested IDs, {@code null} for the missing ones.
+   */
+  public ObjNotFoundException(
+      @Nonnull @jakarta.annotation.Nonnull List<ObjId> objIds,
+      @Nullable @jakarta.annotation.Nullable Obj[] fetchedObjs) {
     super(
         objIds.size() == 1
             ? "Object with ID " + objIds.get(0) + " not found"
@@ -40,9 +53,20 @@ public class ObjNotFoundException extends Exception {
                 + objIds.stream().map(ObjId::toString).collect(Collectors.joining(","))
                 + " not found");
     this.objIds = objIds.toArray(new ObjId[0]);
+    this.fetchedObjs = fetchedObjs;
   }
 
   public List<ObjId> objIds() {
     return asList(objIds);
   }
+
+  /**
+   * The objects returned by the bulk fetch that raised this exception, if the exception has been
+   * raised by a bulk fetch, otherwise {@code null}.
+   */
+  @Nullable
+  @jakarta.annotation.Nullable
+  public Obj[] fetchedObjs() {
+    return fetchedObjs;
+  }
 }
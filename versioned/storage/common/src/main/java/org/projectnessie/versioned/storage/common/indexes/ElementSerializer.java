@@ -28,4 +28,20 @@ public interface ElementSerializer<V> {
    * ByteBuffer} only contains data for the value to deserialize, other data likely follows.
    */
   V deserialize(ByteBuffer buffer);
+
+  /**
+   * Advances the position of {@code buffer} past the serialized value, used to scan serialized
+   * indexes without deserializing all values. The default implementation deserializes the value.
+   */
+  default void skip(ByteBuffer buffer) {
+    deserialize(buffer);
+  }
+
+  /**
+   * Returns the serializer used for values in "version 3" serialized store indexes, which may use a
+   * more compact encoding than this serializer. The default implementation returns {@code this}.
+   */
+  default ElementSerializer<V> compact() {
+    return this;
+  }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.indexes;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the {@link StoreKeyFilter}s consulted before loading index stripes.
+ *
+ * <p>This module does not depend on a metrics library, the counters are exposed as meters by the
+ * storage cache.
+ */
+public final class KeyFilterMetrics {
+  private KeyFilterMetrics() {}
+
+  private static final LongAdder AVOIDED_LOADS = new LongAdder();
+  private static final LongAdder FALSE_POSITIVES = new LongAdder();
+
+  static void avoidedLoad() {
+    AVOIDED_LOADS.increment();
+  }
+
+  static void falsePositive() {
+    FALSE_POSITIVES.increment();
+  }
+
+  /** Number of index stripe loads avoided by a key filter. */
+  public static long avoidedLoads() {
+    return AVOIDED_LOADS.sum();
+  }
+
+  /**
+   * Number of index stripes loaded for a key that passed the key filter, but is not contained in
+   * the stripe.
+   */
+  public static long falsePositives() {
+    return FALSE_POSITIVES.sum();
+  }
+}
@@ -56,6 +56,13 @@ final class LayeredIndexImpl<V> implements StoreIndex<V> {
     return this;
   }
 
+  @Override
+  public StoreIndex<V> loadForUpdate(Set<StoreKey> keys) {
+    reference.loadForUpdate(keys);
+    updates.loadForUpdate(keys);
+    return this;
+  }
+
   @Override
   public boolean isLoaded() {
     return reference.isLoaded() && updates.isLoaded();
@@ -155,10 +162,17 @@ final class LayeredIndexImpl<V> implements StoreIndex<V> {
       @Nullable @jakarta.annotation.Nullable StoreKey begin,
       @Nullable @jakarta.annotation.Nullable StoreKey end,
       boolean prefetch) {
-    return new AbstractIterator<StoreIndexElement<V>>() {
-      final Iterator<StoreIndexElement<V>> fullIter = reference.iterator(begin, end, prefetch);
-      final Iterator<StoreIndexElement<V>> incrementalIter = updates.iterator(begin, end, prefetch);
+    return layeredIterator(
+        reference.iterator(begin, end, prefetch), updates.iterator(begin, end, prefetch));
+  }
 
+  /**
+   * Merges the elements of two iterators in key order, elements from {@code incrementalIter} take
+   * precedence over elements with the same key from {@code fullIter}.
+   */
+  static <V> Iterator<StoreIndexElement<V>> layeredIterator(
+      Iterator<StoreIndexElement<V>> fullIter, Iterator<StoreIndexElement<V>> incrementalIter) {
+    return new AbstractIterator<StoreIndexElement<V>>() {
       StoreIndexElement<V> fullElement;
       StoreIndexElement<V> incrementalElement;
 
@@ -34,10 +34,16 @@ final class LazyIndexImpl<V> implements StoreIndex<V> {
   private ObjId objId;
   private final StoreKey firstKey;
   private final StoreKey lastKey;
+  private final StoreKeyFilter keyFilter;
 
-  LazyIndexImpl(Supplier<StoreIndex<V>> supplier, StoreKey firstKey, StoreKey lastKey) {
+  LazyIndexImpl(
+      Supplier<StoreIndex<V>> supplier,
+      StoreKey firstKey,
+      StoreKey lastKey,
+      StoreKeyFilter keyFilter) {
     this.firstKey = firstKey;
     this.lastKey = lastKey;
+    this.keyFilter = keyFilter;
     this.loader =
         memoize(
             () -> {
@@ -74,14 +80,48 @@ final class LazyIndexImpl<V> implements StoreIndex<V> {
 
   @Override
   public StoreIndex<V> loadIfNecessary(Set<StoreKey> keys) {
+    if (!loaded && keyFilter != null && keys.stream().noneMatch(keyFilter::mightContain)) {
+      KeyFilterMetrics.avoidedLoad();
+      return this;
+    }
     return loaded().loadIfNecessary(keys);
   }
 
+  @Override
+  public StoreIndex<V> loadForUpdate(Set<StoreKey> keys) {
+    return loaded().loadForUpdate(keys);
+  }
+
   @Override
   public boolean isLoaded() {
     return loaded;
   }
 
+  @Override
+  @Nullable
+  @jakarta.annotation.Nullable
+  public StoreKeyFilter keyFilter() {
+    return isModified() ? null : keyFilter;
+  }
+
+  /**
+   * Returns {@code true}, if the key filter proves that {@code key} is not contained in the not yet
+   * loaded index.
+   */
+  private boolean filteredOut(StoreKey key) {
+    if (loaded || keyFilter == null || keyFilter.mightContain(key)) {
+      return false;
+    }
+    KeyFilterMetrics.avoidedLoad();
+    return true;
+  }
+
+  private void falsePositive() {
+    if (keyFilter != null) {
+      KeyFilterMetrics.falsePositive();
+    }
+  }
+
   @Override
   public StoreIndex<V> asMutableIndex() {
     return loaded().asMutableIndex();
@@ -132,14 +172,30 @@ final class LazyIndexImpl<V> implements StoreIndex<V> {
     if (!loaded && (key.equals(firstKey) || key.equals(lastKey))) {
       return true;
     }
-    return loaded().contains(key);
+    if (filteredOut(key)) {
+      return false;
+    }
+    boolean loading = !loaded;
+    boolean found = loaded().contains(key);
+    if (loading && !found) {
+      falsePositive();
+    }
+    return found;
   }
 
   @Override
   @Nullable
   @jakarta.annotation.Nullable
   public StoreIndexElement<V> get(@Nonnull @jakarta.annotation.Nonnull StoreKey key) {
-    return loaded().get(key);
+    if (filteredOut(key)) {
+      return null;
+    }
+    boolean loading = !loaded;
+    StoreIndexElement<V> element = loaded().get(key);
+    if (loading && element == null) {
+      falsePositive();
+    }
+    return element;
   }
 
   @Override
@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.indexes;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+import static org.projectnessie.versioned.storage.common.indexes.LayeredIndexImpl.layeredIterator;
+
+import com.google.common.collect.Iterators;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+
+/**
+ * Mutable view to a read-only {@code base} index, which is not modified. Added elements and removed
+ * keys are held in this instance, lookups and iterations fall through to the {@code base} index.
+ *
+ * <p>Operations that need all elements, like {@link #serialize()}, {@link #divide(int)} and {@link
+ * #updateAll(Function)}, copy the elements into a new {@link StoreIndexImpl} once, which is used
+ * for all following operations.
+ */
+final class OverlayIndexImpl<V> implements StoreIndex<V> {
+
+  private final StoreIndex<V> base;
+  private final ElementSerializer<V> serializer;
+  private final StoreIndex<V> updates;
+  private final Set<StoreKey> removed = new HashSet<>();
+  private StoreIndex<V> materialized;
+
+  OverlayIndexImpl(StoreIndex<V> base, ElementSerializer<V> serializer) {
+    this.base = base;
+    this.serializer = serializer;
+    this.updates = new StoreIndexImpl<>(serializer);
+  }
+
+  private StoreIndex<V> materialize() {
+    StoreIndex<V> m = materialized;
+    if (m == null) {
+      m = new StoreIndexImpl<>(serializer);
+      for (StoreIndexElement<V> el : this) {
+        m.add(el);
+      }
+      materialized = m;
+    }
+    return m;
+  }
+
+  @Override
+  public boolean isModified() {
+    if (materialized != null) {
+      return materialized.isModified();
+    }
+    return updates.isModified() || !removed.isEmpty();
+  }
+
+  @Override
+  public ObjId getObjId() {
+    return materialized != null ? materialized.getObjId() : null;
+  }
+
+  @Override
+  public StoreIndex<V> setObjId(ObjId objId) {
+    materialize().setObjId(objId);
+    return this;
+  }
+
+  @Override
+  public StoreIndex<V> loadIfNecessary(Set<StoreKey> keys) {
+    if (materialized == null) {
+      base.loadIfNecessary(keys);
+    }
+    return this;
+  }
+
+  @Override
+  public StoreIndex<V> loadForUpdate(Set<StoreKey> keys) {
+    if (materialized == null) {
+      base.loadForUpdate(keys);
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isLoaded() {
+    return materialized != null || base.isLoaded();
+  }
+
+  @Override
+  public StoreIndex<V> asMutableIndex() {
+    return this;
+  }
+
+  @Override
+  public boolean isMutable() {
+    return true;
+  }
+
+  @Override
+  public List<StoreIndex<V>> divide(int parts) {
+    return materialize().divide(parts);
+  }
+
+  @Override
+  public List<StoreIndex<V>> stripes() {
+    return singletonList(this);
+  }
+
+  @Override
+  @SuppressWarnings("UnusedVariable")
+  public int elementCount() {
+    if (materialized != null) {
+      return materialized.elementCount();
+    }
+    int cnt = 0;
+    for (StoreIndexElement<V> ignore : this) {
+      cnt++;
+    }
+    return cnt;
+  }
+
+  @Override
+  public int estimatedSerializedSize() {
+    if (materialized != null) {
+      return materialized.estimatedSerializedSize();
+    }
+    // Removed keys only make the serialized representation smaller
+    return base.estimatedSerializedSize() + updates.estimatedSerializedSize();
+  }
+
+  @Override
+  public boolean add(@Nonnull @jakarta.annotation.Nonnull StoreIndexElement<V> element) {
+    if (materialized != null) {
+      return materialized.add(element);
+    }
+    StoreKey key = element.key();
+    boolean existed = contains(key);
+    updates.add(element);
+    removed.remove(key);
+    return !existed;
+  }
+
+  @Override
+  public void updateAll(Function<StoreIndexElement<V>, V> updater) {
+    materialize().updateAll(updater);
+  }
+
+  @Override
+  public boolean remove(@Nonnull @jakarta.annotation.Nonnull StoreKey key) {
+    if (materialized != null) {
+      return materialized.remove(key);
+    }
+    if (!contains(key)) {
+      return false;
+    }
+    updates.remove(key);
+    removed.add(key);
+    return true;
+  }
+
+  @Override
+  public boolean contains(@Nonnull @jakarta.annotation.Nonnull StoreKey key) {
+    if (materialized != null) {
+      return materialized.contains(key);
+    }
+    if (removed.contains(key)) {
+      return false;
+    }
+    return updates.contains(key) || base.contains(key);
+  }
+
+  @Nullable
+  @jakarta.annotation.Nullable
+  @Override
+  public StoreIndexElement<V> get(@Nonnull @jakarta.annotation.Nonnull StoreKey key) {
+    if (materialized != null) {
+      return materialized.get(key);
+    }
+    if (removed.contains(key)) {
+      return null;
+    }
+    StoreIndexElement<V> el = updates.get(key);
+    return el != null ? el : base.get(key);
+  }
+
+  @Nullable
+  @jakarta.annotation.Nullable
+  @Override
+  public StoreKey first() {
+    if (materialized != null) {
+      return materialized.first();
+    }
+    Iterator<StoreIndexElement<V>> iter = iterator();
+    return iter.hasNext() ? iter.next().key() : null;
+  }
+
+  @Nullable
+  @jakarta.annotation.Nullable
+  @Override
+  public StoreKey last() {
+    if (materialized != null) {
+      return materialized.last();
+    }
+    StoreKey last = null;
+    for (StoreIndexElement<V> el : this) {
+      last = el.key();
+    }
+    return last;
+  }
+
+  @Override
+  public List<StoreKey> asKeyList() {
+    if (materialized != null) {
+      return materialized.asKeyList();
+    }
+    List<StoreKey> keys = new ArrayList<>();
+    for (StoreIndexElement<V> el : this) {
+      keys.add(el.key());
+    }
+    return unmodifiableList(keys);
+  }
+
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  @Override
+  public Iterator<StoreIndexElement<V>> iterator(
+      @Nullable @jakarta.annotation.Nullable StoreKey begin,
+      @Nullable @jakarta.annotation.Nullable StoreKey end,
+      boolean prefetch) {
+    if (materialized != null) {
+      return materialized.iterator(begin, end, prefetch);
+    }
+    Iterator<StoreIndexElement<V>> iter =
+        layeredIterator(
+            base.iterator(begin, end, prefetch), updates.iterator(begin, end, prefetch));
+    return removed.isEmpty() ? iter : Iterators.filter(iter, el -> !removed.contains(el.key()));
+  }
+
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  @Override
+  public ByteString serialize() {
+    return materialize().serialize();
+  }
+}
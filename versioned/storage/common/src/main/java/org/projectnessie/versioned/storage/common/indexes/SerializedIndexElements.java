@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.indexes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.projectnessie.nessie.relocated.protobuf.UnsafeByteOperations.unsafeWrap;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexElement.indexElement;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexImpl.MAX_KEY_BYTES;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexImpl.newKeyBuffer;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKey.findPositionAfterKey;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKey.keyFromString;
+import static org.projectnessie.versioned.storage.common.util.Ser.readVarInt;
+import static org.projectnessie.versioned.storage.common.util.Ser.varIntLen;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
+
+/**
+ * Read-only list of {@link StoreIndexElement}s backed by the serialized representation of a {@link
+ * StoreIndexImpl}.
+ *
+ * <p>Elements are organized in blocks. A block is scanned once to reconstruct the
+ * prefix-compressed keys as raw bytes and to record the offsets of the serialized values. {@link
+ * StoreKey}s are only decoded when a binary search or an accessor touches them, values are only
+ * deserialized when the element is accessed. Decoded keys and elements are memoized.
+ *
+ * <p>"Version 1" and "version 2" serializations do not have restart points, all elements form a
+ * single block that is scanned eagerly. "Version 3" serializations have restart points, which allow
+ * locating the block that contains a key via the restart keys and scanning only that block.
+ *
+ * <p>{@link StoreIndexImpl} replaces this list with a {@link java.util.ArrayList} on the first
+ * modification.
+ */
+final class SerializedIndexElements<V> extends AbstractList<StoreIndexElement<V>>
+    implements RandomAccess {
+
+  /** The whole serialized index, including the leading version byte. */
+  private final ByteBuffer serialized;
+
+  private final byte version;
+  private final ElementSerializer<V> serializer;
+  private final int size;
+
+  /** Number of elements per block. */
+  private final int blockSize;
+
+  /** Positions of the blocks in {@link #serialized}, {@code null} for version 1 + 2. */
+  private final int[] blockOffsets;
+
+  /** Position in {@link #serialized} after the last element. */
+  private final int elementsEnd;
+
+  private final Block[] blocks;
+  private final StoreKey[] keys;
+  private final StoreIndexElement<V>[] elements;
+
+  /** Scanned block, all fields are final to allow racy publication. */
+  private static final class Block {
+    /** Concatenated raw key bytes, without the terminating zero bytes. */
+    final byte[] keyBytes;
+
+    /** Start offsets of the keys in {@link #keyBytes}, has one element more than the block. */
+    final int[] keyOffsets;
+
+    /** Positions of the serialized values in the serialized index. */
+    final int[] valueOffsets;
+
+    final int count;
+
+    Block(byte[] keyBytes, int[] keyOffsets, int[] valueOffsets, int count) {
+      this.keyBytes = keyBytes;
+      this.keyOffsets = keyOffsets;
+      this.valueOffsets = valueOffsets;
+      this.count = count;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private SerializedIndexElements(
+      ByteBuffer serialized,
+      byte version,
+      ElementSerializer<V> serializer,
+      int size,
+      int blockSize,
+      int[] blockOffsets,
+      int elementsEnd,
+      Block[] blocks) {
+    this.serialized = serialized;
+    this.version = version;
+    this.serializer = serializer;
+    this.size = size;
+    this.blockSize = blockSize;
+    this.blockOffsets = blockOffsets;
+    this.elementsEnd = elementsEnd;
+    this.blocks = blocks;
+    this.keys = new StoreKey[size];
+    this.elements = new StoreIndexElement[size];
+  }
+
+  /**
+   * Prepares the serialized index in {@code serialized}, which must be positioned after the version
+   * byte, and {@code version} being the already consumed version.
+   */
+  static <V> SerializedIndexElements<V> scan(
+      ByteBuffer serialized, byte version, ElementSerializer<V> ser) {
+    ByteBuffer whole = serialized.duplicate();
+    whole.position(serialized.position() - 1);
+
+    if (version >= 3) {
+      int size = readVarInt(serialized);
+      int blockSize = readVarInt(serialized);
+      checkArgument(blockSize > 0, "Invalid restart interval in serialized store index");
+
+      int blockCount = (size + blockSize - 1) / blockSize;
+      int trailer = serialized.limit() - 4 * blockCount;
+      int base = whole.position();
+      int[] blockOffsets = new int[blockCount];
+      for (int i = 0; i < blockCount; i++) {
+        blockOffsets[i] = base + serialized.getInt(trailer + 4 * i);
+      }
+
+      return new SerializedIndexElements<>(
+          whole,
+          version,
+          ser.compact(),
+          size,
+          blockSize,
+          blockOffsets,
+          trailer,
+          new Block[blockCount]);
+    }
+
+    int expected = version >= 2 ? readVarInt(serialized) : 16;
+    int end = serialized.limit();
+    Block block = scanBlock(serialized, end, Integer.MAX_VALUE, expected, false, ser);
+
+    return new SerializedIndexElements<>(
+        whole, version, ser, block.count, Math.max(block.count, 1), null, end, new Block[] {block});
+  }
+
+  /**
+   * Scans up to {@code maxCount} elements starting at the current position of {@code serialized}.
+   *
+   * @param frontCoded whether keys are front-coded (version 3: length of the prefix shared with the
+   *     previous key) or diff-coded (version 1 + 2: number of bytes to strip from the previous key)
+   */
+  private static <V> Block scanBlock(
+      ByteBuffer serialized,
+      int end,
+      int maxCount,
+      int expected,
+      boolean frontCoded,
+      ElementSerializer<V> ser) {
+    int[] keyOffsets = new int[expected + 1];
+    int[] valueOffsets = new int[expected];
+    byte[] keyBytes = new byte[Math.max(end - serialized.position(), 64)];
+    int keyBytesPos = 0;
+
+    // This buffer holds the previous key, reused.
+    ByteBuffer previousKey = newKeyBuffer();
+
+    int count = 0;
+    while (count < maxCount && serialized.position() < end) {
+      if (count > 0) {
+        int prefix = readVarInt(serialized);
+        previousKey.position(frontCoded ? prefix : previousKey.position() - prefix);
+      }
+      previousKey.limit(MAX_KEY_BYTES);
+      // add
+      int limitSave = serialized.limit();
+      previousKey.put(serialized.limit(findPositionAfterKey(serialized)));
+      serialized.limit(limitSave);
+      previousKey.flip();
+
+      if (count == valueOffsets.length) {
+        int grow = Math.max(count * 2, 16);
+        valueOffsets = Arrays.copyOf(valueOffsets, grow);
+        keyOffsets = Arrays.copyOf(keyOffsets, grow + 1);
+      }
+
+      // copy the raw key, without the two trailing zero bytes
+      int keyLen = previousKey.remaining() - 2;
+      if (keyBytesPos + keyLen > keyBytes.length) {
+        keyBytes = Arrays.copyOf(keyBytes, Math.max(keyBytes.length * 2, keyBytesPos + keyLen));
+      }
+      previousKey.duplicate().get(keyBytes, keyBytesPos, keyLen);
+      keyOffsets[count] = keyBytesPos;
+      keyBytesPos += keyLen;
+
+      // skip value
+      valueOffsets[count] = serialized.position();
+      ser.skip(serialized);
+
+      // position the previous-key buffer at its end for the next key
+      previousKey.position(previousKey.limit());
+
+      count++;
+    }
+    keyOffsets[count] = keyBytesPos;
+
+    return new Block(keyBytes, keyOffsets, valueOffsets, count);
+  }
+
+  private Block block(int blockIndex) {
+    Block block = blocks[blockIndex];
+    if (block == null) {
+      int end = blockIndex + 1 < blockOffsets.length ? blockOffsets[blockIndex + 1] : elementsEnd;
+      ByteBuffer buffer = serialized.duplicate();
+      buffer.position(blockOffsets[blockIndex]);
+      blocks[blockIndex] = block = scanBlock(buffer, end, blockSize, blockSize, true, serializer);
+    }
+    return block;
+  }
+
+  /**
+   * Returns the serialized representation this list has been read from, if it has been serialized
+   * using the given version, otherwise {@code null}.
+   */
+  ByteString serialized(int serializeVersion) {
+    if (version != serializeVersion) {
+      return null;
+    }
+    return unsafeWrap(serialized.duplicate());
+  }
+
+  /**
+   * Returns the serialized size, excluding the version byte, including the number of elements that
+   * is not present in "version 1" serializations. Excludes the restart interval and the restart
+   * points of "version 3" serializations, which are added by {@link
+   * StoreIndexImpl#estimatedSerializedSize()}.
+   */
+  int serializedSize() {
+    if (version >= 3) {
+      return elementsEnd - serialized.position() - 1 - varIntLen(blockSize);
+    }
+    int size = serialized.remaining() - 1;
+    return version >= 2 ? size : size + varIntLen(this.size);
+  }
+
+  StoreKey key(int index) {
+    StoreKey key = keys[index];
+    if (key == null) {
+      int blockIndex = index / blockSize;
+      int inBlock = index % blockSize;
+      if (inBlock == 0 && blockOffsets != null && blocks[blockIndex] == null) {
+        // Restart keys are serialized in full and can be read without scanning the block
+        ByteBuffer buffer = serialized.duplicate();
+        buffer.position(blockOffsets[blockIndex]);
+        key = StoreKey.deserializeKey(buffer);
+      } else {
+        Block block = block(blockIndex);
+        int off = block.keyOffsets[inBlock];
+        int len = block.keyOffsets[inBlock + 1] - off;
+        key = keyFromString(new String(block.keyBytes, off, len, StandardCharsets.UTF_8));
+      }
+      keys[index] = key;
+    }
+    return key;
+  }
+
+  /** Same contract as {@link java.util.Collections#binarySearch(java.util.List, Object)}. */
+  int search(StoreKey key) {
+    int low = 0;
+    int high = size - 1;
+    if (blockOffsets != null && blockOffsets.length > 1) {
+      // Find the last block whose restart key is less than or equal to the searched key
+      int lowBlock = 0;
+      int highBlock = blockOffsets.length - 1;
+      while (lowBlock < highBlock) {
+        int mid = (lowBlock + highBlock + 1) >>> 1;
+        if (key(mid * blockSize).compareTo(key) <= 0) {
+          lowBlock = mid;
+        } else {
+          highBlock = mid - 1;
+        }
+      }
+      low = lowBlock * blockSize;
+      high = Math.min(size, low + blockSize) - 1;
+    }
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = key(mid).compareTo(key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  @Override
+  public StoreIndexElement<V> get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+    StoreIndexElement<V> element = elements[index];
+    if (element == null) {
+      StoreKey key = key(index);
+      ByteBuffer value = serialized.duplicate();
+      value.position(block(index / blockSize).valueOffsets[index % blockSize]);
+      elements[index] = element = indexElement(key, serializer.deserialize(value));
+    }
+    return element;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.indexes;
+
+import static java.util.Collections.emptyIterator;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+import static org.projectnessie.versioned.storage.common.indexes.LayeredIndexImpl.layeredIterator;
+import static org.projectnessie.versioned.storage.common.indexes.StripedIndexImpl.indexForKey;
+import static org.projectnessie.versioned.storage.common.indexes.StripedIndexImpl.stripeForExistingKey;
+
+import com.google.common.collect.AbstractIterator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+
+/**
+ * Read-only view to an index, consisting of an in-memory {@code updates} index layered over the
+ * stripes of a reference index, that can be used concurrently by multiple threads.
+ *
+ * <p>Stripes are loaded lazily. Each stripe has a future, the thread that installs the future
+ * loads the stripe, other threads wait for that future. No lock is held while loading stripes.
+ * Loaded stripes and the {@code updates} index are deserialized, unmodified indexes, which are
+ * only read.
+ *
+ * <p>{@link #asMutableIndex()} returns a mutable overlay to this index, which does not copy the
+ * elements of this index.
+ */
+final class SharedIndexImpl<V> implements StoreIndex<V> {
+
+  private final StoreIndex<V> updates;
+  private final StoreIndex<V>[] stripes;
+  private final StoreKey[] firstLastKeys;
+  private final StoreKeyFilter[] keyFilters;
+  private final IndexLoader<V> indexLoader;
+  private final ElementSerializer<V> serializer;
+  private final AtomicReferenceArray<CompletableFuture<StoreIndex<V>>> loaded;
+
+  /**
+   * @param updates in-memory index, takes precedence over the stripes
+   * @param stripes the stripes of the reference index, in key order, either loaded or not yet
+   *     loaded stripes with known first and last keys
+   * @param indexLoader loads the not yet loaded stripes
+   */
+  @SuppressWarnings("unchecked")
+  SharedIndexImpl(
+      StoreIndex<V> updates,
+      List<StoreIndex<V>> stripes,
+      IndexLoader<V> indexLoader,
+      ElementSerializer<V> serializer) {
+    List<StoreIndex<V>> nonEmpty = new ArrayList<>(stripes.size());
+    for (StoreIndex<V> stripe : stripes) {
+      if (stripe.first() != null) {
+        nonEmpty.add(stripe);
+      }
+    }
+
+    this.updates = updates;
+    this.stripes = nonEmpty.toArray(new StoreIndex[0]);
+    this.firstLastKeys = new StoreKey[this.stripes.length * 2];
+    this.keyFilters = new StoreKeyFilter[this.stripes.length];
+    this.loaded = new AtomicReferenceArray<>(this.stripes.length);
+    for (int i = 0; i < this.stripes.length; i++) {
+      StoreIndex<V> stripe = this.stripes[i];
+      firstLastKeys[i * 2] = stripe.first();
+      firstLastKeys[i * 2 + 1] = stripe.last();
+      keyFilters[i] = stripe.keyFilter();
+      if (stripe.isLoaded()) {
+        loaded.set(i, CompletableFuture.completedFuture(stripe));
+      }
+    }
+    this.indexLoader = indexLoader;
+    this.serializer = serializer;
+  }
+
+  @Override
+  public boolean isModified() {
+    return false;
+  }
+
+  @Override
+  public ObjId getObjId() {
+    return null;
+  }
+
+  @Override
+  public StoreIndex<V> loadIfNecessary(Set<StoreKey> keys) {
+    boolean[] toLoad = new boolean[stripes.length];
+    for (StoreKey key : keys) {
+      int idx = stripeForKey(key);
+      if (idx != -1) {
+        toLoad[idx] = true;
+      }
+    }
+    loadStripes(toLoad);
+    return this;
+  }
+
+  @Override
+  public StoreIndex<V> loadForUpdate(Set<StoreKey> keys) {
+    if (stripes.length == 0) {
+      return this;
+    }
+    boolean[] toLoad = new boolean[stripes.length];
+    for (StoreKey key : keys) {
+      toLoad[indexForKey(firstLastKeys, key)] = true;
+    }
+    loadStripes(toLoad);
+    return this;
+  }
+
+  @Override
+  public boolean isLoaded() {
+    if (stripes.length == 0) {
+      return true;
+    }
+    for (int i = 0; i < stripes.length; i++) {
+      CompletableFuture<StoreIndex<V>> future = loaded.get(i);
+      if (future != null && future.isDone() && !future.isCompletedExceptionally()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public StoreIndex<V> asMutableIndex() {
+    return new OverlayIndexImpl<>(this, serializer);
+  }
+
+  @Override
+  public boolean isMutable() {
+    return false;
+  }
+
+  @Override
+  public List<StoreIndex<V>> divide(int parts) {
+    throw new UnsupportedOperationException("Operation not supported for non-mutable indexes");
+  }
+
+  @Override
+  public List<StoreIndex<V>> stripes() {
+    return singletonList(this);
+  }
+
+  @Override
+  @SuppressWarnings("UnusedVariable")
+  public int elementCount() {
+    int cnt = 0;
+    for (StoreIndexElement<V> ignore : this) {
+      cnt++;
+    }
+    return cnt;
+  }
+
+  @Override
+  public int estimatedSerializedSize() {
+    int sum = updates.estimatedSerializedSize();
+    for (int i = 0; i < stripes.length; i++) {
+      sum += stripe(i).estimatedSerializedSize();
+    }
+    return sum;
+  }
+
+  @Override
+  public boolean contains(@Nonnull @jakarta.annotation.Nonnull StoreKey key) {
+    if (updates.contains(key)) {
+      return true;
+    }
+    int idx = stripeForKey(key);
+    return idx != -1 && stripe(idx).contains(key);
+  }
+
+  @Nullable
+  @jakarta.annotation.Nullable
+  @Override
+  public StoreIndexElement<V> get(@Nonnull @jakarta.annotation.Nonnull StoreKey key) {
+    StoreIndexElement<V> el = updates.get(key);
+    if (el != null) {
+      return el;
+    }
+    int idx = stripeForKey(key);
+    return idx != -1 ? stripe(idx).get(key) : null;
+  }
+
+  @Nullable
+  @jakarta.annotation.Nullable
+  @Override
+  public StoreKey first() {
+    StoreKey u = updates.first();
+    if (stripes.length == 0) {
+      return u;
+    }
+    StoreKey r = firstLastKeys[0];
+    return u == null || r.compareTo(u) < 0 ? r : u;
+  }
+
+  @Nullable
+  @jakarta.annotation.Nullable
+  @Override
+  public StoreKey last() {
+    StoreKey u = updates.last();
+    if (stripes.length == 0) {
+      return u;
+    }
+    StoreKey r = firstLastKeys[firstLastKeys.length - 1];
+    return u == null || r.compareTo(u) > 0 ? r : u;
+  }
+
+  @Override
+  public List<StoreKey> asKeyList() {
+    List<StoreKey> keys = new ArrayList<>();
+    for (StoreIndexElement<V> el : this) {
+      keys.add(el.key());
+    }
+    return unmodifiableList(keys);
+  }
+
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  @Override
+  public Iterator<StoreIndexElement<V>> iterator(
+      @Nullable @jakarta.annotation.Nullable StoreKey begin,
+      @Nullable @jakarta.annotation.Nullable StoreKey end,
+      boolean prefetch) {
+    return layeredIterator(
+        stripesIterator(begin, end, prefetch), updates.iterator(begin, end, prefetch));
+  }
+
+  private Iterator<StoreIndexElement<V>> stripesIterator(
+      StoreKey begin, StoreKey end, boolean prefetch) {
+    int count = stripes.length;
+    if (count == 0) {
+      return emptyIterator();
+    }
+
+    boolean prefix = begin != null && begin.equals(end);
+    int start = begin == null ? 0 : indexForKey(firstLastKeys, begin);
+    int stop = prefix || end == null ? count - 1 : indexForKey(firstLastKeys, end);
+
+    if (prefetch) {
+      boolean[] toLoad = new boolean[count];
+      for (int i = start; i <= stop; i++) {
+        toLoad[i] = true;
+      }
+      loadStripes(toLoad);
+    }
+
+    Predicate<StoreKey> endCheck =
+        prefix ? k -> !k.startsWith(begin) : (end != null ? k -> end.compareTo(k) < 0 : k -> false);
+
+    return new AbstractIterator<StoreIndexElement<V>>() {
+      int stripe = start;
+      Iterator<StoreIndexElement<V>> current = stripe(start).iterator(begin, null, false);
+
+      @Override
+      protected StoreIndexElement<V> computeNext() {
+        while (true) {
+          if (current.hasNext()) {
+            StoreIndexElement<V> v = current.next();
+            if (endCheck.test(v.key())) {
+              return endOfData();
+            }
+            return v;
+          }
+
+          stripe++;
+          if (stripe > stop) {
+            return endOfData();
+          }
+          current = stripe(stripe).iterator();
+        }
+      }
+    };
+  }
+
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  @Override
+  public ByteString serialize() {
+    throw unsupported();
+  }
+
+  @Override
+  public boolean add(@Nonnull @jakarta.annotation.Nonnull StoreIndexElement<V> element) {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateAll(Function<StoreIndexElement<V>, V> updater) {
+    throw unsupported();
+  }
+
+  @Override
+  public boolean remove(@Nonnull @jakarta.annotation.Nonnull StoreKey key) {
+    throw unsupported();
+  }
+
+  /**
+   * Returns the stripe that may contain the given key, {@code -1} if no stripe can contain the key
+   * or if the stripe's key filter proves that the stripe does not contain the key.
+   */
+  private int stripeForKey(StoreKey key) {
+    if (stripes.length == 0) {
+      return -1;
+    }
+    int idx = stripeForExistingKey(firstLastKeys, key);
+    if (idx == -1 || loaded.get(idx) != null) {
+      return idx;
+    }
+    StoreKeyFilter keyFilter = keyFilters[idx];
+    if (keyFilter != null && !keyFilter.mightContain(key)) {
+      KeyFilterMetrics.avoidedLoad();
+      return -1;
+    }
+    return idx;
+  }
+
+  /** Returns the loaded stripe, loads it, if necessary. */
+  private StoreIndex<V> stripe(int idx) {
+    CompletableFuture<StoreIndex<V>> future = loaded.get(idx);
+    if (future == null) {
+      boolean[] toLoad = new boolean[stripes.length];
+      toLoad[idx] = true;
+      loadStripes(toLoad);
+      future = loaded.get(idx);
+    }
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Loads the requested stripes, that are not loaded or being loaded by another thread, using a
+   * single {@link IndexLoader#loadIndexes(StoreIndex[])} call. Does not wait for loads started by
+   * other threads.
+   */
+  private void loadStripes(boolean[] toLoad) {
+    @SuppressWarnings("unchecked")
+    StoreIndex<V>[] indexesToLoad = new StoreIndex[stripes.length];
+    @SuppressWarnings("unchecked")
+    CompletableFuture<StoreIndex<V>>[] futures = new CompletableFuture[stripes.length];
+    int cnt = 0;
+    for (int i = 0; i < toLoad.length; i++) {
+      if (toLoad[i] && loaded.get(i) == null) {
+        CompletableFuture<StoreIndex<V>> future = new CompletableFuture<>();
+        if (loaded.compareAndSet(i, null, future)) {
+          indexesToLoad[i] = stripes[i];
+          futures[i] = future;
+          cnt++;
+        }
+      }
+    }
+    if (cnt == 0) {
+      return;
+    }
+
+    StoreIndex<V>[] loadedIndexes;
+    try {
+      loadedIndexes = indexLoader.loadIndexes(indexesToLoad);
+    } catch (RuntimeException e) {
+      for (int i = 0; i < futures.length; i++) {
+        failed(i, futures[i], e);
+      }
+      throw e;
+    }
+    for (int i = 0; i < futures.length; i++) {
+      CompletableFuture<StoreIndex<V>> future = futures[i];
+      if (future != null) {
+        StoreIndex<V> stripe = loadedIndexes[i];
+        if (stripe != null) {
+          future.complete(stripe);
+        } else {
+          failed(
+              i,
+              future,
+              new IllegalStateException("Index stripe " + stripes[i].getObjId() + " not loaded"));
+        }
+      }
+    }
+  }
+
+  /** Propagates the failure to waiting threads and allows a later attempt to load the stripe. */
+  private void failed(int idx, CompletableFuture<StoreIndex<V>> future, RuntimeException e) {
+    if (future != null) {
+      loaded.compareAndSet(idx, future, null);
+      future.completeExceptionally(e);
+    }
+  }
+
+  private static UnsupportedOperationException unsupported() {
+    return new UnsupportedOperationException("Shared indexes do not support updates");
+  }
+}
@@ -50,8 +50,27 @@ public interface StoreIndex<V> extends Iterable<StoreIndexElement<V>> {
    */
   StoreIndex<V> loadIfNecessary(Set<StoreKey> keys);
 
+  /**
+   * Load the index parts that are going to be updated with the given keys. Unlike {@link
+   * #loadIfNecessary(Set)}, which only needs to load the parts that may contain the given keys,
+   * this function also loads the parts that will receive keys that do not exist yet.
+   */
+  default StoreIndex<V> loadForUpdate(Set<StoreKey> keys) {
+    return loadIfNecessary(keys);
+  }
+
   boolean isLoaded();
 
+  /**
+   * Returns the filter of the keys in this index, if it is known without loading the index and the
+   * index has not been modified, otherwise {@code null}.
+   */
+  @Nullable
+  @jakarta.annotation.Nullable
+  default StoreKeyFilter keyFilter() {
+    return null;
+  }
+
   StoreIndex<V> asMutableIndex();
 
   boolean isMutable();
@@ -21,12 +21,11 @@ import static java.util.Collections.binarySearch;
 import static java.util.Collections.singletonList;
 import static org.projectnessie.nessie.relocated.protobuf.UnsafeByteOperations.unsafeWrap;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexElement.indexElement;
-import static org.projectnessie.versioned.storage.common.indexes.StoreKey.findPositionAfterKey;
 import static org.projectnessie.versioned.storage.common.util.Ser.putVarInt;
-import static org.projectnessie.versioned.storage.common.util.Ser.readVarInt;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.AbstractList;
@@ -42,7 +41,7 @@ import org.projectnessie.nessie.relocated.protobuf.ByteString;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
 
 /**
- * Implementation of {@link StoreIndex} that implements "version 1 + 2 serialization" of
+ * Implementation of {@link StoreIndex} that implements "version 1, 2 + 3 serialization" of
  * key-index-segments.
  *
  * <p>"Version 1" uses a diff-like encoding to compress keys and a custom var-int encoding. {@link
@@ -71,9 +70,23 @@ import org.projectnessie.versioned.storage.common.persist.ObjId;
  * <p>The serialized key-index does not write any length information of the individual elements or
  * parts (like the {@link StoreKey} or value) to reduce the space required for serialization.
  *
+ * <p>"Version 2" adds the number of elements as a var-int after the version byte.
+ *
+ * <p>"Version 3" uses front coding with restart points: the number of elements is followed by the
+ * var-int encoded restart interval. Every restart-interval-th key (a restart key) is serialized in
+ * full, all other keys are serialized as the var-int encoded length of the prefix shared with the
+ * previous key followed by the remaining bytes. Values are serialized using {@link
+ * ElementSerializer#compact()}. The serialized index ends with the 4-byte offsets of all restart
+ * keys, relative to the version byte. Restart points allow looking up a key by binary searching the
+ * restart keys and then scanning just one block of keys.
+ *
  * <h2>This implementation</h2>
  *
- * <p>This implementation is just an idea, not an actual proposal.
+ * <p>Deserialized indexes are backed by {@link SerializedIndexElements}, which keeps the serialized
+ * representation and decodes keys and values only when those are accessed. Read-only operations
+ * like {@link #get(StoreKey)} therefore only decode the keys touched by the binary search and the
+ * requested value. The first modification materializes all elements into a {@link ArrayList}.
+ * Serializing an unmodified, deserialized index returns the original serialized representation.
  *
  * <h2>Other ideas</h2>
  *
@@ -113,7 +126,10 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
    */
   private static final int ASSUMED_PER_ENTRY_OVERHEAD = 2 + 2;
 
-  private static final int CURRENT_STORE_INDEX_VERSION = 2;
+  private static final int CURRENT_STORE_INDEX_VERSION = 3;
+
+  /** Number of keys per restart point in "version 3" serializations. */
+  @VisibleForTesting static final int RESTART_INTERVAL = 16;
 
   private static final int SERIALIZE_VERSION =
       Integer.getInteger("nessie.internal.store-index-format-version", CURRENT_STORE_INDEX_VERSION);
@@ -131,15 +147,20 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
   private final int originalSerializedSize;
 
   private int estimatedSerializedSizeDiff;
-  private final List<StoreIndexElement<V>> elements;
+  private List<StoreIndexElement<V>> elements;
   private final ElementSerializer<V> serializer;
 
+  /** Value serializer for the serialization version that is going to be written. */
+  private final ElementSerializer<V> valueSerializer;
+
   private boolean modified;
   private ObjId objId;
 
   // NOTE: The implementation uses j.u.ArrayList to optimize for reads. Additions to this data
   // structure are rather inefficient, when elements need to be added "in the middle" of the
   // 'elements' j.u.ArrayList.
+  // Deserialized indexes start with a read-only 'SerializedIndexElements', which is replaced with
+  // a j.u.ArrayList via 'mutableElements()' before the first modification.
 
   StoreIndexImpl(ElementSerializer<V> serializer) {
     this(new ArrayList<>(), 1, serializer, false);
@@ -153,6 +174,7 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
     this.elements = elements;
     this.originalSerializedSize = originalSerializedSize;
     this.serializer = serializer;
+    this.valueSerializer = SERIALIZE_VERSION >= 3 ? serializer.compact() : serializer;
     this.modified = modified;
   }
 
@@ -226,6 +248,14 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
     return elements.size();
   }
 
+  private List<StoreIndexElement<V>> mutableElements() {
+    List<StoreIndexElement<V>> e = elements;
+    if (e instanceof SerializedIndexElements) {
+      elements = e = new ArrayList<>(e);
+    }
+    return e;
+  }
+
   @Override
   public void updateAll(Function<StoreIndexElement<V>, V> updater) {
     List<StoreIndexElement<V>> e = elements;
@@ -235,13 +265,14 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
       V updated = updater.apply(el);
       if (updated != el) {
         modified = true;
-        int oldSerializedSize = serializer.serializedSize(el.content());
+        e = mutableElements();
+        int oldSerializedSize = valueSerializer.serializedSize(el.content());
         if (updated == null) {
           e.remove(i);
           i--;
           size--;
         } else {
-          int newSerializedSize = serializer.serializedSize(updated);
+          int newSerializedSize = valueSerializer.serializedSize(updated);
           estimatedSerializedSizeDiff += newSerializedSize - oldSerializedSize;
           e.set(i, indexElement(el.key(), updated));
         }
@@ -252,14 +283,14 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
   @Override
   public boolean add(@Nonnull @jakarta.annotation.Nonnull StoreIndexElement<V> element) {
     modified = true;
-    List<StoreIndexElement<V>> e = elements;
-    int idx = search(e, element);
-    int elementSerializedSize = serializer.serializedSize(element.content());
+    List<StoreIndexElement<V>> e = mutableElements();
+    int idx = search(e, element.key());
+    int elementSerializedSize = valueSerializer.serializedSize(element.content());
     if (idx >= 0) {
       // exact match, key already in segment
       StoreIndexElement<V> prev = e.get(idx);
 
-      int prevSerializedSize = serializer.serializedSize(prev.content());
+      int prevSerializedSize = valueSerializer.serializedSize(prev.content());
       estimatedSerializedSizeDiff += elementSerializedSize - prevSerializedSize;
 
       e.set(idx, element);
@@ -291,7 +322,7 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
 
     modified = true;
 
-    StoreIndexElement<V> element = e.remove(idx);
+    StoreIndexElement<V> element = mutableElements().remove(idx);
 
     estimatedSerializedSizeDiff -= removeSizeDiff(element);
 
@@ -299,7 +330,7 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
   }
 
   private int removeSizeDiff(StoreIndexElement<V> element) {
-    return 2 + serializer.serializedSize(element.content());
+    return 2 + valueSerializer.serializedSize(element.content());
   }
 
   @Override
@@ -324,7 +355,7 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
   @Override
   public StoreKey first() {
     List<StoreIndexElement<V>> e = elements;
-    return e.isEmpty() ? null : e.get(0).key();
+    return e.isEmpty() ? null : key(e, 0);
   }
 
   @Nullable
@@ -332,7 +363,7 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
   @Override
   public StoreKey last() {
     List<StoreIndexElement<V>> e = elements;
-    return e.isEmpty() ? null : e.get(e.size() - 1).key();
+    return e.isEmpty() ? null : key(e, e.size() - 1);
   }
 
   @Override
@@ -416,7 +447,7 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
     return new AbstractList<StoreKey>() {
       @Override
       public StoreKey get(int index) {
-        return elements.get(index).key();
+        return key(elements, index);
       }
 
       @Override
@@ -428,36 +459,72 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
 
   @Override
   public int estimatedSerializedSize() {
-    return originalSerializedSize + estimatedSerializedSizeDiff + 1;
+    int size = originalSerializedSize + estimatedSerializedSizeDiff + 1;
+    if (SERIALIZE_VERSION >= 3) {
+      // restart interval + restart points
+      size += 1 + 4 * restartPoints(elementCount());
+    }
+    return size;
+  }
+
+  private static int restartPoints(int elementCount) {
+    return (elementCount + RESTART_INTERVAL - 1) / RESTART_INTERVAL;
   }
 
   @Override
   public @Nonnull @jakarta.annotation.Nonnull ByteString serialize() {
-    ByteBuffer target = ByteBuffer.allocate(estimatedSerializedSize());
+    return serialize(SERIALIZE_VERSION);
+  }
 
+  @VisibleForTesting
+  ByteString serialize(int serializeVersion) {
+    int version = Math.max(Math.min(serializeVersion, CURRENT_STORE_INDEX_VERSION), 1);
+
+    if (elements instanceof SerializedIndexElements) {
+      // Not modified since deserialization, reuse the serialized representation if possible
+      ByteString original = ((SerializedIndexElements<V>) elements).serialized(version);
+      if (original != null) {
+        return original;
+      }
+    }
+
+    // The estimated size can be too small, for example when the restart points of a modified
+    // "version 3" index moved to longer keys, retry with a bigger buffer in that case.
+    for (int capacity = estimatedSerializedSize(); ; capacity *= 2) {
+      try {
+        return serialize(version, ByteBuffer.allocate(capacity));
+      } catch (BufferOverflowException e) {
+        // retry
+      }
+    }
+  }
+
+  private ByteString serialize(int version, ByteBuffer target) {
     // Serialized segment index version
-    if (SERIALIZE_VERSION >= CURRENT_STORE_INDEX_VERSION) {
-      target.put((byte) 2);
+    target.put((byte) version);
+    if (version >= 2) {
       putVarInt(target, elementCount());
-    } else {
-      target.put((byte) 1);
     }
 
-    ByteBuffer previousKey = null;
-
     // This buffer's backs the currently serialized key - use with care!
     // Having this "singleton" instance massively reduces GC alloc/churn rate.
     ByteBuffer serializationBuffer = newKeyBuffer();
 
-    @SuppressWarnings("UnnecessaryLocalVariable")
-    ElementSerializer<V> ser = serializer;
+    if (version >= 3) {
+      serializeFrontCoded(target, serializationBuffer);
+    } else {
+      ByteBuffer previousKey = null;
 
-    for (StoreIndexElement<V> el : this) {
-      StoreKey key = el.key();
+      @SuppressWarnings("UnnecessaryLocalVariable")
+      ElementSerializer<V> ser = serializer;
 
-      previousKey = serializeKey(previousKey, key, target, serializationBuffer);
+      for (StoreIndexElement<V> el : this) {
+        StoreKey key = el.key();
 
-      ser.serialize(el.content(), target);
+        previousKey = serializeKey(previousKey, key, target, serializationBuffer);
+
+        ser.serialize(el.content(), target);
+      }
     }
 
     target.flip();
@@ -465,6 +532,41 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
     return unsafeWrap(target);
   }
 
+  private void serializeFrontCoded(ByteBuffer target, ByteBuffer serializationBuffer) {
+    putVarInt(target, RESTART_INTERVAL);
+
+    int[] restartOffsets = new int[restartPoints(elementCount())];
+    ByteBuffer previousKey = newKeyBuffer();
+    ElementSerializer<V> ser = serializer.compact();
+
+    int i = 0;
+    for (StoreIndexElement<V> el : this) {
+      ByteBuffer keyBuf = el.key().serialize(serializationBuffer);
+      int keyPos = keyBuf.position();
+      if (i % RESTART_INTERVAL == 0) {
+        restartOffsets[i / RESTART_INTERVAL] = target.position();
+      } else {
+        int shared = previousKey.mismatch(keyBuf);
+        checkState(shared != -1, "Previous and current keys must not be equal");
+        putVarInt(target, shared);
+        keyBuf.position(keyPos + shared);
+      }
+      target.put(keyBuf);
+
+      previousKey.clear();
+      keyBuf.position(keyPos);
+      previousKey.put(keyBuf);
+      previousKey.flip();
+
+      ser.serialize(el.content(), target);
+      i++;
+    }
+
+    for (int restartOffset : restartOffsets) {
+      target.putInt(restartOffset);
+    }
+  }
+
   private ByteBuffer serializeKey(
       ByteBuffer previousKey, StoreKey key, ByteBuffer target, ByteBuffer serializationBuffer) {
     ByteBuffer keyBuf = key.serialize(serializationBuffer);
@@ -491,39 +593,11 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
   static <V> StoreIndex<V> deserializeStoreIndex(ByteBuffer serialized, ElementSerializer<V> ser) {
     byte version = serialized.get();
     checkArgument(
-        version == 1 || version == 2, "Unsupported serialized representation of KeyIndexSegment");
-
-    int posPre = serialized.position();
-
-    List<StoreIndexElement<V>> elements =
-        version >= 2 ? new ArrayList<>(readVarInt(serialized)) : new ArrayList<>();
+        version >= 1 && version <= 3, "Unsupported serialized representation of KeyIndexSegment");
 
-    // This buffer holds the previous key, reused.
-    ByteBuffer previousKey = newKeyBuffer();
-
-    boolean first = true;
-    while (serialized.remaining() > 0) {
-      int strip = first ? 0 : readVarInt(serialized);
-      first = false;
-
-      // strip
-      previousKey.position(previousKey.position() - strip);
-      previousKey.limit(MAX_KEY_BYTES);
-      // add
-      int limitSave = serialized.limit();
-      previousKey.put(serialized.limit(findPositionAfterKey(serialized)));
-      serialized.limit(limitSave);
-      // read key
-      previousKey.flip();
-      StoreKey key = StoreKey.deserializeKey(previousKey);
+    SerializedIndexElements<V> elements = SerializedIndexElements.scan(serialized, version, ser);
 
-      // read value
-      V value = ser.deserialize(serialized);
-      elements.add(indexElement(key, value));
-    }
-
-    int len = serialized.position() - posPre;
-    return new StoreIndexImpl<>(elements, len, ser, false);
+    return new StoreIndexImpl<>(elements, elements.serializedSize(), ser, false);
   }
 
   @VisibleForTesting
@@ -541,11 +615,17 @@ final class StoreIndexImpl<V> implements StoreIndex<V> {
 
   private static <V> int search(
       List<StoreIndexElement<V>> e, @Nonnull @jakarta.annotation.Nonnull StoreKey key) {
+    if (e instanceof SerializedIndexElements) {
+      // Only decodes the keys visited by the binary search, but no values
+      return ((SerializedIndexElements<V>) e).search(key);
+    }
     // Need a StoreIndexElement for the sake of 'binarySearch()' (the content value isn't used)
-    return search(e, indexElement(key, ""));
+    return binarySearch(e, indexElement(key, ""), KEY_COMPARATOR);
   }
 
-  private static <V> int search(List<StoreIndexElement<V>> e, StoreIndexElement<?> element) {
-    return binarySearch(e, element, KEY_COMPARATOR);
+  private static <V> StoreKey key(List<StoreIndexElement<V>> e, int index) {
+    return e instanceof SerializedIndexElements
+        ? ((SerializedIndexElements<V>) e).key(index)
+        : e.get(index).key();
   }
 }
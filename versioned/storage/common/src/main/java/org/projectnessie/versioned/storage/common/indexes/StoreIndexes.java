@@ -19,8 +19,10 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static org.projectnessie.versioned.storage.common.indexes.IndexLoader.notLoading;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.projectnessie.nessie.relocated.protobuf.ByteString;
 import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
 
@@ -49,11 +51,26 @@ public final class StoreIndexes {
    */
   public static <V> StoreIndex<V> lazyStoreIndex(
       Supplier<StoreIndex<V>> supplier, StoreKey firstKey, StoreKey lastKey) {
-    return new LazyIndexImpl<>(supplier, firstKey, lastKey);
+    return new LazyIndexImpl<>(supplier, firstKey, lastKey, null);
+  }
+
+  /**
+   * Returns a {@link StoreIndex} that calls the supplier upon the first use, like {@link
+   * #lazyStoreIndex(Supplier, StoreKey, StoreKey)}. Lookups for keys that are not contained in the
+   * given {@link StoreKeyFilter} do not load the index.
+   *
+   * <p>Used to load the stripes of a commit {@link CommitObj#referenceIndex()} only when needed.
+   */
+  public static <V> StoreIndex<V> lazyStoreIndex(
+      Supplier<StoreIndex<V>> supplier,
+      StoreKey firstKey,
+      StoreKey lastKey,
+      @Nullable @jakarta.annotation.Nullable StoreKeyFilter keyFilter) {
+    return new LazyIndexImpl<>(supplier, firstKey, lastKey, keyFilter);
   }
 
   public static <V> StoreIndex<V> lazyStoreIndex(Supplier<StoreIndex<V>> supplier) {
-    return new LazyIndexImpl<>(supplier, null, null);
+    return new LazyIndexImpl<>(supplier, null, null, null);
   }
 
   /**
@@ -66,6 +83,27 @@ public final class StoreIndexes {
     return new LayeredIndexImpl<>(reference, updates);
   }
 
+  /**
+   * Read-only view to a complete index, the {@code updates} index layered over the given stripes
+   * of a reference index, that can be used concurrently by multiple threads. {@link
+   * StoreIndex#asMutableIndex()} returns a mutable overlay, which does not modify the shared index.
+   *
+   * <p>Used to share a built complete index of a commit between multiple requests.
+   *
+   * @param updates deserialized and not modified index, takes precedence over the stripes
+   * @param stripes deserialized and not modified stripes or not yet loaded stripes with known
+   *     first and last keys, for example {@link #lazyStoreIndex(Supplier, StoreKey, StoreKey,
+   *     StoreKeyFilter)}
+   * @param indexLoader loads the not yet loaded stripes, called without holding any lock
+   */
+  public static <V> StoreIndex<V> sharedIndex(
+      StoreIndex<V> updates,
+      List<StoreIndex<V>> stripes,
+      IndexLoader<V> indexLoader,
+      ElementSerializer<V> serializer) {
+    return new SharedIndexImpl<>(updates, stripes, indexLoader, serializer);
+  }
+
   /**
    * Produces a new, striped index from the given segments.
    *
@@ -109,4 +147,25 @@ public final class StoreIndexes {
     StoreKey[] firstLastKeysArr = firstLastKeys.toArray(new StoreKey[0]);
     return new StripedIndexImpl<>(stripesArr, firstLastKeysArr, indexLoader);
   }
+
+  /**
+   * Like {@link #indexFromSplits(List, List, IndexLoader)}, but iterators that do not prefetch load
+   * up to {@code readAheadStripes} stripes ahead of the stripe being iterated using the given
+   * executor.
+   *
+   * @param readAheadStripes number of stripes to read ahead, {@code 0} disables read-ahead
+   * @param readAheadExecutor executor for the read-ahead, {@code null} disables read-ahead
+   */
+  public static <V> StoreIndex<V> indexFromSplits(
+      @Nonnull @jakarta.annotation.Nonnull List<StoreIndex<V>> stripes,
+      @Nonnull @jakarta.annotation.Nonnull List<StoreKey> firstLastKeys,
+      IndexLoader<V> indexLoader,
+      int readAheadStripes,
+      @Nullable @jakarta.annotation.Nullable Executor readAheadExecutor) {
+    @SuppressWarnings("unchecked")
+    StoreIndex<V>[] stripesArr = stripes.toArray(new StoreIndex[0]);
+    StoreKey[] firstLastKeysArr = firstLastKeys.toArray(new StoreKey[0]);
+    return new StripedIndexImpl<>(
+        stripesArr, firstLastKeysArr, indexLoader, readAheadStripes, readAheadExecutor);
+  }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.indexes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
+import org.projectnessie.nessie.relocated.protobuf.UnsafeByteOperations;
+
+/**
+ * Bloom filter over the {@link StoreKey}s of an index stripe, persisted alongside the stripe's
+ * first and last keys, to answer lookups for keys that are not present in the stripe without
+ * loading the stripe.
+ *
+ * <p>The serialized form is one byte holding the number of hash functions followed by the bits of
+ * the filter. Keys are hashed using 128 bit murmur3 over the UTF-8 representation of {@link
+ * StoreKey#rawString()}, the bit positions are derived using double hashing.
+ *
+ * <p>Filters use up to {@value #BITS_PER_KEY} bits per key, which results in a false positive
+ * rate of roughly 2%. Since filters are persisted as part of commit and index-segments objects,
+ * callers limit the size of a filter, no filter is built if the size limit does not allow at least
+ * {@value #MIN_BITS_PER_KEY} bits per key (roughly 15% false positives).
+ */
+public final class StoreKeyFilter {
+
+  @VisibleForTesting static final int BITS_PER_KEY = 8;
+  @VisibleForTesting static final int MIN_BITS_PER_KEY = 4;
+  private static final int MAX_HASH_FUNCTIONS = 8;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final ByteString serialized;
+  private final int numHashFunctions;
+  private final long numBits;
+
+  private StoreKeyFilter(ByteString serialized) {
+    checkArgument(serialized.size() > 1, "Serialized key filter too short");
+    int numHashFunctions = serialized.byteAt(0) & 0xff;
+    checkArgument(
+        numHashFunctions > 0 && numHashFunctions <= MAX_HASH_FUNCTIONS,
+        "Invalid number of hash functions %s in serialized key filter",
+        numHashFunctions);
+    this.serialized = serialized;
+    this.numHashFunctions = numHashFunctions;
+    this.numBits = 8L * (serialized.size() - 1);
+  }
+
+  /** Builds a filter containing the given keys, without size limit. */
+  public static StoreKeyFilter keyFilter(
+      @Nonnull @jakarta.annotation.Nonnull Collection<StoreKey> keys) {
+    return requireNonNull(keyFilter(keys, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Builds a filter containing the given keys, with a serialized size of at most {@code maxBytes}.
+   *
+   * @return the filter or {@code null}, if {@code maxBytes} is too small for a useful filter
+   */
+  @Nullable
+  @jakarta.annotation.Nullable
+  public static StoreKeyFilter keyFilter(
+      @Nonnull @jakarta.annotation.Nonnull Collection<StoreKey> keys, int maxBytes) {
+    int numKeys = Math.max(keys.size(), 1);
+    long numBytes = Math.min((long) numKeys * BITS_PER_KEY / 8 + 1, maxBytes - 1);
+    if (numBytes * 8 < (long) numKeys * MIN_BITS_PER_KEY) {
+      return null;
+    }
+    int numHashFunctions = (int) Math.round((double) numBytes * 8 / numKeys * Math.log(2));
+    numHashFunctions = Math.max(1, Math.min(numHashFunctions, MAX_HASH_FUNCTIONS));
+
+    byte[] bytes = new byte[1 + (int) numBytes];
+    bytes[0] = (byte) numHashFunctions;
+    long numBits = 8L * numBytes;
+    for (StoreKey key : keys) {
+      ByteBuffer hash = hash(key);
+      long hash1 = hash.getLong(0);
+      long hash2 = hash.getLong(8);
+      for (int i = 0; i < numHashFunctions; i++) {
+        long bit = bitIndex(hash1, hash2, i, numBits);
+        bytes[1 + (int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+      }
+    }
+
+    return new StoreKeyFilter(UnsafeByteOperations.unsafeWrap(bytes));
+  }
+
+  /**
+   * Returns the filter for the given serialized representation or {@code null}, if {@code
+   * serialized} is {@code null}.
+   */
+  @Nullable
+  @jakarta.annotation.Nullable
+  public static StoreKeyFilter deserializeKeyFilter(
+      @Nullable @jakarta.annotation.Nullable ByteString serialized) {
+    return serialized != null ? new StoreKeyFilter(serialized) : null;
+  }
+
+  /**
+   * Returns {@code false}, if the given key is definitely not contained in the filtered stripe, or
+   * {@code true}, if it might be contained.
+   */
+  public boolean mightContain(@Nonnull @jakarta.annotation.Nonnull StoreKey key) {
+    ByteBuffer hash = hash(key);
+    long hash1 = hash.getLong(0);
+    long hash2 = hash.getLong(8);
+    for (int i = 0; i < numHashFunctions; i++) {
+      long bit = bitIndex(hash1, hash2, i, numBits);
+      if ((serialized.byteAt(1 + (int) (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public ByteString serialize() {
+    return serialized;
+  }
+
+  private static ByteBuffer hash(StoreKey key) {
+    byte[] hash = HASH_FUNCTION.hashString(key.rawString(), UTF_8).asBytes();
+    return ByteBuffer.wrap(hash).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static long bitIndex(long hash1, long hash2, int i, long numBits) {
+    return ((hash1 + i * hash2) & Long.MAX_VALUE) % numBits;
+  }
+}
@@ -24,22 +24,51 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.projectnessie.nessie.relocated.protobuf.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 final class StripedIndexImpl<V> implements StoreIndex<V> {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(StripedIndexImpl.class);
+
+  /** Maximum time to wait for a running read-ahead, before stripes are loaded individually. */
+  static final long READ_AHEAD_WAIT_SECONDS = 10;
+
   private final StoreIndex<V>[] stripes;
   private final StoreKey[] firstLastKeys;
   private final IndexLoader<V> indexLoader;
+  private final int readAheadStripes;
+  private final Executor readAheadExecutor;
 
   StripedIndexImpl(
       @Nonnull @jakarta.annotation.Nonnull StoreIndex<V>[] stripes,
       @Nonnull @jakarta.annotation.Nonnull StoreKey[] firstLastKeys,
       IndexLoader<V> indexLoader) {
+    this(stripes, firstLastKeys, indexLoader, 0, null);
+  }
+
+  /**
+   * @param readAheadStripes number of stripes loaded ahead of iterators that do not prefetch, read
+   *     ahead is disabled if {@code 0} or if {@code readAheadExecutor} is {@code null}
+   * @param readAheadExecutor executor used to load stripes ahead of iterators
+   */
+  StripedIndexImpl(
+      @Nonnull @jakarta.annotation.Nonnull StoreIndex<V>[] stripes,
+      @Nonnull @jakarta.annotation.Nonnull StoreKey[] firstLastKeys,
+      IndexLoader<V> indexLoader,
+      int readAheadStripes,
+      @Nullable @jakarta.annotation.Nullable Executor readAheadExecutor) {
     checkArgument(stripes.length > 1);
     checkArgument(
         stripes.length * 2 == firstLastKeys.length,
@@ -52,6 +81,8 @@ final class StripedIndexImpl<V> implements StoreIndex<V> {
     this.stripes = stripes;
     this.firstLastKeys = firstLastKeys;
     this.indexLoader = indexLoader;
+    this.readAheadStripes = readAheadExecutor != null ? Math.max(0, readAheadStripes) : 0;
+    this.readAheadExecutor = readAheadExecutor;
   }
 
   @Override
@@ -69,6 +100,7 @@ final class StripedIndexImpl<V> implements StoreIndex<V> {
     StoreIndex<V>[] stripes = this.stripes;
     @SuppressWarnings("unchecked")
     StoreIndex<V>[] indexesToLoad = new StoreIndex[stripes.length];
+    boolean[] filtered = null;
 
     int cnt = 0;
     for (StoreKey key : keys) {
@@ -77,6 +109,47 @@ final class StripedIndexImpl<V> implements StoreIndex<V> {
         continue;
       }
       StoreIndex<V> index = stripes[idx];
+      if (!index.isLoaded() && indexesToLoad[idx] == null) {
+        // Do not load stripes that definitely do not contain the key
+        StoreKeyFilter keyFilter = index.keyFilter();
+        if (keyFilter != null && !keyFilter.mightContain(key)) {
+          if (filtered == null) {
+            filtered = new boolean[stripes.length];
+          }
+          filtered[idx] = true;
+          continue;
+        }
+        indexesToLoad[idx] = index;
+        cnt++;
+      }
+    }
+
+    if (filtered != null) {
+      for (int i = 0; i < filtered.length; i++) {
+        if (filtered[i] && indexesToLoad[i] == null) {
+          KeyFilterMetrics.avoidedLoad();
+        }
+      }
+    }
+
+    if (cnt > 0) {
+      loadStripes(indexesToLoad);
+    }
+
+    return this;
+  }
+
+  @Override
+  public StoreIndex<V> loadForUpdate(Set<StoreKey> keys) {
+    StoreIndex<V>[] stripes = this.stripes;
+    @SuppressWarnings("unchecked")
+    StoreIndex<V>[] indexesToLoad = new StoreIndex[stripes.length];
+
+    int cnt = 0;
+    for (StoreKey key : keys) {
+      // Same stripe as the one that receives the key in mutableStripe()
+      int idx = indexForKey(key);
+      StoreIndex<V> index = stripes[idx];
       if (!index.isLoaded()) {
         indexesToLoad[idx] = index;
         cnt++;
@@ -238,6 +311,14 @@ final class StripedIndexImpl<V> implements StoreIndex<V> {
 
     return new AbstractIterator<StoreIndexElement<V>>() {
       int stripe = start;
+      // Without prefetch, the following stripes are loaded asynchronously, a window of
+      // readAheadStripes stripes ahead of the stripe being iterated, if read-ahead is enabled.
+      // Read-ahead starts when the iteration reaches the second stripe, so callers that only
+      // consume a few elements do not trigger loads of stripes they never access. The pending load
+      // of an iterator that is abandoned before its end is not cancelled, its result is discarded.
+      int readAheadEnd = prefetch || readAheadStripes == 0 ? stop : start;
+      PendingLoad<V> pending;
+      boolean readAhead;
       Iterator<StoreIndexElement<V>> current = s[start].iterator(begin, null, prefetch);
 
       @Override
@@ -248,21 +329,162 @@ final class StripedIndexImpl<V> implements StoreIndex<V> {
           if (has) {
             StoreIndexElement<V> v = current.next();
             if (endCheck.test(v.key())) {
-              return endOfData();
+              return done();
             }
             return v;
           }
 
           stripe++;
           if (stripe > stop) {
-            return endOfData();
+            return done();
+          }
+          if (!readAhead) {
+            if (readAheadEnd < stop) {
+              // The current stripe is loaded when it is accessed, read ahead the following ones
+              readAheadEnd = stripe;
+              readAhead = true;
+            }
+          } else if (pending != null && stripe >= pending.firstIndex) {
+            completeLoad(pending);
+            pending = null;
+          }
+          if (readAhead && pending == null) {
+            pending = readAhead();
           }
           current = s[stripe].iterator();
         }
       }
+
+      private StoreIndexElement<V> done() {
+        if (pending != null) {
+          pending.cancel();
+          pending = null;
+        }
+        return endOfData();
+      }
+
+      private PendingLoad<V> readAhead() {
+        while (readAheadEnd < stop) {
+          int first = readAheadEnd + 1;
+          readAheadEnd = Math.min(stop, readAheadEnd + readAheadStripes);
+          PendingLoad<V> load = loadStripesAsync(first, readAheadEnd);
+          if (load != null) {
+            return load;
+          }
+        }
+        return null;
+      }
     };
   }
 
+  /**
+   * Schedules loading the not yet loaded stripes from {@code firstIndex} to {@code lastIndex}
+   * (inclusive) using the read-ahead executor.
+   *
+   * @return the pending load or {@code null}, if all stripes in the range are already loaded
+   */
+  private PendingLoad<V> loadStripesAsync(int firstIndex, int lastIndex) {
+    StoreIndex<V>[] stripes = this.stripes;
+    @SuppressWarnings("unchecked")
+    StoreIndex<V>[] indexesToLoad = new StoreIndex[stripes.length];
+
+    int cnt = 0;
+    for (int idx = firstIndex; idx <= lastIndex; idx++) {
+      StoreIndex<V> index = stripes[idx];
+      if (!index.isLoaded()) {
+        indexesToLoad[idx] = index;
+        cnt++;
+      }
+    }
+
+    if (cnt == 0) {
+      return null;
+    }
+    PendingLoad<V> load = new PendingLoad<>(firstIndex, indexesToLoad, indexLoader);
+    readAheadExecutor.execute(load);
+    return load;
+  }
+
+  /**
+   * Installs the stripes of the given pending load. If the executor did not start the load yet,
+   * the load is cancelled and performed by the current thread. Read-ahead is best effort, if the
+   * load failed or did not finish in time, the stripes are loaded individually when they are
+   * accessed.
+   */
+  private void completeLoad(PendingLoad<V> pendingLoad) {
+    StoreIndex<V>[] loadedIndexes;
+    try {
+      if (pendingLoad.cancel()) {
+        loadedIndexes = indexLoader.loadIndexes(pendingLoad.requested);
+      } else {
+        loadedIndexes = pendingLoad.loaded.get(READ_AHEAD_WAIT_SECONDS, TimeUnit.SECONDS);
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn("Failed to load index stripes, loading stripes individually", e);
+      return;
+    } catch (ExecutionException e) {
+      // already logged by PendingLoad.run()
+      return;
+    } catch (TimeoutException e) {
+      LOGGER.warn(
+          "Read-ahead of index stripes did not finish within {} seconds, "
+              + "loading stripes individually",
+          READ_AHEAD_WAIT_SECONDS);
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    StoreIndex<V>[] stripes = this.stripes;
+    for (int i = 0; i < loadedIndexes.length; i++) {
+      StoreIndex<V> loaded = loadedIndexes[i];
+      // Do not replace a stripe that has been loaded or modified in the meantime
+      if (loaded != null && stripes[i] == pendingLoad.requested[i]) {
+        stripes[i] = loaded;
+      }
+    }
+  }
+
+  private static final class PendingLoad<V> implements Runnable {
+    final int firstIndex;
+    final StoreIndex<V>[] requested;
+    final IndexLoader<V> indexLoader;
+    final AtomicBoolean claimed = new AtomicBoolean();
+    final CompletableFuture<StoreIndex<V>[]> loaded = new CompletableFuture<>();
+
+    PendingLoad(int firstIndex, StoreIndex<V>[] requested, IndexLoader<V> indexLoader) {
+      this.firstIndex = firstIndex;
+      this.requested = requested;
+      this.indexLoader = indexLoader;
+    }
+
+    @Override
+    public void run() {
+      if (claimed.compareAndSet(false, true)) {
+        try {
+          loaded.complete(indexLoader.loadIndexes(requested));
+        } catch (RuntimeException e) {
+          LOGGER.warn("Failed to read ahead index stripes", e);
+          loaded.completeExceptionally(e);
+        }
+      }
+    }
+
+    /**
+     * Prevents the load from being started by the executor.
+     *
+     * @return {@code true}, if the load has not been started, {@code false} if the load is running
+     *     or has finished
+     */
+    boolean cancel() {
+      if (claimed.compareAndSet(false, true)) {
+        loaded.cancel(false);
+        return true;
+      }
+      return false;
+    }
+  }
+
   @Nonnull
   @jakarta.annotation.Nonnull
   @Override
@@ -295,7 +517,20 @@ final class StripedIndexImpl<V> implements StoreIndex<V> {
   }
 
   private int stripeForExistingKey(StoreKey key) {
-    StoreKey[] firstLast = firstLastKeys;
+    return stripeForExistingKey(firstLastKeys, key);
+  }
+
+  private int indexForKey(StoreKey key) {
+    return indexForKey(firstLastKeys, key);
+  }
+
+  /**
+   * Returns the index of the stripe that may contain {@code key} or {@code -1}, if no stripe can
+   * contain the key.
+   *
+   * @param firstLast the first and last keys of all stripes
+   */
+  static int stripeForExistingKey(StoreKey[] firstLast, StoreKey key) {
     int i = binarySearch(firstLast, key);
     if (i < 0) {
       i = -i - 1;
@@ -310,8 +545,12 @@ final class StripedIndexImpl<V> implements StoreIndex<V> {
     return i;
   }
 
-  private int indexForKey(StoreKey key) {
-    StoreKey[] firstLast = firstLastKeys;
+  /**
+   * Returns the index of the stripe that contains or would receive {@code key}.
+   *
+   * @param firstLast the first and last keys of all stripes
+   */
+  static int indexForKey(StoreKey[] firstLast, StoreKey key) {
     int i = binarySearch(firstLast, key);
     if (i < 0) {
       i = -i - 1;
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.logic;
+
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
+import org.projectnessie.versioned.storage.common.persist.BackgroundExecutor;
+
+/**
+ * Fetches commit log batches ahead of the consumer of a commit log, see {@link
+ * StoreConfig#commitLogReadAhead()}, using the {@link StoreConfig#backgroundExecutor()}.
+ *
+ * <p>If all threads of the {@link BackgroundExecutor} are busy and its queue of pending tasks is
+ * full, a fetch runs in the thread that schedules it, which is the consumer of the commit log or a
+ * thread that completed the fetch of the previous batch.
+ */
+final class CommitLogReadAhead {
+
+  private CommitLogReadAhead() {}
+
+  static <T, R> CompletableFuture<R> readAhead(
+      CompletableFuture<T> previous, Function<T, R> fetch, Executor executor) {
+    return previous.thenApplyAsync(fetch, executor);
+  }
+
+  /** Waits for the result of a read-ahead, rethrows the original exception of a failed fetch. */
+  static <R> R await(CompletableFuture<R> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Cancels and removes the given pending read-aheads. Fetches that have not been started yet are
+   * not performed, a fetch that is already running is not interrupted, but its result is ignored.
+   */
+  static <R> void cancel(Deque<CompletableFuture<R>> pending) {
+    for (CompletableFuture<R> future; (future = pending.pollLast()) != null; ) {
+      future.cancel(false);
+    }
+  }
+}
@@ -101,6 +101,17 @@ public interface CommitLogic {
    */
   CommitObj updateCommit(@Nonnull @jakarta.annotation.Nonnull CommitObj commit);
 
+  /**
+   * Builds and persists the {@link CommitObj#referenceIndex() reference index} for the given
+   * commit and updates the commit, if its {@link CommitObj#incrementalIndex() incremental index}
+   * is still too big. {@link #storeCommit(CommitObj, List)} defers this work for commits whose
+   * incremental index does not exceed {@link StoreConfig#maxDeferredIncrementalIndexSize()}.
+   *
+   * @param commitId ID of the commit to compact
+   */
+  void compactIncrementalIndex(@Nonnull @jakarta.annotation.Nonnull ObjId commitId)
+      throws ObjNotFoundException;
+
   /**
    * Adds a new commit on top of its parent commit, performing checks of the existing vs expected
    * contents of the {@link CreateCommit#adds() adds} and {@link CreateCommit#removes() removes}.
@@ -192,6 +203,12 @@ public interface CommitLogic {
     ObjId maybeReplaceValue(boolean add, StoreKey storeKey, ObjId currentId);
   }
 
+  /**
+   * Finds the nearest common ancestor in the first-parent logs of the given commits.
+   *
+   * @throws NoSuchElementException if there is no common ancestor or if one of the commits does
+   *     not exist
+   */
   @Nonnull
   @jakarta.annotation.Nonnull
   ObjId findCommonAncestor(
@@ -199,6 +216,23 @@ public interface CommitLogic {
       @Nonnull @jakarta.annotation.Nonnull ObjId otherId)
       throws NoSuchElementException;
 
+  /**
+   * Finds the nearest common ancestor of the given commits, optionally also following the {@link
+   * CommitObj#secondaryParents() secondary parents} of merge commits.
+   *
+   * @param respectMergeParents whether to follow secondary parents, if {@code false}, this function
+   *     behaves like {@link #findCommonAncestor(ObjId, ObjId)}
+   * @throws NoSuchElementException if there is no common ancestor or if one of the commits does
+   *     not exist
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  ObjId findMergeBase(
+      @Nonnull @jakarta.annotation.Nonnull ObjId headId,
+      @Nonnull @jakarta.annotation.Nonnull ObjId otherId,
+      boolean respectMergeParents)
+      throws NoSuchElementException;
+
   /**
    * Retrieves the {@link CommitOp commit object} referenced by {@code commitId}. Resolves a {@link
    * CommitObjReference}, if necessary.
@@ -208,6 +242,19 @@ public interface CommitLogic {
   CommitObj fetchCommit(@Nonnull @jakarta.annotation.Nonnull ObjId commitId)
       throws ObjNotFoundException;
 
+  /**
+   * Retrieves multiple {@link CommitOp commit objects} using a single bulk fetch, resolves {@link
+   * CommitObjReference}s like {@link #fetchCommit(ObjId)}.
+   *
+   * @param commitIds IDs of the commits to fetch, must not contain duplicates. {@code null}
+   *     elements and {@link ObjId#EMPTY_OBJ_ID} are legal and yield {@code null} elements in the
+   *     returned array.
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  CommitObj[] fetchCommits(@Nonnull @jakarta.annotation.Nonnull ObjId[] commitIds)
+      throws ObjNotFoundException;
+
   /**
    * Applies the changes between {@code base} and {@code mostRecent} to the commit builder.
    *
@@ -55,20 +55,26 @@ import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ
 import static org.projectnessie.versioned.storage.common.persist.ObjType.COMMIT;
 
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.google.common.hash.Hasher;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -92,6 +98,7 @@ import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp.Action;
 import org.projectnessie.versioned.storage.common.objtypes.CommitType;
 import org.projectnessie.versioned.storage.common.objtypes.IndexStripe;
+import org.projectnessie.versioned.storage.common.persist.BackgroundExecutor;
 import org.projectnessie.versioned.storage.common.persist.CloseableIterator;
 import org.projectnessie.versioned.storage.common.persist.Obj;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
@@ -130,6 +137,9 @@ final class CommitLogicImpl implements CommitLogic {
   private final class CommitLogIter extends AbstractIterator<CommitObj>
       implements PagedResult<CommitObj, ObjId> {
     private final ObjId endCommitId;
+    private final BackgroundExecutor readAheadExecutor;
+    private final int readAhead;
+    private final Deque<CompletableFuture<Obj[]>> readAheadBatches = new ArrayDeque<>();
 
     private Iterator<Obj> batch;
     private List<ObjId> next;
@@ -137,6 +147,9 @@ final class CommitLogicImpl implements CommitLogic {
     CommitLogIter(ObjId startCommitId, ObjId endCommitId) {
       this.next = singletonList(startCommitId);
       this.endCommitId = endCommitId;
+      StoreConfig config = persist.config();
+      this.readAheadExecutor = config.backgroundExecutor();
+      this.readAhead = readAheadExecutor != null ? config.commitLogReadAhead() : 0;
     }
 
     @Override
@@ -144,28 +157,11 @@ final class CommitLogicImpl implements CommitLogic {
       while (true) {
         Iterator<Obj> b = batch;
         if (b == null || !b.hasNext()) {
-          List<ObjId> n = next;
-          next = null;
-
-          if (n == null) {
-            return endOfData();
-          }
-          int i = n.indexOf(EMPTY_OBJ_ID);
-          if (i != -1) {
-            n = n.subList(0, i);
-          }
-          if (n.isEmpty()) {
+          Obj[] objs = nextBatch();
+          if (objs == null) {
             return endOfData();
           }
-
-          try {
-            b = batch = Arrays.asList(persist.fetchObjs(n.toArray(new ObjId[0]))).iterator();
-          } catch (ObjNotFoundException e) {
-            throw new NoSuchElementException(
-                "Commit(s) "
-                    + e.objIds().stream().map(ObjId::toString).collect(Collectors.joining(", "))
-                    + " not found");
-          }
+          b = batch = Arrays.asList(objs).iterator();
         }
 
         if (b.hasNext()) {
@@ -179,6 +175,7 @@ final class CommitLogicImpl implements CommitLogic {
           if (c.id().equals(endCommitId)) {
             batch = emptyIterator();
             next = null;
+            CommitLogReadAhead.cancel(readAheadBatches);
           } else if (!b.hasNext()) {
             next = c.tail();
           }
@@ -188,6 +185,78 @@ final class CommitLogicImpl implements CommitLogic {
       }
     }
 
+    /**
+     * Returns the next batch of commits. With read-ahead, the next batches are fetched in the
+     * background, each one from the {@link CommitObj#tail()} of the last commit of its previous
+     * batch.
+     */
+    private Obj[] nextBatch() {
+      CompletableFuture<Obj[]> ahead = readAheadBatches.pollFirst();
+      Obj[] objs;
+      if (ahead != null) {
+        objs = CommitLogReadAhead.await(ahead);
+      } else {
+        List<ObjId> n = next;
+        next = null;
+        objs = fetchBatch(n);
+      }
+
+      if (objs == null) {
+        CommitLogReadAhead.cancel(readAheadBatches);
+        return null;
+      }
+
+      if (readAhead > 0) {
+        CompletableFuture<Obj[]> last = readAheadBatches.peekLast();
+        if (last == null) {
+          last = CompletableFuture.completedFuture(objs);
+        }
+        while (readAheadBatches.size() < readAhead) {
+          last =
+              CommitLogReadAhead.readAhead(
+                  last, o -> fetchBatch(nextBatchIds(o)), readAheadExecutor);
+          readAheadBatches.addLast(last);
+        }
+      }
+
+      return objs;
+    }
+
+    /** IDs of the batch following the given batch, {@code null} if the commit log ends. */
+    private List<ObjId> nextBatchIds(Obj[] objs) {
+      if (objs == null) {
+        return null;
+      }
+      for (Obj obj : objs) {
+        if (obj == null || obj.id().equals(endCommitId)) {
+          return null;
+        }
+      }
+      return ((CommitObj) objs[objs.length - 1]).tail();
+    }
+
+    private Obj[] fetchBatch(List<ObjId> n) {
+      if (n == null) {
+        return null;
+      }
+      int i = n.indexOf(EMPTY_OBJ_ID);
+      if (i != -1) {
+        n = n.subList(0, i);
+      }
+      if (n.isEmpty()) {
+        return null;
+      }
+
+      try {
+        return persist.fetchObjs(n.toArray(new ObjId[0]));
+      } catch (ObjNotFoundException e) {
+        throw new NoSuchElementException(
+            "Commit(s) "
+                + e.objIds().stream().map(ObjId::toString).collect(Collectors.joining(", "))
+                + " not found");
+      }
+    }
+
     @Nonnull
     @jakarta.annotation.Nonnull
     @Override
@@ -312,6 +381,16 @@ final class CommitLogicImpl implements CommitLogic {
         throw new RuntimeException(ex);
       }
 
+      if (commit.incrementalIndex().size() <= deferredIncrementalIndexSizeLimit()) {
+        // Persist the commit with the too big incremental index, the caller is responsible for
+        // building and persisting the reference index later, see compactIncrementalIndex().
+        try {
+          return persist.storeObj(commit, true);
+        } catch (ObjTooLargeException ex) {
+          // Hit the "Hard database object size limit", update the reference index now
+        }
+      }
+
       commit = indexTooBigStoreUpdate(commit);
 
       try {
@@ -342,6 +421,24 @@ final class CommitLogicImpl implements CommitLogic {
     return commit;
   }
 
+  private int deferredIncrementalIndexSizeLimit() {
+    return Math.min(
+        persist.config().maxDeferredIncrementalIndexSize(), persist.hardObjectSizeLimit() / 2);
+  }
+
+  @Override
+  public void compactIncrementalIndex(@Nonnull @jakarta.annotation.Nonnull ObjId commitId)
+      throws ObjNotFoundException {
+    CommitObj commit = fetchCommit(commitId);
+    if (commit == null
+        || !commit.id().equals(commitId)
+        || commit.incrementalIndex().size() <= persist.effectiveIncrementalIndexSizeLimit()) {
+      // Already compacted
+      return;
+    }
+    updateCommit(indexTooBigStoreUpdate(commit));
+  }
+
   private CommitObj indexTooBigStoreUpdate(CommitObj commit) {
     StoreIndex<CommitOp> newIncremental = newStoreIndex(COMMIT_OP_SERIALIZER);
     StoreIndex<CommitOp> referenceIndex = createReferenceIndexForCommit(commit, newIncremental);
@@ -425,7 +522,7 @@ final class CommitLogicImpl implements CommitLogic {
         prefetch.add(el.key());
       }
     }
-    referenceIndex.loadIfNecessary(prefetch);
+    referenceIndex.loadForUpdate(prefetch);
 
     for (StoreIndexElement<CommitOp> el : incrementalIndex) {
       CommitOp c = el.content();
@@ -828,6 +925,28 @@ final class CommitLogicImpl implements CommitLogic {
       @Nonnull @jakarta.annotation.Nonnull ObjId headId,
       @Nonnull @jakarta.annotation.Nonnull ObjId otherId)
       throws NoSuchElementException {
+    return new CommonAncestors(this, persist).firstParentCommonAncestor(headId, otherId);
+  }
+
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  @Override
+  public ObjId findMergeBase(
+      @Nonnull @jakarta.annotation.Nonnull ObjId headId,
+      @Nonnull @jakarta.annotation.Nonnull ObjId otherId,
+      boolean respectMergeParents)
+      throws NoSuchElementException {
+    CommonAncestors commonAncestors = new CommonAncestors(this, persist);
+    return respectMergeParents
+        ? commonAncestors.mergeBase(headId, otherId)
+        : commonAncestors.firstParentCommonAncestor(headId, otherId);
+  }
+
+  /**
+   * Finds the common ancestor by walking the first-parent logs of both commits, one commit at a
+   * time, used if the commits' generation numbers are inconsistent.
+   */
+  ObjId findCommonAncestorByWalking(ObjId headId, ObjId otherId) {
     PagedResult<ObjId, ObjId> log1 = commitIdLog(commitLogQuery(headId));
     PagedResult<ObjId, ObjId> log2 = commitIdLog(commitLogQuery(otherId));
 
@@ -870,11 +989,11 @@ final class CommitLogicImpl implements CommitLogic {
     }
   }
 
-  private static NoSuchElementException commonAncestorCommitNotFound(ObjId id) {
+  static NoSuchElementException commonAncestorCommitNotFound(ObjId id) {
     return new NoSuchElementException("Commit '" + id + "' not found");
   }
 
-  private static NoSuchElementException noCommonAncestor(ObjId headId, ObjId otherId) {
+  static NoSuchElementException noCommonAncestor(ObjId headId, ObjId otherId) {
     return new NoSuchElementException(
         NO_COMMON_ANCESTOR_IN_PARENTS_OF + headId + " and " + otherId);
   }
@@ -900,6 +1019,38 @@ final class CommitLogicImpl implements CommitLogic {
     return (CommitObj) obj;
   }
 
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  @Override
+  public CommitObj[] fetchCommits(@Nonnull @jakarta.annotation.Nonnull ObjId[] commitIds)
+      throws ObjNotFoundException {
+    int num = commitIds.length;
+    ObjId[] ids = new ObjId[num];
+    for (int i = 0; i < num; i++) {
+      ObjId id = commitIds[i];
+      ids[i] = EMPTY_OBJ_ID.equals(id) ? null : id;
+    }
+    Obj[] objs = persist.fetchObjs(ids);
+
+    for (int i = 0; i < num; i++) {
+      if (objs[i] instanceof CommitObjReference) {
+        // rare, resolved individually
+        ObjId refCommitId = ((CommitObjReference) objs[i]).commitId();
+        objs[i] = EMPTY_OBJ_ID.equals(refCommitId) ? null : persist.fetchObj(refCommitId);
+      }
+    }
+
+    CommitObj[] commits = new CommitObj[num];
+    for (int i = 0; i < num; i++) {
+      Obj obj = objs[i];
+      if (obj != null) {
+        checkState(obj instanceof CommitObj, "Expected a Commit object, but got %s", obj);
+        commits[i] = (CommitObj) obj;
+      }
+    }
+    return commits;
+  }
+
   @Nonnull
   @jakarta.annotation.Nonnull
   @Override
@@ -914,17 +1065,139 @@ final class CommitLogicImpl implements CommitLogic {
             .orElse(diffQuery.start());
     StoreKey end = diffQuery.end();
 
-    StoreIndex<CommitOp> fromIndex = indexesLogic.buildCompleteIndexOrEmpty(diffQuery.fromCommit());
-    StoreIndex<CommitOp> toIndex = indexesLogic.buildCompleteIndexOrEmpty(diffQuery.toCommit());
+    CommitObj fromCommit = diffQuery.fromCommit();
+    CommitObj toCommit = diffQuery.toCommit();
+    boolean prefetch = diffQuery.prefetch();
+
+    if (fromCommit != null && toCommit != null) {
+      DiffEntryIter sharedStripesDiff =
+          diffSkippingSharedStripes(indexesLogic, fromCommit, toCommit, start, end, diffQuery);
+      if (sharedStripesDiff != null) {
+        return sharedStripesDiff;
+      }
+    }
+
+    StoreIndex<CommitOp> fromIndex = indexesLogic.buildCompleteIndexOrEmpty(fromCommit);
+    StoreIndex<CommitOp> toIndex = indexesLogic.buildCompleteIndexOrEmpty(toCommit);
+
+    Iterator<StoreIndexElement<CommitOp>> fromIter = fromIndex.iterator(start, end, prefetch);
+    Iterator<StoreIndexElement<CommitOp>> toIter = toIndex.iterator(start, end, prefetch);
+
+    return new DiffEntryIter(fromIndex, toIndex, fromIter, toIter, diffQuery.filter());
+  }
+
+  /**
+   * Produces the diff for two commits whose reference indexes share stripes, which is common for
+   * commits on the same branch or on branches that forked recently. Elements in shared stripes are
+   * equal on both sides, unless the key is also present in one of the incremental indexes, so only
+   * the stripes that are not shared need to be iterated. Keys in the incremental indexes are looked
+   * up in the complete indexes.
+   *
+   * <p>A key in a stripe that is not shared cannot be present in a shared stripe of the other
+   * commit, because the stripes of a reference index do not overlap.
+   *
+   * @return the diff or {@code null}, if the reference indexes do not share any stripe
+   */
+  @Nullable
+  @jakarta.annotation.Nullable
+  private static DiffEntryIter diffSkippingSharedStripes(
+      IndexesLogic indexesLogic,
+      CommitObj fromCommit,
+      CommitObj toCommit,
+      StoreKey start,
+      StoreKey end,
+      DiffQuery diffQuery) {
+    List<IndexStripe> fromStripes;
+    List<IndexStripe> toStripes;
+    ObjId fromReferenceIndex = fromCommit.referenceIndex();
+    if (fromReferenceIndex != null && fromReferenceIndex.equals(toCommit.referenceIndex())) {
+      // The whole reference index is shared
+      fromStripes = emptyList();
+      toStripes = emptyList();
+    } else {
+      fromStripes = indexesLogic.referenceIndexStripes(fromCommit);
+      toStripes = indexesLogic.referenceIndexStripes(toCommit);
+      Set<ObjId> fromSegments =
+          fromStripes.stream().map(IndexStripe::segment).collect(Collectors.toSet());
+      Set<ObjId> sharedSegments =
+          toStripes.stream()
+              .map(IndexStripe::segment)
+              .filter(fromSegments::contains)
+              .collect(Collectors.toSet());
+      if (sharedSegments.isEmpty()) {
+        return null;
+      }
+      fromStripes = withoutSegments(fromStripes, sharedSegments);
+      toStripes = withoutSegments(toStripes, sharedSegments);
+    }
+
+    StoreIndex<CommitOp> fromIncremental = indexesLogic.incrementalIndexFromCommit(fromCommit);
+    StoreIndex<CommitOp> toIncremental = indexesLogic.incrementalIndexFromCommit(toCommit);
+    StoreIndex<CommitOp> fromIndex =
+        indexesLogic.buildCompleteIndex(fromCommit, Optional.of(fromIncremental));
+    StoreIndex<CommitOp> toIndex =
+        indexesLogic.buildCompleteIndex(toCommit, Optional.of(toIncremental));
+
+    NavigableSet<StoreKey> incrementalKeys = new TreeSet<>();
+    for (StoreIndex<CommitOp> incremental : Arrays.asList(fromIncremental, toIncremental)) {
+      incremental.iterator(start, end, false).forEachRemaining(el -> incrementalKeys.add(el.key()));
+    }
 
+    boolean prefetch = diffQuery.prefetch();
     Iterator<StoreIndexElement<CommitOp>> fromIter =
-        fromIndex.iterator(start, end, diffQuery.prefetch());
+        unsharedElements(
+            indexesLogic.buildReferenceIndexFromStripes(fromStripes, fromCommit.id()),
+            fromIndex,
+            incrementalKeys,
+            start,
+            end,
+            prefetch);
     Iterator<StoreIndexElement<CommitOp>> toIter =
-        toIndex.iterator(start, end, diffQuery.prefetch());
+        unsharedElements(
+            indexesLogic.buildReferenceIndexFromStripes(toStripes, toCommit.id()),
+            toIndex,
+            incrementalKeys,
+            start,
+            end,
+            prefetch);
 
     return new DiffEntryIter(fromIndex, toIndex, fromIter, toIter, diffQuery.filter());
   }
 
+  private static List<IndexStripe> withoutSegments(
+      List<IndexStripe> stripes, Set<ObjId> sharedSegments) {
+    return stripes.stream()
+        .filter(s -> !sharedSegments.contains(s.segment()))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Merges the elements of the not shared reference index stripes, excluding keys that are present
+   * in an incremental index, with the elements for the incremental index keys from the complete
+   * index.
+   */
+  private static Iterator<StoreIndexElement<CommitOp>> unsharedElements(
+      StoreIndex<CommitOp> unsharedReferenceIndex,
+      StoreIndex<CommitOp> completeIndex,
+      NavigableSet<StoreKey> incrementalKeys,
+      StoreKey start,
+      StoreKey end,
+      boolean prefetch) {
+    if (prefetch) {
+      completeIndex.loadIfNecessary(incrementalKeys);
+    }
+    Iterator<StoreIndexElement<CommitOp>> referenceElements =
+        Iterators.filter(
+            unsharedReferenceIndex.iterator(start, end, prefetch),
+            el -> !incrementalKeys.contains(el.key()));
+    Iterator<StoreIndexElement<CommitOp>> incrementalElements =
+        Iterators.filter(
+            Iterators.transform(incrementalKeys.iterator(), completeIndex::get), Objects::nonNull);
+    return Iterators.mergeSorted(
+        Arrays.asList(referenceElements, incrementalElements),
+        (a, b) -> a.key().compareTo(b.key()));
+  }
+
   private static final class DiffEntryIter extends AbstractIterator<DiffEntry>
       implements DiffPagedResult<DiffEntry, StoreKey> {
     private final Iterator<StoreIndexElement<CommitOp>> fromIter;
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.logic;
+
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+
+/**
+ * Bounded cache of {@link CommitLogic#findCommonAncestor(ObjId, ObjId) common ancestors} and their
+ * {@link CommitObj#seq()}, keyed by the IDs of both commits.
+ *
+ * <p>Commits are immutable, so the common ancestor of two commits never changes. Listing references
+ * with "ahead/behind" information repeatedly asks for the common ancestors of the same commits,
+ * mostly the unchanged HEADs of a base reference and many other references.
+ *
+ * <p>If the base reference moved forward by a few commits since the last computation for the same
+ * commit of the other reference, the new common ancestor is derived from the cached one: the new
+ * commits of the base reference are known from the {@link CommitObj#tail()} of the new base commit,
+ * if none of them is in the first-parent log of the other commit, the common ancestor did not
+ * change.
+ */
+public final class CommonAncestorCache {
+
+  /** The result for two commits that have no common ancestor. */
+  public static final CommonAncestor NO_COMMON_ANCESTOR = new CommonAncestor(EMPTY_OBJ_ID, 0L);
+
+  private final Cache<HeadsKey, CommonAncestor> cache;
+
+  /** The last computed result per commit of the other reference, used to derive new results. */
+  private final Cache<ObjId, LastResult> lastResults;
+
+  private CommonAncestorCache(int maxEntries) {
+    if (maxEntries > 0) {
+      this.cache = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+      this.lastResults = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+    } else {
+      this.cache = null;
+      this.lastResults = null;
+    }
+  }
+
+  public static CommonAncestorCache commonAncestorCache(int maxEntries) {
+    return new CommonAncestorCache(maxEntries);
+  }
+
+  public static CommonAncestorCache commonAncestorCache(StoreConfig config) {
+    return commonAncestorCache(config.commonAncestorCacheSize());
+  }
+
+  /**
+   * Returns the nearest common ancestor in the first-parent logs of the given commits, like {@link
+   * CommitLogic#findCommonAncestor(ObjId, ObjId)}, including its {@link CommitObj#seq()}.
+   *
+   * @return the common ancestor, {@link #NO_COMMON_ANCESTOR} if there is no common ancestor
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  public CommonAncestor commonAncestor(
+      @Nonnull @jakarta.annotation.Nonnull CommitLogic commitLogic,
+      @Nonnull @jakarta.annotation.Nonnull CommitObj baseHead,
+      @Nonnull @jakarta.annotation.Nonnull CommitObj head)
+      throws ObjNotFoundException {
+    if (cache == null) {
+      return compute(commitLogic, baseHead, head);
+    }
+
+    HeadsKey key = new HeadsKey(baseHead.id(), head.id());
+    CommonAncestor ancestor = cache.getIfPresent(key);
+    if (ancestor != null) {
+      return ancestor;
+    }
+
+    LastResult last = lastResults.getIfPresent(head.id());
+    if (last != null) {
+      ancestor = derive(last, baseHead, head);
+    }
+    if (ancestor == null) {
+      ancestor = compute(commitLogic, baseHead, head);
+    }
+
+    cache.put(key, ancestor);
+    lastResults.put(head.id(), new LastResult(baseHead.id(), baseHead.seq(), ancestor));
+    return ancestor;
+  }
+
+  private static CommonAncestor compute(CommitLogic commitLogic, CommitObj baseHead, CommitObj head)
+      throws ObjNotFoundException {
+    ObjId ancestorId;
+    try {
+      ancestorId = commitLogic.findCommonAncestor(baseHead.id(), head.id());
+    } catch (NoSuchElementException e) {
+      return NO_COMMON_ANCESTOR;
+    }
+    long seq;
+    if (ancestorId.equals(baseHead.id())) {
+      seq = baseHead.seq();
+    } else if (ancestorId.equals(head.id())) {
+      seq = head.seq();
+    } else {
+      CommitObj ancestor = commitLogic.fetchCommit(ancestorId);
+      if (ancestor == null) {
+        return NO_COMMON_ANCESTOR;
+      }
+      seq = ancestor.seq();
+    }
+    return new CommonAncestor(ancestorId, seq);
+  }
+
+  /**
+   * Derives the common ancestor of {@code baseHead} and {@code head} from the last result for
+   * {@code head} and an older commit of the base reference, without fetching any commit.
+   *
+   * @return the common ancestor or {@code null}, if it cannot be derived
+   */
+  private static CommonAncestor derive(LastResult last, CommitObj baseHead, CommitObj head) {
+    long distance = baseHead.seq() - last.baseSeq;
+    if (distance <= 0
+        || distance > baseHead.tail().size()
+        || !baseHead.tail().get((int) distance - 1).equals(last.baseId)) {
+      // Not a first-parent descendant of the last base commit, or too far away
+      return null;
+    }
+
+    // Only the new commits of the base reference can be a "newer" common ancestor. A commit in the
+    // first-parent log of 'head' has the same seq as in the log of 'baseHead'.
+    for (long seq = Math.min(baseHead.seq(), head.seq()); seq > last.baseSeq; seq--) {
+      long headDistance = head.seq() - seq;
+      if (headDistance > head.tail().size()) {
+        return null;
+      }
+      ObjId id = idAt(baseHead, seq);
+      if (id.equals(idAt(head, seq))) {
+        return new CommonAncestor(id, seq);
+      }
+    }
+    return last.ancestor;
+  }
+
+  private static ObjId idAt(CommitObj commit, long seq) {
+    long distance = commit.seq() - seq;
+    return distance == 0 ? commit.id() : commit.tail().get((int) distance - 1);
+  }
+
+  /** The nearest common ancestor of two commits. */
+  public static final class CommonAncestor {
+    private final ObjId id;
+    private final long seq;
+
+    CommonAncestor(ObjId id, long seq) {
+      this.id = id;
+      this.seq = seq;
+    }
+
+    /** ID of the common ancestor, {@link ObjId#EMPTY_OBJ_ID} if there is no common ancestor. */
+    public ObjId id() {
+      return id;
+    }
+
+    /** {@link CommitObj#seq()} of the common ancestor, {@code 0} if there is no common ancestor. */
+    public long seq() {
+      return seq;
+    }
+
+    public boolean exists() {
+      return !EMPTY_OBJ_ID.equals(id);
+    }
+
+    @Override
+    public String toString() {
+      return "CommonAncestor{id=" + id + ", seq=" + seq + '}';
+    }
+  }
+
+  private static final class LastResult {
+    final ObjId baseId;
+    final long baseSeq;
+    final CommonAncestor ancestor;
+
+    LastResult(ObjId baseId, long baseSeq, CommonAncestor ancestor) {
+      this.baseId = baseId;
+      this.baseSeq = baseSeq;
+      this.ancestor = ancestor;
+    }
+  }
+
+  private static final class HeadsKey {
+    final ObjId baseId;
+    final ObjId headId;
+
+    HeadsKey(ObjId baseId, ObjId headId) {
+      this.baseId = baseId;
+      this.headId = headId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof HeadsKey)) {
+        return false;
+      }
+      HeadsKey other = (HeadsKey) o;
+      return baseId.equals(other.baseId) && headId.equals(other.headId);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * baseId.hashCode() + headId.hashCode();
+    }
+  }
+}
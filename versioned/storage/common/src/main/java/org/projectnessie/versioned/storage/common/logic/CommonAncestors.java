@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.logic;
+
+import static com.google.common.base.Preconditions.checkState;
+import static org.projectnessie.versioned.storage.common.logic.CommitLogicImpl.commonAncestorCommitNotFound;
+import static org.projectnessie.versioned.storage.common.logic.CommitLogicImpl.noCommonAncestor;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObjReference;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+
+/**
+ * Finds the nearest common ancestor of two commits using {@link CommitObj#seq()} as the generation
+ * number of a commit.
+ *
+ * <p>The {@link CommitObj#seq()} of a commit is the {@link CommitObj#seq()} of its direct parent
+ * plus one, and the {@link CommitObj#tail()} of a commit contains the IDs of its direct parent,
+ * grand parent and so on. This means that the IDs of the commits in the first-parent log for a
+ * range of generations are known from a single commit, without fetching the commits in between. The
+ * first-parent search compares the IDs of the commits of both sides at the same generations and
+ * fetches the oldest known commit of the side(s) that need to advance, both sides at once, if
+ * necessary.
+ *
+ * <p>If the generation numbers turn out to be inconsistent, the search falls back to walking both
+ * commit logs.
+ */
+final class CommonAncestors {
+  private static final int PARENT1 = 1;
+  private static final int PARENT2 = 2;
+  private static final int STALE = 4;
+  private static final int RESULT = 8;
+  private static final int REDUNDANT = 16;
+
+  private final CommitLogicImpl commitLogic;
+  private final Persist persist;
+
+  CommonAncestors(CommitLogicImpl commitLogic, Persist persist) {
+    this.commitLogic = commitLogic;
+    this.persist = persist;
+  }
+
+  /** Nearest common ancestor in the first-parent logs of both commits. */
+  ObjId firstParentCommonAncestor(ObjId headId, ObjId otherId) {
+    CommitObj[] heads = fetchHeads(headId, otherId);
+    CommitObj head = heads[0];
+    CommitObj other = heads[1];
+    if (head == null || other == null) {
+      throw noCommonAncestor(headId, otherId);
+    }
+
+    ObjId found = firstParentCommonAncestor(head, other);
+    if (found == null) {
+      // Inconsistent generation numbers
+      return commitLogic.findCommonAncestorByWalking(headId, otherId);
+    }
+    if (EMPTY_OBJ_ID.equals(found)) {
+      throw noCommonAncestor(headId, otherId);
+    }
+    return found;
+  }
+
+  /**
+   * Nearest common ancestor of both commits, following the first parents and the secondary
+   * parents.
+   *
+   * <p>Commits are visited in the order of their generation number, highest first, commits that are
+   * reachable from both commits are common ancestors. Ancestors of common ancestors are only
+   * visited while there is more than one candidate. Since the generation number of a secondary
+   * parent can be higher than the generation number of the merge commit, a common ancestor can be
+   * found before a "better" one, it is discarded when it turns out to be reachable from another
+   * common ancestor. If multiple candidates remain, for example for "criss-cross" merges, the one
+   * with the highest generation number is returned.
+   *
+   * <p>The flags of a commit are looked up when the commit is polled from the queue, so a commit
+   * whose flags change while it is queued does not need to be re-queued. A commit is only queued
+   * again, if its flags change after it has been visited. The number of queued commits that are
+   * not stale is tracked, instead of scanning the queue on every step.
+   */
+  ObjId mergeBase(ObjId headId, ObjId otherId) {
+    CommitObj[] heads = fetchHeads(headId, otherId);
+    CommitObj head = heads[0];
+    CommitObj other = heads[1];
+    if (head == null || other == null) {
+      throw noCommonAncestor(headId, otherId);
+    }
+    if (head.id().equals(other.id())) {
+      return head.id();
+    }
+
+    Map<ObjId, Integer> flags = new HashMap<>();
+    Map<ObjId, CommitObj> commits = new HashMap<>();
+    PriorityQueue<CommitObj> queue =
+        new PriorityQueue<>(Comparator.comparingLong(CommitObj::seq).reversed());
+    Set<ObjId> queued = new HashSet<>();
+    commits.put(head.id(), head);
+    commits.put(other.id(), other);
+    flags.put(head.id(), PARENT1);
+    flags.put(other.id(), PARENT2);
+    queue.add(head);
+    queue.add(other);
+    queued.add(head.id());
+    queued.add(other.id());
+    int nonStale = 2;
+
+    List<CommitObj> results = new ArrayList<>();
+    while (nonStale > 0 || (!queue.isEmpty() && nonRedundant(results, flags).count() > 1)) {
+      CommitObj commit = queue.poll();
+      queued.remove(commit.id());
+      int f = flags.get(commit.id());
+      if ((f & STALE) == 0) {
+        nonStale--;
+      }
+      if ((f & (PARENT1 | PARENT2)) == (PARENT1 | PARENT2) && (f & STALE) == 0) {
+        results.add(commit);
+        flags.put(commit.id(), f | STALE | RESULT);
+        // Do not propagate RESULT to the parents
+        f |= STALE;
+      }
+      int propagate = f & (PARENT1 | PARENT2 | STALE);
+
+      List<ObjId> parents = new ArrayList<>(1 + commit.secondaryParents().size());
+      ObjId directParent = commit.directParent();
+      if (!EMPTY_OBJ_ID.equals(directParent)) {
+        parents.add(directParent);
+      }
+      parents.addAll(commit.secondaryParents());
+
+      List<ObjId> updated = new ArrayList<>(parents.size());
+      List<ObjId> toFetch = new ArrayList<>(parents.size());
+      for (ObjId parent : parents) {
+        int pf = flags.getOrDefault(parent, 0);
+        if ((propagate & STALE) != 0 && (pf & RESULT) != 0) {
+          // A result reachable from another result
+          pf |= REDUNDANT;
+          flags.put(parent, pf);
+        }
+        int npf = pf | propagate;
+        if (npf != pf) {
+          flags.put(parent, npf);
+          if (queued.contains(parent)) {
+            if ((pf & STALE) == 0 && (npf & STALE) != 0) {
+              nonStale--;
+            }
+          } else {
+            updated.add(parent);
+            if (!commits.containsKey(parent)) {
+              toFetch.add(parent);
+            }
+          }
+        }
+      }
+      if (!toFetch.isEmpty()) {
+        for (CommitObj parent : fetchCommits(toFetch)) {
+          commits.put(parent.id(), parent);
+        }
+      }
+      for (ObjId id : updated) {
+        queue.add(commits.get(id));
+        queued.add(id);
+        if ((flags.get(id) & STALE) == 0) {
+          nonStale++;
+        }
+      }
+    }
+
+    return nonRedundant(results, flags)
+        .max(Comparator.comparingLong(CommitObj::seq))
+        .map(CommitObj::id)
+        .orElseThrow(() -> noCommonAncestor(headId, otherId));
+  }
+
+  private static Stream<CommitObj> nonRedundant(
+      List<CommitObj> results, Map<ObjId, Integer> flags) {
+    return results.stream().filter(c -> (flags.get(c.id()) & REDUNDANT) == 0);
+  }
+
+  /**
+   * Compares the known first-parent ancestors of both commits at the same generation numbers.
+   *
+   * <p>A commit with the generation number {@code seq} knows the IDs of its ancestors with the
+   * generation numbers {@code seq - 1} down to {@code seq - tail.size()} via its {@link
+   * CommitObj#tail()}. If the first-parent logs of both commits meet, the IDs of all following
+   * ancestors are equal as well, so the highest generation number with equal IDs yields the nearest
+   * common ancestor. If the known ranges do not contain equal IDs, the side(s) with the higher
+   * lowest known generation number advance to their oldest known commit.
+   *
+   * @return the ID of the common ancestor, {@link ObjId#EMPTY_OBJ_ID} if there is no common
+   *     ancestor, {@code null} if the generation numbers are inconsistent
+   */
+  private ObjId firstParentCommonAncestor(CommitObj a, CommitObj b) {
+    while (true) {
+      List<ObjId> tailA = a.tail();
+      List<ObjId> tailB = b.tail();
+      if (tailA.isEmpty() || tailB.isEmpty()) {
+        return null;
+      }
+      long lowA = a.seq() - tailA.size();
+      long lowB = b.seq() - tailB.size();
+
+      long hi = Math.min(a.seq(), b.seq());
+      long lo = Math.max(lowA, lowB);
+      for (long seq = hi; seq >= lo; seq--) {
+        ObjId idA = idAt(a, seq);
+        if (idA.equals(idAt(b, seq))) {
+          return idA;
+        }
+      }
+
+      ObjId nextA = lowA >= lowB ? tailA.get(tailA.size() - 1) : null;
+      ObjId nextB = lowB >= lowA ? tailB.get(tailB.size() - 1) : null;
+      if (EMPTY_OBJ_ID.equals(nextA) || EMPTY_OBJ_ID.equals(nextB)) {
+        // Reached the beginning of the first-parent log
+        return EMPTY_OBJ_ID;
+      }
+
+      List<ObjId> ids = new ArrayList<>(2);
+      if (nextA != null) {
+        ids.add(nextA);
+      }
+      if (nextB != null) {
+        ids.add(nextB);
+      }
+      List<CommitObj> next = fetchCommits(ids);
+      if (nextA != null) {
+        CommitObj c = next.get(0);
+        if (c.seq() != lowA) {
+          return null;
+        }
+        a = c;
+      }
+      if (nextB != null) {
+        CommitObj c = next.get(next.size() - 1);
+        if (c.seq() != lowB) {
+          return null;
+        }
+        b = c;
+      }
+    }
+  }
+
+  private static ObjId idAt(CommitObj commit, long seq) {
+    long distance = commit.seq() - seq;
+    return distance == 0 ? commit.id() : commit.tail().get((int) distance - 1);
+  }
+
+  /** Fetches both commits at once, {@link ObjId#EMPTY_OBJ_ID} yields {@code null}. */
+  private CommitObj[] fetchHeads(ObjId headId, ObjId otherId) {
+    boolean emptyHead = EMPTY_OBJ_ID.equals(headId);
+    boolean emptyOther = EMPTY_OBJ_ID.equals(otherId);
+    ObjId[] ids = new ObjId[] {emptyHead ? null : headId, emptyOther ? null : otherId};
+    if (!emptyHead && headId.equals(otherId)) {
+      ids[1] = null;
+    }
+
+    Obj[] objs;
+    try {
+      objs = persist.fetchObjs(ids);
+    } catch (ObjNotFoundException e) {
+      List<ObjId> notFound = e.objIds();
+      throw commonAncestorCommitNotFound(notFound.contains(otherId) ? otherId : headId);
+    }
+    if (ids[0] != null && ids[1] == null && !emptyOther) {
+      objs[1] = objs[0];
+    }
+
+    CommitObj[] commits = new CommitObj[2];
+    for (int i = 0; i < 2; i++) {
+      commits[i] = objs[i] != null ? asCommit(objs[i]) : null;
+    }
+    return commits;
+  }
+
+  private List<CommitObj> fetchCommits(List<ObjId> ids) {
+    Obj[] objs;
+    try {
+      objs = persist.fetchObjs(ids.toArray(new ObjId[0]));
+    } catch (ObjNotFoundException e) {
+      throw commonAncestorCommitNotFound(e.objIds().get(0));
+    }
+    List<CommitObj> commits = new ArrayList<>(objs.length);
+    for (Obj obj : objs) {
+      CommitObj commit = asCommit(obj);
+      checkState(commit != null, "Expected a Commit object, but got %s", obj);
+      commits.add(commit);
+    }
+    return commits;
+  }
+
+  /** Resolves a {@link CommitObjReference}, returns {@code null} for a reference to "no commit". */
+  private CommitObj asCommit(Obj obj) {
+    if (obj instanceof CommitObjReference) {
+      try {
+        return commitLogic.fetchCommit(((CommitObjReference) obj).commitId());
+      } catch (ObjNotFoundException e) {
+        throw commonAncestorCommitNotFound(e.objIds().get(0));
+      }
+    }
+    checkState(obj instanceof CommitObj, "Expected a Commit object, but got %s", obj);
+    return (CommitObj) obj;
+  }
+}
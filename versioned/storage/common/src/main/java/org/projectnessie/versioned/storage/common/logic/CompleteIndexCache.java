@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.logic;
+
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.emptyImmutableIndex;
+import static org.projectnessie.versioned.storage.common.logic.Logics.indexesLogic;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.COMMIT_OP_SERIALIZER;
+import static org.projectnessie.versioned.storage.common.persist.ObjType.INDEX_SEGMENTS;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Objects;
+import java.util.Optional;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.indexes.StoreIndex;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
+import org.projectnessie.versioned.storage.common.objtypes.IndexObj;
+import org.projectnessie.versioned.storage.common.objtypes.IndexSegmentsObj;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+
+/**
+ * Cache of {@link IndexesLogic#buildCompleteIndex(CommitObj, Optional) complete indexes}, keyed
+ * by commit ID, bounded by the estimated heap usage of the indexes.
+ *
+ * <p>Requests against the same commit, usually the HEAD of a busy branch, share the same complete
+ * index, so index stripes loaded by one request do not need to be loaded and deserialized again
+ * by following requests. The returned indexes are read-only and safe for concurrent use, see
+ * {@link IndexesLogic#buildSharedCompleteIndex(CommitObj)}.
+ *
+ * <p>A cache instance is scoped to one {@link Persist} instance: cached indexes load their
+ * stripes via the {@link Persist} given to {@link #completeIndexCache(Persist)}, independent of
+ * the caller. Index objects are immutable, so loading those via that {@link Persist} is fine for
+ * all callers operating on the same repository.
+ *
+ * <p>Cached indexes are only used for a commit, if the index attributes of the cached commit are
+ * equal to the ones of the requested commit, which protects against {@link
+ * CommitLogic#updateCommit(CommitObj) updated commits}.
+ */
+public final class CompleteIndexCache {
+
+  private final Persist persist;
+  private final IndexesLogic indexesLogic;
+  private final Cache<ObjId, CachedIndex> cache;
+
+  private CompleteIndexCache(Persist persist, long capacityBytes) {
+    this.persist = persist;
+    this.indexesLogic = indexesLogic(persist);
+    // IMPORTANT!
+    // When changing the configuration of the Caffeine cache, make sure to run the
+    // _native_ Quarkus tests and adopt the `@ReflectionConfig` in
+    // org.projectnessie.quarkus.providers.PersistProvider.
+    this.cache =
+        capacityBytes > 0L
+            ? Caffeine.newBuilder()
+                .maximumWeight(capacityBytes)
+                .weigher((ObjId id, CachedIndex cached) -> cached.weight)
+                .executor(Runnable::run)
+                .build()
+            : null;
+  }
+
+  /**
+   * Creates a cache for complete indexes loaded via the given {@link Persist}, using the capacity
+   * configured in {@link StoreConfig#completeIndexCacheCapacityMb()}.
+   */
+  public static CompleteIndexCache completeIndexCache(
+      @Nonnull @jakarta.annotation.Nonnull Persist persist) {
+    return completeIndexCache(
+        persist, persist.config().completeIndexCacheCapacityMb() * 1024L * 1024L);
+  }
+
+  /**
+   * Creates a cache for complete indexes loaded via the given {@link Persist}, a {@code
+   * capacityBytes} value of {@code 0} disables the cache.
+   */
+  public static CompleteIndexCache completeIndexCache(Persist persist, long capacityBytes) {
+    return new CompleteIndexCache(persist, capacityBytes);
+  }
+
+  /** Returns the {@link Persist} instance this cache is scoped to. */
+  public Persist persist() {
+    return persist;
+  }
+
+  /**
+   * Returns the complete index for the given commit, like {@link
+   * IndexesLogic#buildCompleteIndexOrEmpty(CommitObj)}, but returns a shared instance for
+   * subsequent calls for the same commit.
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  public StoreIndex<CommitOp> completeIndex(
+      @Nullable @jakarta.annotation.Nullable CommitObj commit) {
+    if (commit == null) {
+      return emptyImmutableIndex(COMMIT_OP_SERIALIZER);
+    }
+    if (cache == null) {
+      return indexesLogic.buildCompleteIndex(commit, Optional.empty());
+    }
+
+    CachedIndex cached = cache.getIfPresent(commit.id());
+    if (cached != null && sameIndex(cached.commit, commit)) {
+      return cached.index;
+    }
+
+    StoreIndex<CommitOp> index = indexesLogic.buildSharedCompleteIndex(commit);
+    cache.put(commit.id(), new CachedIndex(commit, index, weigh(commit)));
+    return index;
+  }
+
+  /**
+   * Estimates the heap usage of the complete index of the given commit, assuming that all stripes
+   * of the reference index will eventually be loaded and are of the maximum size.
+   */
+  private int weigh(CommitObj commit) {
+    int maxStripeSize = persist.config().maxSerializedIndexSize();
+    long weight =
+        commit.incrementalIndex().size()
+            + (long) commit.referenceIndexStripes().size() * maxStripeSize;
+    ObjId referenceIndex = commit.referenceIndex();
+    if (referenceIndex != null) {
+      try {
+        // Just fetched by IndexesLogic.buildSharedCompleteIndex(), usually served from the
+        // object cache
+        Obj obj = persist.fetchObj(referenceIndex);
+        weight +=
+            obj.type() == INDEX_SEGMENTS
+                ? (long) ((IndexSegmentsObj) obj).stripes().size() * maxStripeSize
+                : ((IndexObj) obj).index().size();
+      } catch (ObjNotFoundException e) {
+        weight += maxStripeSize;
+      }
+    }
+    return (int) Math.min(weight, Integer.MAX_VALUE);
+  }
+
+  private static boolean sameIndex(CommitObj a, CommitObj b) {
+    return a == b
+        || (a.incompleteIndex() == b.incompleteIndex()
+            && Objects.equals(a.referenceIndex(), b.referenceIndex())
+            && a.referenceIndexStripes().equals(b.referenceIndexStripes())
+            && a.incrementalIndex().equals(b.incrementalIndex()));
+  }
+
+  private static final class CachedIndex {
+    final CommitObj commit;
+    final StoreIndex<CommitOp> index;
+    final int weight;
+
+    CachedIndex(CommitObj commit, StoreIndex<CommitOp> index, int weight) {
+      this.commit = commit;
+      this.index = index;
+      this.weight = weight;
+    }
+  }
+}
@@ -29,6 +29,7 @@ import org.projectnessie.versioned.storage.common.indexes.StoreIndex;
 import org.projectnessie.versioned.storage.common.indexes.StoreIndexElement;
 import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
+import org.projectnessie.versioned.storage.common.objtypes.IndexSegmentsObj;
 import org.projectnessie.versioned.storage.common.objtypes.IndexStripe;
 import org.projectnessie.versioned.storage.common.persist.Obj;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
@@ -60,6 +61,16 @@ public interface IndexesLogic {
         : emptyImmutableIndex(COMMIT_OP_SERIALIZER);
   }
 
+  /**
+   * Similar to {@link #buildCompleteIndex(CommitObj, Optional)}, but the returned index is
+   * read-only and can be used concurrently by multiple threads, see {@link
+   * org.projectnessie.versioned.storage.common.indexes.StoreIndexes#sharedIndex}.
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  StoreIndex<CommitOp> buildSharedCompleteIndex(
+      @Nonnull @jakarta.annotation.Nonnull CommitObj commit);
+
   @Nullable
   @jakarta.annotation.Nullable
   StoreIndex<CommitOp> buildReferenceIndexOnly(
@@ -71,6 +82,25 @@ public interface IndexesLogic {
       @Nonnull @jakarta.annotation.Nonnull ObjId indexId,
       @Nonnull @jakarta.annotation.Nonnull ObjId commitId);
 
+  /**
+   * Returns the stripes of the reference index of the given commit, either the stripes embedded in
+   * the commit or the stripes of the referenced {@link IndexSegmentsObj}. Returns an empty list, if
+   * the commit has no reference index or if its reference index is not striped.
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  List<IndexStripe> referenceIndexStripes(@Nonnull @jakarta.annotation.Nonnull CommitObj commit);
+
+  /**
+   * Builds a lazily loaded reference index from the given stripes, returns an empty and immutable
+   * index for an empty list of stripes.
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  StoreIndex<CommitOp> buildReferenceIndexFromStripes(
+      @Nonnull @jakarta.annotation.Nonnull List<IndexStripe> stripes,
+      @Nonnull @jakarta.annotation.Nonnull ObjId commitId);
+
   @Nonnull
   @jakarta.annotation.Nonnull
   StoreIndex<CommitOp> incrementalIndexForUpdate(
@@ -18,12 +18,18 @@ package org.projectnessie.versioned.storage.common.logic;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.deserializeStoreIndex;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.emptyImmutableIndex;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.indexFromSplits;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.layeredIndex;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.lazyStoreIndex;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.newStoreIndex;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.sharedIndex;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter.deserializeKeyFilter;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter.keyFilter;
 import static org.projectnessie.versioned.storage.common.logic.CommitLogQuery.commitLogQuery;
 import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitObj.commitBuilder;
@@ -37,6 +43,7 @@ import static org.projectnessie.versioned.storage.common.objtypes.IndexStripe.in
 import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
 import static org.projectnessie.versioned.storage.common.persist.ObjType.COMMIT;
 import static org.projectnessie.versioned.storage.common.persist.ObjType.INDEX;
+import static org.projectnessie.versioned.storage.common.persist.ObjType.INDEX_SEGMENTS;
 import static org.projectnessie.versioned.storage.common.util.SupplyOnce.memoize;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -53,12 +60,14 @@ import java.util.function.Supplier;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.projectnessie.nessie.relocated.protobuf.ByteString;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
 import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
 import org.projectnessie.versioned.storage.common.exceptions.ObjTooLargeException;
 import org.projectnessie.versioned.storage.common.indexes.IndexLoader;
 import org.projectnessie.versioned.storage.common.indexes.StoreIndex;
 import org.projectnessie.versioned.storage.common.indexes.StoreIndexElement;
 import org.projectnessie.versioned.storage.common.indexes.StoreKey;
+import org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter;
 import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
 import org.projectnessie.versioned.storage.common.objtypes.IndexObj;
@@ -210,6 +219,55 @@ final class IndexesLogicImpl implements IndexesLogic {
     return index;
   }
 
+  @Override
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  public StoreIndex<CommitOp> buildSharedCompleteIndex(
+      @Nonnull @jakarta.annotation.Nonnull CommitObj commit) {
+    checkArgument(!commit.incompleteIndex(), "Commit %s has no complete key index", commit.id());
+
+    StoreIndex<CommitOp> incremental = incrementalIndexFromCommit(commit);
+
+    ObjId referenceIndexId = commit.referenceIndex();
+    List<IndexStripe> commitStripes = commit.referenceIndexStripes();
+    List<StoreIndex<CommitOp>> stripes = emptyList();
+    if (!commitStripes.isEmpty()) {
+      checkState(
+          referenceIndexId == null,
+          "Commit %s: must not have both pointer to a reference index and stripes",
+          commit.id());
+      stripes = sharedStripes(commitStripes);
+    } else if (referenceIndexId != null) {
+      Obj keyIndex = fetchReferenceIndex(referenceIndexId);
+      stripes =
+          keyIndex.type() == INDEX_SEGMENTS
+              ? sharedStripes(((IndexSegmentsObj) keyIndex).stripes())
+              : singletonList(
+                  deserializeIndex(((IndexObj) keyIndex).index()).setObjId(keyIndex.id()));
+    }
+
+    return sharedIndex(
+        incremental, stripes, indexSegmentsLoader(commit.id(), null), COMMIT_OP_SERIALIZER);
+  }
+
+  /**
+   * Not yet loaded stripes for {@link #buildSharedCompleteIndex(CommitObj)}, which are only used to
+   * carry the first and last keys, the key filter and the ID of the stripes.
+   */
+  private List<StoreIndex<CommitOp>> sharedStripes(List<IndexStripe> indexStripes) {
+    List<StoreIndex<CommitOp>> stripes = new ArrayList<>(indexStripes.size());
+    for (IndexStripe s : indexStripes) {
+      stripes.add(
+          lazyStoreIndex(
+                  () -> loadIndexSegment(s.segment()),
+                  s.firstKey(),
+                  s.lastKey(),
+                  deserializeKeyFilter(s.keyFilter()))
+              .setObjId(s.segment()));
+    }
+    return stripes;
+  }
+
   @Override
   @Nullable
   @jakarta.annotation.Nullable
@@ -239,17 +297,44 @@ final class IndexesLogicImpl implements IndexesLogic {
     return lazyStoreIndex(() -> loadReferenceIndex(indexId, commitId));
   }
 
-  private StoreIndex<CommitOp> loadReferenceIndex(
-      @Nonnull @jakarta.annotation.Nonnull ObjId indexId,
-      @Nonnull @jakarta.annotation.Nonnull ObjId commitId) {
-    StoreIndex<CommitOp> referenceIndex;
+  @Override
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  public List<IndexStripe> referenceIndexStripes(
+      @Nonnull @jakarta.annotation.Nonnull CommitObj commit) {
+    List<IndexStripe> commitStripes = commit.referenceIndexStripes();
+    ObjId referenceIndexId = commit.referenceIndex();
+    if (!commitStripes.isEmpty() || referenceIndexId == null) {
+      return commitStripes;
+    }
     Obj keyIndex;
     try {
-      keyIndex = persist.fetchObj(indexId);
+      keyIndex = persist.fetchObj(referenceIndexId);
     } catch (ObjNotFoundException e) {
       throw new IllegalStateException(
-          format("Commit %s references a reference index, which does not exist", indexId));
+          format("Commit %s references a reference index, which does not exist", referenceIndexId));
     }
+    return keyIndex.type() == INDEX_SEGMENTS
+        ? ((IndexSegmentsObj) keyIndex).stripes()
+        : emptyList();
+  }
+
+  @Override
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  public StoreIndex<CommitOp> buildReferenceIndexFromStripes(
+      @Nonnull @jakarta.annotation.Nonnull List<IndexStripe> stripes,
+      @Nonnull @jakarta.annotation.Nonnull ObjId commitId) {
+    return stripes.isEmpty()
+        ? emptyImmutableIndex(COMMIT_OP_SERIALIZER)
+        : referenceIndexFromStripes(stripes, commitId);
+  }
+
+  private StoreIndex<CommitOp> loadReferenceIndex(
+      @Nonnull @jakarta.annotation.Nonnull ObjId indexId,
+      @Nonnull @jakarta.annotation.Nonnull ObjId commitId) {
+    StoreIndex<CommitOp> referenceIndex;
+    Obj keyIndex = fetchReferenceIndex(indexId);
     ObjType indexType = keyIndex.type();
     switch (indexType) {
       case INDEX_SEGMENTS:
@@ -268,6 +353,23 @@ final class IndexesLogicImpl implements IndexesLogic {
     return referenceIndex;
   }
 
+  private Obj fetchReferenceIndex(ObjId indexId) {
+    Obj keyIndex;
+    try {
+      keyIndex = persist.fetchObj(indexId);
+    } catch (ObjNotFoundException e) {
+      throw new IllegalStateException(
+          format("Commit %s references a reference index, which does not exist", indexId));
+    }
+    ObjType indexType = keyIndex.type();
+    if (indexType != INDEX_SEGMENTS && indexType != INDEX) {
+      throw new IllegalStateException(
+          "Commit %s references a reference index, which is of unsupported key index type "
+              + indexType);
+    }
+    return keyIndex;
+  }
+
   static StoreIndex<CommitOp> deserializeIndex(ByteString serialized) {
     return deserializeStoreIndex(serialized, COMMIT_OP_SERIALIZER);
   }
@@ -330,7 +432,8 @@ final class IndexesLogicImpl implements IndexesLogic {
                     return l;
                   },
                   s.firstKey(),
-                  s.lastKey())
+                  s.lastKey(),
+                  deserializeKeyFilter(s.keyFilter()))
               .setObjId(s.segment()));
       firstLastKeys.add(s.firstKey());
       firstLastKeys.add(s.lastKey());
@@ -339,41 +442,56 @@ final class IndexesLogicImpl implements IndexesLogic {
       return stripes.get(0);
     }
 
-    IndexLoader<CommitOp> indexLoader =
-        indexesToLoad -> {
-          checkArgument(indexesToLoad.length == loaded.length);
-          ObjId[] ids = new ObjId[indexesToLoad.length];
-          int cnt = 0;
-          for (int i = 0; i < indexesToLoad.length; i++) {
-            StoreIndex<CommitOp> idx = indexesToLoad[i];
-            if (idx != null) {
-              ObjId segmentId = idx.getObjId();
-              if (segmentId != null) {
-                ids[i] = idx.getObjId();
-                cnt++;
-              } else {
-                LOGGER.warn("Reference index Segment #{} has no objId for commit {}", i, commitId);
-              }
-            }
+    StoreConfig config = persist.config();
+    return indexFromSplits(
+        stripes,
+        firstLastKeys,
+        indexSegmentsLoader(commitId, loaded),
+        config.indexReadAheadStripes(),
+        config.backgroundExecutor());
+  }
+
+  /**
+   * Returns a loader for the stripes of a reference index.
+   *
+   * @param loaded receives the loaded stripes, if not {@code null}
+   */
+  private IndexLoader<CommitOp> indexSegmentsLoader(
+      ObjId commitId, @Nullable @jakarta.annotation.Nullable StoreIndex<CommitOp>[] loaded) {
+    return indexesToLoad -> {
+      checkArgument(loaded == null || indexesToLoad.length == loaded.length);
+      ObjId[] ids = new ObjId[indexesToLoad.length];
+      int cnt = 0;
+      for (int i = 0; i < indexesToLoad.length; i++) {
+        StoreIndex<CommitOp> idx = indexesToLoad[i];
+        if (idx != null) {
+          ObjId segmentId = idx.getObjId();
+          if (segmentId != null) {
+            ids[i] = idx.getObjId();
+            cnt++;
+          } else {
+            LOGGER.warn("Reference index Segment #{} has no objId for commit {}", i, commitId);
           }
-          LOGGER.debug("Fetching {} of {} index segments for commit {}", cnt, ids.length, commitId);
-          StoreIndex<CommitOp>[] indexes = loadIndexSegments(ids);
-          for (int i = 0; i < indexes.length; i++) {
-            StoreIndex<CommitOp> idx = indexes[i];
-            if (idx != null) {
-              loaded[i] = idx;
-            } else if (ids[i] != null) {
-              LOGGER.warn(
-                  "Reference index Segment #{} has with id {} not loaded for commit {}",
-                  i,
-                  ids[i],
-                  commitId);
-            }
+        }
+      }
+      LOGGER.debug("Fetching {} of {} index segments for commit {}", cnt, ids.length, commitId);
+      StoreIndex<CommitOp>[] indexes = loadIndexSegments(ids);
+      for (int i = 0; i < indexes.length; i++) {
+        StoreIndex<CommitOp> idx = indexes[i];
+        if (idx != null) {
+          if (loaded != null) {
+            loaded[i] = idx;
           }
-          return indexes;
-        };
-
-    return indexFromSplits(stripes, firstLastKeys, indexLoader);
+        } else if (ids[i] != null) {
+          LOGGER.warn(
+              "Reference index Segment #{} has with id {} not loaded for commit {}",
+              i,
+              ids[i],
+              commitId);
+        }
+      }
+      return indexes;
+    };
   }
 
   @Nonnull
@@ -417,6 +535,7 @@ final class IndexesLogicImpl implements IndexesLogic {
   private List<IndexStripe> buildIndexStripes(
       List<StoreIndex<CommitOp>> stripes, List<Obj> toStore) {
     List<IndexStripe> indexStripes = new ArrayList<>(stripes.size());
+    int maxFilterBytes = maxKeyFilterBytesPerStripe(stripes);
     for (StoreIndex<CommitOp> indexSegment : stripes) {
       ObjId segId;
       if (!indexSegment.isModified()) {
@@ -433,12 +552,49 @@ final class IndexesLogicImpl implements IndexesLogic {
       StoreKey last = indexSegment.last();
       checkState(first != null && last != null);
 
-      indexStripes.add(indexStripe(first, last, segId));
+      // Unmodified, not loaded segments carry their persisted filter, if any. Filters for loaded
+      // segments are built from the keys of the segment.
+      StoreKeyFilter filter = indexSegment.keyFilter();
+      if (filter != null && filter.serialize().size() > maxFilterBytes) {
+        filter = null;
+      }
+      if (filter == null && indexSegment.isLoaded()) {
+        filter = keyFilter(indexSegment.asKeyList(), maxFilterBytes);
+      }
+
+      indexStripes.add(indexStripe(first, last, segId, filter != null ? filter.serialize() : null));
     }
 
     return indexStripes;
   }
 
+  /**
+   * The key filters of all stripes together may use as much space as an incremental index, but
+   * must still fit into the commit or index-segments object that holds the stripes next to a
+   * full-size incremental index. Only half of the remaining headroom is used, leaving room for the
+   * other attributes of a commit. Returns {@code 0}, if no filters can be stored.
+   */
+  private int maxKeyFilterBytesPerStripe(List<StoreIndex<CommitOp>> stripes) {
+    int incrementalIndexLimit = persist.effectiveIncrementalIndexSizeLimit();
+    long stripesSize = 0L;
+    for (StoreIndex<CommitOp> stripe : stripes) {
+      StoreKey first = stripe.first();
+      StoreKey last = stripe.last();
+      // rough estimate of the serialized first + last keys and the segment ID
+      stripesSize +=
+          (first != null ? first.rawString().length() : 0)
+              + (last != null ? last.rawString().length() : 0)
+              + 2 * EMPTY_OBJ_ID.serializedSize()
+              + 16;
+    }
+    long headroom = (long) persist.hardObjectSizeLimit() - incrementalIndexLimit - stripesSize;
+    long budget = Math.min(incrementalIndexLimit, headroom / 2);
+    if (budget <= 0L) {
+      return 0;
+    }
+    return (int) (budget / Math.max(stripes.size(), 1));
+  }
+
   private ObjId persistIndex(StoreIndex<CommitOp> indexSegment) throws ObjTooLargeException {
     if (!indexSegment.isModified()) {
       return requireNonNull(
@@ -52,6 +52,16 @@ public interface ReferenceLogic {
     return ref;
   }
 
+  /**
+   * Like {@link #getReference(String)}, but always returns the current state of the reference,
+   * bypassing a potentially configured reference cache, see {@link
+   * org.projectnessie.versioned.storage.common.persist.Persist#fetchReferenceForUpdate(String)}.
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  Reference getReferenceForUpdate(@Nonnull @jakarta.annotation.Nonnull String name)
+      throws RefNotFoundException;
+
   /**
    * Performs the query against existing references according to the given {@link ReferencesQuery},
    * which should really depend on the serialized result of the query result in a "public API".
@@ -169,6 +169,8 @@ import org.projectnessie.versioned.storage.common.persist.Reference;
  */
 final class ReferenceLogicImpl implements ReferenceLogic {
 
+  static final int QUERY_FETCH_CHUNK_SIZE = 50;
+
   private final Persist persist;
 
   ReferenceLogicImpl(Persist persist) {
@@ -199,6 +201,20 @@ final class ReferenceLogicImpl implements ReferenceLogic {
     return r;
   }
 
+  @Override
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  public Reference getReferenceForUpdate(@Nonnull @jakarta.annotation.Nonnull String name)
+      throws RefNotFoundException {
+    Reference ref =
+        maybeRecover(
+            name, persist.fetchReferenceForUpdate(name), createRefsIndexSupplierForUpdate());
+    if (ref == null || ref.name().startsWith(INTERNAL_PREFIX)) {
+      throw new RefNotFoundException(name);
+    }
+    return ref;
+  }
+
   @Override
   @Nonnull
   @jakarta.annotation.Nonnull
@@ -220,11 +236,20 @@ final class ReferenceLogicImpl implements ReferenceLogic {
     return new QueryIter(index, prefix, begin, referencesQuery.prefetch());
   }
 
+  /**
+   * Iterates over the references in {@link InternalRef#REF_REFS}, fetching the references of up to
+   * {@value #QUERY_FETCH_CHUNK_SIZE} index elements at once via {@link
+   * Persist#fetchReferences(String[])}.
+   */
   private final class QueryIter extends AbstractIterator<Reference>
       implements PagedResult<Reference, String> {
     private final StoreIndex<CommitOp> index;
     private final Iterator<StoreIndexElement<CommitOp>> base;
     private final StoreKey prefix;
+    private final List<String> names = new ArrayList<>(QUERY_FETCH_CHUNK_SIZE);
+    private Reference[] references;
+    private int position;
+    private boolean exhausted;
 
     private QueryIter(
         StoreIndex<CommitOp> index, StoreKey prefix, StoreKey begin, boolean prefetch) {
@@ -236,23 +261,38 @@ final class ReferenceLogicImpl implements ReferenceLogic {
     @Override
     protected Reference computeNext() {
       while (true) {
-        if (!base.hasNext()) {
-          return endOfData();
+        if (references == null || position == references.length) {
+          if (!fetchChunk()) {
+            return endOfData();
+          }
         }
 
-        StoreIndexElement<CommitOp> el = base.next();
-        StoreKey k = el.key();
-        if (prefix != null && !k.startsWith(prefix)) {
-          return endOfData();
-        }
-        String name = k.rawString();
-        Reference r = maybeRecover(name, persist.fetchReference(el.key().rawString()), () -> index);
+        int i = position++;
+        Reference r = maybeRecover(names.get(i), references[i], () -> index);
         if (r != null) {
           return r;
         }
       }
     }
 
+    private boolean fetchChunk() {
+      names.clear();
+      while (!exhausted && names.size() < QUERY_FETCH_CHUNK_SIZE && base.hasNext()) {
+        StoreKey k = base.next().key();
+        if (prefix != null && !k.startsWith(prefix)) {
+          exhausted = true;
+          break;
+        }
+        names.add(k.rawString());
+      }
+      if (names.isEmpty()) {
+        return false;
+      }
+      references = persist.fetchReferences(names.toArray(new String[0]));
+      position = 0;
+      return true;
+    }
+
     @Nonnull
     @jakarta.annotation.Nonnull
     @Override
@@ -297,7 +337,7 @@ final class ReferenceLogicImpl implements ReferenceLogic {
           if (!reference.deleted()) {
             throw new RefAlreadyExistsException(reference);
           }
-          maybeRecover(name, reference, createRefsIndexSupplier());
+          maybeRecover(name, reference, createRefsIndexSupplierForUpdate());
           // try again
           break;
         default:
@@ -313,10 +353,10 @@ final class ReferenceLogicImpl implements ReferenceLogic {
       throws RefNotFoundException, RefConditionFailedException, RetryTimeoutException {
     checkArgument(!isInternalReferenceName(name));
 
-    Reference reference = persist.fetchReference(name);
+    Reference reference = persist.fetchReferenceForUpdate(name);
     if (reference == null) {
       StoreKey nameKey = key(name);
-      Supplier<StoreIndex<CommitOp>> indexSupplier = createRefsIndexSupplier();
+      Supplier<StoreIndex<CommitOp>> indexSupplier = createRefsIndexSupplierForUpdate();
       StoreIndexElement<CommitOp> index = indexSupplier.get().get(nameKey);
       if (index == null) {
         // not there --> okay
@@ -336,7 +376,7 @@ final class ReferenceLogicImpl implements ReferenceLogic {
       // A previous deleteReference failed, act as if the first one succeeded, therefore this
       // one must throw a ReferenceNotFoundException instead of a ReferenceConditionFailedException
       if (!actAsAlreadyDeleted) {
-        Supplier<StoreIndex<CommitOp>> indexSupplier = createRefsIndexSupplier();
+        Supplier<StoreIndex<CommitOp>> indexSupplier = createRefsIndexSupplierForUpdate();
         Reference recovered = maybeRecover(name, reference, indexSupplier);
         throw new RefConditionFailedException(recovered != null ? recovered : reference);
       }
@@ -380,7 +420,7 @@ final class ReferenceLogicImpl implements ReferenceLogic {
       return commitRetry(
           persist,
           (p, retryState) -> {
-            Reference refRefs = requireNonNull(p.fetchReference(REF_REFS.name()));
+            Reference refRefs = requireNonNull(p.fetchReferenceForUpdate(REF_REFS.name()));
             long created = p.config().currentTimeMicros();
             RefObj ref = ref(name, pointer, created);
             try {
@@ -418,11 +458,11 @@ final class ReferenceLogicImpl implements ReferenceLogic {
       CommitConflict conflict = e.conflicts().get(0);
       checkState(conflict.conflictType() == KEY_EXISTS, "Unexpected conflict type %s", conflict);
 
-      Supplier<StoreIndex<CommitOp>> indexSupplier = createRefsIndexSupplier();
+      Supplier<StoreIndex<CommitOp>> indexSupplier = createRefsIndexSupplierForUpdate();
       StoreIndexElement<CommitOp> el = indexSupplier.get().get(key(name));
       checkNotNull(el, "Key %s missing in index", name);
 
-      Reference existing = persist.fetchReference(name);
+      Reference existing = persist.fetchReferenceForUpdate(name);
 
       if (existing != null) {
         return new CommitReferenceResult(existing, REF_ROW_EXISTS);
@@ -456,7 +496,7 @@ final class ReferenceLogicImpl implements ReferenceLogic {
       commitRetry(
           persist,
           (p, retryState) -> {
-            Reference refRefs = requireNonNull(p.fetchReference(REF_REFS.name()));
+            Reference refRefs = requireNonNull(p.fetchReferenceForUpdate(REF_REFS.name()));
             CommitObj commit;
             try {
               commit = p.fetchTypedObj(refRefs.pointer(), COMMIT, CommitObj.class);
@@ -633,4 +673,17 @@ final class ReferenceLogicImpl implements ReferenceLogic {
               return ref != null ? ref.pointer() : EMPTY_OBJ_ID;
             });
   }
+
+  /**
+   * Like {@link #createRefsIndexSupplier()}, but bypasses a potentially configured reference cache,
+   * used by operations that change references and must not act on a stale state.
+   */
+  private Supplier<StoreIndex<CommitOp>> createRefsIndexSupplierForUpdate() {
+    return indexesLogic(persist)
+        .createIndexSupplier(
+            () -> {
+              Reference ref = persist.fetchReferenceForUpdate(REF_REFS.name());
+              return ref != null ? ref.pointer() : EMPTY_OBJ_ID;
+            });
+  }
 }
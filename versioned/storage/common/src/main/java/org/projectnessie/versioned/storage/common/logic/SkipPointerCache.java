@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.logic;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+
+/**
+ * Finds first-parent ancestors of a commit by their {@link CommitObj#seq()} using exponentially
+ * spaced "skip pointers", which are built lazily and kept in a bounded cache.
+ *
+ * <p>Skip pointers are maintained for "checkpoint" commits, the commits whose {@link
+ * CommitObj#seq()} is a multiple of the step size, which defaults to {@link
+ * StoreConfig#parentsPerCommit()}. The checkpoint below any commit is usually known from the
+ * {@link CommitObj#tail()} of that commit. The {@code k}-th skip pointer of a checkpoint points to
+ * the checkpoint {@code step * 2^k} generations older. A lookup jumps from checkpoint to checkpoint
+ * using the skip pointers, so it needs a logarithmic number of commit fetches, once the skip
+ * pointers along the commit log are known. Computing a missing skip pointer fetches the commits
+ * in between, like walking the commit log does.
+ *
+ * <p>Skip pointers are not persisted. Commit IDs cover the IDs of their parents, so the ancestors
+ * of a commit never change and skip pointers can be shared by all requests and all references.
+ */
+public final class SkipPointerCache {
+
+  private final Cache<ObjId, ObjId[]> cache;
+  private final int step;
+
+  private SkipPointerCache(int maxEntries, int step) {
+    checkArgument(step > 0, "Step size must be positive");
+    this.cache = maxEntries > 0 ? CacheBuilder.newBuilder().maximumSize(maxEntries).build() : null;
+    this.step = step;
+  }
+
+  public static SkipPointerCache skipPointerCache(int maxEntries, int step) {
+    return new SkipPointerCache(maxEntries, step);
+  }
+
+  public static SkipPointerCache skipPointerCache(StoreConfig config) {
+    return skipPointerCache(config.skipPointerCacheSize(), config.parentsPerCommit());
+  }
+
+  /**
+   * Returns the ID of the first-parent ancestor of {@code commit} with the {@link CommitObj#seq()}
+   * {@code seq}, or {@code commit}'s ID, if {@code seq} is equal to the seq of {@code commit}.
+   *
+   * @return the ID of the ancestor or {@code null}, if {@code seq} is not in the range {@code 1} to
+   *     {@code commit.seq()} or if the ancestor cannot be determined, because the seq numbers of
+   *     the commits in the commit log are inconsistent
+   */
+  @Nullable
+  @jakarta.annotation.Nullable
+  public ObjId ancestorAt(
+      @Nonnull @jakarta.annotation.Nonnull CommitLogic commitLogic,
+      @Nonnull @jakarta.annotation.Nonnull CommitObj commit,
+      long seq)
+      throws ObjNotFoundException {
+    if (seq < 1L || seq > commit.seq()) {
+      return null;
+    }
+    try {
+      return new Lookup(commitLogic).ancestorAt(commit, seq);
+    } catch (InconsistentSeqException e) {
+      return null;
+    }
+  }
+
+  private final class Lookup {
+    private final CommitLogic commitLogic;
+
+    Lookup(CommitLogic commitLogic) {
+      this.commitLogic = commitLogic;
+    }
+
+    ObjId ancestorAt(CommitObj commit, long seq) throws ObjNotFoundException {
+      long checkpoint = (commit.seq() - 1L) / step * step;
+      if (cache == null || checkpoint - seq < step) {
+        return walkTo(commit, seq);
+      }
+
+      ObjId id = walkTo(commit, checkpoint);
+      while (checkpoint - seq >= step) {
+        int k = 63 - Long.numberOfLeadingZeros((checkpoint - seq) / step);
+        id = skipPointer(id, checkpoint, k);
+        checkpoint -= (long) step << k;
+      }
+      return walkTo(fetch(id, checkpoint), seq);
+    }
+
+    /** The checkpoint {@code step * 2^k} generations older than the given checkpoint. */
+    private ObjId skipPointer(ObjId id, long seq, int k) throws ObjNotFoundException {
+      ObjId[] pointers = cache.getIfPresent(id);
+      if (pointers != null && pointers.length > k && pointers[k] != null) {
+        return pointers[k];
+      }
+
+      ObjId target;
+      if (k == 0) {
+        target = walkTo(fetch(id, seq), seq - step);
+      } else {
+        ObjId middle = skipPointer(id, seq, k - 1);
+        target = skipPointer(middle, seq - ((long) step << (k - 1)), k - 1);
+      }
+
+      // Copy-on-write, concurrent lookups might add other skip pointers for the same checkpoint
+      pointers = cache.getIfPresent(id);
+      ObjId[] updated =
+          pointers == null
+              ? new ObjId[k + 1]
+              : Arrays.copyOf(pointers, Math.max(pointers.length, k + 1));
+      updated[k] = target;
+      cache.put(id, updated);
+      return target;
+    }
+
+    /** Walks the first-parent log of {@code commit} using the tails to the given seq. */
+    private ObjId walkTo(CommitObj commit, long seq) throws ObjNotFoundException {
+      while (true) {
+        long distance = commit.seq() - seq;
+        if (distance == 0L) {
+          return commit.id();
+        }
+        List<ObjId> tail = commit.tail();
+        if (distance <= tail.size()) {
+          return tail.get((int) distance - 1);
+        }
+        commit = fetch(tail.get(tail.size() - 1), commit.seq() - tail.size());
+      }
+    }
+
+    private CommitObj fetch(ObjId id, long expectedSeq) throws ObjNotFoundException {
+      CommitObj commit = commitLogic.fetchCommit(id);
+      if (commit == null || commit.seq() != expectedSeq) {
+        throw new InconsistentSeqException();
+      }
+      return commit;
+    }
+  }
+
+  private static final class InconsistentSeqException extends RuntimeException {
+    InconsistentSeqException() {
+      super(null, null, false, false);
+    }
+  }
+}
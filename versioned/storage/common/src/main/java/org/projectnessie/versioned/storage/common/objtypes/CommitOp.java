@@ -17,8 +17,10 @@ package org.projectnessie.versioned.storage.common.objtypes;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.deserializeObjId;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.skipObjId;
 import static org.projectnessie.versioned.storage.common.util.Ser.putVarInt;
 import static org.projectnessie.versioned.storage.common.util.Ser.readVarInt;
+import static org.projectnessie.versioned.storage.common.util.Ser.varIntLen;
 
 import java.nio.ByteBuffer;
 import java.util.UUID;
@@ -142,6 +144,13 @@ public interface CommitOp {
 
   final class CommitEntrySerializer implements ElementSerializer<CommitOp> {
 
+    private static final ElementSerializer<CommitOp> COMPACT = new CompactCommitEntrySerializer();
+
+    @Override
+    public ElementSerializer<CommitOp> compact() {
+      return COMPACT;
+    }
+
     @Override
     public int serializedSize(CommitOp value) {
       ObjId v = value.value();
@@ -184,6 +193,97 @@ public interface CommitOp {
       UUID contentId = (msb != 0L || lsb != 0L) ? new UUID(msb, lsb) : null;
       return commitOp(operation, payload, id, contentId);
     }
+
+    @Override
+    public void skip(ByteBuffer buffer) {
+      // action
+      buffer.get();
+      // payload
+      readVarInt(buffer);
+      skipObjId(buffer);
+      // content ID
+      buffer.position(buffer.position() + 16);
+    }
+  }
+
+  /**
+   * Compact serialization used in "version 3" serialized store indexes. The payload is var-int
+   * encoded together with two flags that indicate whether the value and content ID are present, so
+   * absent values and content IDs do not occupy any space.
+   *
+   * <p>Like {@link CommitEntrySerializer}, a zero-length value and an all-zero content ID are
+   * treated as absent and therefore deserialized as {@code null}.
+   */
+  final class CompactCommitEntrySerializer implements ElementSerializer<CommitOp> {
+    private static final int HAS_VALUE = 1;
+    private static final int HAS_CONTENT_ID = 2;
+    private static final int FLAG_BITS = 2;
+
+    @Override
+    public int serializedSize(CommitOp value) {
+      ObjId v = presentValue(value);
+      return 1
+          + varIntLen((value.payload() << FLAG_BITS) | HAS_VALUE | HAS_CONTENT_ID)
+          + (v != null ? v.serializedSize() : 0)
+          + (presentContentId(value) != null ? 16 : 0);
+    }
+
+    @Override
+    public ByteBuffer serialize(CommitOp value, ByteBuffer target) {
+      ObjId v = presentValue(value);
+      UUID contentId = presentContentId(value);
+      int flags = (v != null ? HAS_VALUE : 0) | (contentId != null ? HAS_CONTENT_ID : 0);
+      target.put((byte) value.action().value());
+      putVarInt(target, (value.payload() << FLAG_BITS) | flags);
+      if (v != null) {
+        v.serializeTo(target);
+      }
+      if (contentId != null) {
+        target
+            .putLong(contentId.getMostSignificantBits())
+            .putLong(contentId.getLeastSignificantBits());
+      }
+      return target;
+    }
+
+    @Override
+    public CommitOp deserialize(ByteBuffer buffer) {
+      Action operation = Action.fromValue((char) buffer.get());
+      int payloadAndFlags = readVarInt(buffer);
+      ObjId id = (payloadAndFlags & HAS_VALUE) != 0 ? deserializeObjId(buffer) : null;
+      UUID contentId =
+          (payloadAndFlags & HAS_CONTENT_ID) != 0
+              ? new UUID(buffer.getLong(), buffer.getLong())
+              : null;
+      return commitOp(operation, payloadAndFlags >>> FLAG_BITS, id, contentId);
+    }
+
+    @Override
+    public void skip(ByteBuffer buffer) {
+      // action
+      buffer.get();
+      int payloadAndFlags = readVarInt(buffer);
+      if ((payloadAndFlags & HAS_VALUE) != 0) {
+        skipObjId(buffer);
+      }
+      if ((payloadAndFlags & HAS_CONTENT_ID) != 0) {
+        buffer.position(buffer.position() + 16);
+      }
+    }
+
+    private static ObjId presentValue(CommitOp value) {
+      ObjId v = value.value();
+      return v != null && v.size() > 0 ? v : null;
+    }
+
+    private static UUID presentContentId(CommitOp value) {
+      UUID contentId = value.contentId();
+      return contentId != null
+              && (contentId.getMostSignificantBits() != 0L
+                  || contentId.getLeastSignificantBits() != 0L)
+          ? contentId
+          : null;
+    }
   }
 
   /**
@@ -15,7 +15,9 @@
  */
 package org.projectnessie.versioned.storage.common.objtypes;
 
+import javax.annotation.Nullable;
 import org.immutables.value.Value;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
 import org.projectnessie.versioned.storage.common.indexes.StoreKey;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
 
@@ -31,7 +33,25 @@ public interface IndexStripe {
   @Value.Parameter(order = 3)
   ObjId segment();
 
+  /**
+   * The serialized {@link org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter} of the
+   * keys in the {@link #segment()}, if present. Allows skipping the load of the segment for keys
+   * that are not contained in the segment.
+   */
+  @Value.Parameter(order = 4)
+  @Nullable
+  @jakarta.annotation.Nullable
+  ByteString keyFilter();
+
   static IndexStripe indexStripe(StoreKey firstKey, StoreKey lastKey, ObjId segment) {
-    return ImmutableIndexStripe.of(firstKey, lastKey, segment);
+    return ImmutableIndexStripe.of(firstKey, lastKey, segment, null);
+  }
+
+  static IndexStripe indexStripe(
+      StoreKey firstKey,
+      StoreKey lastKey,
+      ObjId segment,
+      @Nullable @jakarta.annotation.Nullable ByteString keyFilter) {
+    return ImmutableIndexStripe.of(firstKey, lastKey, segment, keyFilter);
   }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.persist;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
+
+/**
+ * Bounded pool of daemon threads, shared by the background tasks of a Nessie server, like the
+ * read-ahead of commit logs and index stripes and background index compactions. Provided to the
+ * storage layer via {@link StoreConfig#backgroundExecutor()}.
+ *
+ * <p>Background tasks are I/O bound, so the number of threads is not tied to the number of CPUs,
+ * see {@link StoreConfig#backgroundThreads()} and {@link StoreConfig#backgroundQueueSize()}.
+ *
+ * <p>The owner of an instance, usually the Nessie server, must {@link #close()} it.
+ */
+public final class BackgroundExecutor implements Executor, AutoCloseable {
+
+  private final ThreadPoolExecutor executor;
+
+  private BackgroundExecutor(int threads, int queueSize) {
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            30,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("nessie-storage-background-%d")
+                .build(),
+            new ThreadPoolExecutor.AbortPolicy());
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  public static BackgroundExecutor newBackgroundExecutor(StoreConfig config) {
+    return newBackgroundExecutor(config.backgroundThreads(), config.backgroundQueueSize());
+  }
+
+  public static BackgroundExecutor newBackgroundExecutor(int threads, int queueSize) {
+    return new BackgroundExecutor(Math.max(1, threads), Math.max(1, queueSize));
+  }
+
+  /**
+   * Runs the given task in the background. If all threads are busy and the queue of pending tasks
+   * is full, or if this executor has been closed, the task runs in the calling thread.
+   */
+  @Override
+  public void execute(Runnable task) {
+    if (!tryExecute(task)) {
+      task.run();
+    }
+  }
+
+  /**
+   * Schedules the given task to run in the background.
+   *
+   * @return {@code false}, if the task has not been scheduled, because all threads are busy and the
+   *     queue of pending tasks is full, or because this executor has been closed
+   */
+  public boolean tryExecute(Runnable task) {
+    try {
+      executor.execute(task);
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  /** Stops accepting new tasks, already scheduled tasks are still run. */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
@@ -161,6 +161,15 @@ public abstract class ObjId {
     return fromBytes(len, bytes);
   }
 
+  /**
+   * Advances the position of {@code bytes} past a serialized object id, see {@link
+   * #deserializeObjId(ByteBuffer)}.
+   */
+  public static void skipObjId(@Nonnull @jakarta.annotation.Nonnull ByteBuffer bytes) {
+    int len = readVarInt(bytes);
+    bytes.position(bytes.position() + len);
+  }
+
   private static ObjId fromBytes(int len, ByteBuffer bytes) {
     switch (len) {
       case 0:
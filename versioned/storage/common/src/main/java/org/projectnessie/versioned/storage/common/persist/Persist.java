@@ -134,6 +134,24 @@ public interface Persist {
   @jakarta.annotation.Nullable
   Reference fetchReference(@Nonnull @jakarta.annotation.Nonnull String name);
 
+  /**
+   * Like {@link #fetchReference(String)}, but always returns the current state of the reference as
+   * persisted in the database, bypassing a potentially configured reference cache.
+   *
+   * <p>Use this function when a reference retrieved via {@link #fetchReference(String)} might be
+   * stale, for example to validate that a commit is reachable from the current HEAD of a reference.
+   *
+   * <p><em>Do not use this function from service implementations, use {@link ReferenceLogic}
+   * instead!</em>
+   *
+   * @return the reference or {@code null}, if it does not exist
+   */
+  @Nullable
+  @jakarta.annotation.Nullable
+  default Reference fetchReferenceForUpdate(@Nonnull @jakarta.annotation.Nonnull String name) {
+    return fetchReference(name);
+  }
+
   /**
    * Like {@link #fetchReference(String)}, but finds multiple references by name at once, leveraging
    * bulk queries against databases.
@@ -209,7 +227,9 @@ public interface Persist {
    *     (de)serialization is handled by the database specific implementation of {@link Persist}.
    *     Elements are {@code null}, if the corresponding elements in the {@code ids} parameter array
    *     are {@code null}.
-   * @throws ObjNotFoundException with the IDs for which no {@link Obj objects} exist
+   * @throws ObjNotFoundException with the IDs for which no {@link Obj objects} exist,
+   *     implementations should also provide the objects that do exist via {@link
+   *     ObjNotFoundException#fetchedObjs()}
    * @see #fetchObjType(ObjId)
    * @see #fetchTypedObj(ObjId, ObjType, Class)
    * @see #fetchObj(ObjId)
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.indexes;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexElement.indexElement;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.deserializeStoreIndex;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.layeredIndex;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.lazyStoreIndex;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.newStoreIndex;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.sharedIndex;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKey.key;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.Action.ADD;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.COMMIT_OP_SERIALIZER;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.commitOp;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
+import static org.projectnessie.versioned.storage.commontests.KeyIndexTestSet.basicIndexTestSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestSharedIndexImpl {
+  @InjectSoftAssertions SoftAssertions soft;
+
+  static final int NUM_STRIPES = 4;
+
+  private StoreIndex<CommitOp> source;
+  private List<StoreIndex<CommitOp>> stripes;
+  private StoreIndex<CommitOp> updates;
+  private AtomicIntegerArray loads;
+
+  private StoreIndex<CommitOp> shared(IndexLoader<CommitOp> loader) {
+    source = basicIndexTestSet().keyIndex();
+    stripes = new ArrayList<>();
+    for (StoreIndex<CommitOp> stripe : source.divide(NUM_STRIPES)) {
+      stripes.add(deserializeStoreIndex(stripe.serialize(), COMMIT_OP_SERIALIZER));
+    }
+    loads = new AtomicIntegerArray(NUM_STRIPES);
+
+    StoreIndex<CommitOp> upd = newStoreIndex(COMMIT_OP_SERIALIZER);
+    upd.add(indexElement(key("updated"), commitOp(ADD, 1, randomObjId())));
+    updates = deserializeStoreIndex(upd.serialize(), COMMIT_OP_SERIALIZER);
+
+    List<StoreIndex<CommitOp>> notLoaded = new ArrayList<>();
+    for (StoreIndex<CommitOp> stripe : stripes) {
+      notLoaded.add(
+          lazyStoreIndex(
+              () -> {
+                throw new IllegalStateException("must use the index loader");
+              },
+              stripe.first(),
+              stripe.last()));
+    }
+    return sharedIndex(updates, notLoaded, loader, COMMIT_OP_SERIALIZER);
+  }
+
+  private StoreIndex<CommitOp>[] load(StoreIndex<CommitOp>[] indexes) {
+    @SuppressWarnings("unchecked")
+    StoreIndex<CommitOp>[] r = new StoreIndex[indexes.length];
+    for (int i = 0; i < indexes.length; i++) {
+      if (indexes[i] != null) {
+        loads.incrementAndGet(i);
+        r[i] = stripes.get(i);
+      }
+    }
+    return r;
+  }
+
+  @Test
+  public void sameAsLayeredIndex() {
+    StoreIndex<CommitOp> shared = shared(this::load);
+    StoreIndex<CommitOp> expected = layeredIndex(source, updates);
+
+    soft.assertThat(newArrayList(shared)).containsExactlyElementsOf(newArrayList(expected));
+    soft.assertThat(shared.first()).isEqualTo(expected.first());
+    soft.assertThat(shared.last()).isEqualTo(expected.last());
+    for (StoreKey key : expected.asKeyList()) {
+      soft.assertThat(shared.get(key)).isEqualTo(expected.get(key));
+      soft.assertThat(shared.contains(key)).isTrue();
+    }
+    soft.assertThat(shared.contains(key("not-there"))).isFalse();
+
+    List<StoreKey> keyList = shared.asKeyList();
+    soft.assertThat(keyList).containsExactlyElementsOf(expected.asKeyList());
+    soft.assertThatThrownBy(() -> keyList.add(key("foo")))
+        .isInstanceOf(UnsupportedOperationException.class);
+
+    for (int i = 0; i < NUM_STRIPES; i++) {
+      soft.assertThat(loads.get(i)).describedAs("stripe #%d", i).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void loadsOutsideOfLocks() throws Exception {
+    // Each load waits until the other stripe is being loaded, which only succeeds, if both stripes
+    // are loaded concurrently.
+    CountDownLatch bothLoading = new CountDownLatch(2);
+    StoreIndex<CommitOp> shared =
+        shared(
+            indexes -> {
+              bothLoading.countDown();
+              try {
+                if (!bothLoading.await(30, SECONDS)) {
+                  throw new IllegalStateException("Stripes not loaded concurrently");
+                }
+              } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+              }
+              return load(indexes);
+            });
+    StoreKey inFirst = stripes.get(0).first();
+    StoreKey inLast = stripes.get(NUM_STRIPES - 1).last();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<StoreIndexElement<CommitOp>>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        StoreKey key = (i & 1) == 0 ? inFirst : inLast;
+        futures.add(executor.submit(() -> shared.get(key)));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        soft.assertThat(futures.get(i).get(30, SECONDS))
+            .extracting(StoreIndexElement::key)
+            .isEqualTo((i & 1) == 0 ? inFirst : inLast);
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    soft.assertThat(loads.get(0)).isEqualTo(1);
+    soft.assertThat(loads.get(NUM_STRIPES - 1)).isEqualTo(1);
+    soft.assertThat(loads.get(1)).isEqualTo(0);
+  }
+
+  @Test
+  public void failedLoadIsRetried() {
+    boolean[] fail = {true};
+    StoreIndex<CommitOp> shared =
+        shared(
+            indexes -> {
+              if (fail[0]) {
+                throw new IllegalStateException("failed load");
+              }
+              return load(indexes);
+            });
+    StoreKey key = stripes.get(1).first();
+
+    soft.assertThatThrownBy(() -> shared.get(key)).hasMessage("failed load");
+    fail[0] = false;
+    soft.assertThat(shared.get(key)).extracting(StoreIndexElement::key).isEqualTo(key);
+  }
+
+  @Test
+  public void mutableOverlay() {
+    StoreIndex<CommitOp> shared = shared(this::load);
+    List<StoreIndexElement<CommitOp>> sharedElements = newArrayList(shared);
+    StoreKey removedKey = stripes.get(2).first();
+    for (int i = 0; i < NUM_STRIPES; i++) {
+      loads.set(i, 0);
+    }
+
+    StoreIndex<CommitOp> mutable = shared.asMutableIndex();
+    soft.assertThat(mutable.isMutable()).isTrue();
+    soft.assertThat(mutable.isModified()).isFalse();
+
+    StoreIndexElement<CommitOp> added = indexElement(key("added"), commitOp(ADD, 1, null));
+    soft.assertThat(mutable.add(added)).isTrue();
+    soft.assertThat(mutable.remove(removedKey)).isTrue();
+    soft.assertThat(mutable.remove(key("not-there"))).isFalse();
+    soft.assertThat(mutable.isModified()).isTrue();
+
+    StoreIndex<CommitOp> expected = newStoreIndex(COMMIT_OP_SERIALIZER);
+    for (StoreIndexElement<CommitOp> el : sharedElements) {
+      expected.add(el);
+    }
+    expected.add(added);
+    expected.remove(removedKey);
+
+    soft.assertThat(mutable.get(key("added"))).isEqualTo(added);
+    soft.assertThat(mutable.contains(removedKey)).isFalse();
+    soft.assertThat(newArrayList(mutable)).containsExactlyElementsOf(newArrayList(expected));
+    soft.assertThat(newArrayList(shared)).containsExactlyElementsOf(sharedElements);
+    soft.assertThat(shared.contains(key("added"))).isFalse();
+    soft.assertThat(shared.contains(removedKey)).isTrue();
+
+    // The overlay does not load stripes again or copy the shared index
+    for (int i = 0; i < NUM_STRIPES; i++) {
+      soft.assertThat(loads.get(i)).isEqualTo(0);
+    }
+
+    soft.assertThat(
+            newArrayList(deserializeStoreIndex(mutable.serialize(), COMMIT_OP_SERIALIZER)))
+        .containsExactlyElementsOf(newArrayList(expected));
+  }
+}
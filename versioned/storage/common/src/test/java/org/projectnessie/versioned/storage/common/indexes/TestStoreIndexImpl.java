@@ -18,6 +18,7 @@ package org.projectnessie.versioned.storage.common.indexes;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.emptySet;
 import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.UUID.randomUUID;
 import static java.util.stream.StreamSupport.stream;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexElement.indexElement;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.deserializeStoreIndex;
@@ -31,11 +32,13 @@ import static org.projectnessie.versioned.storage.common.objtypes.ObjIdSerialize
 import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.objIdFromString;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.zeroLengthObjId;
 import static org.projectnessie.versioned.storage.common.util.Util.asHex;
 import static org.projectnessie.versioned.storage.commontests.KeyIndexTestSet.basicIndexTestSet;
 
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -46,6 +49,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
 import org.projectnessie.versioned.storage.commontests.KeyIndexTestSet;
@@ -84,6 +88,10 @@ public class TestStoreIndexImpl {
     soft.assertThat(segment.isModified()).isFalse();
   }
 
+  private static ByteString serializeV2(StoreIndex<ObjId> index) {
+    return ((StoreIndexImpl<ObjId>) index).serialize(2);
+  }
+
   @Test
   public void keyIndexSegment() {
     StoreIndex<ObjId> segment = newStoreIndex(OBJ_ID_SERIALIZER);
@@ -152,7 +160,7 @@ public class TestStoreIndexImpl {
 
     Function<StoreIndex<ObjId>, StoreIndex<ObjId>> reSerializeFromV1 =
         seg -> {
-          byte[] serializedV2 = seg.serialize().toByteArray();
+          byte[] serializedV2 = serializeV2(seg).toByteArray();
           byte[] serializedV1 = new byte[serializedV2.length - 1];
           serializedV1[0] = 1;
           System.arraycopy(serializedV2, 2, serializedV1, 1, serializedV2.length - 2);
@@ -160,7 +168,7 @@ public class TestStoreIndexImpl {
               ByteBuffer.wrap(serializedV1), OBJ_ID_SERIALIZER);
         };
 
-    soft.assertThat(asHex(segment.serialize())).isEqualTo(serializationFormatVersion + "00");
+    soft.assertThat(asHex(serializeV2(segment))).isEqualTo(serializationFormatVersion + "00");
     soft.assertThat(reSerialize.apply(segment)).isEqualTo(segment);
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList()).isEmpty();
@@ -170,7 +178,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerialize.apply(segment)).isEqualTo(segment);
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList()).containsExactly(keyD);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "01"
@@ -180,7 +188,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerialize.apply(segment)).isEqualTo(segment);
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList()).containsExactly(keyB, keyD);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "02"
@@ -192,7 +200,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerialize.apply(segment)).isEqualTo(segment);
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList()).containsExactly(keyB, keyC, keyD);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "03"
@@ -206,7 +214,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerialize.apply(segment)).isEqualTo(segment);
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList()).containsExactly(keyB, keyC, keyD, keyE);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "04"
@@ -222,7 +230,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerialize.apply(segment)).isEqualTo(segment);
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList()).containsExactly(keyA, keyB, keyC, keyD, keyE);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "05"
@@ -240,7 +248,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerialize.apply(segment)).isEqualTo(segment);
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList()).containsExactly(keyA, keyB, keyC, keyD, keyE, keyExB);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "06"
@@ -261,7 +269,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList())
         .containsExactly(keyA, keyB, keyC, keyD, keyE, keyExB, keyExD);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "07"
@@ -284,7 +292,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList())
         .containsExactly(keyA, keyB, keyC, keyD, keyE, keyExB, keyExD, keyEyC);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "08"
@@ -309,7 +317,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList())
         .containsExactly(keyA, keyB, keyC, keyD, keyE, keyExB, keyExC, keyExD, keyEyC);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "09"
@@ -338,7 +346,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.asKeyList())
         .containsExactly(keyA, keyB, keyC, keyD, keyE, keyExB, keyExC, keyExD, keyEyC);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "09"
@@ -372,7 +380,7 @@ public class TestStoreIndexImpl {
     soft.assertThat(reSerialize.apply(segment)).isEqualTo(segment);
     soft.assertThat(reSerializeFromV1.apply(segment)).isEqualTo(segment);
     soft.assertThat(segment.elementCount()).isEqualTo(8);
-    soft.assertThat(asHex(segment.serialize()))
+    soft.assertThat(asHex(serializeV2(segment)))
         .isEqualTo(
             serializationFormatVersion //
                 + "08"
@@ -398,6 +406,89 @@ public class TestStoreIndexImpl {
     soft.assertThat(segment.get(keyD)).isNull();
   }
 
+  @Test
+  public void frontCodedSerialization() {
+    ObjId id1 = objIdFromString("12345678");
+    ObjId id2 = objIdFromString("1234567812345678123456781234567812345678123456781234567812345678");
+
+    StoreIndex<ObjId> segment = newStoreIndex(OBJ_ID_SERIALIZER);
+    segment.add(indexElement(key("a", "x", "A"), id1));
+    segment.add(indexElement(key("a", "x", "B"), id2));
+
+    soft.assertThat(asHex(segment.serialize()))
+        .isEqualTo(
+            "03" // version
+                + "02" // number of elements
+                + "10" // restart interval
+                + "61007800410000" // restart key
+                + "04" // 4 bytes hash
+                + id1
+                + "04" // shared prefix
+                + "420000"
+                + "20" // 32 bytes hash
+                + id2
+                + "00000003"); // restart offset
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {2, 3})
+  public void absentValuesRoundTrip(int version) {
+    CommitOp absent = commitOp(ADD, 1, null, null);
+    CommitOp present = commitOp(ADD, 1, randomObjId(), randomUUID());
+
+    StoreIndexImpl<CommitOp> index = new StoreIndexImpl<>(COMMIT_OP_SERIALIZER);
+    index.add(indexElement(key("a"), absent));
+    index.add(indexElement(key("b"), commitOp(ADD, 1, zeroLengthObjId(), new UUID(0L, 0L))));
+    index.add(indexElement(key("c"), present));
+
+    StoreIndex<CommitOp> deserialized =
+        deserializeStoreIndex(index.serialize(version), COMMIT_OP_SERIALIZER);
+    soft.assertThat(deserialized.get(key("a"))).isEqualTo(indexElement(key("a"), absent));
+    soft.assertThat(deserialized.get(key("b"))).isEqualTo(indexElement(key("b"), absent));
+    soft.assertThat(deserialized.get(key("c"))).isEqualTo(indexElement(key("c"), present));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 15, 16, 17, 100, 257})
+  public void restartPoints(int numKeys) {
+    StoreIndex<CommitOp> index = newStoreIndex(COMMIT_OP_SERIALIZER);
+    List<StoreKey> keys =
+        IntStream.range(0, numKeys)
+            .mapToObj(i -> key("ns" + (i / 10), String.format("table-%04d", i)))
+            .collect(Collectors.toList());
+    for (StoreKey key : keys) {
+      index.add(indexElement(key, commitOp(ADD, 1, randomObjId())));
+    }
+
+    ByteString serialized = index.serialize();
+    StoreIndex<CommitOp> deserialized = deserializeStoreIndex(serialized, COMMIT_OP_SERIALIZER);
+
+    soft.assertThat(deserialized.elementCount()).isEqualTo(numKeys);
+    soft.assertThat(serialized.size()).isLessThanOrEqualTo(index.estimatedSerializedSize());
+    soft.assertThat(deserialized.estimatedSerializedSize()).isEqualTo(serialized.size());
+    soft.assertThat(deserialized.serialize()).isEqualTo(serialized);
+    for (StoreKey key : keys) {
+      soft.assertThat(deserialized.get(key)).isEqualTo(index.get(key));
+    }
+    soft.assertThat(deserialized.get(key("ns", "missing"))).isNull();
+    soft.assertThat(deserialized.get(key("zzz"))).isNull();
+    soft.assertThat(deserialized.asKeyList()).containsExactlyElementsOf(keys);
+    soft.assertThat(deserialized).isEqualTo(index);
+
+    // version 2 serializations of both must be equal
+    soft.assertThat(((StoreIndexImpl<CommitOp>) deserialized).serialize(2))
+        .isEqualTo(((StoreIndexImpl<CommitOp>) index).serialize(2));
+
+    // removing the first element moves all restart points
+    if (numKeys > 0) {
+      deserialized.remove(keys.get(0));
+      StoreIndex<CommitOp> reserialized =
+          deserializeStoreIndex(deserialized.serialize(), COMMIT_OP_SERIALIZER);
+      soft.assertThat(reserialized.asKeyList())
+          .containsExactlyElementsOf(keys.subList(1, numKeys));
+    }
+  }
+
   @Test
   public void getFirstLast() {
     StoreIndex<CommitOp> index = newStoreIndex(COMMIT_OP_SERIALIZER);
@@ -523,4 +614,29 @@ public class TestStoreIndexImpl {
     soft.assertThat(index.isMutable()).isTrue();
     soft.assertThatCode(() -> index.divide(3)).doesNotThrowAnyException();
   }
+
+  @Test
+  public void lazilyDeserialized() {
+    KeyIndexTestSet<CommitOp> indexTestSet = basicIndexTestSet();
+    ByteString serialized = indexTestSet.serialized();
+    List<StoreKey> keys = indexTestSet.keyIndex().asKeyList();
+
+    StoreIndex<CommitOp> index = deserializeStoreIndex(serialized, COMMIT_OP_SERIALIZER);
+    soft.assertThat(index.serialize()).isEqualTo(serialized);
+    soft.assertThat(index.asKeyList()).containsExactlyElementsOf(keys);
+    for (StoreKey key : keys) {
+      soft.assertThat(index.get(key)).isEqualTo(indexTestSet.keyIndex().get(key));
+    }
+    soft.assertThat(index.get(key("does", "not", "exist"))).isNull();
+
+    // first modification materializes the elements
+    StoreKey added = key("!added");
+    soft.assertThat(index.add(indexElement(added, commitOp(ADD, 1, randomObjId())))).isTrue();
+    soft.assertThat(index.remove(keys.get(keys.size() - 1))).isTrue();
+    soft.assertThat(index.elementCount()).isEqualTo(keys.size());
+    soft.assertThat(index.first()).isEqualTo(added);
+    soft.assertThat(index.serialize()).isNotEqualTo(serialized);
+    soft.assertThat(deserializeStoreIndex(index.serialize(), COMMIT_OP_SERIALIZER))
+        .isEqualTo(index);
+  }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.indexes;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKey.key;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter.BITS_PER_KEY;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter.MIN_BITS_PER_KEY;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter.deserializeKeyFilter;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter.keyFilter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.projectnessie.nessie.relocated.protobuf.ByteString;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestStoreKeyFilter {
+  @InjectSoftAssertions SoftAssertions soft;
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 100, 1000, 10000})
+  public void noFalseNegatives(int numKeys) {
+    List<StoreKey> keys = keys("present", numKeys);
+    StoreKeyFilter filter = keyFilter(keys);
+
+    soft.assertThat(keys).allMatch(filter::mightContain);
+
+    StoreKeyFilter deserialized = deserializeKeyFilter(filter.serialize());
+    soft.assertThat(keys).allMatch(deserialized::mightContain);
+  }
+
+  @Test
+  public void falsePositiveRate() {
+    StoreKeyFilter filter = keyFilter(keys("present", 500));
+
+    long falsePositives = keys("absent", 10000).stream().filter(filter::mightContain).count();
+
+    // ~2% expected, allow some headroom
+    soft.assertThat(falsePositives).isLessThan(500);
+  }
+
+  @Test
+  public void sizeLimit() {
+    List<StoreKey> keys = keys("present", 1000);
+
+    StoreKeyFilter filter = keyFilter(keys, 1024);
+    soft.assertThat(filter).isNotNull();
+    soft.assertThat(filter.serialize().size()).isLessThanOrEqualTo(1024);
+    soft.assertThat(keys).allMatch(filter::mightContain);
+
+    soft.assertThat(keyFilter(keys, 600)).extracting(f -> f.serialize().size()).isEqualTo(600);
+    soft.assertThat(keyFilter(keys, 1000 * MIN_BITS_PER_KEY / 8)).isNull();
+    soft.assertThat(keyFilter(keys, 0)).isNull();
+
+    soft.assertThat(keyFilter(keys).serialize().size()).isEqualTo(1000 * BITS_PER_KEY / 8 + 2);
+    soft.assertThat(keyFilter(emptyList()).mightContain(key("foo"))).isFalse();
+  }
+
+  @Test
+  public void stableSerialization() {
+    StoreKeyFilter filter = keyFilter(keys("present", 3));
+    soft.assertThat(filter.serialize()).isEqualTo(keyFilter(keys("present", 3)).serialize());
+  }
+
+  @Test
+  public void invalidSerialization() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> deserializeKeyFilter(ByteString.copyFrom(new byte[] {5})));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> deserializeKeyFilter(ByteString.copyFrom(new byte[] {0, 0, 0})));
+    soft.assertThat(deserializeKeyFilter(null)).isNull();
+  }
+
+  private static List<StoreKey> keys(String prefix, int numKeys) {
+    return IntStream.range(0, numKeys)
+        .mapToObj(i -> key("namespace", prefix + "-" + i, "table"))
+        .collect(Collectors.toList());
+  }
+}
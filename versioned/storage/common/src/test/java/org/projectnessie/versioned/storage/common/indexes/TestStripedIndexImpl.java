@@ -29,16 +29,21 @@ import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.in
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.lazyStoreIndex;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.newStoreIndex;
 import static org.projectnessie.versioned.storage.common.indexes.StoreKey.keyFromString;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter.keyFilter;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.Action.ADD;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.COMMIT_OP_SERIALIZER;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.commitOp;
+import static org.projectnessie.versioned.storage.common.persist.BackgroundExecutor.newBackgroundExecutor;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
 import static org.projectnessie.versioned.storage.commontests.KeyIndexTestSet.basicIndexTestSet;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -50,10 +55,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
+import org.projectnessie.versioned.storage.common.persist.BackgroundExecutor;
 import org.projectnessie.versioned.storage.commontests.KeyIndexTestSet;
 
 @ExtendWith(SoftAssertionsExtension.class)
 public class TestStripedIndexImpl {
+  static final int READ_AHEAD_STRIPES = 4;
+
   @InjectSoftAssertions SoftAssertions soft;
 
   @Test
@@ -447,6 +455,190 @@ public class TestStripedIndexImpl {
         .isInstanceOf(UnsupportedOperationException.class);
   }
 
+  @Test
+  public void keyFilters() {
+    KeyIndexTestSet<CommitOp> indexTestSet = basicIndexTestSet();
+    List<StoreIndex<CommitOp>> stripes = indexTestSet.keyIndex().divide(4);
+    int numStripes = stripes.size();
+
+    boolean[] individualLoads = new boolean[numStripes];
+    boolean[] bulkLoads = new boolean[numStripes];
+
+    List<StoreKey> firstLastKeys =
+        stripes.stream().flatMap(s -> Stream.of(s.first(), s.last())).collect(Collectors.toList());
+    List<StoreKeyFilter> keyFilters =
+        stripes.stream().map(s -> keyFilter(s.asKeyList())).collect(Collectors.toList());
+
+    Supplier<StoreIndex<CommitOp>> lazyIndexSupplier =
+        () -> {
+          Arrays.fill(bulkLoads, false);
+          Arrays.fill(individualLoads, false);
+
+          List<StoreIndex<CommitOp>> lazyStripes = new ArrayList<>(numStripes);
+          for (int i = 0; i < numStripes; i++) {
+            StoreIndex<CommitOp> stripe = stripes.get(i);
+            int index = i;
+            lazyStripes.add(
+                lazyStoreIndex(
+                    () -> {
+                      individualLoads[index] = true;
+                      return stripe;
+                    },
+                    stripe.first(),
+                    stripe.last(),
+                    keyFilters.get(i)));
+          }
+
+          return indexFromSplits(
+              lazyStripes,
+              firstLastKeys,
+              indexes -> {
+                @SuppressWarnings("unchecked")
+                StoreIndex<CommitOp>[] r = new StoreIndex[indexes.length];
+                for (int i = 0; i < indexes.length; i++) {
+                  if (indexes[i] != null) {
+                    bulkLoads[i] = true;
+                    r[i] = stripes.get(i);
+                  }
+                }
+                return r;
+              });
+        };
+
+    // Keys within the key range of a stripe, that are neither contained in the stripe nor in the
+    // stripe's key filter.
+    Set<StoreKey> absentKeys = new HashSet<>();
+    for (int i = 0; i < numStripes; i++) {
+      StoreIndex<CommitOp> stripe = stripes.get(i);
+      List<StoreKey> keys = stripe.asKeyList();
+      for (int k = 0; k < keys.size() - 1; k++) {
+        StoreKey candidate = keyFromString(keys.get(k).rawString() + "-absent");
+        if (candidate.compareTo(keys.get(k + 1)) < 0
+            && !keyFilters.get(i).mightContain(candidate)) {
+          absentKeys.add(candidate);
+        }
+      }
+    }
+    soft.assertThat(absentKeys).isNotEmpty();
+
+    StoreIndex<CommitOp> lazyStripedIndex = lazyIndexSupplier.get();
+    lazyStripedIndex.loadIfNecessary(absentKeys);
+    for (StoreKey key : absentKeys) {
+      soft.assertThat(lazyStripedIndex.contains(key)).isFalse();
+      soft.assertThat(lazyStripedIndex.get(key)).isNull();
+    }
+    soft.assertThat(lazyStripedIndex.isLoaded()).isFalse();
+    soft.assertThat(bulkLoads).containsOnly(false);
+    soft.assertThat(individualLoads).containsOnly(false);
+
+    // Existing keys are still found
+    lazyStripedIndex = lazyIndexSupplier.get();
+    Set<StoreKey> existingKeys = singleton(stripes.get(1).asKeyList().get(1));
+    lazyStripedIndex.loadIfNecessary(existingKeys);
+    soft.assertThat(lazyStripedIndex.contains(stripes.get(1).asKeyList().get(1))).isTrue();
+    soft.assertThat(bulkLoads).containsExactly(false, true, false, false);
+    soft.assertThat(individualLoads).containsOnly(false);
+
+    // Updates need the stripes that receive the keys, regardless of the key filters
+    lazyStripedIndex = lazyIndexSupplier.get();
+    lazyStripedIndex.loadForUpdate(absentKeys);
+    for (StoreKey key : absentKeys) {
+      lazyStripedIndex.add(indexElement(key, commitOp(ADD, 1, randomObjId())));
+    }
+    soft.assertThat(bulkLoads).contains(true);
+    soft.assertThat(individualLoads).containsOnly(false);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {2, 3, READ_AHEAD_STRIPES + 1, 2 * READ_AHEAD_STRIPES + 3})
+  public void readAhead(int numStripes) {
+    KeyIndexTestSet<CommitOp> indexTestSet = basicIndexTestSet();
+    StoreIndex<CommitOp> source = indexTestSet.keyIndex();
+    List<StoreIndex<CommitOp>> stripes = source.divide(numStripes);
+
+    List<StoreKey> firstLastKeys =
+        stripes.stream().flatMap(s -> Stream.of(s.first(), s.last())).collect(Collectors.toList());
+
+    AtomicInteger individualLoads = new AtomicInteger();
+    AtomicInteger bulkLoads = new AtomicInteger();
+    Set<String> loaderThreads = ConcurrentHashMap.newKeySet();
+
+    Supplier<List<StoreIndex<CommitOp>>> lazyStripes =
+        () ->
+            stripes.stream()
+                .map(
+                    stripe ->
+                        lazyStoreIndex(
+                            () -> {
+                              individualLoads.incrementAndGet();
+                              return stripe;
+                            }))
+                .collect(Collectors.toList());
+    IndexLoader<CommitOp> loader =
+        indexes -> {
+          loaderThreads.add(Thread.currentThread().getName());
+          @SuppressWarnings("unchecked")
+          StoreIndex<CommitOp>[] r = new StoreIndex[indexes.length];
+          for (int i = 0; i < indexes.length; i++) {
+            if (indexes[i] != null) {
+              bulkLoads.incrementAndGet();
+              r[i] = stripes.get(i);
+            }
+          }
+          return r;
+        };
+
+    // Read-ahead is disabled by default, stripes are loaded individually by the iterating thread
+    soft.assertThat(
+            newArrayList(indexFromSplits(lazyStripes.get(), firstLastKeys, loader).iterator()))
+        .containsExactlyElementsOf(newArrayList(source));
+    soft.assertThat(individualLoads).hasValue(numStripes);
+    soft.assertThat(bulkLoads).hasValue(0);
+    soft.assertThat(loaderThreads).isEmpty();
+
+    BackgroundExecutor executor = newBackgroundExecutor(2, 16);
+    try {
+      individualLoads.set(0);
+      StoreIndex<CommitOp> striped =
+          indexFromSplits(lazyStripes.get(), firstLastKeys, loader, READ_AHEAD_STRIPES, executor);
+      // Pending loads that have not been started by the executor are performed by the iterating
+      // thread
+      String testThread = Thread.currentThread().getName();
+
+      soft.assertThat(newArrayList(striped.iterator(null, null, false)))
+          .containsExactlyElementsOf(newArrayList(source));
+
+      // The first two stripes are loaded by the iterating thread, read-ahead starts with the third
+      // stripe
+      soft.assertThat(individualLoads).hasValue(2);
+      soft.assertThat(bulkLoads).hasValue(numStripes - 2);
+      soft.assertThat(loaderThreads)
+          .allMatch(n -> n.startsWith("nessie-storage-background-") || n.equals(testThread));
+
+      // No read-ahead, if only elements of the first stripe are consumed
+      individualLoads.set(0);
+      bulkLoads.set(0);
+      StoreIndex<CommitOp> fresh =
+          indexFromSplits(lazyStripes.get(), firstLastKeys, loader, READ_AHEAD_STRIPES, executor);
+      soft.assertThat(fresh.iterator(null, null, false).next())
+          .isEqualTo(source.iterator().next());
+      soft.assertThat(individualLoads).hasValue(1);
+      soft.assertThat(bulkLoads).hasValue(0);
+
+      // Read-ahead is best effort, stripes are loaded individually, if the loader fails
+      List<StoreIndex<CommitOp>> lazyOnly =
+          stripes.stream().map(s -> lazyStoreIndex(() -> s)).collect(Collectors.toList());
+      soft.assertThat(
+              newArrayList(
+                  indexFromSplits(
+                          lazyOnly, firstLastKeys, notLoading(), READ_AHEAD_STRIPES, executor)
+                      .iterator()))
+          .containsExactlyElementsOf(newArrayList(source));
+    } finally {
+      executor.close();
+    }
+  }
+
   @ParameterizedTest
   @ValueSource(booleans = {false, true})
   public void modifyingStripedRemoveIterative(boolean lazy) {
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(SoftAssertionsExtension.class)
+public class TestCommitLogReadAhead {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @Test
+  public void cancelPendingFetches() {
+    List<Runnable> scheduled = new ArrayList<>();
+    AtomicInteger fetches = new AtomicInteger();
+
+    Deque<CompletableFuture<Integer>> pending = new ArrayDeque<>();
+    CompletableFuture<Integer> last = CompletableFuture.completedFuture(0);
+    for (int i = 0; i < 3; i++) {
+      last =
+          CommitLogReadAhead.readAhead(
+              last,
+              v -> {
+                fetches.incrementAndGet();
+                return v + 1;
+              },
+              scheduled::add);
+      pending.addLast(last);
+    }
+
+    // Run the first fetch
+    soft.assertThat(scheduled).hasSize(1);
+    scheduled.remove(0).run();
+    soft.assertThat(fetches).hasValue(1);
+    soft.assertThat(CommitLogReadAhead.await(pending.pollFirst())).isEqualTo(1);
+    soft.assertThat(scheduled).hasSize(1);
+
+    CommitLogReadAhead.cancel(pending);
+    soft.assertThat(pending).isEmpty();
+
+    // The already scheduled fetch is not performed
+    scheduled.forEach(Runnable::run);
+    soft.assertThat(fetches).hasValue(1);
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.logic;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.projectnessie.versioned.storage.common.logic.CommonAncestorCache.NO_COMMON_ANCESTOR;
+import static org.projectnessie.versioned.storage.common.logic.CommonAncestorCache.commonAncestorCache;
+import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+import static org.projectnessie.versioned.storage.commontests.AbstractCommitLogicTests.stdCommit;
+
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.versioned.storage.common.logic.CommonAncestorCache.CommonAncestor;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.testextension.NessiePersist;
+import org.projectnessie.versioned.storage.testextension.PersistExtension;
+
+@ExtendWith({PersistExtension.class, SoftAssertionsExtension.class})
+public class TestCommonAncestorCache {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @NessiePersist protected Persist persist;
+
+  private int commitNum;
+
+  @Test
+  public void cachedPerCommits() throws Exception {
+    CommitLogic commitLogic = countingCommitLogic();
+    CommonAncestorCache cache = commonAncestorCache(10);
+
+    CommitObj root = commit(commitLogic, null);
+    CommitObj base = commit(commitLogic, commit(commitLogic, root));
+    CommitObj head = commit(commitLogic, commit(commitLogic, root));
+
+    CommonAncestor ancestor = cache.commonAncestor(commitLogic, base, head);
+    soft.assertThat(ancestor.id()).isEqualTo(root.id());
+    soft.assertThat(ancestor.seq()).isEqualTo(root.seq());
+    soft.assertThat(ancestor.exists()).isTrue();
+
+    soft.assertThat(cache.commonAncestor(commitLogic, base, head)).isSameAs(ancestor);
+    verify(commitLogic, times(1)).findCommonAncestor(base.id(), head.id());
+
+    // Not cached, if disabled
+    CommonAncestorCache disabled = commonAncestorCache(0);
+    clearInvocations(commitLogic);
+    soft.assertThat(disabled.commonAncestor(commitLogic, base, head).id()).isEqualTo(root.id());
+    soft.assertThat(disabled.commonAncestor(commitLogic, base, head).id()).isEqualTo(root.id());
+    verify(commitLogic, times(2)).findCommonAncestor(base.id(), head.id());
+  }
+
+  @Test
+  public void noCommonAncestor() throws Exception {
+    CommitLogic commitLogic = countingCommitLogic();
+    CommonAncestorCache cache = commonAncestorCache(10);
+
+    CommitObj base = commit(commitLogic, commit(commitLogic, null));
+    CommitObj head = commit(commitLogic, commit(commitLogic, null));
+
+    CommonAncestor ancestor = cache.commonAncestor(commitLogic, base, head);
+    soft.assertThat(ancestor).isSameAs(NO_COMMON_ANCESTOR);
+    soft.assertThat(ancestor.exists()).isFalse();
+    soft.assertThat(ancestor.id()).isEqualTo(EMPTY_OBJ_ID);
+    soft.assertThat(ancestor.seq()).isEqualTo(0L);
+
+    // Still no common ancestor, derived from the cached result
+    clearInvocations(commitLogic);
+    base = commit(commitLogic, base);
+    soft.assertThat(cache.commonAncestor(commitLogic, base, head)).isSameAs(NO_COMMON_ANCESTOR);
+    verify(commitLogic, never()).findCommonAncestor(any(), any());
+  }
+
+  @Test
+  public void baseMovedForward() throws Exception {
+    CommitLogic commitLogic = countingCommitLogic();
+    CommonAncestorCache cache = commonAncestorCache(10);
+
+    CommitObj root = commit(commitLogic, null);
+    CommitObj fork = commit(commitLogic, root);
+    CommitObj base = commit(commitLogic, fork);
+    CommitObj head = commit(commitLogic, commit(commitLogic, fork));
+
+    soft.assertThat(cache.commonAncestor(commitLogic, base, head).id()).isEqualTo(fork.id());
+
+    clearInvocations(commitLogic);
+    for (int i = 0; i < 3; i++) {
+      base = commit(commitLogic, base);
+      CommonAncestor ancestor = cache.commonAncestor(commitLogic, base, head);
+      soft.assertThat(ancestor.id()).isEqualTo(fork.id());
+      soft.assertThat(ancestor.seq()).isEqualTo(fork.seq());
+    }
+    verify(commitLogic, never()).findCommonAncestor(any(), any());
+
+    // Base moved too far, not derivable
+    CommitObj farBase = base;
+    for (int i = 0; i < persist.config().parentsPerCommit() + 1; i++) {
+      farBase = commit(commitLogic, farBase);
+    }
+    soft.assertThat(cache.commonAncestor(commitLogic, farBase, head).id()).isEqualTo(fork.id());
+    verify(commitLogic, times(1)).findCommonAncestor(farBase.id(), head.id());
+  }
+
+  @Test
+  public void baseMovedOntoHead() throws Exception {
+    CommitLogic commitLogic = countingCommitLogic();
+    CommonAncestorCache cache = commonAncestorCache(10);
+
+    CommitObj fork = commit(commitLogic, commit(commitLogic, null));
+    CommitObj base = commit(commitLogic, fork);
+    CommitObj head = commit(commitLogic, base);
+    head = commit(commitLogic, head);
+
+    soft.assertThat(cache.commonAncestor(commitLogic, fork, head).id()).isEqualTo(fork.id());
+
+    // The base moved forward onto commits in the first-parent log of 'head'
+    clearInvocations(commitLogic);
+    CommonAncestor ancestor = cache.commonAncestor(commitLogic, base, head);
+    soft.assertThat(ancestor.id()).isEqualTo(base.id());
+    soft.assertThat(ancestor.seq()).isEqualTo(base.seq());
+    verify(commitLogic, never()).findCommonAncestor(any(), any());
+
+    // The base moved forward past 'head'
+    CommitObj newBase = commit(commitLogic, head);
+    ancestor = cache.commonAncestor(commitLogic, newBase, head);
+    soft.assertThat(ancestor.id()).isEqualTo(head.id());
+    soft.assertThat(ancestor.seq()).isEqualTo(head.seq());
+    verify(commitLogic, never()).findCommonAncestor(any(), any());
+  }
+
+  private CommitLogic countingCommitLogic() {
+    return mock(CommitLogic.class, delegatesTo(commitLogic(persist)));
+  }
+
+  private CommitObj commit(CommitLogic commitLogic, CommitObj parent) throws Exception {
+    return requireNonNull(
+        commitLogic.doCommit(
+            stdCommit()
+                .parentCommitId(parent != null ? parent.id() : EMPTY_OBJ_ID)
+                .message("commit " + ++commitNum)
+                .build(),
+            emptyList()));
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.logic;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexElement.indexElement;
+import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.newStoreIndex;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKey.key;
+import static org.projectnessie.versioned.storage.common.logic.CompleteIndexCache.completeIndexCache;
+import static org.projectnessie.versioned.storage.common.logic.CreateCommit.Add.commitAdd;
+import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
+import static org.projectnessie.versioned.storage.common.logic.Logics.indexesLogic;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitObj.commitBuilder;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.Action.ADD;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.COMMIT_OP_SERIALIZER;
+import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.commitOp;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
+import static org.projectnessie.versioned.storage.commontests.AbstractCommitLogicTests.stdCommit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.versioned.storage.common.indexes.StoreIndex;
+import org.projectnessie.versioned.storage.common.indexes.StoreIndexElement;
+import org.projectnessie.versioned.storage.common.indexes.StoreKey;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.testextension.NessiePersist;
+import org.projectnessie.versioned.storage.testextension.PersistExtension;
+
+@ExtendWith({PersistExtension.class, SoftAssertionsExtension.class})
+public class TestCompleteIndexCache {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @NessiePersist protected Persist persist;
+
+  static final long CAPACITY = 16 * 1024 * 1024;
+
+  @Test
+  public void sharedPerCommit() throws Exception {
+    IndexesLogic indexesLogic = indexesLogic(persist);
+    CompleteIndexCache cache = completeIndexCache(persist, CAPACITY);
+
+    CommitObj commit = commitWithKeys(10);
+
+    StoreIndex<CommitOp> index = cache.completeIndex(commit);
+    soft.assertThat(cache.completeIndex(commit)).isSameAs(index);
+    CommitObj fetched = commitLogic(persist).fetchCommit(commit.id());
+    soft.assertThat(cache.completeIndex(fetched)).isSameAs(index);
+    soft.assertThat(newArrayList(index))
+        .containsExactlyElementsOf(
+            newArrayList(indexesLogic.buildCompleteIndex(commit, Optional.empty())));
+
+    soft.assertThat(cache.completeIndex(null)).isEmpty();
+
+    // Not cached, if disabled
+    CompleteIndexCache disabled = completeIndexCache(persist, 0L);
+    soft.assertThat(disabled.completeIndex(commit))
+        .isNotSameAs(disabled.completeIndex(commit));
+  }
+
+  @Test
+  public void updatedCommit() throws Exception {
+    CompleteIndexCache cache = completeIndexCache(persist, CAPACITY);
+
+    CommitObj commit = commitWithKeys(3);
+    StoreIndex<CommitOp> index = cache.completeIndex(commit);
+
+    StoreIndex<CommitOp> incremental = newStoreIndex(COMMIT_OP_SERIALIZER);
+    incremental.add(indexElement(key("other"), commitOp(ADD, 0, randomObjId())));
+    CommitObj updated =
+        commitLogic(persist)
+            .updateCommit(
+                commitBuilder().from(commit).incrementalIndex(incremental.serialize()).build());
+
+    StoreIndex<CommitOp> updatedIndex = cache.completeIndex(updated);
+    soft.assertThat(updatedIndex).isNotSameAs(index);
+    soft.assertThat(updatedIndex.asKeyList()).containsExactly(key("other"));
+  }
+
+  @Test
+  public void copyOnWrite() throws Exception {
+    CompleteIndexCache cache = completeIndexCache(persist, CAPACITY);
+
+    CommitObj commit = commitWithKeys(3);
+    StoreIndex<CommitOp> index = cache.completeIndex(commit);
+
+    CommitOp op = commitOp(ADD, 0, randomObjId());
+    soft.assertThatThrownBy(() -> index.add(indexElement(key("foo"), op)))
+        .isInstanceOf(UnsupportedOperationException.class);
+    soft.assertThatThrownBy(() -> index.remove(key("key-0")))
+        .isInstanceOf(UnsupportedOperationException.class);
+
+    StoreIndex<CommitOp> mutable = index.asMutableIndex();
+    soft.assertThat(mutable.isMutable()).isTrue();
+    mutable.add(indexElement(key("foo"), op));
+    mutable.remove(key("key-0"));
+
+    soft.assertThat(index.contains(key("foo"))).isFalse();
+    soft.assertThat(index.contains(key("key-0"))).isTrue();
+    soft.assertThat(cache.completeIndex(commit).elementCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void concurrentReads() throws Exception {
+    CompleteIndexCache cache = completeIndexCache(persist, CAPACITY);
+
+    int numKeys = 200;
+    CommitObj commit = commitWithKeys(numKeys);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  StoreIndex<CommitOp> index = cache.completeIndex(commit);
+                  int found = 0;
+                  for (int k = 0; k < numKeys; k++) {
+                    StoreIndexElement<CommitOp> el = index.get(key("key-" + k));
+                    if (el != null && el.content().action().exists()) {
+                      found++;
+                    }
+                  }
+                  return found + index.asKeyList().size();
+                }));
+      }
+      for (Future<Integer> future : futures) {
+        soft.assertThat(future.get()).isEqualTo(2 * numKeys);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void boundedByWeight() throws Exception {
+    CommitObj commit = commitWithKeys(10);
+
+    // The estimated size of the index exceeds the capacity
+    CompleteIndexCache cache = completeIndexCache(persist, 10L);
+    soft.assertThat(cache.completeIndex(commit)).isNotSameAs(cache.completeIndex(commit));
+  }
+
+  @Test
+  public void scopedToPersist() {
+    CompleteIndexCache cache = completeIndexCache(persist, CAPACITY);
+    soft.assertThat(cache.persist()).isSameAs(persist);
+  }
+
+  private CommitObj commitWithKeys(int numKeys) throws Exception {
+    CommitLogic commitLogic = commitLogic(persist);
+    ObjId head = EMPTY_OBJ_ID;
+    for (int i = 0; i < numKeys; i += 10) {
+      CreateCommit.Builder createCommit = stdCommit().parentCommitId(head);
+      for (int k = i; k < Math.min(i + 10, numKeys); k++) {
+        StoreKey key = key("key-" + k);
+        createCommit.addAdds(commitAdd(key, 0, randomObjId(), null, null));
+      }
+      head = requireNonNull(commitLogic.doCommit(createCommit.build(), emptyList())).id();
+    }
+    return requireNonNull(commitLogic.fetchCommit(head));
+  }
+}
@@ -28,6 +28,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.InstanceOfAssertFactories.list;
 import static org.assertj.core.api.InstanceOfAssertFactories.type;
 import static org.projectnessie.nessie.relocated.protobuf.ByteString.copyFromUtf8;
+import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_MAX_DEFERRED_INCREMENTAL_INDEX_SIZE;
 import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_MAX_INCREMENTAL_INDEX_SIZE;
 import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_MAX_REFERENCE_STRIPES_PER_COMMIT;
 import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_MAX_SERIALIZED_INDEX_SIZE;
@@ -35,8 +36,11 @@ import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.de
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.newStoreIndex;
 import static org.projectnessie.versioned.storage.common.indexes.StoreKey.key;
 import static org.projectnessie.versioned.storage.common.indexes.StoreKey.keyFromString;
+import static org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter.deserializeKeyFilter;
 import static org.projectnessie.versioned.storage.common.logic.CreateCommit.Add.commitAdd;
 import static org.projectnessie.versioned.storage.common.logic.CreateCommit.Remove.commitRemove;
+import static org.projectnessie.versioned.storage.common.logic.DiffEntry.diffEntry;
+import static org.projectnessie.versioned.storage.common.logic.DiffQuery.diffQuery;
 import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
 import static org.projectnessie.versioned.storage.common.logic.Logics.indexesLogic;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitObj.commitBuilder;
@@ -60,11 +64,13 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
 import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
@@ -75,6 +81,7 @@ import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundExceptio
 import org.projectnessie.versioned.storage.common.indexes.StoreIndex;
 import org.projectnessie.versioned.storage.common.indexes.StoreIndexElement;
 import org.projectnessie.versioned.storage.common.indexes.StoreKey;
+import org.projectnessie.versioned.storage.common.indexes.StoreKeyFilter;
 import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
 import org.projectnessie.versioned.storage.common.objtypes.IndexObj;
@@ -410,6 +417,11 @@ public class TestReferenceIndexes {
       soft.assertThat(index.last()).isEqualTo(stripe.lastKey());
       soft.assertThat(newArrayList(index))
           .allSatisfy(el -> assertThat(el.content().action()).isSameAs(NONE));
+
+      StoreKeyFilter keyFilter = deserializeKeyFilter(stripe.keyFilter());
+      if (keyFilter != null) {
+        soft.assertThat(index.asKeyList()).allMatch(keyFilter::mightContain);
+      }
     }
   }
 
@@ -571,4 +583,162 @@ public class TestReferenceIndexes {
       soft.assertThat(newArrayList(updatedIndex)).isEqualTo(newArrayList(completeIndex));
     }
   }
+
+  @Test
+  public void diffWithSharedStripes(
+      @NessieStoreConfig(name = CONFIG_MAX_INCREMENTAL_INDEX_SIZE, value = "1024")
+          @NessieStoreConfig(name = CONFIG_MAX_SERIALIZED_INDEX_SIZE, value = "1200")
+          @NessiePersist
+          Persist persist)
+      throws Exception {
+    CommitLogic commitLogic = commitLogic(persist);
+    IndexesLogic indexesLogic = indexesLogic(persist);
+
+    @SuppressWarnings("InlineMeInliner")
+    String twentyFiveChars = Strings.repeat("-aaaa", 5);
+    IntFunction<StoreKey> key = i -> key(format("%03d", i) + twentyFiveChars);
+
+    Map<StoreKey, ObjId> knownKeys = new LinkedHashMap<>();
+    List<CommitObj> commits = new ArrayList<>();
+    ObjId tip = EMPTY_OBJ_ID;
+    for (int i = 0; i < 40; i++) {
+      CreateCommit.Builder createCommit = stdCommit().parentCommitId(tip);
+      for (int k = 0; k < 5; k++) {
+        ObjId value = randomObjId();
+        knownKeys.put(key.apply(i * 5 + k), value);
+        createCommit.addAdds(commitAdd(key.apply(i * 5 + k), 0, value, null, null));
+      }
+      if (i > 0) {
+        StoreKey removed = key.apply((i - 1) * 5);
+        createCommit.addRemoves(commitRemove(removed, 0, knownKeys.remove(removed), null));
+      }
+      tip = requireNonNull(commitLogic.doCommit(createCommit.build(), emptyList())).id();
+      commits.add(requireNonNull(commitLogic.fetchCommit(tip)));
+    }
+
+    boolean anyShared = false;
+    for (int i = 0; i < commits.size(); i += 3) {
+      for (int j = i + 1; j < commits.size(); j += 4) {
+        CommitObj c1 = commits.get(i);
+        CommitObj c2 = commits.get(j);
+
+        Set<ObjId> segments1 =
+            indexesLogic.referenceIndexStripes(c1).stream()
+                .map(IndexStripe::segment)
+                .collect(Collectors.toSet());
+        anyShared |=
+            indexesLogic.referenceIndexStripes(c2).stream()
+                .map(IndexStripe::segment)
+                .anyMatch(segments1::contains);
+
+        for (boolean prefetch : asList(false, true)) {
+          soft.assertThat(commitLogic.diff(diffQuery(c1, c2, prefetch, null)))
+              .toIterable()
+              .containsExactlyElementsOf(expectedDiff(indexesLogic, c1, c2, null, null));
+          soft.assertThat(commitLogic.diff(diffQuery(c2, c1, prefetch, null)))
+              .toIterable()
+              .containsExactlyElementsOf(expectedDiff(indexesLogic, c2, c1, null, null));
+
+          StoreKey start = key.apply(50);
+          StoreKey end = key.apply(150);
+          soft.assertThat(commitLogic.diff(diffQuery(null, c1, c2, start, end, prefetch, null)))
+              .toIterable()
+              .containsExactlyElementsOf(expectedDiff(indexesLogic, c1, c2, start, end));
+        }
+      }
+    }
+    soft.assertThat(anyShared).isTrue();
+  }
+
+  @Test
+  public void deferredIndexCompaction(
+      @NessieStoreConfig(name = CONFIG_MAX_INCREMENTAL_INDEX_SIZE, value = "1024")
+          @NessieStoreConfig(name = CONFIG_MAX_DEFERRED_INCREMENTAL_INDEX_SIZE, value = "65536")
+          @NessieStoreConfig(name = CONFIG_MAX_SERIALIZED_INDEX_SIZE, value = "2048")
+          @NessiePersist
+          Persist persist)
+      throws Exception {
+    CommitLogic commitLogic = commitLogic(persist);
+    IndexesLogic indexesLogic = indexesLogic(persist);
+
+    @SuppressWarnings("InlineMeInliner")
+    String fiftyChars = Strings.repeat("-aaaa", 10);
+    IntFunction<StoreKey> key = i -> key(format("%04d", i) + fiftyChars);
+
+    Set<StoreKey> knownKeys = new HashSet<>();
+    ObjId tip = EMPTY_OBJ_ID;
+    CommitObj deferred = null;
+    for (int i = 0; deferred == null; i++) {
+      CreateCommit.Builder createCommit = stdCommit().parentCommitId(tip);
+      for (int k = 0; k < 5; k++) {
+        knownKeys.add(key.apply(i * 5 + k));
+        createCommit.addAdds(commitAdd(key.apply(i * 5 + k), 0, randomObjId(), null, null));
+      }
+      // The returned commit is the one that has been persisted, before the compaction
+      CommitObj commit = requireNonNull(commitLogic.doCommit(createCommit.build(), emptyList()));
+      tip = commit.id();
+      if (commit.incrementalIndex().size() > 1024) {
+        deferred = commit;
+      }
+    }
+
+    // The commit's been persisted without updating the reference index
+    soft.assertThat(deferred.hasReferenceIndex()).isFalse();
+    soft.assertThat(requireNonNull(commitLogic.fetchCommit(tip)).incrementalIndex())
+        .isEqualTo(deferred.incrementalIndex());
+
+    // Build the reference index, what the version store schedules in the background
+    commitLogic.compactIncrementalIndex(tip);
+    CommitObj compacted = requireNonNull(commitLogic.fetchCommit(tip));
+
+    soft.assertThat(compacted.incrementalIndex().size()).isLessThanOrEqualTo(1024);
+    soft.assertThat(compacted.hasReferenceIndex()).isTrue();
+    soft.assertThat(indexesLogic.buildCompleteIndexOrEmpty(compacted).asKeyList())
+        .containsExactlyInAnyOrderElementsOf(knownKeys);
+
+    // Following commits pick up the reference index
+    StoreKey next = key.apply(9999);
+    CommitObj following =
+        requireNonNull(
+            commitLogic.doCommit(
+                stdCommit()
+                    .parentCommitId(tip)
+                    .addAdds(commitAdd(next, 0, randomObjId(), null, null))
+                    .build(),
+                emptyList()));
+    knownKeys.add(next);
+    soft.assertThat(following.incrementalIndex().size()).isLessThanOrEqualTo(1024);
+    soft.assertThat(following.referenceIndexStripes())
+        .isEqualTo(compacted.referenceIndexStripes());
+    soft.assertThat(indexesLogic.buildCompleteIndexOrEmpty(following).asKeyList())
+        .containsExactlyInAnyOrderElementsOf(knownKeys);
+  }
+
+  /** Computes the diff by iterating over the complete indexes of both commits. */
+  private static List<DiffEntry> expectedDiff(
+      IndexesLogic indexesLogic, CommitObj from, CommitObj to, StoreKey start, StoreKey end) {
+    Map<StoreKey, ObjId> fromValues = existingValues(indexesLogic, from, start, end);
+    Map<StoreKey, ObjId> toValues = existingValues(indexesLogic, to, start, end);
+    return Stream.concat(fromValues.keySet().stream(), toValues.keySet().stream())
+        .distinct()
+        .sorted()
+        .filter(k -> !Objects.equals(fromValues.get(k), toValues.get(k)))
+        .map(k -> diffEntry(k, fromValues.get(k), 0, null, toValues.get(k), 0, null))
+        .collect(toList());
+  }
+
+  private static Map<StoreKey, ObjId> existingValues(
+      IndexesLogic indexesLogic, CommitObj commit, StoreKey start, StoreKey end) {
+    Map<StoreKey, ObjId> values = new LinkedHashMap<>();
+    indexesLogic
+        .buildCompleteIndexOrEmpty(commit)
+        .iterator(start, end, false)
+        .forEachRemaining(
+            el -> {
+              if (el.content().action().exists()) {
+                values.put(el.key(), el.content().value());
+              }
+            });
+    return values;
+  }
 }
@@ -18,19 +18,25 @@ package org.projectnessie.versioned.storage.common.logic;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_COMMIT_TIMEOUT_MILLIS;
 import static org.projectnessie.versioned.storage.common.indexes.StoreKey.key;
 import static org.projectnessie.versioned.storage.common.logic.CommitLogQuery.commitLogQuery;
 import static org.projectnessie.versioned.storage.common.logic.InternalRef.REF_REFS;
 import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
 import static org.projectnessie.versioned.storage.common.logic.ReferenceLogicImpl.CommitReferenceResult.Kind.ADDED_TO_INDEX;
+import static org.projectnessie.versioned.storage.common.logic.ReferenceLogicImpl.QUERY_FETCH_CHUNK_SIZE;
 import static org.projectnessie.versioned.storage.common.logic.ReferencesQuery.referencesQuery;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.objIdFromString;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
 import static org.projectnessie.versioned.storage.common.persist.Reference.reference;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -273,6 +279,66 @@ public class TestReferenceLogicImpl extends AbstractReferenceLogicTests {
         .allMatch(c -> c.commitType() == CommitType.INTERNAL);
   }
 
+  /**
+   * References are fetched in chunks of {@value ReferenceLogicImpl#QUERY_FETCH_CHUNK_SIZE} index
+   * elements, references that need recovery at and around the chunk boundaries are recovered or
+   * skipped, paging tokens resume the query in the middle of a chunk.
+   */
+  @Test
+  public void queryReferencesChunks() throws Exception {
+    ReferenceLogicImpl refLogic = new ReferenceLogicImpl(persist);
+
+    int numRefs = 2 * QUERY_FETCH_CHUNK_SIZE + 7;
+    int deletedIndex = QUERY_FETCH_CHUNK_SIZE + 10;
+    List<Integer> recoveredIndexes =
+        Arrays.asList(
+            QUERY_FETCH_CHUNK_SIZE - 1, QUERY_FETCH_CHUNK_SIZE, QUERY_FETCH_CHUNK_SIZE + 25);
+
+    List<Reference> expected = new ArrayList<>();
+    String deletedName = null;
+    for (int i = 0; i < numRefs; i++) {
+      String refName = String.format("refs/heads/branch-%05d", i);
+      if (recoveredIndexes.contains(i)) {
+        // Only committed to the index, the reference itself is missing
+        CommitReferenceResult commitCreate = refLogic.commitCreateReference(refName, randomObjId());
+        soft.assertThat(commitCreate.kind).isSameAs(ADDED_TO_INDEX);
+        expected.add(commitCreate.reference);
+      } else if (i == deletedIndex) {
+        // Marked as deleted, but still present in the index
+        persist.markReferenceAsDeleted(refLogic.createReference(refName, randomObjId()));
+        deletedName = refName;
+      } else {
+        expected.add(refLogic.createReference(refName, randomObjId()));
+      }
+    }
+
+    Persist persistSpy = spy(persist);
+    ReferenceLogicImpl spyLogic = new ReferenceLogicImpl(persistSpy);
+
+    soft.assertThat(newArrayList(spyLogic.queryReferences(referencesQuery("refs/heads/"))))
+        .containsExactlyElementsOf(expected);
+    // One bulk fetch per chunk of index elements, including the deleted reference
+    verify(persistSpy, times(3)).fetchReferences(any());
+
+    for (int i : recoveredIndexes) {
+      String refName = String.format("refs/heads/branch-%05d", i);
+      soft.assertThat(persist.fetchReference(refName)).isNotNull();
+    }
+    soft.assertThat(persist.fetchReference(deletedName)).isNull();
+    soft.assertThat(indexActionExists(refLogic, deletedName)).isFalse();
+
+    // Resume via a paging token from the middle of the second chunk
+    int resumeAt = QUERY_FETCH_CHUNK_SIZE + 5;
+    PagedResult<Reference, String> iter = refLogic.queryReferences(referencesQuery("refs/heads/"));
+    for (int i = 0; i < resumeAt; i++) {
+      soft.assertThat(iter.next()).isEqualTo(expected.get(i));
+    }
+    PagingToken token = iter.tokenForKey(iter.next().name());
+    soft.assertThat(
+            newArrayList(refLogic.queryReferences(referencesQuery(token, "refs/heads/", false))))
+        .containsExactlyElementsOf(expected.subList(resumeAt, expected.size()));
+  }
+
   /**
    * Simulate the case when two users try to create the same reference with the same initial
    * pointer.
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.common.logic;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
+import static org.projectnessie.versioned.storage.common.logic.SkipPointerCache.skipPointerCache;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+import static org.projectnessie.versioned.storage.commontests.AbstractCommitLogicTests.stdCommit;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.testextension.NessiePersist;
+import org.projectnessie.versioned.storage.testextension.PersistExtension;
+
+@ExtendWith({PersistExtension.class, SoftAssertionsExtension.class})
+public class TestSkipPointerCache {
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  @NessiePersist protected Persist persist;
+
+  @Test
+  public void ancestorAt() throws Exception {
+    CommitLogic commitLogic = mock(CommitLogic.class, delegatesTo(commitLogic(persist)));
+    List<CommitObj> commits = commits(commitLogic, 300);
+    CommitObj head = commits.get(commits.size() - 1);
+
+    for (SkipPointerCache skipPointers :
+        new SkipPointerCache[] {
+          skipPointerCache(1000, 4), skipPointerCache(1000, 50), skipPointerCache(0, 4)
+        }) {
+      for (CommitObj commit : new CommitObj[] {head, commits.get(150), commits.get(13)}) {
+        for (long seq = 1; seq <= commit.seq(); seq++) {
+          soft.assertThat(skipPointers.ancestorAt(commitLogic, commit, seq))
+              .describedAs("seq %d of %d", seq, commit.seq())
+              .isEqualTo(commits.get((int) seq - 1).id());
+        }
+        soft.assertThat(skipPointers.ancestorAt(commitLogic, commit, 0L)).isNull();
+        soft.assertThat(skipPointers.ancestorAt(commitLogic, commit, commit.seq() + 1)).isNull();
+      }
+    }
+
+    // Once the skip pointers are known, a lookup needs a logarithmic number of fetches
+    SkipPointerCache skipPointers = skipPointerCache(1000, 4);
+    skipPointers.ancestorAt(commitLogic, head, 1L);
+    clearInvocations(commitLogic);
+    soft.assertThat(skipPointers.ancestorAt(commitLogic, head, 2L))
+        .isEqualTo(commits.get(1).id());
+    verify(commitLogic, atMost(2)).fetchCommit(any());
+  }
+
+  private static List<CommitObj> commits(CommitLogic commitLogic, int num) throws Exception {
+    List<CommitObj> commits = new ArrayList<>();
+    ObjId head = EMPTY_OBJ_ID;
+    for (int i = 0; i < num; i++) {
+      CommitObj commit =
+          requireNonNull(
+              commitLogic.doCommit(
+                  stdCommit().parentCommitId(head).message("commit " + i).build(), emptyList()));
+      commits.add(commit);
+      head = commit.id();
+    }
+    return commits;
+  }
+}
@@ -34,6 +34,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.projectnessie.versioned.storage.common.indexes.ElementSerializer;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp.Action;
 
 @ExtendWith(SoftAssertionsExtension.class)
@@ -100,4 +101,33 @@ public class TestCommitOp {
         .describedAs("len = " + len)
         .isEqualTo(entry);
   }
+
+  @ParameterizedTest
+  @MethodSource("serializeRoundTrip")
+  public void compactSerializeRoundTrip(
+      boolean directBuffer, int objIdSize, boolean withContentId) {
+    IntFunction<ByteBuffer> alloc =
+        len -> directBuffer ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+    ElementSerializer<CommitOp> compact = COMMIT_OP_SERIALIZER.compact();
+
+    ByteBuffer idBuffer = generateObjIdBuffer(directBuffer, objIdSize);
+
+    UUID contentId = withContentId ? randomUUID() : null;
+    for (CommitOp entry :
+        new CommitOp[] {
+          commitOp(Action.ADD, 1, deserializeObjId(idBuffer.duplicate()), contentId),
+          commitOp(Action.REMOVE, 127, null, contentId)
+        }) {
+      int size = compact.serializedSize(entry);
+      soft.assertThat(size).isLessThanOrEqualTo(COMMIT_OP_SERIALIZER.serializedSize(entry));
+
+      ByteBuffer target = compact.serialize(entry, alloc.apply(size)).flip();
+      soft.assertThat(target.remaining()).isEqualTo(size);
+      soft.assertThat(compact.deserialize(target.duplicate())).isEqualTo(entry);
+
+      ByteBuffer skipped = target.duplicate();
+      compact.skip(skipped);
+      soft.assertThat(skipped.remaining()).isEqualTo(0);
+    }
+  }
 }
@@ -67,6 +67,7 @@ import static org.projectnessie.versioned.storage.dynamodb.DynamoDBConstants.COL
 import static org.projectnessie.versioned.storage.dynamodb.DynamoDBConstants.COL_STRING_PREDECESSORS;
 import static org.projectnessie.versioned.storage.dynamodb.DynamoDBConstants.COL_STRING_TEXT;
 import static org.projectnessie.versioned.storage.dynamodb.DynamoDBConstants.COL_STRIPES_FIRST_KEY;
+import static org.projectnessie.versioned.storage.dynamodb.DynamoDBConstants.COL_STRIPES_KEY_FILTER;
 import static org.projectnessie.versioned.storage.dynamodb.DynamoDBConstants.COL_STRIPES_LAST_KEY;
 import static org.projectnessie.versioned.storage.dynamodb.DynamoDBConstants.COL_STRIPES_SEGMENT;
 import static org.projectnessie.versioned.storage.dynamodb.DynamoDBConstants.COL_TAG;
@@ -443,7 +444,7 @@ public class DynamoDBPersist implements Persist {
       }
     }
     if (notFound != null) {
-      throw new ObjNotFoundException(notFound);
+      throw new ObjNotFoundException(notFound, r);
     }
 
     return r;
@@ -910,7 +911,8 @@ public class DynamoDBPersist implements Persist {
             indexStripe(
                 keyFromString(attributeToString(m, COL_STRIPES_FIRST_KEY)),
                 keyFromString(attributeToString(m, COL_STRIPES_LAST_KEY)),
-                attributeToObjId(m, COL_STRIPES_SEGMENT)));
+                attributeToObjId(m, COL_STRIPES_SEGMENT),
+                attributeToBytes(m, COL_STRIPES_KEY_FILTER)));
       }
     }
   }
@@ -922,6 +924,10 @@ public class DynamoDBPersist implements Persist {
       sv.put(COL_STRIPES_FIRST_KEY, fromS(stripe.firstKey().rawString()));
       sv.put(COL_STRIPES_LAST_KEY, fromS(stripe.lastKey().rawString()));
       objIdToAttribute(sv, COL_STRIPES_SEGMENT, stripe.segment());
+      ByteString keyFilter = stripe.keyFilter();
+      if (keyFilter != null) {
+        bytesAttribute(sv, COL_STRIPES_KEY_FILTER, keyFilter);
+      }
       stripeAttr.add(fromM(sv));
     }
     return fromL(stripeAttr);
@@ -247,7 +247,7 @@ class InmemoryPersist implements ValidatingPersist {
       }
     }
     if (notFound != null) {
-      throw new ObjNotFoundException(notFound);
+      throw new ObjNotFoundException(notFound, r);
     }
     return r;
   }
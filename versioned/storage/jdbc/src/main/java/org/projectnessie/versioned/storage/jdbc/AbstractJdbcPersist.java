@@ -404,7 +404,7 @@ abstract class AbstractJdbcPersist implements Persist {
           }
         }
         if (notFound != null) {
-          throw new ObjNotFoundException(notFound);
+          throw new ObjNotFoundException(notFound, r);
         }
 
         return r;
@@ -661,12 +661,7 @@ abstract class AbstractJdbcPersist implements Persist {
 
             Stripes.Builder b = Stripes.newBuilder();
             obj.referenceIndexStripes().stream()
-                .map(
-                    s ->
-                        Stripe.newBuilder()
-                            .setFirstKey(s.firstKey().rawString())
-                            .setLastKey(s.lastKey().rawString())
-                            .setSegment(s.segment().asBytes()))
+                .map(AbstractJdbcPersist::serializeStripe)
                 .forEach(b::addStripes);
             serializeBytes(ps, idx++, b.build().toByteString());
 
@@ -715,12 +710,7 @@ abstract class AbstractJdbcPersist implements Persist {
             try {
               Stripes stripes = Stripes.parseFrom(rs.getBytes(COL_COMMIT_REFERENCE_INDEX_STRIPES));
               stripes.getStripesList().stream()
-                  .map(
-                      s ->
-                          indexStripe(
-                              keyFromString(s.getFirstKey()),
-                              keyFromString(s.getLastKey()),
-                              objIdFromByteBuffer(s.getSegment().asReadOnlyByteBuffer())))
+                  .map(AbstractJdbcPersist::deserializeStripe)
                   .forEach(b::addReferenceIndexStripes);
             } catch (IOException e) {
               throw new RuntimeException(e);
@@ -816,12 +806,7 @@ abstract class AbstractJdbcPersist implements Persist {
               throws SQLException {
             Stripes.Builder b = Stripes.newBuilder();
             obj.stripes().stream()
-                .map(
-                    s ->
-                        Stripe.newBuilder()
-                            .setFirstKey(s.firstKey().rawString())
-                            .setLastKey(s.lastKey().rawString())
-                            .setSegment(s.segment().asBytes()))
+                .map(AbstractJdbcPersist::serializeStripe)
                 .forEach(b::addStripes);
             serializeBytes(ps, idx++, b.build().toByteString());
             return idx;
@@ -833,12 +818,7 @@ abstract class AbstractJdbcPersist implements Persist {
               Stripes stripes = Stripes.parseFrom(rs.getBytes(COL_SEGMENTS_STRIPES));
               List<IndexStripe> stripeList =
                   stripes.getStripesList().stream()
-                      .map(
-                          s ->
-                              indexStripe(
-                                  keyFromString(s.getFirstKey()),
-                                  keyFromString(s.getLastKey()),
-                                  objIdFromByteBuffer(s.getSegment().asReadOnlyByteBuffer())))
+                      .map(AbstractJdbcPersist::deserializeStripe)
                       .collect(Collectors.toList());
               return indexSegments(id, stripeList);
             } catch (IOException e) {
@@ -1044,6 +1024,27 @@ abstract class AbstractJdbcPersist implements Persist {
     }
   }
 
+  private static Stripe.Builder serializeStripe(IndexStripe s) {
+    Stripe.Builder b =
+        Stripe.newBuilder()
+            .setFirstKey(s.firstKey().rawString())
+            .setLastKey(s.lastKey().rawString())
+            .setSegment(s.segment().asBytes());
+    ByteString keyFilter = s.keyFilter();
+    if (keyFilter != null) {
+      b.setKeyFilter(keyFilter);
+    }
+    return b;
+  }
+
+  private static IndexStripe deserializeStripe(Stripe s) {
+    return indexStripe(
+        keyFromString(s.getFirstKey()),
+        keyFromString(s.getLastKey()),
+        objIdFromByteBuffer(s.getSegment().asReadOnlyByteBuffer()),
+        s.hasKeyFilter() ? s.getKeyFilter() : null);
+  }
+
   private static void serializeObjIds(PreparedStatement ps, int col, List<ObjId> values)
       throws SQLException {
     if (values != null && !values.isEmpty()) {
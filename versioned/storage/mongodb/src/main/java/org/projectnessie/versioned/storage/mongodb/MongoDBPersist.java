@@ -69,6 +69,7 @@ import static org.projectnessie.versioned.storage.mongodb.MongoDBConstants.COL_S
 import static org.projectnessie.versioned.storage.mongodb.MongoDBConstants.COL_STRING_PREDECESSORS;
 import static org.projectnessie.versioned.storage.mongodb.MongoDBConstants.COL_STRING_TEXT;
 import static org.projectnessie.versioned.storage.mongodb.MongoDBConstants.COL_STRIPES_FIRST_KEY;
+import static org.projectnessie.versioned.storage.mongodb.MongoDBConstants.COL_STRIPES_KEY_FILTER;
 import static org.projectnessie.versioned.storage.mongodb.MongoDBConstants.COL_STRIPES_LAST_KEY;
 import static org.projectnessie.versioned.storage.mongodb.MongoDBConstants.COL_STRIPES_SEGMENT;
 import static org.projectnessie.versioned.storage.mongodb.MongoDBConstants.COL_TAG;
@@ -448,7 +449,7 @@ public class MongoDBPersist implements Persist {
       }
     }
     if (notFound != null) {
-      throw new ObjNotFoundException(notFound);
+      throw new ObjNotFoundException(notFound, r);
     }
 
     return r;
@@ -947,7 +948,8 @@ public class MongoDBPersist implements Persist {
             indexStripe(
                 keyFromString(seg.getString(COL_STRIPES_FIRST_KEY)),
                 keyFromString(seg.getString(COL_STRIPES_LAST_KEY)),
-                binaryToObjId(seg.get(COL_STRIPES_SEGMENT, Binary.class))));
+                binaryToObjId(seg.get(COL_STRIPES_SEGMENT, Binary.class)),
+                binaryToBytes(seg.get(COL_STRIPES_KEY_FILTER, Binary.class))));
       }
     }
   }
@@ -961,6 +963,10 @@ public class MongoDBPersist implements Persist {
       sv.put(COL_STRIPES_FIRST_KEY, stripe.firstKey().rawString());
       sv.put(COL_STRIPES_LAST_KEY, stripe.lastKey().rawString());
       sv.put(COL_STRIPES_SEGMENT, objIdToBinary(stripe.segment()));
+      ByteString keyFilter = stripe.keyFilter();
+      if (keyFilter != null) {
+        sv.put(COL_STRIPES_KEY_FILTER, bytesToBinary(keyFilter));
+      }
       stripesDocs.add(sv);
     }
     return stripesDocs;
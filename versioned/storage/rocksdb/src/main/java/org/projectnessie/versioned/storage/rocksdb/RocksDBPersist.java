@@ -346,7 +346,7 @@ class RocksDBPersist implements Persist {
           }
         }
         if (notFound != null) {
-          throw new ObjNotFoundException(notFound);
+          throw new ObjNotFoundException(notFound, r);
         }
       }
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.versionstore;
+
+import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
+
+import org.projectnessie.versioned.storage.batching.BatchingPersist;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
+import org.projectnessie.versioned.storage.common.logic.CommitLogic;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.persist.BackgroundExecutor;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds and persists the reference index of commits, whose incremental index exceeds {@link
+ * StoreConfig#maxIncrementalIndexSize()}, in the background, see {@link
+ * StoreConfig#maxDeferredIncrementalIndexSize()}, using {@link
+ * CommitLogic#compactIncrementalIndex(ObjId)}.
+ *
+ * <p>Compactions are only scheduled by the version store for commits persisted via the "real"
+ * {@link Persist} instance. Commits stored via a {@link BatchingPersist}, like in dry-run mode or
+ * by an import, may not (yet) exist in the backend database and the {@link BatchingPersist} must
+ * not be accessed concurrently.
+ *
+ * <p>Compactions run on the shared {@link StoreConfig#backgroundExecutor()}. If all its threads are
+ * busy and its queue is full, the compaction is discarded and logged at debug level. A discarded
+ * compaction is not a problem, the following commits carry the same incremental index elements and
+ * get compacted or eventually update the reference index synchronously. Without a background
+ * executor, compactions run in the committing thread.
+ */
+final class BackgroundIndexCompaction {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundIndexCompaction.class);
+
+  private BackgroundIndexCompaction() {}
+
+  /**
+   * Schedules the compaction of the given, already persisted commit, if its incremental index
+   * exceeds {@link Persist#effectiveIncrementalIndexSizeLimit()}.
+   */
+  static void compactIfNecessary(Persist persist, CommitObj commit) {
+    if (persist instanceof BatchingPersist
+        || commit.incrementalIndex().size() <= persist.effectiveIncrementalIndexSizeLimit()) {
+      return;
+    }
+    Runnable compaction =
+        () -> {
+          try {
+            commitLogic(persist).compactIncrementalIndex(commit.id());
+          } catch (Exception e) {
+            LOGGER.warn("Failed to compact the incremental index of commit {}", commit.id(), e);
+          }
+        };
+    BackgroundExecutor executor = persist.config().backgroundExecutor();
+    if (executor == null) {
+      compaction.run();
+    } else if (!executor.tryExecute(compaction)) {
+      LOGGER.debug(
+          "Discarded the compaction of the incremental index of commit {}, "
+              + "background executor is busy",
+          commit.id());
+    }
+  }
+}
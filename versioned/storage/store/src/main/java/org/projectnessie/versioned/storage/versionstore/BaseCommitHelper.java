@@ -218,8 +218,23 @@ class BaseCommitHelper {
 
             try {
               CommitObj head = commitLogic(p).headCommit(reference);
-              I committer =
-                  committerSupplier.newCommitter(branch, referenceHash, p, reference, head);
+              I committer;
+              try {
+                committer =
+                    committerSupplier.newCommitter(branch, referenceHash, p, reference, head);
+              } catch (ReferenceNotFoundException e) {
+                // The reference might have been served from the reference cache and be stale, so
+                // the expected hash could be newer than the cached HEAD. Retry against the
+                // current HEAD.
+                Reference current = refMapping.resolveNamedRefForUpdate(branch);
+                if (current.equals(reference)) {
+                  throw e;
+                }
+                reference = current;
+                head = commitLogic(p).headCommit(reference);
+                committer =
+                    committerSupplier.newCommitter(branch, referenceHash, p, reference, head);
+              }
               return committingFunction.perform(committer, retryState);
             } catch (ReferenceConflictException
                 | ReferenceNotFoundException
@@ -243,16 +258,21 @@ class BaseCommitHelper {
       }
       throw new RuntimeException(c);
     } catch (RetryTimeoutException e) {
-      long millis = NANOSECONDS.toMillis(e.getTimeNanos());
-      String msg =
-          format(
-              "The %s operation could not be performed after %d retries within the configured commit timeout after %d milliseconds",
-              operationName, e.getRetry(), millis);
-      LOGGER.warn("Operation timeout: {}", msg);
-      throw new ReferenceRetryFailureException(msg, e.getRetry(), millis);
+      throw referenceRetryFailure(operationName, e);
     }
   }
 
+  static ReferenceRetryFailureException referenceRetryFailure(
+      String operationName, RetryTimeoutException e) {
+    long millis = NANOSECONDS.toMillis(e.getTimeNanos());
+    String msg =
+        format(
+            "The %s operation could not be performed after %d retries within the configured commit timeout after %d milliseconds",
+            operationName, e.getRetry(), millis);
+    LOGGER.warn("Operation timeout: {}", msg);
+    return new ReferenceRetryFailureException(msg, e.getRetry(), millis);
+  }
+
   void validateNamespaces(
       Map<ContentKey, Content> newContent,
       Object2IntHashMap<ContentKey> allKeysToDelete,
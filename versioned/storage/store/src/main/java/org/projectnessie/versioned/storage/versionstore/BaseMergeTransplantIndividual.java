@@ -82,6 +82,7 @@ class BaseMergeTransplantIndividual extends BaseCommitHelper {
 
     CommitLogic commitLogic = commitLogic(persist);
     ObjId newHead = headId();
+    CommitObj newHeadCommit = null;
     boolean empty = true;
     Map<ContentKey, KeyDetails> keyDetailsMap = new HashMap<>();
     for (CommitObj sourceCommit : sourceCommits.sourceCommits) {
@@ -110,6 +111,7 @@ class BaseMergeTransplantIndividual extends BaseCommitHelper {
       empty = false;
       if (!mergeTransplantOpBase.dryRun()) {
         newHead = newCommit.id();
+        newHeadCommit = newCommit;
         boolean committed = commitLogic.storeCommit(newCommit, objsToStore);
         if (committed) {
           mergeResult.addCreatedCommits(commitObjToCommit(newCommit));
@@ -122,8 +124,13 @@ class BaseMergeTransplantIndividual extends BaseCommitHelper {
 
     boolean hasConflicts = recordKeyDetailsAndCheckConflicts(mergeResult, keyDetailsMap);
 
-    return finishMergeTransplant(
-        empty, mergeResult, newHead, mergeTransplantOpBase.dryRun(), hasConflicts);
+    MergeResult<Commit> result =
+        finishMergeTransplant(
+            empty, mergeResult, newHead, mergeTransplantOpBase.dryRun(), hasConflicts);
+    if (result.wasApplied()) {
+      BackgroundIndexCompaction.compactIfNecessary(persist, newHeadCommit);
+    }
+    return result;
   }
 
   private CreateCommit cloneCommit(
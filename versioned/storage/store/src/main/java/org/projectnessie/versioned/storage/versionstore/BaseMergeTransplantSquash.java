@@ -125,8 +125,13 @@ class BaseMergeTransplantSquash extends BaseCommitHelper {
       }
     }
 
-    return finishMergeTransplant(
-        false, mergeResult, newHead, mergeTransplantOpBase.dryRun(), hasConflicts);
+    MergeResult<Commit> result =
+        finishMergeTransplant(
+            false, mergeResult, newHead, mergeTransplantOpBase.dryRun(), hasConflicts);
+    if (result.wasApplied()) {
+      BackgroundIndexCompaction.compactIfNecessary(persist, mergeCommit);
+    }
+    return result;
   }
 
   private CreateCommit createSquashCommit(
@@ -27,7 +27,6 @@ import static org.projectnessie.versioned.storage.common.logic.CreateCommit.Remo
 import static org.projectnessie.versioned.storage.common.logic.CreateCommit.Unchanged.commitUnchanged;
 import static org.projectnessie.versioned.storage.common.logic.CreateCommit.newCommitBuilder;
 import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
-import static org.projectnessie.versioned.storage.common.logic.Logics.indexesLogic;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitOp.contentIdMaybe;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
 import static org.projectnessie.versioned.storage.versionstore.RefMapping.referenceConflictException;
@@ -79,8 +78,8 @@ import org.projectnessie.versioned.storage.common.indexes.StoreIndexElement;
 import org.projectnessie.versioned.storage.common.indexes.StoreKey;
 import org.projectnessie.versioned.storage.common.logic.CommitLogic;
 import org.projectnessie.versioned.storage.common.logic.CommitRetry.RetryException;
+import org.projectnessie.versioned.storage.common.logic.CompleteIndexCache;
 import org.projectnessie.versioned.storage.common.logic.CreateCommit;
-import org.projectnessie.versioned.storage.common.logic.IndexesLogic;
 import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
 import org.projectnessie.versioned.storage.common.objtypes.ContentValueObj;
@@ -100,25 +99,20 @@ class CommitImpl extends BaseCommitHelper {
       @Nonnull @jakarta.annotation.Nonnull Optional<Hash> referenceHash,
       @Nonnull @jakarta.annotation.Nonnull Persist persist,
       @Nonnull @jakarta.annotation.Nonnull Reference reference,
-      @Nullable @jakarta.annotation.Nullable CommitObj head)
+      @Nullable @jakarta.annotation.Nullable CommitObj head,
+      @Nonnull @jakarta.annotation.Nonnull CompleteIndexCache completeIndexCache)
       throws ReferenceNotFoundException {
     super(branch, referenceHash, persist, reference, head);
     commitLogic = commitLogic(persist);
     contentMapping = new ContentMapping(persist);
-    this.headIndex =
-        lazyStoreIndex(
-            () -> {
-              IndexesLogic indexesLogic = indexesLogic(persist);
-              return indexesLogic.buildCompleteIndexOrEmpty(head);
-            });
+    checkArgument(
+        completeIndexCache.persist() == persist,
+        "Complete index cache is scoped to another Persist instance");
+    this.headIndex = lazyStoreIndex(() -> completeIndexCache.completeIndex(head));
     this.expectedIndex =
         expected == head
             ? headIndex
-            : lazyStoreIndex(
-                () -> {
-                  IndexesLogic indexesLogic = indexesLogic(persist);
-                  return indexesLogic.buildCompleteIndexOrEmpty(expected);
-                });
+            : lazyStoreIndex(() -> completeIndexCache.completeIndex(expected));
   }
 
   StoreIndex<CommitOp> headIndex() {
@@ -152,12 +146,32 @@ class CommitImpl extends BaseCommitHelper {
           ReferenceConflictException,
           RetryException,
           ObjTooLargeException {
-    CreateCommit.Builder commit = newCommitBuilder().parentCommitId(headId());
-    List<Obj> objectsToStore = new ArrayList<>(operations.size());
-
     CommitRetryState commitRetryState =
         retryState.map(x -> (CommitRetryState) x).orElseGet(CommitRetryState::new);
 
+    CommitObj newHead = storeCommit(commitRetryState, metadata, operations, validator);
+
+    bumpReferencePointer(newHead.id(), Optional.of(commitRetryState));
+    BackgroundIndexCompaction.compactIfNecessary(persist, newHead);
+
+    commitRetryState.generatedContentIds.forEach(addedContents);
+
+    return commitResult(newHead);
+  }
+
+  /**
+   * Validates and persists a new commit on top of the current HEAD, but does <em>not</em> bump the
+   * reference pointer.
+   */
+  CommitObj storeCommit(
+      @Nonnull @jakarta.annotation.Nonnull CommitRetryState commitRetryState,
+      @Nonnull @jakarta.annotation.Nonnull CommitMeta metadata,
+      @Nonnull @jakarta.annotation.Nonnull List<Operation> operations,
+      @Nonnull @jakarta.annotation.Nonnull CommitValidator validator)
+      throws ReferenceNotFoundException, ReferenceConflictException, ObjTooLargeException {
+    CreateCommit.Builder commit = newCommitBuilder().parentCommitId(headId());
+    List<Obj> objectsToStore = new ArrayList<>(operations.size());
+
     Consumer<Obj> valueConsumer =
         obj -> {
           if (commitRetryState.storedContents.add(obj.id())) {
@@ -189,17 +203,21 @@ class CommitImpl extends BaseCommitHelper {
           "Hash collision detected, a commit with the same parent commit, commit message, "
               + "headers/commit-metadata and operations already exists");
 
-      bumpReferencePointer(newHead.id(), Optional.of(commitRetryState));
-
-      commitRetryState.generatedContentIds.forEach(addedContents);
+      return newHead;
+    } catch (CommitConflictException e) {
+      throw referenceConflictException(e);
+    } catch (ObjNotFoundException e) {
+      throw referenceNotFound(e);
+    }
+  }
 
+  CommitResult<Commit> commitResult(@Nonnull @jakarta.annotation.Nonnull CommitObj newHead)
+      throws ReferenceNotFoundException {
+    try {
       return ImmutableCommitResult.<Commit>builder()
           .commit(contentMapping.commitObjToCommit(true, newHead))
           .targetBranch((BranchName) RefMapping.referenceToNamedRef(reference))
           .build();
-
-    } catch (CommitConflictException e) {
-      throw referenceConflictException(e);
     } catch (ObjNotFoundException e) {
       throw referenceNotFound(e);
     }
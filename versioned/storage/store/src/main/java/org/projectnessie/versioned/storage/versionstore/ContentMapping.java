@@ -16,6 +16,7 @@
 package org.projectnessie.versioned.storage.versionstore;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Maps.newHashMapWithExpectedSize;
 import static java.util.Objects.requireNonNull;
 import static org.projectnessie.versioned.storage.common.logic.Logics.indexesLogic;
 import static org.projectnessie.versioned.storage.common.objtypes.ContentValueObj.contentValue;
@@ -25,6 +26,7 @@ import static org.projectnessie.versioned.storage.versionstore.TypeMapping.store
 import static org.projectnessie.versioned.storage.versionstore.TypeMapping.toCommitMeta;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -86,6 +88,30 @@ public final class ContentMapping {
     return r;
   }
 
+  /**
+   * Fetches the contents of the given {@link ContentValueObj value objects} with a single bulk
+   * fetch.
+   *
+   * @param ids IDs of the value objects, must not contain duplicates
+   * @return contents by value object ID
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  public Map<ObjId, Content> fetchContents(
+      @Nonnull @jakarta.annotation.Nonnull Collection<ObjId> ids) throws ObjNotFoundException {
+    ObjId[] idArray = ids.toArray(new ObjId[0]);
+    Obj[] objs = persist.fetchObjs(idArray);
+    Map<ObjId, Content> r = newHashMapWithExpectedSize(idArray.length);
+    for (int i = 0; i < idArray.length; i++) {
+      Obj obj = objs[i];
+      if (!(obj instanceof ContentValueObj)) {
+        throw new ObjNotFoundException(idArray[i]);
+      }
+      r.put(idArray[i], valueToContent((ContentValueObj) obj));
+    }
+    return r;
+  }
+
   private static Content valueToContent(ContentValueObj contentValue) {
     return STORE_WORKER.valueFromStore((byte) contentValue.payload(), contentValue.data());
   }
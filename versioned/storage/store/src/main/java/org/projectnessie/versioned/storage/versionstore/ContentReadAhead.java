@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.versionstore;
+
+import com.google.common.collect.AbstractIterator;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.projectnessie.model.Content;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+
+/**
+ * Passes through the elements of the wrapped iterator and reads ahead a window of elements to fetch
+ * the contents referenced by these elements with one bulk fetch per window, see {@link
+ * StoreConfig#contentFetchWindowSize()}.
+ *
+ * @param <S> type of the elements
+ */
+final class ContentReadAhead<S> extends AbstractIterator<S> {
+
+  private final Iterator<S> source;
+  private final ContentMapping contentMapping;
+  private final int windowSize;
+  private final BiConsumer<S, Consumer<ObjId>> contentIds;
+  private final Predicate<S> stopPredicate;
+
+  private final Deque<S> window = new ArrayDeque<>();
+  private final Map<ObjId, Content> contents = new HashMap<>();
+
+  /**
+   * Creates a read-ahead iterator.
+   *
+   * @param contentIds provides the IDs of the contents needed for an element, does not provide any
+   *     ID for elements that will be skipped
+   * @param stopPredicate elements after the first element matching this predicate are not read
+   *     ahead
+   */
+  ContentReadAhead(
+      Iterator<S> source,
+      ContentMapping contentMapping,
+      int windowSize,
+      BiConsumer<S, Consumer<ObjId>> contentIds,
+      Predicate<S> stopPredicate) {
+    this.source = source;
+    this.contentMapping = contentMapping;
+    this.windowSize = Math.max(windowSize, 1);
+    this.contentIds = contentIds;
+    this.stopPredicate = stopPredicate;
+  }
+
+  @Override
+  protected S computeNext() {
+    if (window.isEmpty()) {
+      contents.clear();
+      readAhead();
+      if (window.isEmpty()) {
+        return endOfData();
+      }
+    }
+    return window.poll();
+  }
+
+  private void readAhead() {
+    if (windowSize == 1) {
+      if (source.hasNext()) {
+        window.add(source.next());
+      }
+      return;
+    }
+
+    Set<ObjId> ids = new LinkedHashSet<>();
+    while (window.size() < windowSize && source.hasNext()) {
+      S element = source.next();
+      window.add(element);
+      if (stopPredicate.test(element)) {
+        break;
+      }
+      contentIds.accept(element, ids::add);
+    }
+
+    if (!ids.isEmpty()) {
+      try {
+        contents.putAll(contentMapping.fetchContents(ids));
+      } catch (ObjNotFoundException e) {
+        // content() reports the missing content for the affected element
+      }
+    }
+  }
+
+  /**
+   * Returns the content with the given ID, which was fetched with the window of the current
+   * element, or fetches it.
+   */
+  Content content(ObjId id) throws ObjNotFoundException {
+    Content content = contents.get(id);
+    return content != null ? content : contentMapping.fetchContent(id);
+  }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.versionstore;
+
+import static org.projectnessie.versioned.storage.common.logic.CommitRetry.commitRetry;
+import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
+import static org.projectnessie.versioned.storage.versionstore.BaseCommitHelper.referenceRetryFailure;
+import static org.projectnessie.versioned.storage.versionstore.RefMapping.referenceConflictException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import javax.annotation.Nonnull;
+import org.projectnessie.model.CommitMeta;
+import org.projectnessie.model.ContentKey;
+import org.projectnessie.versioned.BranchName;
+import org.projectnessie.versioned.Commit;
+import org.projectnessie.versioned.CommitResult;
+import org.projectnessie.versioned.Hash;
+import org.projectnessie.versioned.Operation;
+import org.projectnessie.versioned.ReferenceConflictException;
+import org.projectnessie.versioned.ReferenceNotFoundException;
+import org.projectnessie.versioned.VersionStore.CommitValidator;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
+import org.projectnessie.versioned.storage.common.exceptions.CommitConflictException;
+import org.projectnessie.versioned.storage.common.exceptions.CommitWrappedException;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.exceptions.ObjTooLargeException;
+import org.projectnessie.versioned.storage.common.exceptions.RefConditionFailedException;
+import org.projectnessie.versioned.storage.common.exceptions.RefNotFoundException;
+import org.projectnessie.versioned.storage.common.exceptions.RetryTimeoutException;
+import org.projectnessie.versioned.storage.common.logic.CommitRetry.RetryException;
+import org.projectnessie.versioned.storage.common.logic.CompleteIndexCache;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.common.persist.Reference;
+import org.projectnessie.versioned.storage.versionstore.CommitImpl.CommitRetryState;
+
+/**
+ * Applies concurrent commits against the same branch, which arrive at this Nessie instance, as a
+ * chain of commits with a single update of the reference pointer, see {@link
+ * StoreConfig#groupCommitWindowMillis()}.
+ *
+ * <p>The first queued commit for a branch becomes the "leader", waits for the configured time
+ * window and then applies up to {@value #MAX_GROUP_SIZE} queued commits on top of the current HEAD,
+ * each commit on top of the previous one. Every commit is validated against its own expected hash
+ * and the contents of its predecessor in the chain, exactly like sequentially applied commits, so a
+ * failing commit does not affect the other commits of the group. If the reference pointer update
+ * fails, because another Nessie instance updated the branch, the remaining commits are applied
+ * again on top of the new HEAD. Once a group has been applied, the next queued commit becomes the
+ * leader.
+ */
+final class GroupCommits {
+
+  static final int MAX_GROUP_SIZE = 100;
+
+  private final Persist persist;
+  private final CompleteIndexCache completeIndexCache;
+  private final long windowMillis;
+
+  /** Queued commits per branch, a branch has a leader, if it has an entry. */
+  private final Map<BranchName, Deque<PendingCommit>> queues = new ConcurrentHashMap<>();
+
+  GroupCommits(Persist persist, CompleteIndexCache completeIndexCache, long windowMillis) {
+    this.persist = persist;
+    this.completeIndexCache = completeIndexCache;
+    this.windowMillis = windowMillis;
+  }
+
+  CommitResult<Commit> commit(
+      @Nonnull @jakarta.annotation.Nonnull BranchName branch,
+      @Nonnull @jakarta.annotation.Nonnull Optional<Hash> referenceHash,
+      @Nonnull @jakarta.annotation.Nonnull CommitMeta metadata,
+      @Nonnull @jakarta.annotation.Nonnull List<Operation> operations,
+      @Nonnull @jakarta.annotation.Nonnull CommitValidator validator,
+      @Nonnull @jakarta.annotation.Nonnull BiConsumer<ContentKey, String> addedContents)
+      throws ReferenceNotFoundException, ReferenceConflictException {
+    PendingCommit pending =
+        new PendingCommit(referenceHash, metadata, operations, validator, addedContents);
+
+    queues.compute(
+        branch,
+        (b, queue) -> {
+          if (queue == null) {
+            queue = new ArrayDeque<>();
+            pending.leader.complete(null);
+          }
+          queue.add(pending);
+          return queue;
+        });
+
+    if (pending.awaitLeadership()) {
+      lead(branch);
+    }
+    return pending.result();
+  }
+
+  private void lead(BranchName branch) {
+    try {
+      Thread.sleep(windowMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    List<PendingCommit> group = new ArrayList<>();
+    queues.computeIfPresent(
+        branch,
+        (b, queue) -> {
+          while (group.size() < MAX_GROUP_SIZE && !queue.isEmpty()) {
+            group.add(queue.poll());
+          }
+          return queue;
+        });
+
+    try {
+      commitGroup(branch, group);
+    } finally {
+      queues.computeIfPresent(
+          branch,
+          (b, queue) -> {
+            PendingCommit next = queue.peek();
+            if (next == null) {
+              return null;
+            }
+            next.leader.complete(null);
+            return queue;
+          });
+    }
+  }
+
+  private void commitGroup(BranchName branch, List<PendingCommit> group) {
+    try {
+      commitRetry(
+          persist,
+          (p, retryState) -> {
+            // Bypass a possibly stale cached reference, one read per group is cheap
+            Reference reference;
+            CommitObj head;
+            try {
+              reference = new RefMapping(p).resolveNamedRefForUpdate(branch);
+              head = commitLogic(p).headCommit(reference);
+            } catch (ReferenceNotFoundException | ObjNotFoundException e) {
+              throw new CommitWrappedException(e);
+            }
+            applyGroup(p, branch, reference, head, group);
+            return null;
+          });
+    } catch (CommitWrappedException e) {
+      failRemaining(group, e.getCause());
+    } catch (CommitConflictException e) {
+      failRemaining(group, referenceConflictException(e));
+    } catch (RetryTimeoutException e) {
+      failRemaining(group, referenceRetryFailure("commit", e));
+    } catch (RuntimeException | Error e) {
+      failRemaining(group, e);
+    }
+  }
+
+  private void applyGroup(
+      Persist p, BranchName branch, Reference reference, CommitObj head, List<PendingCommit> group)
+      throws RetryException {
+    List<PendingCommit> applied = new ArrayList<>(group.size());
+    CommitObj chainHead = head;
+    for (PendingCommit pending : group) {
+      if (pending.future.isDone()) {
+        // failed during a previous attempt
+        continue;
+      }
+      try {
+        CommitImpl commitImpl =
+            new CommitImpl(
+                branch, pending.referenceHash, p, reference, chainHead, completeIndexCache);
+        CommitObj newHead =
+            commitImpl.storeCommit(
+                pending.retryState, pending.metadata, pending.operations, pending.validator);
+        pending.commitImpl = commitImpl;
+        pending.newHead = newHead;
+        chainHead = newHead;
+        applied.add(pending);
+      } catch (ReferenceNotFoundException
+          | ReferenceConflictException
+          | ObjTooLargeException
+          | RuntimeException e) {
+        pending.future.completeExceptionally(e);
+      }
+    }
+
+    if (applied.isEmpty()) {
+      return;
+    }
+
+    try {
+      p.updateReferencePointer(reference, chainHead.id());
+    } catch (RefConditionFailedException e) {
+      throw new RetryException();
+    } catch (RefNotFoundException e) {
+      throw new RuntimeException("Internal reference not found", e);
+    }
+    BackgroundIndexCompaction.compactIfNecessary(p, chainHead);
+
+    for (PendingCommit pending : applied) {
+      try {
+        pending.retryState.generatedContentIds.forEach(pending.addedContents);
+        pending.future.complete(pending.commitImpl.commitResult(pending.newHead));
+      } catch (ReferenceNotFoundException | RuntimeException e) {
+        pending.future.completeExceptionally(e);
+      }
+    }
+  }
+
+  private static void failRemaining(List<PendingCommit> group, Throwable failure) {
+    for (PendingCommit pending : group) {
+      pending.future.completeExceptionally(failure);
+    }
+  }
+
+  private static final class PendingCommit {
+    final Optional<Hash> referenceHash;
+    final CommitMeta metadata;
+    final List<Operation> operations;
+    final CommitValidator validator;
+    final BiConsumer<ContentKey, String> addedContents;
+    final CommitRetryState retryState = new CommitRetryState();
+
+    /** Completed, when this commit has to lead the next group. */
+    final CompletableFuture<Void> leader = new CompletableFuture<>();
+
+    final CompletableFuture<CommitResult<Commit>> future = new CompletableFuture<>();
+
+    // only accessed by the leader
+    CommitImpl commitImpl;
+    CommitObj newHead;
+
+    PendingCommit(
+        Optional<Hash> referenceHash,
+        CommitMeta metadata,
+        List<Operation> operations,
+        CommitValidator validator,
+        BiConsumer<ContentKey, String> addedContents) {
+      this.referenceHash = referenceHash;
+      this.metadata = metadata;
+      this.operations = operations;
+      this.validator = validator;
+      this.addedContents = addedContents;
+    }
+
+    /**
+     * Waits until this commit has been applied by another leader or until this commit has to lead
+     * the next group.
+     *
+     * @return {@code true}, if this commit has to lead the next group
+     */
+    boolean awaitLeadership() {
+      CompletableFuture.anyOf(leader, future).exceptionally(e -> null).join();
+      return !future.isDone();
+    }
+
+    CommitResult<Commit> result() throws ReferenceNotFoundException, ReferenceConflictException {
+      try {
+        return future.join();
+      } catch (CompletionException e) {
+        Throwable c = e.getCause();
+        if (c instanceof ReferenceNotFoundException) {
+          throw (ReferenceNotFoundException) c;
+        }
+        if (c instanceof ReferenceConflictException) {
+          throw (ReferenceConflictException) c;
+        }
+        if (c instanceof RuntimeException) {
+          throw (RuntimeException) c;
+        }
+        if (c instanceof Error) {
+          throw (Error) c;
+        }
+        throw new RuntimeException(c);
+      }
+    }
+  }
+}
@@ -21,10 +21,13 @@ import static java.util.Arrays.asList;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.projectnessie.model.Conflict.conflict;
+import static org.projectnessie.versioned.storage.common.config.StoreConfig.DEFAULT_PARENTS_PER_COMMIT;
 import static org.projectnessie.versioned.storage.common.logic.CommitLogQuery.commitLogQuery;
 import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
 import static org.projectnessie.versioned.storage.common.logic.Logics.referenceLogic;
+import static org.projectnessie.versioned.storage.common.logic.SkipPointerCache.skipPointerCache;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+import static org.projectnessie.versioned.storage.common.persist.ObjType.COMMIT;
 import static org.projectnessie.versioned.storage.versionstore.TypeMapping.COMMIT_TIME;
 import static org.projectnessie.versioned.storage.versionstore.TypeMapping.hashToObjId;
 import static org.projectnessie.versioned.storage.versionstore.TypeMapping.headerValueToInstant;
@@ -57,6 +60,7 @@ import org.projectnessie.versioned.storage.common.logic.CommitConflict;
 import org.projectnessie.versioned.storage.common.logic.CommitLogic;
 import org.projectnessie.versioned.storage.common.logic.PagedResult;
 import org.projectnessie.versioned.storage.common.logic.ReferenceLogic;
+import org.projectnessie.versioned.storage.common.logic.SkipPointerCache;
 import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
 import org.projectnessie.versioned.storage.common.persist.Persist;
@@ -74,9 +78,15 @@ public class RefMapping {
   public static final Hash NO_ANCESTOR = objIdToHash(EMPTY_OBJ_ID);
 
   private final Persist persist;
+  private final SkipPointerCache skipPointers;
 
   public RefMapping(Persist persist) {
+    this(persist, skipPointerCache(0, DEFAULT_PARENTS_PER_COMMIT));
+  }
+
+  public RefMapping(Persist persist, SkipPointerCache skipPointers) {
     this.persist = persist;
+    this.skipPointers = skipPointers;
   }
 
   public static ReferenceNotFoundException referenceNotFound(String ref) {
@@ -278,6 +288,23 @@ public class RefMapping {
     }
   }
 
+  /**
+   * Like {@link #resolveNamedRef(NamedRef)}, but bypasses a potentially configured reference cache.
+   * Used to retry an operation that failed, because the cached state of the reference was stale.
+   */
+  @Nonnull
+  @jakarta.annotation.Nonnull
+  public Reference resolveNamedRefForUpdate(@Nonnull @jakarta.annotation.Nonnull NamedRef namedRef)
+      throws ReferenceNotFoundException {
+    String refName = namedRefToRefName(namedRef);
+    ReferenceLogic referenceLogic = referenceLogic(persist);
+    try {
+      return referenceLogic.getReferenceForUpdate(refName);
+    } catch (RefNotFoundException e) {
+      throw referenceNotFound(namedRef);
+    }
+  }
+
   public Reference resolveNamedRef(@Nonnull @jakarta.annotation.Nonnull String refName)
       throws ReferenceNotFoundException {
     ReferenceLogic referenceLogic = referenceLogic(persist);
@@ -415,9 +442,22 @@ public class RefMapping {
   }
 
   @Nullable
-  private static CommitObj findNthPredecessor(
+  private CommitObj findNthPredecessor(
       CommitObj startCommit, CommitLogic commitLogic, int nthPredecessor)
       throws ReferenceNotFoundException {
+    if (nthPredecessor > 0) {
+      try {
+        ObjId id =
+            skipPointers.ancestorAt(commitLogic, startCommit, startCommit.seq() - nthPredecessor);
+        if (id != null) {
+          return commitLogic.fetchCommit(id);
+        }
+      } catch (ObjNotFoundException e) {
+        throw referenceNotFound(e);
+      }
+    }
+
+    // Not enough predecessors or inconsistent seq numbers, walk the commit log
     PagedResult<ObjId, ObjId> log =
         commitLogic.commitIdLog(commitLogQuery(startCommit.directParent()));
     while (log.hasNext()) {
@@ -435,6 +475,29 @@ public class RefMapping {
 
   public CommitObj commitInChain(ObjId commitId, ObjId verifyId) throws ReferenceNotFoundException {
     CommitLogic commitLogic = commitLogic(persist);
+    if (EMPTY_OBJ_ID.equals(commitId)) {
+      return null;
+    }
+
+    // A commit is in the first-parent log of the HEAD commit, if the HEAD's ancestor with the
+    // commit's seq is that commit.
+    try {
+      CommitObj verify = persist.fetchTypedObj(verifyId, COMMIT, CommitObj.class);
+      if (commitId.equals(verifyId)) {
+        return verify;
+      }
+      CommitObj head = commitLogic.fetchCommit(commitId);
+      if (head == null || verify.seq() >= head.seq()) {
+        return null;
+      }
+      ObjId ancestor = skipPointers.ancestorAt(commitLogic, head, verify.seq());
+      if (ancestor != null) {
+        return verifyId.equals(ancestor) ? verify : null;
+      }
+    } catch (ObjNotFoundException e) {
+      // fall through to walking the commit log, which yields the appropriate result
+    }
+
     PagedResult<ObjId, ObjId> log = commitLogic.commitIdLog(commitLogQuery(commitId));
     while (log.hasNext()) {
       ObjId current = log.next();
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.versionstore;
+
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+
+import com.google.common.collect.AbstractIterator;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.logic.CommitLogic;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Reference;
+
+/**
+ * Passes through the references of the wrapped iterator and reads ahead chunks of up to {@value
+ * #FETCH_CHUNK_SIZE} references to fetch their HEAD commits with one bulk fetch per chunk, instead
+ * of one fetch per reference.
+ */
+final class ReferenceHeads extends AbstractIterator<Reference> {
+
+  static final int FETCH_CHUNK_SIZE = 50;
+
+  private final Iterator<Reference> references;
+  private final CommitLogic commitLogic;
+  private final Deque<Reference> chunk = new ArrayDeque<>(FETCH_CHUNK_SIZE);
+  private final Map<ObjId, CommitObj> heads = new HashMap<>();
+
+  ReferenceHeads(Iterator<Reference> references, CommitLogic commitLogic) {
+    this.references = references;
+    this.commitLogic = commitLogic;
+  }
+
+  @Override
+  protected Reference computeNext() {
+    if (chunk.isEmpty()) {
+      heads.clear();
+      Set<ObjId> pointers = new LinkedHashSet<>();
+      while (chunk.size() < FETCH_CHUNK_SIZE && references.hasNext()) {
+        Reference reference = references.next();
+        chunk.add(reference);
+        pointers.add(reference.pointer());
+      }
+      if (chunk.isEmpty()) {
+        return endOfData();
+      }
+      fetchHeads(pointers.toArray(new ObjId[0]));
+    }
+    return chunk.poll();
+  }
+
+  private void fetchHeads(ObjId[] pointers) {
+    CommitObj[] commits;
+    try {
+      commits = commitLogic.fetchCommits(pointers);
+    } catch (ObjNotFoundException e) {
+      // headCommit() reports the missing commit for the affected reference
+      return;
+    }
+    for (int i = 0; i < pointers.length; i++) {
+      if (commits[i] != null) {
+        heads.put(pointers[i], commits[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns the HEAD commit of a reference returned by this iterator, like {@link
+   * CommitLogic#headCommit(Reference)}.
+   */
+  CommitObj headCommit(Reference reference) throws ObjNotFoundException {
+    ObjId pointer = reference.pointer();
+    CommitObj head = heads.get(pointer);
+    if (head != null || EMPTY_OBJ_ID.equals(pointer)) {
+      return head;
+    }
+    return commitLogic.headCommit(reference);
+  }
+}
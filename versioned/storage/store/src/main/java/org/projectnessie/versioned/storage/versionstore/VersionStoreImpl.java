@@ -23,15 +23,19 @@ import static java.util.Objects.requireNonNull;
 import static org.projectnessie.model.IdentifiedContentKey.identifiedContentKeyFromContent;
 import static org.projectnessie.nessie.relocated.protobuf.ByteString.copyFromUtf8;
 import static org.projectnessie.versioned.ContentResult.contentResult;
+import static org.projectnessie.versioned.storage.common.config.StoreConfig.DEFAULT_CONTENT_FETCH_WINDOW_SIZE;
+import static org.projectnessie.versioned.storage.common.config.StoreConfig.DEFAULT_PARENTS_PER_COMMIT;
 import static org.projectnessie.versioned.storage.common.logic.CommitLogQuery.commitLogQuery;
+import static org.projectnessie.versioned.storage.common.logic.CommonAncestorCache.commonAncestorCache;
+import static org.projectnessie.versioned.storage.common.logic.CompleteIndexCache.completeIndexCache;
 import static org.projectnessie.versioned.storage.common.logic.DiffQuery.diffQuery;
 import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
-import static org.projectnessie.versioned.storage.common.logic.Logics.indexesLogic;
 import static org.projectnessie.versioned.storage.common.logic.Logics.referenceLogic;
 import static org.projectnessie.versioned.storage.common.logic.Logics.repositoryLogic;
 import static org.projectnessie.versioned.storage.common.logic.PagingToken.fromString;
 import static org.projectnessie.versioned.storage.common.logic.PagingToken.pagingToken;
 import static org.projectnessie.versioned.storage.common.logic.ReferencesQuery.referencesQuery;
+import static org.projectnessie.versioned.storage.common.logic.SkipPointerCache.skipPointerCache;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
 import static org.projectnessie.versioned.storage.common.persist.ObjType.COMMIT;
 import static org.projectnessie.versioned.storage.common.persist.Reference.reference;
@@ -61,11 +65,13 @@ import static org.projectnessie.versioned.store.DefaultStoreWorker.contentTypeFo
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -73,6 +79,7 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.projectnessie.model.CommitMeta;
 import org.projectnessie.model.Content;
 import org.projectnessie.model.ContentKey;
@@ -112,6 +119,7 @@ import org.projectnessie.versioned.TagName;
 import org.projectnessie.versioned.VersionStore;
 import org.projectnessie.versioned.paging.FilteringPaginationIterator;
 import org.projectnessie.versioned.paging.PaginationIterator;
+import org.projectnessie.versioned.storage.common.config.StoreConfig;
 import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
 import org.projectnessie.versioned.storage.common.exceptions.RefAlreadyExistsException;
 import org.projectnessie.versioned.storage.common.exceptions.RefConditionFailedException;
@@ -121,13 +129,16 @@ import org.projectnessie.versioned.storage.common.indexes.StoreIndex;
 import org.projectnessie.versioned.storage.common.indexes.StoreIndexElement;
 import org.projectnessie.versioned.storage.common.indexes.StoreKey;
 import org.projectnessie.versioned.storage.common.logic.CommitLogic;
+import org.projectnessie.versioned.storage.common.logic.CommonAncestorCache;
+import org.projectnessie.versioned.storage.common.logic.CommonAncestorCache.CommonAncestor;
+import org.projectnessie.versioned.storage.common.logic.CompleteIndexCache;
 import org.projectnessie.versioned.storage.common.logic.DiffEntry;
 import org.projectnessie.versioned.storage.common.logic.DiffPagedResult;
-import org.projectnessie.versioned.storage.common.logic.IndexesLogic;
 import org.projectnessie.versioned.storage.common.logic.PagedResult;
 import org.projectnessie.versioned.storage.common.logic.PagingToken;
 import org.projectnessie.versioned.storage.common.logic.ReferenceLogic;
 import org.projectnessie.versioned.storage.common.logic.RepositoryDescription;
+import org.projectnessie.versioned.storage.common.logic.SkipPointerCache;
 import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
 import org.projectnessie.versioned.storage.common.persist.ObjId;
@@ -138,6 +149,11 @@ import org.projectnessie.versioned.storage.versionstore.BaseCommitHelper.Committ
 public class VersionStoreImpl implements VersionStore {
 
   private final Persist persist;
+  private final CompleteIndexCache completeIndexCache;
+  private final CommonAncestorCache commonAncestorCache;
+  private final SkipPointerCache skipPointerCache;
+  private final GroupCommits groupCommits;
+  private final int contentFetchWindowSize;
 
   @SuppressWarnings("unused")
   public VersionStoreImpl() {
@@ -146,6 +162,20 @@ public class VersionStoreImpl implements VersionStore {
 
   public VersionStoreImpl(Persist persist) {
     this.persist = persist;
+    // Mocked Persist instances in tests have no config
+    StoreConfig config = persist != null ? persist.config() : null;
+    this.completeIndexCache =
+        config != null ? completeIndexCache(persist) : completeIndexCache(persist, 0L);
+    this.commonAncestorCache =
+        config != null ? commonAncestorCache(config) : commonAncestorCache(0);
+    this.skipPointerCache =
+        config != null ? skipPointerCache(config) : skipPointerCache(0, DEFAULT_PARENTS_PER_COMMIT);
+    this.groupCommits =
+        config != null && config.groupCommitWindowMillis() > 0
+            ? new GroupCommits(persist, completeIndexCache, config.groupCommitWindowMillis())
+            : null;
+    this.contentFetchWindowSize =
+        config != null ? config.contentFetchWindowSize() : DEFAULT_CONTENT_FETCH_WINDOW_SIZE;
   }
 
   @Nonnull
@@ -175,7 +205,7 @@ public class VersionStoreImpl implements VersionStore {
   public Hash hashOnReference(
       NamedRef namedRef, Optional<Hash> hashOnReference, List<RelativeCommitSpec> relativeLookups)
       throws ReferenceNotFoundException {
-    RefMapping refMapping = new RefMapping(persist);
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
     CommitObj head;
     if (DetachedRef.INSTANCE.equals(namedRef)) {
       checkArgument(hashOnReference.isPresent(), "Must supply 'hashOnReference' for DETACHED");
@@ -188,7 +218,22 @@ public class VersionStoreImpl implements VersionStore {
       head = refMapping.resolveNamedRefHead(namedRef);
     }
 
-    CommitObj commit = refMapping.commitInChain(namedRef, head, hashOnReference, relativeLookups);
+    CommitObj commit;
+    try {
+      commit = refMapping.commitInChain(namedRef, head, hashOnReference, relativeLookups);
+    } catch (ReferenceNotFoundException e) {
+      if (DetachedRef.INSTANCE.equals(namedRef) || !hashOnReference.isPresent()) {
+        throw e;
+      }
+      // The reference might have been served from the reference cache and be stale, so the
+      // requested commit could be newer than the cached HEAD. Retry against the current HEAD.
+      Reference current = refMapping.resolveNamedRefForUpdate(namedRef);
+      if (head != null && current.pointer().equals(head.id())) {
+        throw e;
+      }
+      head = refMapping.resolveNamedRefHead(current);
+      commit = refMapping.commitInChain(namedRef, head, hashOnReference, relativeLookups);
+    }
     return commit != null ? objIdToHash(commit.id()) : NO_ANCESTOR;
   }
 
@@ -213,7 +258,7 @@ public class VersionStoreImpl implements VersionStore {
               ? asBranchName(namedRef.getName())
               : asTagName(namedRef.getName());
       try {
-        referenceLogic.getReference(mustNotExist);
+        referenceLogic.getReferenceForUpdate(mustNotExist);
         // A tag with the same name as the branch being created (or a branch with the same name
         // as the tag being created) already exists.
         throw referenceAlreadyExists(namedRef);
@@ -241,7 +286,7 @@ public class VersionStoreImpl implements VersionStore {
     ReferenceLogic referenceLogic = referenceLogic(persist);
     Reference expected;
     try {
-      expected = referenceLogic.getReference(refName);
+      expected = referenceLogic.getReferenceForUpdate(refName);
     } catch (RefNotFoundException e) {
       throw referenceNotFound(namedRef);
     }
@@ -287,7 +332,7 @@ public class VersionStoreImpl implements VersionStore {
       expected =
           hash.isPresent()
               ? hashToObjId(hash.get())
-              : referenceLogic.getReference(refName).pointer();
+              : referenceLogic.getReferenceForUpdate(refName).pointer();
       referenceLogic.deleteReference(refName, expected);
       return ImmutableReferenceDeletedResult.builder()
           .namedRef(namedRef)
@@ -297,8 +342,9 @@ public class VersionStoreImpl implements VersionStore {
     } catch (RefNotFoundException e) {
       throw referenceNotFound(namedRef);
     } catch (RefConditionFailedException e) {
-      RefMapping refMapping = new RefMapping(persist);
-      CommitObj headCommit = refMapping.resolveRefHead(namedRef);
+      RefMapping refMapping = new RefMapping(persist, skipPointerCache);
+      CommitObj headCommit =
+          refMapping.resolveNamedRefHead(refMapping.resolveNamedRefForUpdate(namedRef));
       throw referenceConflictException(
           namedRef, objIdToHash(expected), headCommit != null ? headCommit.id() : EMPTY_OBJ_ID);
     } catch (RetryTimeoutException e) {
@@ -309,7 +355,7 @@ public class VersionStoreImpl implements VersionStore {
   @Override
   public ReferenceInfo<CommitMeta> getNamedRef(String refName, GetNamedRefsParams params)
       throws ReferenceNotFoundException {
-    RefMapping refMapping = new RefMapping(persist);
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
     Reference reference = refMapping.resolveNamedRef(refName);
     NamedRef namedRef = referenceToNamedRef(reference);
 
@@ -343,7 +389,7 @@ public class VersionStoreImpl implements VersionStore {
   @Override
   public PaginationIterator<ReferenceInfo<CommitMeta>> getNamedRefs(
       GetNamedRefsParams params, String pagingToken) throws ReferenceNotFoundException {
-    RefMapping refMapping = new RefMapping(persist);
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
     ReferenceLogic referenceLogic = referenceLogic(persist);
 
     PagingToken token = pagingToken != null ? fromString(pagingToken) : null;
@@ -365,13 +411,14 @@ public class VersionStoreImpl implements VersionStore {
     Optional<CommitObj> baseRefHead = headForBaseReference(refMapping, params);
 
     CommitLogic commitLogic = commitLogic(persist);
+    ReferenceHeads referenceHeads = new ReferenceHeads(result, commitLogic);
 
     return new FilteringPaginationIterator<Reference, ReferenceInfo<CommitMeta>>(
-        result,
+        referenceHeads,
         reference -> {
           try {
             NamedRef namedRef = referenceToNamedRef(reference);
-            CommitObj head = commitLogic(persist).headCommit(reference);
+            CommitObj head = referenceHeads.headCommit(reference);
             return buildReferenceInfo(params, baseRefHead, commitLogic, namedRef, head);
           } catch (ReferenceNotFoundException | ObjNotFoundException e) {
             throw new RuntimeException("Could not resolve reference " + reference, e);
@@ -423,26 +470,17 @@ public class VersionStoreImpl implements VersionStore {
           && (opts.isComputeAheadBehind() || opts.isComputeCommonAncestor())) {
         if (baseRefHead.isPresent()) {
           CommitObj baseHead = baseRefHead.get();
-          try {
-            ObjId commonAncestorId = commitLogic.findCommonAncestor(baseHead.id(), head.id());
-            refInfo.commonAncestor(objIdToHash(commonAncestorId));
-
-            if (opts.isComputeAheadBehind()) {
-              CommitObj commonAncestor =
-                  persist.fetchTypedObj(commonAncestorId, COMMIT, CommitObj.class);
-              long commonAncestorSeq = commonAncestor.seq();
-              refInfo.aheadBehind(
-                  CommitsAheadBehind.of(
-                      (int) (head.seq() - commonAncestorSeq),
-                      (int) (baseHead.seq() - commonAncestorSeq)));
-            }
-          } catch (NoSuchElementException e) {
-            // no common ancestor
-            refInfo.commonAncestor(NO_ANCESTOR);
+          CommonAncestor commonAncestor =
+              commonAncestorCache.commonAncestor(commitLogic, baseHead, head);
+          // NO_ANCESTOR, if there is no common ancestor
+          refInfo.commonAncestor(objIdToHash(commonAncestor.id()));
 
-            if (opts.isComputeAheadBehind()) {
-              refInfo.aheadBehind(CommitsAheadBehind.of((int) head.seq(), (int) baseHead.seq()));
-            }
+          if (opts.isComputeAheadBehind()) {
+            long commonAncestorSeq = commonAncestor.seq();
+            refInfo.aheadBehind(
+                CommitsAheadBehind.of(
+                    (int) (head.seq() - commonAncestorSeq),
+                    (int) (baseHead.seq() - commonAncestorSeq)));
           }
         } else {
           refInfo.commonAncestor(NO_ANCESTOR);
@@ -467,9 +505,12 @@ public class VersionStoreImpl implements VersionStore {
   }
 
   @Override
-  public PaginationIterator<Commit> getCommits(Ref ref, boolean fetchAdditionalInfo)
+  public PaginationIterator<Commit> getCommits(
+      Ref ref,
+      boolean fetchAdditionalInfo,
+      @Nullable @jakarta.annotation.Nullable Predicate<CommitMeta> commitMetaPredicate)
       throws ReferenceNotFoundException {
-    RefMapping refMapping = new RefMapping(persist);
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
     CommitObj head = refMapping.resolveRefHead(ref);
     if (head == null) {
       return emptyOrNotFound(ref, PaginationIterator.empty());
@@ -487,7 +528,10 @@ public class VersionStoreImpl implements VersionStore {
           } catch (ObjNotFoundException e) {
             throw new RuntimeException("Could not map commit", e);
           }
-        }) {
+        },
+        // Evaluated against the commit headers, before fetching the commit operations
+        commitObj ->
+            commitMetaPredicate == null || commitMetaPredicate.test(toCommitMeta(commitObj))) {
       @Override
       protected String computeTokenForCurrent() {
         CommitObj c = current();
@@ -504,13 +548,12 @@ public class VersionStoreImpl implements VersionStore {
   @Override
   public List<IdentifiedContentKey> getIdentifiedKeys(Ref ref, Collection<ContentKey> keys)
       throws ReferenceNotFoundException {
-    RefMapping refMapping = new RefMapping(persist);
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
     CommitObj head = refMapping.resolveRefHead(ref);
     if (head == null) {
       return emptyList();
     }
-    IndexesLogic indexesLogic = indexesLogic(persist);
-    StoreIndex<CommitOp> index = indexesLogic.buildCompleteIndex(head, Optional.empty());
+    StoreIndex<CommitOp> index = completeIndexCache.completeIndex(head);
 
     return keys.stream()
         .map(
@@ -540,13 +583,12 @@ public class VersionStoreImpl implements VersionStore {
       throws ReferenceNotFoundException {
     KeyRanges keyRanges = keyRanges(pagingToken, keyRestrictions);
 
-    RefMapping refMapping = new RefMapping(persist);
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
     CommitObj head = refMapping.resolveRefHead(ref);
     if (head == null) {
       return emptyOrNotFound(ref, PaginationIterator.empty());
     }
-    IndexesLogic indexesLogic = indexesLogic(persist);
-    StoreIndex<CommitOp> index = indexesLogic.buildCompleteIndex(head, Optional.empty());
+    StoreIndex<CommitOp> index = completeIndexCache.completeIndex(head);
 
     Iterator<StoreIndexElement<CommitOp>> result =
         index.iterator(keyRanges.beginStoreKey(), keyRanges.endStoreKey(), false);
@@ -566,6 +608,14 @@ public class VersionStoreImpl implements VersionStore {
                 return key != null && contentKeyPredicate.test(key);
               });
     }
+    Predicate<Content.Type> contentTypePredicate = keyRestrictions.contentTypePredicate();
+    if (contentTypePredicate != null) {
+      keyPredicate =
+          keyPredicate.and(
+              indexElement ->
+                  contentTypePredicate.test(
+                      contentTypeForPayload(indexElement.content().payload())));
+    }
 
     Predicate<StoreIndexElement<CommitOp>> stopPredicate;
     ContentKey prefixKey = keyRestrictions.prefixKey();
@@ -576,17 +626,37 @@ public class VersionStoreImpl implements VersionStore {
       stopPredicate = x -> false;
     }
 
+    Iterator<StoreIndexElement<CommitOp>> source = result;
+    ContentReadAhead<StoreIndexElement<CommitOp>> contentReadAhead = null;
+    if (withContent) {
+      Predicate<StoreIndexElement<CommitOp>> fetchPredicate = keyPredicate;
+      contentReadAhead =
+          new ContentReadAhead<>(
+              result,
+              contentMapping,
+              contentFetchWindowSize,
+              (indexElement, ids) -> {
+                ObjId value = indexElement.content().value();
+                if (value != null && fetchPredicate.test(indexElement)) {
+                  ids.accept(value);
+                }
+              },
+              stopPredicate);
+      source = contentReadAhead;
+    }
+    ContentReadAhead<StoreIndexElement<CommitOp>> contents = contentReadAhead;
+
     return new FilteringPaginationIterator<StoreIndexElement<CommitOp>, KeyEntry>(
-        result,
+        source,
         indexElement -> {
           try {
             ContentKey key = storeKeyToKey(indexElement.key());
             CommitOp commitOp = indexElement.content();
             Content.Type contentType = contentTypeForPayload(commitOp.payload());
 
-            if (withContent) {
+            if (contents != null) {
               Content c =
-                  contentMapping.fetchContent(
+                  contents.content(
                       requireNonNull(
                           indexElement.content().value(), "Required value pointer is null"));
               return KeyEntry.of(buildIdentifiedKey(key, index, c, x -> null), c);
@@ -628,7 +698,7 @@ public class VersionStoreImpl implements VersionStore {
 
   @Override
   public ContentResult getValue(Ref ref, ContentKey key) throws ReferenceNotFoundException {
-    RefMapping refMapping = new RefMapping(persist);
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
     CommitObj head = refMapping.resolveRefHead(ref);
     if (head == null) {
       return emptyOrNotFound(ref, null);
@@ -636,8 +706,7 @@ public class VersionStoreImpl implements VersionStore {
     try {
 
       StoreKey storeKey = keyToStoreKey(key);
-      IndexesLogic indexesLogic = indexesLogic(persist);
-      StoreIndex<CommitOp> index = indexesLogic.buildCompleteIndex(head, Optional.empty());
+      StoreIndex<CommitOp> index = completeIndexCache.completeIndex(head);
 
       index.loadIfNecessary(singleton(storeKey));
 
@@ -704,15 +773,14 @@ public class VersionStoreImpl implements VersionStore {
   @Override
   public Map<ContentKey, ContentResult> getValues(Ref ref, Collection<ContentKey> keys)
       throws ReferenceNotFoundException {
-    RefMapping refMapping = new RefMapping(persist);
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
     CommitObj head = refMapping.resolveRefHead(ref);
     if (head == null) {
       return emptyOrNotFound(ref, emptyMap());
     }
 
     try {
-      IndexesLogic indexesLogic = indexesLogic(persist);
-      StoreIndex<CommitOp> index = indexesLogic.buildCompleteIndex(head, Optional.empty());
+      StoreIndex<CommitOp> index = completeIndexCache.completeIndex(head);
 
       // Eagerly bulk-(pre)fetch the requested keys
       index.loadIfNecessary(
@@ -745,6 +813,118 @@ public class VersionStoreImpl implements VersionStore {
     }
   }
 
+  @Override
+  public Map<Ref, Map<ContentKey, ContentResult>> getValues(
+      Map<? extends Ref, ? extends Collection<ContentKey>> keysPerRef)
+      throws ReferenceNotFoundException {
+    Map<Ref, CommitObj> heads = resolveRefHeads(keysPerRef.keySet());
+
+    try {
+      // Refs pointing to the same commit share the same index
+      Map<ObjId, StoreIndex<CommitOp>> indexes = new HashMap<>();
+      Map<Ref, Map<ContentKey, ObjId>> valueIds = new LinkedHashMap<>();
+      Set<ObjId> allValueIds = new LinkedHashSet<>();
+      for (Map.Entry<? extends Ref, ? extends Collection<ContentKey>> refKeys :
+          keysPerRef.entrySet()) {
+        Map<ContentKey, ObjId> ids = new LinkedHashMap<>();
+        valueIds.put(refKeys.getKey(), ids);
+        CommitObj head = heads.get(refKeys.getKey());
+        if (head == null) {
+          continue;
+        }
+
+        StoreIndex<CommitOp> index =
+            indexes.computeIfAbsent(
+                head.id(), id -> completeIndexCache.completeIndex(head));
+        index.loadIfNecessary(
+            refKeys.getValue().stream()
+                .map(TypeMapping::keyToStoreKey)
+                .collect(Collectors.toSet()));
+
+        for (ContentKey key : refKeys.getValue()) {
+          StoreIndexElement<CommitOp> indexElement = index.get(keyToStoreKey(key));
+          if (indexElement == null || !indexElement.content().action().exists()) {
+            continue;
+          }
+          ObjId value =
+              requireNonNull(indexElement.content().value(), "Required value pointer is null");
+          ids.put(key, value);
+          allValueIds.add(value);
+        }
+      }
+
+      // Fetch each content object only once, even if it is visible on multiple refs
+      Map<ObjId, Content> contents =
+          allValueIds.isEmpty()
+              ? emptyMap()
+              : new ContentMapping(persist).fetchContents(allValueIds);
+
+      Map<Ref, Map<ContentKey, ContentResult>> result = new LinkedHashMap<>();
+      for (Map.Entry<Ref, Map<ContentKey, ObjId>> refValues : valueIds.entrySet()) {
+        Map<ContentKey, ContentResult> values = new HashMap<>();
+        result.put(refValues.getKey(), values);
+        if (refValues.getValue().isEmpty()) {
+          continue;
+        }
+        StoreIndex<CommitOp> index = indexes.get(heads.get(refValues.getKey()).id());
+        for (Map.Entry<ContentKey, ObjId> value : refValues.getValue().entrySet()) {
+          Content content = contents.get(value.getValue());
+          values.put(
+              value.getKey(),
+              contentResult(
+                  buildIdentifiedKey(value.getKey(), index, content, x -> null), content, null));
+        }
+      }
+      return result;
+    } catch (ObjNotFoundException e) {
+      throw objectNotFound(e);
+    }
+  }
+
+  /**
+   * Resolves the HEAD commits of the given refs, the commits of refs given as a {@link Hash} are
+   * fetched with one bulk fetch.
+   */
+  private Map<Ref, CommitObj> resolveRefHeads(Collection<? extends Ref> refs)
+      throws ReferenceNotFoundException {
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
+    Map<Ref, CommitObj> heads = new HashMap<>();
+    Set<ObjId> commitIds = new LinkedHashSet<>();
+    for (Ref ref : refs) {
+      if (ref instanceof Hash) {
+        commitIds.add(hashToObjId((Hash) ref));
+      } else {
+        heads.put(ref, refMapping.resolveRefHead(ref));
+      }
+    }
+
+    if (!commitIds.isEmpty()) {
+      ObjId[] ids = commitIds.toArray(new ObjId[0]);
+      CommitObj[] commits;
+      try {
+        commits = commitLogic(persist).fetchCommits(ids);
+      } catch (ObjNotFoundException e) {
+        throw referenceNotFound(e);
+      }
+      Map<ObjId, CommitObj> commitsById = new HashMap<>();
+      for (int i = 0; i < ids.length; i++) {
+        commitsById.put(ids[i], commits[i]);
+      }
+      for (Ref ref : refs) {
+        if (ref instanceof Hash) {
+          heads.put(ref, commitsById.get(hashToObjId((Hash) ref)));
+        }
+      }
+    }
+
+    for (Ref ref : refs) {
+      if (heads.get(ref) == null) {
+        emptyOrNotFound(ref, null);
+      }
+    }
+    return heads;
+  }
+
   @Override
   public CommitResult<Commit> commit(
       @Nonnull @jakarta.annotation.Nonnull BranchName branch,
@@ -754,12 +934,16 @@ public class VersionStoreImpl implements VersionStore {
       @Nonnull @jakarta.annotation.Nonnull CommitValidator validator,
       @Nonnull @jakarta.annotation.Nonnull BiConsumer<ContentKey, String> addedContents)
       throws ReferenceNotFoundException, ReferenceConflictException {
+    if (groupCommits != null) {
+      return groupCommits.commit(
+          branch, referenceHash, metadata, operations, validator, addedContents);
+    }
     return committingOperation(
         "commit",
         branch,
         referenceHash,
         persist,
-        CommitImpl::new,
+        (b, hash, p, ref, head) -> new CommitImpl(b, hash, p, ref, head, completeIndexCache),
         (commitImpl, retryState) ->
             commitImpl.commit(retryState, metadata, operations, validator, addedContents));
   }
@@ -836,7 +1020,7 @@ public class VersionStoreImpl implements VersionStore {
       throws ReferenceNotFoundException {
     KeyRanges keyRanges = keyRanges(pagingToken, keyRestrictions);
 
-    RefMapping refMapping = new RefMapping(persist);
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache);
 
     CommitObj fromCommit = refMapping.resolveRefHead(from);
     if (fromCommit == null) {
@@ -880,13 +1064,30 @@ public class VersionStoreImpl implements VersionStore {
       stopPredicate = x -> false;
     }
 
+    ContentReadAhead<DiffEntry> contents =
+        new ContentReadAhead<>(
+            diffIter,
+            contentMapping,
+            contentFetchWindowSize,
+            (d, ids) -> {
+              if (keyPred.test(d)) {
+                if (d.fromId() != null) {
+                  ids.accept(d.fromId());
+                }
+                if (d.toId() != null) {
+                  ids.accept(d.toId());
+                }
+              }
+            },
+            stopPredicate);
+
     return new FilteringPaginationIterator<DiffEntry, Diff>(
-        diffIter,
+        contents,
         d -> {
           Function<ObjId, Content> contentFetcher =
               id -> {
                 try {
-                  return contentMapping.fetchContent(id);
+                  return contents.content(id);
                 } catch (ObjNotFoundException e) {
                   throw new RuntimeException(e.getMessage());
                 }
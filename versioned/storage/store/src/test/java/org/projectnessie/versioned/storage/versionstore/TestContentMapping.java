@@ -15,6 +15,8 @@
  */
 package org.projectnessie.versioned.storage.versionstore;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexElement.indexElement;
 import static org.projectnessie.versioned.storage.common.indexes.StoreIndexes.newStoreIndex;
 import static org.projectnessie.versioned.storage.common.indexes.StoreKey.key;
@@ -30,7 +32,10 @@ import static org.projectnessie.versioned.storage.versionstore.TypeMapping.MAIN_
 import static org.projectnessie.versioned.storage.versionstore.TypeMapping.objIdToHash;
 import static org.projectnessie.versioned.store.DefaultStoreWorker.payloadForContent;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
@@ -52,6 +57,7 @@ import org.projectnessie.versioned.Commit;
 import org.projectnessie.versioned.Delete;
 import org.projectnessie.versioned.ImmutableCommit;
 import org.projectnessie.versioned.Put;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
 import org.projectnessie.versioned.storage.common.indexes.StoreIndex;
 import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
 import org.projectnessie.versioned.storage.common.objtypes.CommitOp;
@@ -113,6 +119,27 @@ public class TestContentMapping {
     soft.assertThat(obj).isEqualTo(content);
   }
 
+  @Test
+  public void fetchContents() throws Exception {
+    ContentMapping contentMapping = new ContentMapping(persist);
+
+    Map<ObjId, Content> expected = new LinkedHashMap<>();
+    for (Content content : contentSamples().collect(Collectors.toList())) {
+      content = content.withId(UUID.randomUUID().toString());
+      ContentValueObj value = contentMapping.buildContent(content, payloadForContent(content));
+      persist.storeObj(value);
+      expected.put(value.id(), content);
+    }
+
+    soft.assertThat(contentMapping.fetchContents(expected.keySet()))
+        .containsExactlyInAnyOrderEntriesOf(expected);
+    soft.assertThat(contentMapping.fetchContents(emptyList())).isEmpty();
+
+    ObjId existing = expected.keySet().iterator().next();
+    soft.assertThatThrownBy(() -> contentMapping.fetchContents(asList(existing, randomObjId())))
+        .isInstanceOf(ObjNotFoundException.class);
+  }
+
   @Test
   public void commitsWithoutAdditionalInfo() throws Exception {
     ContentMapping contentMapping = new ContentMapping(persist);
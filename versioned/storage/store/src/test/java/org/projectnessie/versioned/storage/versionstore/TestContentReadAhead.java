@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.versionstore;
+
+import static java.util.Arrays.asList;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
+import static org.projectnessie.versioned.store.DefaultStoreWorker.payloadForContent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.projectnessie.model.Content;
+import org.projectnessie.model.IcebergTable;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.objtypes.ContentValueObj;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.ObjType;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.testextension.NessiePersist;
+import org.projectnessie.versioned.storage.testextension.PersistExtension;
+
+@ExtendWith({PersistExtension.class, SoftAssertionsExtension.class})
+public class TestContentReadAhead {
+  @NessiePersist protected Persist persist;
+
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  static final int NUM_ELEMENTS = 10;
+
+  private final List<Integer> bulkFetches = new ArrayList<>();
+  private final AtomicInteger singleFetches = new AtomicInteger();
+  private final AtomicInteger consumed = new AtomicInteger();
+
+  private final List<ObjId> ids = new ArrayList<>();
+  private final List<Content> contents = new ArrayList<>();
+  private ContentMapping contentMapping;
+
+  @BeforeEach
+  void setup() throws Exception {
+    ContentMapping storing = new ContentMapping(persist);
+    for (int i = 0; i < NUM_ELEMENTS; i++) {
+      Content content = IcebergTable.of("meta" + i, 42, 43, 44, 45, UUID.randomUUID().toString());
+      ContentValueObj value = storing.buildContent(content, payloadForContent(content));
+      persist.storeObj(value);
+      ids.add(value.id());
+      contents.add(content);
+    }
+
+    contentMapping =
+        new ContentMapping(
+            new PersistDelegate(persist) {
+              @Override
+              @Nonnull
+              @jakarta.annotation.Nonnull
+              public Obj[] fetchObjs(@Nonnull @jakarta.annotation.Nonnull ObjId[] ids)
+                  throws ObjNotFoundException {
+                bulkFetches.add(ids.length);
+                return super.fetchObjs(ids);
+              }
+
+              @Override
+              @Nonnull
+              @jakarta.annotation.Nonnull
+              public <T extends Obj> T fetchTypedObj(
+                  @Nonnull @jakarta.annotation.Nonnull ObjId id, ObjType type, Class<T> typeClass)
+                  throws ObjNotFoundException {
+                singleFetches.incrementAndGet();
+                return super.fetchTypedObj(id, type, typeClass);
+              }
+            });
+  }
+
+  private Iterator<Integer> source() {
+    Iterator<Integer> elements = IntStream.range(0, NUM_ELEMENTS).iterator();
+    return new Iterator<Integer>() {
+      @Override
+      public boolean hasNext() {
+        return elements.hasNext();
+      }
+
+      @Override
+      public Integer next() {
+        consumed.incrementAndGet();
+        return elements.next();
+      }
+    };
+  }
+
+  private ContentReadAhead<Integer> readAhead(int windowSize, Predicate<Integer> stopPredicate) {
+    return new ContentReadAhead<>(
+        source(),
+        contentMapping,
+        windowSize,
+        (i, contentIds) -> {
+          // odd elements do not need their content
+          if ((i & 1) == 0) {
+            contentIds.accept(ids.get(i));
+          }
+        },
+        stopPredicate);
+  }
+
+  @Test
+  public void windows() throws Exception {
+    ContentReadAhead<Integer> readAhead = readAhead(4, i -> false);
+
+    List<Integer> elements = new ArrayList<>();
+    while (readAhead.hasNext()) {
+      int i = readAhead.next();
+      elements.add(i);
+      if ((i & 1) == 0) {
+        soft.assertThat(readAhead.content(ids.get(i))).isEqualTo(contents.get(i));
+      }
+      if (i == 0) {
+        soft.assertThat(consumed).hasValue(4);
+      }
+    }
+
+    soft.assertThat(elements)
+        .containsExactlyElementsOf(
+            IntStream.range(0, NUM_ELEMENTS).boxed().collect(Collectors.toList()));
+    // elements 0..3, 4..7, 8..9 - only the even ones need their content
+    soft.assertThat(bulkFetches).containsExactly(2, 2, 1);
+    soft.assertThat(singleFetches).hasValue(0);
+  }
+
+  @Test
+  public void contentNotInWindow() throws Exception {
+    ContentReadAhead<Integer> readAhead = readAhead(4, i -> false);
+
+    soft.assertThat(readAhead.next()).isEqualTo(0);
+    // Content of an element in the next window is fetched individually
+    soft.assertThat(readAhead.content(ids.get(4))).isEqualTo(contents.get(4));
+    soft.assertThat(bulkFetches).containsExactly(2);
+    soft.assertThat(singleFetches).hasValue(1);
+  }
+
+  @Test
+  public void noReadAheadPastStopPredicate() {
+    ContentReadAhead<Integer> readAhead = readAhead(4, i -> i == 6);
+
+    List<Integer> elements = new ArrayList<>();
+    while (readAhead.hasNext()) {
+      int i = readAhead.next();
+      elements.add(i);
+      if (i == 6) {
+        // The caller stops after the first element matching the stop predicate
+        break;
+      }
+    }
+
+    soft.assertThat(elements).containsExactly(0, 1, 2, 3, 4, 5, 6);
+    // The window containing the stop element ends with it, its content is not fetched
+    soft.assertThat(consumed).hasValue(7);
+    soft.assertThat(bulkFetches).containsExactly(2, 1);
+    soft.assertThat(singleFetches).hasValue(0);
+  }
+
+  @Test
+  public void windowSizeOne() throws Exception {
+    ContentReadAhead<Integer> readAhead = readAhead(1, i -> false);
+
+    for (int i = 0; i < NUM_ELEMENTS; i++) {
+      soft.assertThat(readAhead.next()).isEqualTo(i);
+      soft.assertThat(consumed).hasValue(i + 1);
+    }
+    soft.assertThat(readAhead.hasNext()).isFalse();
+    soft.assertThat(readAhead.content(ids.get(2))).isEqualTo(contents.get(2));
+
+    // No bulk fetches, contents are fetched individually
+    soft.assertThat(bulkFetches).isEmpty();
+    soft.assertThat(singleFetches).hasValue(1);
+  }
+
+  @Test
+  public void missingContent() throws Exception {
+    ids.set(2, randomObjId());
+    ContentReadAhead<Integer> readAhead = readAhead(4, i -> false);
+
+    soft.assertThat(readAhead.next()).isEqualTo(0);
+    // The failed bulk fetch does not fail the iteration, only the affected element
+    soft.assertThat(readAhead.content(ids.get(0))).isEqualTo(contents.get(0));
+    soft.assertThatThrownBy(() -> readAhead.content(ids.get(2)))
+        .isInstanceOf(ObjNotFoundException.class);
+    soft.assertThat(asList(readAhead.next(), readAhead.next(), readAhead.next()))
+        .containsExactly(1, 2, 3);
+  }
+}
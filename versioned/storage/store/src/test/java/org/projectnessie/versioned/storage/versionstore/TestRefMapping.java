@@ -36,11 +36,13 @@ import static org.projectnessie.versioned.storage.common.logic.CommitConflict.co
 import static org.projectnessie.versioned.storage.common.logic.CreateCommit.newCommitBuilder;
 import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
 import static org.projectnessie.versioned.storage.common.logic.Logics.referenceLogic;
+import static org.projectnessie.versioned.storage.common.logic.SkipPointerCache.skipPointerCache;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitHeaders.EMPTY_COMMIT_HEADERS;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitHeaders.newCommitHeaders;
 import static org.projectnessie.versioned.storage.common.objtypes.CommitObj.commitBuilder;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
 import static org.projectnessie.versioned.storage.common.persist.ObjId.objIdFromString;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
 import static org.projectnessie.versioned.storage.common.persist.ObjType.COMMIT;
 import static org.projectnessie.versioned.storage.common.persist.Reference.reference;
 import static org.projectnessie.versioned.storage.versionstore.RefMapping.NO_ANCESTOR;
@@ -473,10 +475,46 @@ public class TestRefMapping {
     }
   }
 
+  @Test
+  public void commitInChainWithSkipPointers() throws Exception {
+    RefMapping refMapping = new RefMapping(persist, skipPointerCache(100, 4));
+
+    List<ObjId> commits1 = generateCommits("foo-long", 150);
+    ObjId commits1head = commits1.get(commits1.size() - 1);
+    List<ObjId> commits2 = generateCommits("bar-long", 150);
+    CommitObj head = requireNonNull(commitLogic(persist).fetchCommit(commits1head));
+
+    for (int i = 0; i < commits1.size(); i += 7) {
+      ObjId testId = commits1.get(i);
+      soft.assertThat(refMapping.commitInChain(commits1head, testId))
+          .extracting(CommitObj::id)
+          .isEqualTo(testId);
+      soft.assertThat(refMapping.commitInChain(commits1head, commits2.get(i))).isNull();
+      soft.assertThat(refMapping.commitInChain(testId, commits1head)).isNull();
+
+      int n = commits1.size() - 1 - i;
+      soft.assertThat(
+              refMapping.relativeSpec(
+                  head, singletonList(relativeCommitSpec(N_TH_PREDECESSOR, "" + n))))
+          .extracting(CommitObj::id)
+          .isEqualTo(testId);
+    }
+    soft.assertThat(
+            refMapping.relativeSpec(
+                head,
+                singletonList(relativeCommitSpec(N_TH_PREDECESSOR, "" + commits1.size()))))
+        .isNull();
+    soft.assertThat(refMapping.commitInChain(commits1head, randomObjId())).isNull();
+  }
+
   private List<ObjId> generateCommits(String msg) throws Exception {
+    return generateCommits(msg, 10);
+  }
+
+  private List<ObjId> generateCommits(String msg, int num) throws Exception {
     ObjId head = EMPTY_OBJ_ID;
     List<ObjId> r = new ArrayList<>();
-    for (int i = 0; i < 10; i++) {
+    for (int i = 0; i < num; i++) {
       head = generateCommit(head, msg, i).id();
       r.add(head);
     }
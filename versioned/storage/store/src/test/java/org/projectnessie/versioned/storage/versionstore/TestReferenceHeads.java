@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2023 Dremio
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.projectnessie.versioned.storage.versionstore;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static org.projectnessie.versioned.storage.common.logic.Logics.commitLogic;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.EMPTY_OBJ_ID;
+import static org.projectnessie.versioned.storage.common.persist.ObjId.randomObjId;
+import static org.projectnessie.versioned.storage.common.persist.Reference.reference;
+import static org.projectnessie.versioned.storage.commontests.AbstractCommitLogicTests.stdCommit;
+import static org.projectnessie.versioned.storage.versionstore.ReferenceHeads.FETCH_CHUNK_SIZE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.projectnessie.versioned.storage.common.exceptions.ObjNotFoundException;
+import org.projectnessie.versioned.storage.common.logic.CommitLogic;
+import org.projectnessie.versioned.storage.common.objtypes.CommitObj;
+import org.projectnessie.versioned.storage.common.persist.Obj;
+import org.projectnessie.versioned.storage.common.persist.ObjId;
+import org.projectnessie.versioned.storage.common.persist.Persist;
+import org.projectnessie.versioned.storage.common.persist.Reference;
+import org.projectnessie.versioned.storage.testextension.NessiePersist;
+import org.projectnessie.versioned.storage.testextension.PersistExtension;
+
+@ExtendWith({PersistExtension.class, SoftAssertionsExtension.class})
+public class TestReferenceHeads {
+  @NessiePersist protected Persist persist;
+
+  @InjectSoftAssertions protected SoftAssertions soft;
+
+  private final List<Integer> bulkFetches = new ArrayList<>();
+  private final AtomicInteger singleFetches = new AtomicInteger();
+
+  private CommitLogic commitLogic;
+
+  @BeforeEach
+  void setup() {
+    commitLogic =
+        commitLogic(
+            new PersistDelegate(persist) {
+              @Override
+              @Nonnull
+              @jakarta.annotation.Nonnull
+              public Obj fetchObj(@Nonnull @jakarta.annotation.Nonnull ObjId id)
+                  throws ObjNotFoundException {
+                singleFetches.incrementAndGet();
+                return super.fetchObj(id);
+              }
+
+              @Override
+              @Nonnull
+              @jakarta.annotation.Nonnull
+              public Obj[] fetchObjs(@Nonnull @jakarta.annotation.Nonnull ObjId[] ids)
+                  throws ObjNotFoundException {
+                bulkFetches.add(ids.length);
+                return super.fetchObjs(ids);
+              }
+            });
+  }
+
+  private List<Reference> references(int numRefs) throws Exception {
+    List<Reference> references = new ArrayList<>(numRefs);
+    for (int i = 0; i < numRefs; i++) {
+      CommitObj commit =
+          requireNonNull(
+              commitLogic(persist)
+                  .doCommit(
+                      stdCommit().parentCommitId(EMPTY_OBJ_ID).message("commit " + i).build(),
+                      emptyList()));
+      references.add(reference(String.format("refs/heads/branch-%05d", i), commit.id(), false));
+    }
+    return references;
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, FETCH_CHUNK_SIZE, FETCH_CHUNK_SIZE + 1, 2 * FETCH_CHUNK_SIZE + 7})
+  public void chunks(int numRefs) throws Exception {
+    List<Reference> references = references(numRefs);
+
+    ReferenceHeads heads = new ReferenceHeads(references.iterator(), commitLogic);
+    List<Reference> result = new ArrayList<>();
+    while (heads.hasNext()) {
+      Reference reference = heads.next();
+      result.add(reference);
+      soft.assertThat(heads.headCommit(reference))
+          .extracting(CommitObj::id)
+          .isEqualTo(reference.pointer());
+    }
+
+    soft.assertThat(result).containsExactlyElementsOf(references);
+
+    // One bulk fetch per chunk, HEADs are not fetched individually
+    List<Integer> expectedFetches = new ArrayList<>();
+    for (int remaining = numRefs; remaining > 0; remaining -= FETCH_CHUNK_SIZE) {
+      expectedFetches.add(Math.min(remaining, FETCH_CHUNK_SIZE));
+    }
+    soft.assertThat(bulkFetches).containsExactlyElementsOf(expectedFetches);
+    soft.assertThat(singleFetches).hasValue(0);
+  }
+
+  @Test
+  public void sharedPointers() throws Exception {
+    List<Reference> references = references(3);
+    Reference first = references.get(0);
+    references.add(reference("refs/tags/tag-1", first.pointer(), false));
+    references.add(reference("refs/tags/tag-2", first.pointer(), false));
+
+    ReferenceHeads heads = new ReferenceHeads(references.iterator(), commitLogic);
+    while (heads.hasNext()) {
+      Reference reference = heads.next();
+      soft.assertThat(heads.headCommit(reference))
+          .extracting(CommitObj::id)
+          .isEqualTo(reference.pointer());
+    }
+
+    // Each distinct pointer is fetched once
+    soft.assertThat(bulkFetches).containsExactly(3);
+  }
+
+  @Test
+  public void emptyPointer() throws Exception {
+    List<Reference> references = references(2);
+    references.add(1, reference("refs/heads/empty", EMPTY_OBJ_ID, false));
+
+    ReferenceHeads heads = new ReferenceHeads(references.iterator(), commitLogic);
+    while (heads.hasNext()) {
+      Reference reference = heads.next();
+      if (EMPTY_OBJ_ID.equals(reference.pointer())) {
+        soft.assertThat(heads.headCommit(reference)).isNull();
+      } else {
+        soft.assertThat(heads.headCommit(reference))
+            .extracting(CommitObj::id)
+            .isEqualTo(reference.pointer());
+      }
+    }
+    soft.assertThat(singleFetches).hasValue(0);
+  }
+
+  @Test
+  public void missingHeadFallsBackToHeadCommit() throws Exception {
+    List<Reference> references = references(FETCH_CHUNK_SIZE + 3);
+    // The missing HEAD lets the bulk fetch of the second chunk fail
+    Reference missing = reference("refs/heads/missing", randomObjId(), false);
+    references.add(FETCH_CHUNK_SIZE + 1, missing);
+
+    ReferenceHeads heads = new ReferenceHeads(references.iterator(), commitLogic);
+    List<Reference> result = new ArrayList<>();
+    while (heads.hasNext()) {
+      Reference reference = heads.next();
+      result.add(reference);
+      if (reference.equals(missing)) {
+        soft.assertThatThrownBy(() -> heads.headCommit(reference))
+            .isInstanceOf(ObjNotFoundException.class);
+      } else {
+        soft.assertThat(heads.headCommit(reference))
+            .extracting(CommitObj::id)
+            .isEqualTo(reference.pointer());
+      }
+    }
+
+    soft.assertThat(result).containsExactlyElementsOf(references);
+    soft.assertThat(bulkFetches).containsExactly(FETCH_CHUNK_SIZE, 4);
+    // The references of the second chunk are resolved individually via
+    // CommitLogic.headCommit(), the first chunk is not affected
+    soft.assertThat(singleFetches).hasValue(4);
+  }
+}
@@ -20,8 +20,16 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.projectnessie.model.CommitMeta.fromMessage;
 import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_COMMIT_RETRIES;
 import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_COMMIT_TIMEOUT_MILLIS;
+import static org.projectnessie.versioned.storage.common.config.StoreConfig.CONFIG_GROUP_COMMIT_WINDOW_MILLIS;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
@@ -31,6 +39,8 @@ import org.junit.jupiter.api.Test;
 import org.projectnessie.model.ContentKey;
 import org.projectnessie.model.IcebergTable;
 import org.projectnessie.versioned.BranchName;
+import org.projectnessie.versioned.Commit;
+import org.projectnessie.versioned.CommitResult;
 import org.projectnessie.versioned.Hash;
 import org.projectnessie.versioned.Put;
 import org.projectnessie.versioned.ReferenceConflictException;
@@ -160,4 +170,74 @@ public class TestVersionStoreImpl extends AbstractVersionStoreTests {
         fromMessage("commit foo"),
         singletonList(Put.of(ContentKey.of("some-key"), IcebergTable.of("meta", 42, 43, 44, 45))));
   }
+
+  @Test
+  public void groupCommits(
+      @NessieStoreConfig(name = CONFIG_GROUP_COMMIT_WINDOW_MILLIS, value = "100") @NessiePersist
+          Persist persist)
+      throws Exception {
+    AtomicInteger pointerUpdates = new AtomicInteger();
+    Persist tested =
+        new PersistDelegate(persist) {
+          @Nonnull
+          @jakarta.annotation.Nonnull
+          @Override
+          public Reference updateReferencePointer(
+              @Nonnull @jakarta.annotation.Nonnull Reference reference,
+              @Nonnull @jakarta.annotation.Nonnull ObjId newPointer)
+              throws RefNotFoundException, RefConditionFailedException {
+            pointerUpdates.incrementAndGet();
+            return super.updateReferencePointer(reference, newPointer);
+          }
+        };
+    VersionStore store = new VersionStoreImpl(tested);
+
+    BranchName branch = BranchName.of("branch1");
+    Hash branch1 = store.create(branch, Optional.empty()).getHash();
+    pointerUpdates.set(0);
+
+    int numKeys = 20;
+    List<ContentKey> keys = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(numKeys + 1);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<CommitResult<Commit>>> results = new ArrayList<>();
+      for (int i = 0; i <= numKeys; i++) {
+        // The last commit conflicts with the first one
+        ContentKey key = ContentKey.of("key-" + (i % numKeys));
+        if (i < numKeys) {
+          keys.add(key);
+        }
+        String message = "commit " + i;
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return store.commit(
+                      branch,
+                      Optional.of(branch1),
+                      fromMessage(message),
+                      singletonList(Put.of(key, IcebergTable.of("meta", 42, 43, 44, 45))));
+                }));
+      }
+      start.countDown();
+
+      int failed = 0;
+      for (Future<CommitResult<Commit>> result : results) {
+        try {
+          soft.assertThat(result.get().getTargetBranch()).isEqualTo(branch);
+        } catch (ExecutionException e) {
+          soft.assertThat(e.getCause()).isInstanceOf(ReferenceConflictException.class);
+          failed++;
+        }
+      }
+      soft.assertThat(failed).isEqualTo(1);
+    } finally {
+      executor.shutdown();
+    }
+
+    soft.assertThat(store.getValues(branch, keys)).containsOnlyKeys(keys);
+    soft.assertThat(store.getCommits(branch, false)).toIterable().hasSize(numKeys);
+    soft.assertThat(pointerUpdates).hasValueLessThan(numKeys);
+  }
 }
@@ -143,6 +143,19 @@ final class TelemetryPersist implements Persist {
     }
   }
 
+  @Override
+  public Reference fetchReferenceForUpdate(@Nonnull @jakarta.annotation.Nonnull String name) {
+    try (Traced trace = traced("fetchReferenceForUpdate")) {
+      try {
+        Reference result = persist.fetchReferenceForUpdate(name);
+        trace.attribute("found", result != null);
+        return result;
+      } catch (RuntimeException e) {
+        throw trace.unhandledError(e);
+      }
+    }
+  }
+
   @Override
   @Nonnull
   @jakarta.annotation.Nonnull
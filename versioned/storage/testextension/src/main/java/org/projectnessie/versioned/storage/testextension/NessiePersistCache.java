@@ -31,4 +31,13 @@ import java.lang.annotation.Target;
 @Inherited
 public @interface NessiePersistCache {
   long capacity() default 1024 * 1024;
+
+  /** Capacity for deserialized objects, out of {@link #capacity()}, disabled by default. */
+  long deserializedCapacity() default 0;
+
+  /** Reference cache TTL in milliseconds, disabled by default. */
+  long referenceTtlMillis() default 0;
+
+  /** Whether to use the off-heap cache backend. */
+  boolean offHeap() default false;
 }
@@ -22,6 +22,7 @@ import static org.junit.platform.commons.util.AnnotationUtils.findRepeatableAnno
 import static org.junit.platform.commons.util.ReflectionUtils.findMethod;
 import static org.junit.platform.commons.util.ReflectionUtils.isPrivate;
 import static org.junit.platform.commons.util.ReflectionUtils.makeAccessible;
+import static org.projectnessie.versioned.storage.common.persist.BackgroundExecutor.newBackgroundExecutor;
 import static org.projectnessie.versioned.storage.testextension.ClassPersistInstances.reinit;
 
 import java.lang.annotation.Annotation;
@@ -50,6 +51,7 @@ import org.junit.platform.commons.util.ExceptionUtils;
 import org.junit.platform.commons.util.ReflectionUtils;
 import org.projectnessie.versioned.storage.common.config.StoreConfig;
 import org.projectnessie.versioned.storage.common.persist.Backend;
+import org.projectnessie.versioned.storage.common.persist.BackgroundExecutor;
 import org.projectnessie.versioned.storage.common.persist.Persist;
 import org.projectnessie.versioned.storage.common.persist.PersistFactory;
 
@@ -64,6 +66,11 @@ public class PersistExtension implements BeforeAllCallback, BeforeEachCallback,
   static final String KEY_STATICS = "static-nessie-persist";
   static final String KEY_REUSABLE_BACKEND = "reusable-backend";
 
+  /** Background executor shared by all tests, like a Nessie server provides one. */
+  static final BackgroundExecutor BACKGROUND_EXECUTOR =
+      newBackgroundExecutor(
+          StoreConfig.DEFAULT_BACKGROUND_THREADS, StoreConfig.DEFAULT_BACKGROUND_QUEUE_SIZE);
+
   static <A extends Annotation> A annotationInstance(
       ExtensionContext context, Class<A> annotation) {
     while (true) {
@@ -230,6 +237,8 @@ public class PersistExtension implements BeforeAllCallback, BeforeEachCallback,
 
     config = config.withClock(UniqueMicrosClock.SHARED_INSTANCE);
 
+    config = config.withBackgroundExecutor(BACKGROUND_EXECUTOR);
+
     return classPersistInstances(context).newPersist(config);
   }
 
@@ -28,6 +28,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.assertj.core.api.SoftAssertions;
@@ -45,6 +46,7 @@ import org.projectnessie.versioned.Delete;
 import org.projectnessie.versioned.Hash;
 import org.projectnessie.versioned.Put;
 import org.projectnessie.versioned.VersionStore;
+import org.projectnessie.versioned.paging.PaginationIterator;
 
 @ExtendWith(SoftAssertionsExtension.class)
 public abstract class AbstractCommitLog extends AbstractNestedVersionStore {
@@ -184,4 +186,54 @@ public abstract class AbstractCommitLog extends AbstractNestedVersionStore {
                   Put.of(ContentKey.of("key" + i), newOnRef("value" + i))));
     }
   }
+
+  @Test
+  public void commitLogPredicate() throws Exception {
+    BranchName branch = BranchName.of("commitLogPredicate");
+    store().create(branch, Optional.empty());
+
+    List<Hash> hashes = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      hashes.add(commit("Commit #" + i).put("k" + i, newOnRef("v" + i)).toBranch(branch));
+    }
+    Collections.reverse(hashes);
+
+    Predicate<CommitMeta> evenCommits =
+        meta -> Integer.parseInt(meta.getMessage().substring("Commit #".length())) % 2 == 0;
+
+    for (boolean fetchAdditionalInfo : new boolean[] {false, true}) {
+      List<Commit> commits = new ArrayList<>();
+      try (PaginationIterator<Commit> s =
+          store().getCommits(branch, fetchAdditionalInfo, evenCommits)) {
+        while (s.hasNext()) {
+          Commit c = s.next();
+          commits.add(c);
+          // paging continues from the last returned commit
+          soft.assertThat(s.tokenForCurrent()).isEqualTo(c.getHash().asString());
+        }
+      }
+
+      soft.assertThat(commits)
+          .extracting(Commit::getHash)
+          .containsExactly(
+              hashes.get(1), hashes.get(3), hashes.get(5), hashes.get(7), hashes.get(9));
+      soft.assertThat(commits)
+          .extracting(c -> c.getCommitMeta().getMessage())
+          .containsExactly("Commit #8", "Commit #6", "Commit #4", "Commit #2", "Commit #0");
+      soft.assertThat(commits)
+          .allSatisfy(
+              c -> {
+                if (fetchAdditionalInfo) {
+                  assertThat(c.getOperations()).hasSize(1);
+                } else {
+                  assertThat(c.getOperations()).isNull();
+                }
+              });
+    }
+
+    // a predicate that does not match any commit
+    try (PaginationIterator<Commit> s = store().getCommits(branch, false, meta -> false)) {
+      soft.assertThat(s.hasNext()).isFalse();
+    }
+  }
 }
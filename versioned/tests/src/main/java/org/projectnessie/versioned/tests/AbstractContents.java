@@ -20,6 +20,10 @@ import static java.util.Collections.singletonList;
 import static org.projectnessie.versioned.testworker.OnRefOnly.newOnRef;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
@@ -32,9 +36,11 @@ import org.projectnessie.model.ContentKey;
 import org.projectnessie.versioned.BranchName;
 import org.projectnessie.versioned.Commit;
 import org.projectnessie.versioned.CommitResult;
+import org.projectnessie.versioned.ContentResult;
 import org.projectnessie.versioned.Delete;
 import org.projectnessie.versioned.Hash;
 import org.projectnessie.versioned.Put;
+import org.projectnessie.versioned.Ref;
 import org.projectnessie.versioned.ReferenceAlreadyExistsException;
 import org.projectnessie.versioned.ReferenceNotFoundException;
 import org.projectnessie.versioned.VersionStore;
@@ -99,4 +105,66 @@ public abstract class AbstractContents extends AbstractNestedVersionStore {
     soft.assertThat(contentWithoutId(store().getValue(recreate.getCommitHash(), key)))
         .isEqualTo(recreateState);
   }
+
+  @Test
+  void getValuesMultipleRefs() throws Exception {
+    BranchName branch = BranchName.of("getValuesMultipleRefs");
+    ContentKey key1 = ContentKey.of("key1");
+    ContentKey key2 = ContentKey.of("key2");
+    ContentKey missing = ContentKey.of("missing");
+
+    store().create(branch, Optional.empty());
+    Content v1 = newOnRef("v1");
+    Content v2 = newOnRef("v2");
+    Hash first =
+        store()
+            .commit(
+                branch,
+                Optional.empty(),
+                CommitMeta.fromMessage("first"),
+                ImmutableList.of(Put.of(key1, v1), Put.of(key2, v2)))
+            .getCommitHash();
+    Content v1b = newOnRef("v1b");
+    Hash second =
+        store()
+            .commit(
+                branch,
+                Optional.empty(),
+                CommitMeta.fromMessage("second"),
+                singletonList(Put.of(key1, v1b)))
+            .getCommitHash();
+
+    Map<Ref, List<ContentKey>> keysPerRef = new LinkedHashMap<>();
+    keysPerRef.put(branch, ImmutableList.of(key1, key2, missing));
+    keysPerRef.put(first, ImmutableList.of(key1, key2));
+    keysPerRef.put(second, singletonList(key2));
+
+    Map<Ref, Map<ContentKey, ContentResult>> values = store().getValues(keysPerRef);
+
+    soft.assertThat(values).containsOnlyKeys(branch, first, second);
+    soft.assertThat(values.get(branch)).containsOnlyKeys(key1, key2);
+    soft.assertThat(contentWithoutId(values.get(branch).get(key1))).isEqualTo(v1b);
+    soft.assertThat(contentWithoutId(values.get(branch).get(key2))).isEqualTo(v2);
+    soft.assertThat(values.get(first)).containsOnlyKeys(key1, key2);
+    soft.assertThat(contentWithoutId(values.get(first).get(key1))).isEqualTo(v1);
+    soft.assertThat(contentWithoutId(values.get(first).get(key2))).isEqualTo(v2);
+    soft.assertThat(values.get(second)).containsOnlyKeys(key2);
+    soft.assertThat(contentWithoutId(values.get(second).get(key2))).isEqualTo(v2);
+
+    for (Map.Entry<Ref, List<ContentKey>> e : keysPerRef.entrySet()) {
+      soft.assertThat(values.get(e.getKey()))
+          .isEqualTo(store().getValues(e.getKey(), e.getValue()));
+    }
+
+    soft.assertThatThrownBy(
+            () ->
+                store()
+                    .getValues(
+                        ImmutableMap.of(
+                            branch,
+                            singletonList(key1),
+                            BranchName.of("getValuesMultipleRefs-no-such-branch"),
+                            singletonList(key1))))
+        .isInstanceOf(ReferenceNotFoundException.class);
+  }
 }
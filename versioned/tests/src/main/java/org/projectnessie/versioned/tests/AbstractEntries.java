@@ -16,6 +16,7 @@
 package org.projectnessie.versioned.tests;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assumptions.assumeThat;
 import static org.projectnessie.model.IdentifiedContentKey.IdentifiedElement.identifiedElement;
 import static org.projectnessie.versioned.VersionStore.KeyRestrictions.NO_KEY_RESTRICTIONS;
@@ -23,6 +24,7 @@ import static org.projectnessie.versioned.testworker.OnRefOnly.newOnRef;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
 import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
@@ -157,6 +159,56 @@ public abstract class AbstractEntries extends AbstractNestedVersionStore {
         .containsExactlyInAnyOrder(key2, key2a, key2b, key2c, key2d, key23, key23a, key23b);
   }
 
+  /**
+   * Namespace scans pass the namespace as the {@link KeyRestrictions#prefixKey()}, which must yield
+   * the same keys as filtering all keys by namespace, for both storage models.
+   */
+  @Test
+  public void entriesNamespacePrefix() throws Exception {
+    BranchName branch = BranchName.of("foo");
+    ContentKey a = ContentKey.of("a");
+    ContentKey ab = ContentKey.of("a", "b");
+    ContentKey abTable = ContentKey.of("a", "b", "table");
+    ContentKey abc = ContentKey.of("a", "b", "c");
+    ContentKey abcTable = ContentKey.of("a", "b", "c", "table");
+    ContentKey abx = ContentKey.of("a", "bx");
+    ContentKey abxTable = ContentKey.of("a", "bx", "table");
+    ContentKey aB = ContentKey.of("ab");
+    ContentKey aBTable = ContentKey.of("ab", "table");
+    store().create(branch, Optional.empty()).getHash();
+    Hash commit =
+        commit("Initial Commit")
+            .put(a, Namespace.of(a))
+            .put(ab, Namespace.of(ab))
+            .put(abc, Namespace.of(abc))
+            .put(abx, Namespace.of(abx))
+            .put(aB, Namespace.of(aB))
+            .put(abTable, newOnRef("ab"))
+            .put(abcTable, newOnRef("abc"))
+            .put(abxTable, newOnRef("abx"))
+            .put(aBTable, newOnRef("aB"))
+            .toBranch(branch);
+
+    List<ContentKey> allKeys =
+        keysAsList(commit, NO_KEY_RESTRICTIONS).stream()
+            .map(e -> e.getKey().contentKey())
+            .collect(Collectors.toList());
+    for (ContentKey prefix : asList(a, ab, abc, abx, aB, abcTable, ContentKey.of("b"))) {
+      Namespace namespace = Namespace.of(prefix);
+      soft.assertThat(keysAsList(commit, KeyRestrictions.builder().prefixKey(prefix).build()))
+          .describedAs("prefix %s", prefix)
+          .map(e -> e.getKey().contentKey())
+          .containsExactlyInAnyOrderElementsOf(
+              allKeys.stream()
+                  .filter(k -> Namespace.of(k).isSameOrSubElementOf(namespace))
+                  .collect(Collectors.toList()));
+    }
+
+    soft.assertThat(keysAsList(commit, KeyRestrictions.builder().prefixKey(ab).build()))
+        .map(e -> e.getKey().contentKey())
+        .containsExactlyInAnyOrder(ab, abTable, abc, abcTable);
+  }
+
   List<KeyEntry> keysAsList(Ref ref, KeyRestrictions keyRestrictions) throws Exception {
     try (PaginationIterator<KeyEntry> keys = store().getKeys(ref, null, false, keyRestrictions)) {
       return newArrayList(keys);